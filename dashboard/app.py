@@ -1,5 +1,6 @@
 import time
 import threading
+import struct
 from flask import Flask, jsonify, render_template, request
 
 try:
@@ -40,6 +41,42 @@ def get_nt_value(key, default=None):
         
     return default
 
+# Each subsystem publishes one struct record per loop (see frc.robot.telemetry). Formats are
+# little-endian and must match the schema order in the Java record.
+STRUCT_FORMATS = {
+    "Drive/State": ("DriveState", "<5d?7d", [
+        "pose_x", "pose_y", "heading_radians", "average_distance", "gyro_yaw",
+        "gyro_calibrating", "left_position_rotations", "right_position_rotations",
+        "left_velocity_rpm", "right_velocity_rpm", "current_amps", "vx_mps", "omega_radps"]),
+    "Turret/State": ("TurretState", "<3d?2d", [
+        "output", "position_rotations", "speed_rpm", "unwinding", "current_amps",
+        "angle_radians"]),
+    "Fire/State": ("FlywheelState", "<3di3d", [
+        "output", "speed_rpm", "boost_volts", "shot_count", "time_to_speed",
+        "recovery_time", "current_amps"]),
+    "Intake/State": ("IntakeState", "<2d?id", [
+        "current_amps", "filtered_current_amps", "jammed", "jam_count", "jam_time_lost"]),
+    "Vision/State": ("VisionState", "<4?d", [
+        "pose1_connected", "pose2_connected", "targeting_connected", "has_target",
+        "last_result_timestamp"]),
+}
+
+_struct_subscribers = {}
+
+def get_nt_struct(key):
+    """Returns the latest struct record for a subsystem as a dict, zeroed if not published."""
+    type_name, fmt, fields = STRUCT_FORMATS[key]
+    values = (0,) * len(fields)
+    if HAS_NTCORE and sd is not None:
+        sub = _struct_subscribers.get(key)
+        if sub is None:
+            sub = sd.getRawTopic(key).subscribe("struct:" + type_name, b"")
+            _struct_subscribers[key] = sub
+        raw = sub.get()
+        if len(raw) == struct.calcsize(fmt):
+            values = struct.unpack(fmt, raw)
+    return dict(zip(fields, values))
+
 def set_nt_value(key, value):
     if not HAS_NTCORE or sd is None:
         return
@@ -61,27 +98,11 @@ def health():
         "status": "connected" if (HAS_NTCORE and inst.isConnected()) else "disconnected",
         "has_ntcore": HAS_NTCORE,
         "health": {
-            "drive": {
-                "average_distance": get_nt_value("Average Distance Traveled", 0.0),
-                "gyro_yaw": get_nt_value("Current Gyro Yaw", 0.0),
-                "gyro_calibrating": get_nt_value("Gyro Calibrating", False)
-            },
-            "intake": {
-                "current_amps": get_nt_value("Intake Current (A)", 0.0),
-                "jammed": get_nt_value("Intake Jammed", False)
-            },
-            "turret": {
-                "position_rotations": get_nt_value("TurretPositionRotations", 0.0),
-                "speed_rpm": get_nt_value("TurretVelocityRPM", 0.0)
-            },
-            "fire_control": {
-                "speed_rpm": get_nt_value("FireVelocityRPM", 0.0)
-            },
-            "cameras": {
-                "pose1_connected": get_nt_value("poseCamera1Connected", False),
-                "pose2_connected": get_nt_value("poseCamera2Connected", False),
-                "targeting_connected": get_nt_value("TargetingCamera1Connnected", False)
-            }
+            "drive": get_nt_struct("Drive/State"),
+            "intake": get_nt_struct("Intake/State"),
+            "turret": get_nt_struct("Turret/State"),
+            "fire_control": get_nt_struct("Fire/State"),
+            "cameras": get_nt_struct("Vision/State")
         }
     })
 
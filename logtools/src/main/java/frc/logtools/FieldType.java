@@ -0,0 +1,103 @@
+package frc.logtools;
+
+/** Primitive value types that can be read out of a log record as a number. */
+public enum FieldType {
+  BOOL(1),
+  INT8(1),
+  INT16(2),
+  INT32(4),
+  INT64(8),
+  UINT8(1),
+  UINT16(2),
+  UINT32(4),
+  UINT64(8),
+  FLOAT(4),
+  DOUBLE(8);
+
+  private final int m_size;
+
+  FieldType(int size) {
+    m_size = size;
+  }
+
+  public int getSize() {
+    return m_size;
+  }
+
+  /** Reads a value of this type at a file offset, with booleans as 0 or 1. */
+  public double read(LogFile file, long offset) {
+    switch (this) {
+      case BOOL:
+        return file.getUnsignedByte(offset) != 0 ? 1.0 : 0.0;
+      case INT8:
+        return (byte) file.getUnsignedByte(offset);
+      case INT16:
+        return file.getShort(offset);
+      case INT32:
+        return file.getInt(offset);
+      case INT64:
+        return file.getLong(offset);
+      case UINT8:
+        return file.getUnsignedByte(offset);
+      case UINT16:
+        return file.getShort(offset) & 0xffff;
+      case UINT32:
+        return file.getInt(offset) & 0xffffffffL;
+      case UINT64:
+        long value = file.getLong(offset);
+        return value >= 0 ? value : (value >>> 1) * 2.0 + (value & 1);
+      case FLOAT:
+        return file.getFloat(offset);
+      default:
+        return file.getDouble(offset);
+    }
+  }
+
+  /** Returns the type of a scalar WPILOG entry type string, or null if it isn't numeric. */
+  public static FieldType ofEntryType(String type) {
+    switch (type) {
+      case "boolean":
+        return BOOL;
+      case "int64":
+        return INT64;
+      case "float":
+        return FLOAT;
+      case "double":
+        return DOUBLE;
+      default:
+        return null;
+    }
+  }
+
+  /** Returns the type of a struct schema member type, or null if it isn't a numeric primitive. */
+  public static FieldType ofSchemaType(String type) {
+    switch (type) {
+      case "bool":
+        return BOOL;
+      case "int8":
+        return INT8;
+      case "int16":
+        return INT16;
+      case "int32":
+        return INT32;
+      case "int64":
+        return INT64;
+      case "uint8":
+        return UINT8;
+      case "uint16":
+        return UINT16;
+      case "uint32":
+        return UINT32;
+      case "uint64":
+        return UINT64;
+      case "float":
+      case "float32":
+        return FLOAT;
+      case "double":
+      case "float64":
+        return DOUBLE;
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package frc.logtools;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A flight recorder dump, as written by {@code frc.robot.utils.FlightRecorder} when the robot hits
+ * a brownout, loop overrun or fault. Every track is read into memory.
+ */
+public final class FlightRecording {
+  private static final String MAGIC = "FLIGHTR1";
+
+  /** One track's frames, oldest first. */
+  public static final class Track {
+    private final String m_name;
+    private final List<String> m_channels;
+    private final double[] m_timestamps;
+    private final float[][] m_values;
+
+    private Track(String name, List<String> channels, double[] timestamps, float[][] values) {
+      m_name = name;
+      m_channels = channels;
+      m_timestamps = timestamps;
+      m_values = values;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    public List<String> getChannels() {
+      return m_channels;
+    }
+
+    public int size() {
+      return m_timestamps.length;
+    }
+
+    /** Returns the time of a frame in seconds, on the robot's FPGA clock. */
+    public double getTimestamp(int frame) {
+      return m_timestamps[frame];
+    }
+
+    public double getValue(int frame, int channel) {
+      return m_values[frame][channel];
+    }
+
+    /** Formats the track as CSV, a timestamp column then a column per channel. */
+    public String toCsv() {
+      StringBuilder csv = new StringBuilder("Timestamp");
+      for (String channel : m_channels) {
+        csv.append(',').append(channel);
+      }
+      csv.append('\n');
+      for (int frame = 0; frame < m_timestamps.length; frame++) {
+        csv.append(String.format("%.6f", m_timestamps[frame]));
+        for (float value : m_values[frame]) {
+          csv.append(',').append(value);
+        }
+        csv.append('\n');
+      }
+      return csv.toString();
+    }
+  }
+
+  private final String m_reason;
+  private final double m_triggerTimestamp;
+  private final List<Track> m_tracks;
+
+  private FlightRecording(String reason, double triggerTimestamp, List<Track> tracks) {
+    m_reason = reason;
+    m_triggerTimestamp = triggerTimestamp;
+    m_tracks = tracks;
+  }
+
+  /** Reads a dump file. */
+  public static FlightRecording read(Path path) throws IOException {
+    try (InputStream input = Files.newInputStream(path)) {
+      return read(input);
+    }
+  }
+
+  /**
+   * Reads a dump.
+   *
+   * @param input The dump, left open.
+   * @throws IOException If it can't be read or isn't a flight recorder dump.
+   */
+  public static FlightRecording read(InputStream input) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+    byte[] magic = new byte[MAGIC.length()];
+    in.readFully(magic);
+    if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII))) {
+      throw new IOException("Not a flight recorder dump");
+    }
+    String reason = in.readUTF();
+    double triggerTimestamp = in.readDouble();
+    int trackCount = in.readInt();
+    List<Track> tracks = new ArrayList<>(trackCount);
+    for (int t = 0; t < trackCount; t++) {
+      String name = in.readUTF();
+      int channelCount = in.readInt();
+      List<String> channels = new ArrayList<>(channelCount);
+      for (int c = 0; c < channelCount; c++) {
+        channels.add(in.readUTF());
+      }
+      int frameCount = in.readInt();
+      double[] timestamps = new double[frameCount];
+      float[][] values = new float[frameCount][channelCount];
+      for (int frame = 0; frame < frameCount; frame++) {
+        timestamps[frame] = in.readDouble();
+        for (int c = 0; c < channelCount; c++) {
+          values[frame][c] = in.readFloat();
+        }
+      }
+      tracks.add(new Track(name, Collections.unmodifiableList(channels), timestamps, values));
+    }
+    return new FlightRecording(reason, triggerTimestamp, Collections.unmodifiableList(tracks));
+  }
+
+  public String getReason() {
+    return m_reason;
+  }
+
+  /** Returns when the dump was triggered, in seconds on the robot's FPGA clock. */
+  public double getTriggerTimestamp() {
+    return m_triggerTimestamp;
+  }
+
+  public List<Track> getTracks() {
+    return m_tracks;
+  }
+
+  /** Returns the named track, or null if the dump doesn't have it. */
+  public Track getTrack(String name) {
+    for (Track track : m_tracks) {
+      if (track.getName().equals(name)) {
+        return track;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,218 @@
+package frc.logtools;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of a WPILOG file.
+ *
+ * <p>Files over 2 GB are mapped as several overlapping segments. Any header, value or payload
+ * shorter than the overlap that starts inside a segment ends inside it too, so reads never have to
+ * stitch segments together.
+ */
+public final class LogFile implements Closeable {
+  private static final int SEGMENT_SHIFT = 30;
+  private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+  private static final int SEGMENT_OVERLAP = 1 << 24;
+  private static final int HEADER_SIZE = 12;
+
+  /** Decoded header of one record. Reused between reads to avoid allocating per record. */
+  public static final class Record {
+    public long offset;
+    public int entryId;
+    public long payloadOffset;
+    public int payloadSize;
+    public long timestamp;
+
+    public long nextOffset() {
+      return payloadOffset + payloadSize;
+    }
+  }
+
+  private final Path m_path;
+  private final FileChannel m_channel;
+  private final long m_size;
+  private final ByteBuffer[] m_segments;
+  private final long m_firstRecordOffset;
+  private final String m_extraHeader;
+
+  /**
+   * Opens and maps a log.
+   *
+   * @param path The .wpilog file.
+   * @throws IOException If the file can't be read or isn't a WPILOG.
+   */
+  public LogFile(Path path) throws IOException {
+    m_path = path;
+    m_channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      m_size = m_channel.size();
+      if (m_size < HEADER_SIZE) {
+        throw new IOException(path + " is too short to be a WPILOG");
+      }
+      int count = (int) ((m_size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+      m_segments = new ByteBuffer[count];
+      for (int i = 0; i < count; i++) {
+        long start = (long) i << SEGMENT_SHIFT;
+        long length = Math.min(m_size - start, SEGMENT_SIZE + SEGMENT_OVERLAP);
+        m_segments[i] =
+            m_channel.map(MapMode.READ_ONLY, start, length).order(ByteOrder.LITTLE_ENDIAN);
+      }
+
+      if (!getString(0, 6).equals("WPILOG")) {
+        throw new IOException(path + " is not a WPILOG");
+      }
+      int version = getShort(6) & 0xffff;
+      if (version != 0x0100) {
+        throw new IOException(path + " has unsupported WPILOG version " + version);
+      }
+      int extraLength = getInt(8);
+      m_extraHeader = getString(HEADER_SIZE, extraLength);
+      m_firstRecordOffset = HEADER_SIZE + (long) extraLength;
+    } catch (IOException e) {
+      m_channel.close();
+      throw e;
+    }
+  }
+
+  public Path getPath() {
+    return m_path;
+  }
+
+  public long getSize() {
+    return m_size;
+  }
+
+  public String getExtraHeader() {
+    return m_extraHeader;
+  }
+
+  public long getFirstRecordOffset() {
+    return m_firstRecordOffset;
+  }
+
+  /**
+   * Decodes the record header at an offset.
+   *
+   * @param offset File offset of the record.
+   * @param record Filled in with the decoded header.
+   * @return False at the end of the file or if the record is truncated (e.g. power was cut).
+   */
+  public boolean readRecord(long offset, Record record) {
+    if (offset >= m_size) {
+      return false;
+    }
+    int header = getUnsignedByte(offset);
+    int entryLength = (header & 0x3) + 1;
+    int sizeLength = ((header >> 2) & 0x3) + 1;
+    int timestampLength = ((header >> 4) & 0x7) + 1;
+    long payloadOffset = offset + 1 + entryLength + sizeLength + timestampLength;
+    if (payloadOffset > m_size) {
+      return false;
+    }
+    long payloadSize = getUnsigned(offset + 1 + entryLength, sizeLength);
+    if (payloadOffset + payloadSize > m_size || payloadSize > Integer.MAX_VALUE) {
+      return false;
+    }
+    record.offset = offset;
+    record.entryId = (int) getUnsigned(offset + 1, entryLength);
+    record.payloadOffset = payloadOffset;
+    record.payloadSize = (int) payloadSize;
+    record.timestamp = getUnsigned(offset + 1 + entryLength + sizeLength, timestampLength);
+    return true;
+  }
+
+  /** Returns the timestamp in microseconds of the record at an offset. */
+  public long getTimestamp(long offset) {
+    int header = getUnsignedByte(offset);
+    int entryLength = (header & 0x3) + 1;
+    int sizeLength = ((header >> 2) & 0x3) + 1;
+    int timestampLength = ((header >> 4) & 0x7) + 1;
+    return getUnsigned(offset + 1 + entryLength + sizeLength, timestampLength);
+  }
+
+  /** Returns the file offset of the payload of the record at an offset. */
+  public long getPayloadOffset(long offset) {
+    int header = getUnsignedByte(offset);
+    return offset + 1 + (header & 0x3) + 1 + ((header >> 2) & 0x3) + 1 + ((header >> 4) & 0x7) + 1;
+  }
+
+  /** Returns the payload size of the record at an offset. */
+  public int getPayloadSize(long offset) {
+    int header = getUnsignedByte(offset);
+    int entryLength = (header & 0x3) + 1;
+    return (int) getUnsigned(offset + 1 + entryLength, ((header >> 2) & 0x3) + 1);
+  }
+
+  /** Reads a little-endian unsigned integer of 1 to 8 bytes. */
+  public long getUnsigned(long offset, int length) {
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value |= (long) getUnsignedByte(offset + i) << (8 * i);
+    }
+    return value;
+  }
+
+  public int getUnsignedByte(long offset) {
+    return segment(offset).get(position(offset)) & 0xff;
+  }
+
+  public short getShort(long offset) {
+    return segment(offset).getShort(position(offset));
+  }
+
+  public int getInt(long offset) {
+    return segment(offset).getInt(position(offset));
+  }
+
+  public long getLong(long offset) {
+    return segment(offset).getLong(position(offset));
+  }
+
+  public float getFloat(long offset) {
+    return segment(offset).getFloat(position(offset));
+  }
+
+  public double getDouble(long offset) {
+    return segment(offset).getDouble(position(offset));
+  }
+
+  public String getString(long offset, int length) {
+    return new String(getBytes(offset, length), StandardCharsets.UTF_8);
+  }
+
+  /** Copies bytes out of the log. Longer reads than the segment overlap go through the channel. */
+  public byte[] getBytes(long offset, int length) {
+    byte[] bytes = new byte[length];
+    if (length <= SEGMENT_OVERLAP) {
+      segment(offset).get(position(offset), bytes);
+      return bytes;
+    }
+    try {
+      m_channel.read(ByteBuffer.wrap(bytes), offset);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read " + m_path, e);
+    }
+    return bytes;
+  }
+
+  private ByteBuffer segment(long offset) {
+    return m_segments[(int) (offset >>> SEGMENT_SHIFT)];
+  }
+
+  private static int position(long offset) {
+    return (int) (offset & (SEGMENT_SIZE - 1));
+  }
+
+  @Override
+  public void close() throws IOException {
+    m_channel.close();
+  }
+}
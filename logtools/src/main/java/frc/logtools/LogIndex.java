@@ -0,0 +1,497 @@
+package frc.logtools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-key time index of a WPILOG.
+ *
+ * <p>For every entry the index holds the file offset of each of its records, so a key's history can
+ * be read straight out of the mapped log without scanning anything else. Records are grouped into
+ * blocks of {@link #BLOCK_SIZE}, and each numeric column keeps its min and max per block, so a
+ * query can skip whole stretches of a match that can't satisfy it.
+ *
+ * <p>The index is saved next to the log as {@code <log>.idx} and reused until the log changes.
+ */
+public final class LogIndex {
+  public static final int BLOCK_SIZE = 256;
+  /** AdvantageKit logs this every loop, so it marks loop boundaries. */
+  public static final String CLOCK_ENTRY = "/Timestamp";
+
+  private static final String MAGIC = "WPIDX1";
+  private static final String SCHEMA_PREFIX = "/.schema/struct:";
+
+  /** One logged key. */
+  public static final class Entry {
+    private final String m_name;
+    private final String m_type;
+    private String m_metadata;
+    private final List<Column> m_columns = new ArrayList<>();
+    private boolean m_resolved = false;
+
+    private long[] m_offsets = new long[64];
+    private int m_count = 0;
+    private long[] m_blockStarts = new long[4];
+
+    Entry(String name, String type, String metadata) {
+      m_name = name;
+      m_type = type;
+      m_metadata = metadata;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    public String getType() {
+      return m_type;
+    }
+
+    public String getMetadata() {
+      return m_metadata;
+    }
+
+    public List<Column> getColumns() {
+      return m_columns;
+    }
+
+    public int getRecordCount() {
+      return m_count;
+    }
+
+    public long getRecordOffset(int record) {
+      return m_offsets[record];
+    }
+
+    public int getBlockCount() {
+      return (m_count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /** Returns the timestamp of the first record in a block, in microseconds. */
+    public long getBlockStart(int block) {
+      return m_blockStarts[block];
+    }
+
+    /**
+     * Returns the last record logged at or before a time, or -1 if there is none.
+     *
+     * @param file The log this index was built from.
+     * @param timestamp Time in microseconds.
+     */
+    public int floorRecord(LogFile file, long timestamp) {
+      int block = Arrays.binarySearch(m_blockStarts, 0, getBlockCount(), timestamp);
+      if (block < 0) {
+        block = -block - 2;
+        if (block < 0) {
+          return -1;
+        }
+      }
+      // Several blocks can start at the same timestamp; settle on the last one
+      while (block + 1 < getBlockCount() && m_blockStarts[block + 1] <= timestamp) {
+        block++;
+      }
+      int low = block * BLOCK_SIZE;
+      int high = Math.min(low + BLOCK_SIZE, m_count) - 1;
+      while (low < high) {
+        int mid = (low + high + 1) >>> 1;
+        if (file.getTimestamp(m_offsets[mid]) <= timestamp) {
+          low = mid;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return low;
+    }
+
+    private void add(LogFile file, LogFile.Record record, StructLayouts layouts) {
+      if (!m_resolved) {
+        resolve(layouts);
+      }
+      int block = m_count / BLOCK_SIZE;
+      if (m_count % BLOCK_SIZE == 0) {
+        if (block == m_blockStarts.length) {
+          m_blockStarts = Arrays.copyOf(m_blockStarts, block * 2);
+        }
+        m_blockStarts[block] = record.timestamp;
+        for (Column column : m_columns) {
+          column.startBlock(block, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+        }
+      }
+      if (m_count == m_offsets.length) {
+        m_offsets = Arrays.copyOf(m_offsets, m_count * 2);
+      }
+      m_offsets[m_count++] = record.offset;
+
+      for (Column column : m_columns) {
+        if (record.payloadSize >= column.m_offset + column.m_type.getSize()) {
+          column.include(block, column.m_type.read(file, record.payloadOffset + column.m_offset));
+        }
+      }
+    }
+
+    private void resolve(StructLayouts layouts) {
+      FieldType scalar = FieldType.ofEntryType(m_type);
+      if (scalar != null) {
+        m_columns.add(new Column(this, "", scalar, 0));
+      } else if (m_type.startsWith("struct:")) {
+        // Struct arrays expose their first element, which covers single poses logged as arrays
+        String typeName = m_type.substring("struct:".length()).replace("[]", "");
+        StructLayouts.Layout layout = layouts.get(typeName);
+        if (layout == null) {
+          return;
+        }
+        for (StructLayouts.Field field : layout.fields()) {
+          Column column = new Column(this, "." + field.path(), field.type(), field.offset());
+          // Blocks logged before the schema arrived can't be bounded
+          for (int block = 0; block < getBlockCount(); block++) {
+            column.startBlock(block, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+          }
+          m_columns.add(column);
+        }
+      }
+      m_resolved = true;
+    }
+
+    private void trim() {
+      m_offsets = Arrays.copyOf(m_offsets, m_count);
+      m_blockStarts = Arrays.copyOf(m_blockStarts, getBlockCount());
+      for (Column column : m_columns) {
+        column.m_blockMin = Arrays.copyOf(column.m_blockMin, getBlockCount());
+        column.m_blockMax = Arrays.copyOf(column.m_blockMax, getBlockCount());
+      }
+    }
+  }
+
+  /** A numeric value inside an entry: the entry itself for scalars, or one struct member. */
+  public static final class Column {
+    private final Entry m_entry;
+    private final String m_path;
+    private final FieldType m_type;
+    private final int m_offset;
+    private double[] m_blockMin = new double[4];
+    private double[] m_blockMax = new double[4];
+
+    Column(Entry entry, String path, FieldType type, int offset) {
+      m_entry = entry;
+      m_path = path;
+      m_type = type;
+      m_offset = offset;
+    }
+
+    public Entry getEntry() {
+      return m_entry;
+    }
+
+    /** Returns the entry name plus any struct member path, e.g. {@code /Fire/State.rpm}. */
+    public String getName() {
+      return m_entry.m_name + m_path;
+    }
+
+    public FieldType getType() {
+      return m_type;
+    }
+
+    public double getBlockMin(int block) {
+      return m_blockMin[block];
+    }
+
+    public double getBlockMax(int block) {
+      return m_blockMax[block];
+    }
+
+    /**
+     * Reads this column from one of its entry's records.
+     *
+     * @return The value, or NaN if the record is too short to hold it (e.g. an empty array).
+     */
+    public double read(LogFile file, int record) {
+      long offset = m_entry.m_offsets[record];
+      if (file.getPayloadSize(offset) < m_offset + m_type.getSize()) {
+        return Double.NaN;
+      }
+      return m_type.read(file, file.getPayloadOffset(offset) + m_offset);
+    }
+
+    private void startBlock(int block, double min, double max) {
+      if (block >= m_blockMin.length) {
+        m_blockMin = Arrays.copyOf(m_blockMin, Math.max(block + 1, m_blockMin.length * 2));
+        m_blockMax = Arrays.copyOf(m_blockMax, m_blockMin.length);
+      }
+      m_blockMin[block] = min;
+      m_blockMax[block] = max;
+    }
+
+    private void include(int block, double value) {
+      // NaN never satisfies a comparison, so it doesn't widen the block
+      if (value < m_blockMin[block]) {
+        m_blockMin[block] = value;
+      }
+      if (value > m_blockMax[block]) {
+        m_blockMax[block] = value;
+      }
+    }
+  }
+
+  private final long m_logSize;
+  private final long m_logModified;
+  private final Map<String, Entry> m_entries = new LinkedHashMap<>();
+
+  private LogIndex(long logSize, long logModified) {
+    m_logSize = logSize;
+    m_logModified = logModified;
+  }
+
+  /**
+   * Returns the index for a log, loading {@code <log>.idx} if it is up to date and otherwise
+   * building it and saving it for next time.
+   *
+   * @param file The mapped log.
+   * @throws IOException If the log's modification time can't be read.
+   */
+  public static LogIndex open(LogFile file) throws IOException {
+    Path indexPath = indexPath(file.getPath());
+    long modified = Files.getLastModifiedTime(file.getPath()).toMillis();
+    LogIndex index = load(indexPath, file.getSize(), modified);
+    if (index != null) {
+      return index;
+    }
+    index = build(file, modified);
+    try {
+      index.save(indexPath);
+    } catch (IOException e) {
+      // Still usable, just rebuilt next time
+      System.err.println("Could not save index " + indexPath + ": " + e.getMessage());
+    }
+    return index;
+  }
+
+  public static Path indexPath(Path log) {
+    return log.resolveSibling(log.getFileName() + ".idx");
+  }
+
+  /** Scans a log once and indexes every record. */
+  static LogIndex build(LogFile file, long modified) {
+    LogIndex index = new LogIndex(file.getSize(), modified);
+    StructLayouts layouts = new StructLayouts();
+    Map<Integer, Entry> active = new HashMap<>();
+    LogFile.Record record = new LogFile.Record();
+
+    long offset = file.getFirstRecordOffset();
+    while (file.readRecord(offset, record)) {
+      offset = record.nextOffset();
+      if (record.entryId == 0) {
+        index.control(file, record, active);
+        continue;
+      }
+      Entry entry = active.get(record.entryId);
+      if (entry == null) {
+        continue;
+      }
+      if (entry.m_type.equals("structschema") && entry.m_name.startsWith(SCHEMA_PREFIX)) {
+        layouts.addSchema(
+            entry.m_name.substring(SCHEMA_PREFIX.length()),
+            file.getString(record.payloadOffset, record.payloadSize));
+      }
+      entry.add(file, record, layouts);
+    }
+
+    for (Entry entry : index.m_entries.values()) {
+      entry.trim();
+    }
+    return index;
+  }
+
+  private void control(LogFile file, LogFile.Record record, Map<Integer, Entry> active) {
+    long payload = record.payloadOffset;
+    long end = payload + record.payloadSize;
+    if (record.payloadSize < 5) {
+      return;
+    }
+    int type = file.getUnsignedByte(payload);
+    int entryId = file.getInt(payload + 1);
+    if (type == 0) {
+      // Start: name, type and metadata, each a length-prefixed string
+      String[] strings = new String[3];
+      long position = payload + 5;
+      for (int i = 0; i < strings.length; i++) {
+        if (position + 4 > end) {
+          return;
+        }
+        int length = file.getInt(position);
+        if (length < 0 || position + 4 + length > end) {
+          return;
+        }
+        strings[i] = file.getString(position + 4, length);
+        position += 4 + length;
+      }
+      Entry entry = m_entries.get(strings[0]);
+      if (entry == null || !entry.m_type.equals(strings[1])) {
+        entry = new Entry(strings[0], strings[1], strings[2]);
+        m_entries.put(strings[0], entry);
+      }
+      active.put(entryId, entry);
+    } else if (type == 1) {
+      active.remove(entryId);
+    } else if (type == 2 && record.payloadSize >= 9) {
+      Entry entry = active.get(entryId);
+      int length = file.getInt(payload + 5);
+      if (entry != null && length >= 0 && payload + 9 + length <= end) {
+        entry.m_metadata = file.getString(payload + 9, length);
+      }
+    }
+  }
+
+  public Collection<Entry> getEntries() {
+    return m_entries.values();
+  }
+
+  /** Returns an entry by its exact name, or null. */
+  public Entry getEntry(String name) {
+    return m_entries.get(name);
+  }
+
+  /** Returns every numeric column in the log. */
+  public List<Column> getColumns() {
+    List<Column> columns = new ArrayList<>();
+    for (Entry entry : m_entries.values()) {
+      columns.addAll(entry.m_columns);
+    }
+    return columns;
+  }
+
+  /**
+   * Finds a column by name. Besides the full name, any trailing part of it after a {@code /} is
+   * accepted, so {@code Fire/State.rpm} finds {@code /RealOutputs/Fire/State.rpm}. If several
+   * match, the shortest name wins.
+   *
+   * @return The column, or null if nothing matches.
+   */
+  public Column findColumn(String key) {
+    Column best = null;
+    for (Entry entry : m_entries.values()) {
+      for (Column column : entry.m_columns) {
+        String name = column.getName();
+        if (name.equals(key)) {
+          return column;
+        }
+        if (name.endsWith("/" + key)
+            && (best == null || name.length() < best.getName().length())) {
+          best = column;
+        }
+      }
+    }
+    return best;
+  }
+
+  private void save(Path path) throws IOException {
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+      out.writeBytes(MAGIC);
+      out.writeLong(m_logSize);
+      out.writeLong(m_logModified);
+      out.writeInt(BLOCK_SIZE);
+      out.writeInt(m_entries.size());
+      for (Entry entry : m_entries.values()) {
+        writeString(out, entry.m_name);
+        writeString(out, entry.m_type);
+        writeString(out, entry.m_metadata);
+        out.writeInt(entry.m_count);
+        for (int i = 0; i < entry.m_count; i++) {
+          out.writeLong(entry.m_offsets[i]);
+        }
+        for (int block = 0; block < entry.getBlockCount(); block++) {
+          out.writeLong(entry.m_blockStarts[block]);
+        }
+        out.writeInt(entry.m_columns.size());
+        for (Column column : entry.m_columns) {
+          writeString(out, column.m_path);
+          out.writeByte(column.m_type.ordinal());
+          out.writeInt(column.m_offset);
+          for (int block = 0; block < entry.getBlockCount(); block++) {
+            out.writeDouble(column.m_blockMin[block]);
+            out.writeDouble(column.m_blockMax[block]);
+          }
+        }
+      }
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /** Loads a saved index, or returns null if it is missing, unreadable or for another log. */
+  private static LogIndex load(Path path, long logSize, long logModified) {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+      byte[] magic = new byte[MAGIC.length()];
+      in.readFully(magic);
+      if (!new String(magic, StandardCharsets.US_ASCII).equals(MAGIC)
+          || in.readLong() != logSize
+          || in.readLong() != logModified
+          || in.readInt() != BLOCK_SIZE) {
+        return null;
+      }
+      LogIndex index = new LogIndex(logSize, logModified);
+      int entryCount = in.readInt();
+      for (int i = 0; i < entryCount; i++) {
+        Entry entry = new Entry(readString(in), readString(in), readString(in));
+        entry.m_resolved = true;
+        entry.m_count = in.readInt();
+        entry.m_offsets = new long[entry.m_count];
+        for (int record = 0; record < entry.m_count; record++) {
+          entry.m_offsets[record] = in.readLong();
+        }
+        entry.m_blockStarts = new long[entry.getBlockCount()];
+        for (int block = 0; block < entry.getBlockCount(); block++) {
+          entry.m_blockStarts[block] = in.readLong();
+        }
+        int columnCount = in.readInt();
+        for (int c = 0; c < columnCount; c++) {
+          Column column =
+              new Column(entry, readString(in), FieldType.values()[in.readByte()], in.readInt());
+          column.m_blockMin = new double[entry.getBlockCount()];
+          column.m_blockMax = new double[entry.getBlockCount()];
+          for (int block = 0; block < entry.getBlockCount(); block++) {
+            column.m_blockMin[block] = in.readDouble();
+            column.m_blockMax[block] = in.readDouble();
+          }
+          entry.m_columns.add(column);
+        }
+        index.m_entries.put(entry.m_name, entry);
+      }
+      return index;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Ignoring unreadable index " + path + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
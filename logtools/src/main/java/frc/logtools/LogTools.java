@@ -0,0 +1,252 @@
+package frc.logtools;
+
+import frc.robot.utils.aim.ConstantVelocityLeadSolver;
+import frc.robot.utils.aim.LeadSolver;
+import frc.robot.utils.aim.MovingShotLeadSolver;
+import frc.robot.utils.aim.RobotMotion;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Command line entry point.
+ *
+ * <pre>
+ * logtools index &lt;log or dir&gt;...            build or refresh the .idx next to each log
+ * logtools keys &lt;log&gt;                        list the queryable keys in a log
+ * logtools query "&lt;query&gt;" &lt;log or dir&gt;...  print the runs of loops matching a query
+ * logtools report &lt;log or dir&gt;...           write a match report next to each log
+ * logtools sysid &lt;mechanism&gt; &lt;gains.json&gt; &lt;log or dir&gt;...
+ *                                          fit a mechanism's feedforward from SysId tests
+ * logtools flight &lt;dump&gt;...                 write each flight recorder track as CSV
+ * </pre>
+ *
+ * <p>Directories are searched recursively for {@code .wpilog} files, and logs are processed in
+ * parallel.
+ */
+public final class LogTools {
+  /** Lead solvers the report re-runs against fired shots. Add new candidates here to compare. */
+  static final Map<String, LeadSolver> LEAD_CANDIDATES = new LinkedHashMap<>();
+
+  static {
+    LeadSolver constantVelocity = new ConstantVelocityLeadSolver();
+    LEAD_CANDIDATES.put("constant-velocity", constantVelocity);
+    LEAD_CANDIDATES.put("moving-shot", new MovingShotLeadSolver());
+    // Baseline: aim as if the robot were standing still
+    LEAD_CANDIDATES.put(
+        "no-lead",
+        (robot, targetX, targetY, height) ->
+            constantVelocity.solve(
+                new RobotMotion(robot.x(), robot.y(), robot.headingRadians(), 0, 0, 0, 0, 0),
+                targetX,
+                targetY,
+                height));
+  }
+
+  private LogTools() {}
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      usage();
+      return;
+    }
+    long startNanos = System.nanoTime();
+    switch (args[0]) {
+      case "index":
+        List<Path> logs = findLogs(args, 1);
+        logs.parallelStream()
+            .forEach(
+                log -> {
+                  try (LogFile file = new LogFile(log)) {
+                    LogIndex.open(file);
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+        System.err.printf("Indexed %d logs%n", logs.size());
+        break;
+      case "keys":
+        try (LogFile file = new LogFile(Path.of(args[1]))) {
+          for (LogIndex.Entry entry : LogIndex.open(file).getEntries()) {
+            if (entry.getColumns().isEmpty()) {
+              System.out.printf(
+                  "%-60s %-20s %d records (not queryable)%n",
+                  entry.getName(), entry.getType(), entry.getRecordCount());
+            }
+            for (LogIndex.Column column : entry.getColumns()) {
+              System.out.printf(
+                  "%-60s %-20s %d records%n",
+                  column.getName(), column.getType(), entry.getRecordCount());
+            }
+          }
+        }
+        break;
+      case "query":
+        if (args.length < 3) {
+          usage();
+          return;
+        }
+        query(Query.parse(args[1]), findLogs(args, 2));
+        break;
+      case "report":
+        report(findLogs(args, 1));
+        break;
+      case "sysid":
+        if (args.length < 4) {
+          usage();
+          return;
+        }
+        sysId(args[1], Path.of(args[2]), findLogs(args, 3));
+        break;
+      case "flight":
+        for (int i = 1; i < args.length; i++) {
+          flight(Path.of(args[i]));
+        }
+        break;
+      default:
+        usage();
+        return;
+    }
+    System.err.printf("Done in %.1f ms%n", (System.nanoTime() - startNanos) / 1e6);
+  }
+
+  private static void query(Query query, List<Path> logs) {
+    // Results are collected in parallel, then printed in log order
+    List<String> reports =
+        logs.parallelStream()
+            .map(
+                log -> {
+                  try (LogFile file = new LogFile(log)) {
+                    StringBuilder report = new StringBuilder();
+                    for (Query.Match match : query.run(file, LogIndex.open(file))) {
+                      report.append(
+                          String.format(
+                              "%s  %10.3f s  %10.3f s  %8.3f s  %6d loops%n",
+                              log,
+                              match.start() / 1e6,
+                              match.end() / 1e6,
+                              match.durationSeconds(),
+                              match.loops()));
+                    }
+                    return report.toString();
+                  } catch (IOException | IllegalArgumentException e) {
+                    return log + "  skipped: " + e.getMessage() + System.lineSeparator();
+                  }
+                })
+            .toList();
+    reports.forEach(System.out::print);
+  }
+
+  private static void report(List<Path> logs) {
+    List<String> summaries =
+        logs.parallelStream()
+            .map(
+                log -> {
+                  try (LogFile file = new LogFile(log)) {
+                    MatchReport report =
+                        MatchReport.analyze(file, LogIndex.open(file), LEAD_CANDIDATES);
+                    Path output = log.resolveSibling(log.getFileName() + ".report.md");
+                    Files.writeString(output, report.format());
+                    return String.format(
+                        "%s  %d shots  %d loop overruns  -> %s%n",
+                        log, report.getShots(), report.getOverruns(), output.getFileName());
+                  } catch (IOException e) {
+                    return log + "  skipped: " + e.getMessage() + System.lineSeparator();
+                  }
+                })
+            .toList();
+    summaries.forEach(System.out::print);
+  }
+
+  /**
+   * Fits the feedforward of one mechanism across every log, and writes it where the robot loads it
+   * from at boot.
+   *
+   * @param mechanism The name the subsystem logs its tests under, e.g. "Turret".
+   * @param output The gains file, normally under {@code src/main/deploy/sysid}.
+   * @param logs Logs holding the SysId tests.
+   */
+  private static void sysId(String mechanism, Path output, List<Path> logs) throws IOException {
+    SysIdFitter fitter = new SysIdFitter();
+    String prefix = "SysId/" + mechanism + "/";
+    for (Path log : logs) {
+      try (LogFile file = new LogFile(log)) {
+        LogIndex index = LogIndex.open(file);
+        Series voltage = Series.read(file, index, prefix + "Voltage");
+        Series velocity = Series.read(file, index, prefix + "Velocity");
+        if (voltage == null || velocity == null) {
+          System.out.printf("%s  skipped: no %s tests%n", log, mechanism);
+          continue;
+        }
+        System.out.printf("%s  %d samples%n", log, fitter.add(voltage, velocity));
+      }
+    }
+
+    SysIdFitter.Fit fit;
+    try {
+      fit = fitter.fit();
+    } catch (IllegalStateException e) {
+      System.out.println("Can't fit " + mechanism + ": " + e.getMessage());
+      return;
+    }
+    if (output.getParent() != null) {
+      Files.createDirectories(output.getParent());
+    }
+    Files.writeString(output, fit.toJson());
+    System.out.printf(
+        "kS %.4g  kV %.4g  kA %.4g  r^2 %.4f over %d samples -> %s%n",
+        fit.kS(), fit.kV(), fit.kA(), fit.rSquared(), fit.samples(), output);
+  }
+
+  /** Writes each track of a flight recorder dump next to it, as {@code <dump>.<track>.csv}. */
+  private static void flight(Path dump) throws IOException {
+    FlightRecording recording = FlightRecording.read(dump);
+    System.out.printf(
+        "%s  %s at %.3f s%n", dump, recording.getReason(), recording.getTriggerTimestamp());
+    for (FlightRecording.Track track : recording.getTracks()) {
+      Path output = dump.resolveSibling(dump.getFileName() + "." + track.getName() + ".csv");
+      Files.writeString(output, track.toCsv());
+      double span =
+          track.size() > 1 ? track.getTimestamp(track.size() - 1) - track.getTimestamp(0) : 0.0;
+      System.out.printf(
+          "  %-12s %6d frames  %6.2f s  -> %s%n",
+          track.getName(), track.size(), span, output.getFileName());
+    }
+  }
+
+  /** Expands the arguments from {@code first} on into .wpilog files. */
+  static List<Path> findLogs(String[] args, int first) throws IOException {
+    List<Path> logs = new ArrayList<>();
+    for (int i = first; i < args.length; i++) {
+      Path path = Path.of(args[i]);
+      if (Files.isDirectory(path)) {
+        try (Stream<Path> walk = Files.walk(path)) {
+          walk.filter(p -> p.toString().endsWith(".wpilog")).sorted().forEach(logs::add);
+        }
+      } else {
+        logs.add(path);
+      }
+    }
+    return logs;
+  }
+
+  private static void usage() {
+    System.err.println("Usage:");
+    System.err.println("  logtools index <log or dir>...");
+    System.err.println("  logtools keys <log>");
+    System.err.println("  logtools query \"<key> <op> <value> && ...\" <log or dir>...");
+    System.err.println("  logtools report <log or dir>...");
+    System.err.println("  logtools sysid <mechanism> <gains.json> <log or dir>...");
+    System.err.println("  logtools flight <dump>...");
+    System.err.println("Example:");
+    System.err.println(
+        "  logtools query \"Turret/State.unwinding == true && Fire/State.rpm < 4500\" logs/");
+    System.err.println("  logtools sysid Turret ../src/main/deploy/sysid/turret.json logs/");
+  }
+}
@@ -0,0 +1,491 @@
+package frc.logtools;
+
+import frc.robot.utils.aim.ConstantVelocityLeadSolver;
+import frc.robot.utils.aim.LeadSolution;
+import frc.robot.utils.aim.LeadSolver;
+import frc.robot.utils.aim.RobotMotion;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-match numbers worth tuning against: loop time, spin-up and jam time, shots per scoring
+ * cycle, path tracking error, and how candidate lead solvers would have aimed the shots that were
+ * actually fired.
+ *
+ * <p>Shots are re-solved from the logged {@code Drive/State} pose, speed and yaw rate one release
+ * latency before the flywheel detected them, against the {@code Aim/Target} and launcher geometry
+ * recorded at boot. Each aim is scored by how close the game piece would pass to the target given
+ * the launcher's real position and velocity at release, taken from the change in logged pose
+ * rather than the commanded speed the solver saw.
+ */
+public final class MatchReport {
+  static final double LOOP_PERIOD_MS = 20.0;
+  // Shots further apart than this belong to separate scoring cycles
+  static final double CYCLE_GAP_SECONDS = 3.0;
+  // Window for the finite-difference robot velocity and acceleration at a shot
+  static final long VELOCITY_WINDOW_MICROS = 100_000;
+  static final double FIRED_LAUNCH_SPEED = ConstantVelocityLeadSolver.PROJECTILE_SPEED;
+
+  /** Nearest-rank percentiles of a set of samples. */
+  public record Distribution(int count, double p50, double p95, double p99, double max) {
+    static Distribution of(double[] samples, int count) {
+      if (count == 0) {
+        return new Distribution(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+      }
+      double[] sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+      return new Distribution(
+          count,
+          percentile(sorted, 0.50),
+          percentile(sorted, 0.95),
+          percentile(sorted, 0.99),
+          sorted[count - 1]);
+    }
+
+    private static double percentile(double[] sorted, double fraction) {
+      int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+      return sorted[Math.max(rank, 0)];
+    }
+  }
+
+  /**
+   * How one solver would have aimed the fired shots.
+   *
+   * @param name Solver name, or "fired" for the aim the turret actually had.
+   * @param shots Shots evaluated.
+   * @param infeasible Shots the solver flagged as unreachable. Always 0 for the fired aim.
+   * @param meanYawErrorDegrees Mean difference from the fired yaw.
+   * @param meanMissMeters Mean closest approach of the game piece to the target.
+   * @param maxMissMeters Worst closest approach.
+   */
+  public record AimScore(
+      String name,
+      int shots,
+      int infeasible,
+      double meanYawErrorDegrees,
+      double meanMissMeters,
+      double maxMissMeters) {}
+
+  private final Path m_log;
+  private String m_loopSource;
+  private Distribution m_loopTimes;
+  private int m_overruns;
+  private int m_spinUps;
+  private double m_spinUpSeconds;
+  private double m_maxSpinUpSeconds;
+  private int m_jams = -1;
+  private double m_jamSeconds;
+  private int m_shots = -1;
+  private int m_cycles;
+  private Distribution m_trackingError;
+  private final List<AimScore> m_aim = new ArrayList<>();
+
+  private MatchReport(Path log) {
+    m_log = log;
+  }
+
+  /**
+   * Analyzes one log. Sections whose keys aren't logged are left empty rather than failing.
+   *
+   * @param file The mapped log.
+   * @param index Its index.
+   * @param candidates Lead solvers to re-run against the fired shots, by name.
+   */
+  public static MatchReport analyze(
+      LogFile file, LogIndex index, Map<String, LeadSolver> candidates) {
+    MatchReport report = new MatchReport(file.getPath());
+    report.analyzeLoopTimes(file, index);
+    report.analyzeMechanisms(file, index);
+    report.analyzePathTracking(file, index);
+    report.analyzeAim(file, index, candidates);
+    return report;
+  }
+
+  private void analyzeLoopTimes(LogFile file, LogIndex index) {
+    Series cycle = Series.read(file, index, "LoggedRobot/FullCycleMS");
+    double[] samples;
+    int count = 0;
+    if (cycle != null) {
+      m_loopSource = "LoggedRobot/FullCycleMS";
+      samples = new double[cycle.size()];
+      for (int i = 0; i < cycle.size(); i++) {
+        samples[count++] = cycle.getValue(i);
+      }
+    } else {
+      // Without AdvantageKit's own measurement, fall back to the spacing of the loop clock
+      Series clock = Series.read(file, index, LogIndex.CLOCK_ENTRY);
+      if (clock == null || clock.size() < 2) {
+        return;
+      }
+      m_loopSource = "loop period";
+      samples = new double[clock.size() - 1];
+      for (int i = 1; i < clock.size(); i++) {
+        samples[count++] = (clock.getTime(i) - clock.getTime(i - 1)) / 1e3;
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      if (samples[i] > LOOP_PERIOD_MS) {
+        m_overruns++;
+      }
+    }
+    m_loopTimes = Distribution.of(samples, count);
+  }
+
+  private void analyzeMechanisms(LogFile file, LogIndex index) {
+    // Each new spin-up time is one spin-up
+    Series timeToSpeed = Series.read(file, index, "Fire/State.timeToSpeed");
+    if (timeToSpeed != null) {
+      double previous = 0.0;
+      for (int i = 0; i < timeToSpeed.size(); i++) {
+        double seconds = timeToSpeed.getValue(i);
+        if (seconds > 0.0 && seconds != previous) {
+          m_spinUps++;
+          m_spinUpSeconds += seconds;
+          m_maxSpinUpSeconds = Math.max(m_maxSpinUpSeconds, seconds);
+        }
+        previous = seconds;
+      }
+    }
+
+    Series jamCount = Series.read(file, index, "Intake/State.jamCount");
+    Series jamTimeLost = Series.read(file, index, "Intake/State.jamTimeLost");
+    if (jamCount != null && jamTimeLost != null) {
+      m_jams = (int) jamCount.last();
+      m_jamSeconds = jamTimeLost.last();
+    }
+
+    Series shotCount = Series.read(file, index, "Fire/State.shotCount");
+    if (shotCount != null) {
+      m_shots = 0;
+      long lastShot = Long.MIN_VALUE;
+      for (long shot : shotTimes(shotCount)) {
+        if (lastShot == Long.MIN_VALUE || (shot - lastShot) / 1e6 > CYCLE_GAP_SECONDS) {
+          m_cycles++;
+        }
+        m_shots++;
+        lastShot = shot;
+      }
+    }
+  }
+
+  private void analyzePathTracking(LogFile file, LogIndex index) {
+    Series targetX = Series.read(file, index, "PathPlanner/TargetPose.translation.x");
+    Series targetY = Series.read(file, index, "PathPlanner/TargetPose.translation.y");
+    Series poseX = Series.read(file, index, "Drive/State.poseX");
+    Series poseY = Series.read(file, index, "Drive/State.poseY");
+    if (targetX == null || targetY == null || poseX == null || poseY == null) {
+      return;
+    }
+    double[] errors = new double[targetX.size()];
+    int count = 0;
+    for (int i = 0; i < targetX.size(); i++) {
+      long time = targetX.getTime(i);
+      double dx = targetX.getValue(i) - poseX.valueAt(time);
+      double dy = targetY.valueAt(time) - poseY.valueAt(time);
+      double error = Math.hypot(dx, dy);
+      if (!Double.isNaN(error)) {
+        errors[count++] = error;
+      }
+    }
+    m_trackingError = Distribution.of(errors, count);
+  }
+
+  private void analyzeAim(LogFile file, LogIndex index, Map<String, LeadSolver> candidates) {
+    Series shotCount = Series.read(file, index, "Fire/State.shotCount");
+    Series poseX = Series.read(file, index, "Drive/State.poseX");
+    Series poseY = Series.read(file, index, "Drive/State.poseY");
+    Series heading = Series.read(file, index, "Drive/State.headingRadians");
+    Series speed = Series.read(file, index, "Drive/State.vxMetersPerSecond");
+    Series turret = Series.read(file, index, "Turret/State.angleRadians");
+    Series targetX = Series.read(file, index, "Aim/Target.translation.x");
+    Series targetY = Series.read(file, index, "Aim/Target.translation.y");
+    Series targetZ = Series.read(file, index, "Aim/Target.translation.z");
+    Series turretHeight = Series.read(file, index, "Aim/Turret Height");
+    if (shotCount == null
+        || poseX == null
+        || poseY == null
+        || heading == null
+        || speed == null
+        || turret == null
+        || targetX == null
+        || targetY == null
+        || targetZ == null
+        || turretHeight == null) {
+      return;
+    }
+    // Older logs have no yaw rate or launcher geometry; treat them as a centered launcher
+    Series omega = Series.read(file, index, "Drive/State.omegaRadiansPerSecond");
+    double offsetX = lastOr(Series.read(file, index, "Aim/Turret Offset X"), 0.0);
+    double offsetY = lastOr(Series.read(file, index, "Aim/Turret Offset Y"), 0.0);
+    double latency = lastOr(Series.read(file, index, "Aim/Release Latency"), 0.0);
+    long latencyMicros = Math.round(latency * 1e6);
+    double window = VELOCITY_WINDOW_MICROS / 1e6;
+    double tx = targetX.last();
+    double ty = targetY.last();
+    double height = targetZ.last() - turretHeight.last();
+
+    List<String> names = new ArrayList<>(candidates.keySet());
+    int solvers = names.size();
+    double[] yawError = new double[solvers + 1];
+    double[] miss = new double[solvers + 1];
+    double[] maxMiss = new double[solvers + 1];
+    int[] infeasible = new int[solvers + 1];
+    int shots = 0;
+    for (long time : shotTimes(shotCount)) {
+      // What the robot believed when it solved the shot, one release latency earlier: all
+      // velocity along the heading
+      long solved = time - latencyMicros;
+      double commanded = speed.valueAt(solved);
+      double previous = speed.valueAt(solved - VELOCITY_WINDOW_MICROS);
+      double yawRate = omega == null ? 0.0 : omega.valueAt(solved);
+      RobotMotion robot =
+          RobotMotion.ofDifferential(
+              poseX.valueAt(solved),
+              poseY.valueAt(solved),
+              heading.valueAt(solved),
+              commanded,
+              Double.isNaN(previous) ? 0.0 : (commanded - previous) / window,
+              Double.isNaN(yawRate) ? 0.0 : yawRate);
+
+      // Where the launcher really was when the piece left
+      double x = poseX.valueAt(time);
+      double y = poseY.valueAt(time);
+      double theta = heading.valueAt(time);
+      double firedYaw = theta + turret.valueAt(time);
+      if (Double.isNaN(robot.x()) || Double.isNaN(x) || Double.isNaN(firedYaw)) {
+        continue;
+      }
+      double rx = offsetX * Math.cos(theta) - offsetY * Math.sin(theta);
+      double ry = offsetX * Math.sin(theta) + offsetY * Math.cos(theta);
+      double dx = tx - (x + rx);
+      double dy = ty - (y + ry);
+
+      // And how it was really moving, from the pose history either side of the release
+      double trueVx = commanded * Math.cos(theta);
+      double trueVy = commanded * Math.sin(theta);
+      double trueOmega = robot.omegaRadiansPerSecond();
+      long before = time - VELOCITY_WINDOW_MICROS / 2;
+      long after = time + VELOCITY_WINDOW_MICROS / 2;
+      if (!Double.isNaN(poseX.valueAt(before))) {
+        trueVx = (poseX.valueAt(after) - poseX.valueAt(before)) / window;
+        trueVy = (poseY.valueAt(after) - poseY.valueAt(before)) / window;
+        trueOmega = wrap(heading.valueAt(after) - heading.valueAt(before)) / window;
+      }
+      // The launcher also moves tangentially while the robot turns
+      double launcherVx = trueVx - trueOmega * ry;
+      double launcherVy = trueVy + trueOmega * rx;
+
+      for (int s = 0; s < solvers; s++) {
+        LeadSolution solution = candidates.get(names.get(s)).solve(robot, tx, ty, height);
+        yawError[s] += Math.abs(Math.toDegrees(wrap(solution.yawRadians() - firedYaw)));
+        double distance =
+            missDistance(
+                dx, dy, solution.yawRadians(), solution.launchSpeed(), launcherVx, launcherVy);
+        miss[s] += distance;
+        maxMiss[s] = Math.max(maxMiss[s], distance);
+        if (!solution.feasible()) {
+          infeasible[s]++;
+        }
+      }
+      double fired = missDistance(dx, dy, firedYaw, FIRED_LAUNCH_SPEED, launcherVx, launcherVy);
+      miss[solvers] += fired;
+      maxMiss[solvers] = Math.max(maxMiss[solvers], fired);
+      shots++;
+    }
+    if (shots == 0) {
+      return;
+    }
+    m_aim.add(new AimScore("fired", shots, 0, 0.0, miss[solvers] / shots, maxMiss[solvers]));
+    for (int s = 0; s < solvers; s++) {
+      m_aim.add(
+          new AimScore(
+              names.get(s),
+              shots,
+              infeasible[s],
+              yawError[s] / shots,
+              miss[s] / shots,
+              maxMiss[s]));
+    }
+  }
+
+  private static double lastOr(Series series, double fallback) {
+    return series == null ? fallback : series.last();
+  }
+
+  /** Returns the time of every shot, one entry per shot even when a loop saw several. */
+  private static List<Long> shotTimes(Series shotCount) {
+    List<Long> times = new ArrayList<>();
+    double previous = Double.NaN;
+    for (int i = 0; i < shotCount.size(); i++) {
+      double count = shotCount.getValue(i);
+      if (!Double.isNaN(previous)) {
+        for (int shot = 0; shot < count - previous; shot++) {
+          times.add(shotCount.getTime(i));
+        }
+      }
+      previous = count;
+    }
+    return times;
+  }
+
+  /**
+   * Returns how close a game piece launched along a yaw passes to a target, ignoring drag.
+   *
+   * @param dx Target X offset from the launcher in meters.
+   * @param dy Target Y offset from the launcher in meters.
+   * @param yaw Field-relative launch direction in radians.
+   * @param launchSpeed Horizontal launch speed relative to the launcher in meters per second.
+   * @param vx Launcher field-relative X velocity in meters per second.
+   * @param vy Launcher field-relative Y velocity in meters per second.
+   */
+  static double missDistance(
+      double dx, double dy, double yaw, double launchSpeed, double vx, double vy) {
+    double ux = launchSpeed * Math.cos(yaw) + vx;
+    double uy = launchSpeed * Math.sin(yaw) + vy;
+    double speed = Math.hypot(ux, uy);
+    if (speed == 0.0 || dx * ux + dy * uy <= 0.0) {
+      return Math.hypot(dx, dy); // Launched away from the target
+    }
+    return Math.abs(dx * uy - dy * ux) / speed;
+  }
+
+  private static double wrap(double radians) {
+    return Math.atan2(Math.sin(radians), Math.cos(radians));
+  }
+
+  public Distribution getLoopTimes() {
+    return m_loopTimes;
+  }
+
+  public int getOverruns() {
+    return m_overruns;
+  }
+
+  public int getSpinUps() {
+    return m_spinUps;
+  }
+
+  public double getSpinUpSeconds() {
+    return m_spinUpSeconds;
+  }
+
+  /** Returns the jams this match, or -1 if the intake state wasn't logged. */
+  public int getJams() {
+    return m_jams;
+  }
+
+  public double getJamSeconds() {
+    return m_jamSeconds;
+  }
+
+  /** Returns the shots this match, or -1 if the flywheel state wasn't logged. */
+  public int getShots() {
+    return m_shots;
+  }
+
+  public int getCycles() {
+    return m_cycles;
+  }
+
+  public Distribution getTrackingError() {
+    return m_trackingError;
+  }
+
+  /** Returns the fired aim first, then each candidate in the order given. */
+  public List<AimScore> getAim() {
+    return m_aim;
+  }
+
+  /** Formats the report as Markdown. */
+  public String format() {
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("# %s%n%n", m_log.getFileName()));
+
+    out.append(String.format("## Loop time%n%n"));
+    if (m_loopTimes == null) {
+      out.append(String.format("Not logged.%n%n"));
+    } else {
+      out.append(String.format("From %s.%n%n", m_loopSource));
+      out.append(
+          String.format(
+              "| loops | p50 ms | p95 ms | p99 ms | max ms | over %.0f ms |%n", LOOP_PERIOD_MS));
+      out.append(String.format("|---|---|---|---|---|---|%n"));
+      out.append(
+          String.format(
+              "| %d | %.2f | %.2f | %.2f | %.2f | %d |%n%n",
+              m_loopTimes.count(),
+              m_loopTimes.p50(),
+              m_loopTimes.p95(),
+              m_loopTimes.p99(),
+              m_loopTimes.max(),
+              m_overruns));
+    }
+
+    out.append(String.format("## Mechanisms%n%n"));
+    out.append(
+        String.format(
+            "- Spin-up: %d spin-ups, %.2f s total, %.2f s mean, %.2f s worst%n",
+            m_spinUps,
+            m_spinUpSeconds,
+            m_spinUps == 0 ? 0.0 : m_spinUpSeconds / m_spinUps,
+            m_maxSpinUpSeconds));
+    if (m_jams < 0) {
+      out.append(String.format("- Jams: not logged%n"));
+    } else {
+      out.append(
+          String.format(
+              "- Jams: %d jams, %.2f s lost confirming and clearing%n", m_jams, m_jamSeconds));
+    }
+    if (m_shots < 0) {
+      out.append(String.format("- Shots: not logged%n%n"));
+    } else {
+      out.append(
+          String.format(
+              "- Shots: %d in %d cycles, %.1f per cycle%n%n",
+              m_shots, m_cycles, m_cycles == 0 ? 0.0 : (double) m_shots / m_cycles));
+    }
+
+    out.append(String.format("## Path tracking error%n%n"));
+    if (m_trackingError == null || m_trackingError.count() == 0) {
+      out.append(String.format("No paths followed.%n%n"));
+    } else {
+      out.append(String.format("| samples | p50 m | p95 m | max m |%n"));
+      out.append(String.format("|---|---|---|---|%n"));
+      out.append(
+          String.format(
+              "| %d | %.3f | %.3f | %.3f |%n%n",
+              m_trackingError.count(),
+              m_trackingError.p50(),
+              m_trackingError.p95(),
+              m_trackingError.max()));
+    }
+
+    out.append(String.format("## Aim re-evaluation%n%n"));
+    if (m_aim.isEmpty()) {
+      out.append(String.format("No shots with pose, turret and target logged.%n"));
+    } else {
+      out.append(
+          String.format(
+              "%d shots, miss measured against the robot's real velocity.%n%n",
+              m_aim.get(0).shots()));
+      out.append(
+          String.format(
+              "| solver | infeasible | mean yaw vs fired deg | mean miss m | max miss m |%n"));
+      out.append(String.format("|---|---|---|---|---|%n"));
+      for (AimScore score : m_aim) {
+        out.append(
+            String.format(
+                "| %s | %d | %.2f | %.3f | %.3f |%n",
+                score.name(),
+                score.infeasible(),
+                score.meanYawErrorDegrees(),
+                score.meanMissMeters(),
+                score.maxMissMeters()));
+      }
+    }
+    return out.toString();
+  }
+}
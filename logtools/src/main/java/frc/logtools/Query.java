@@ -0,0 +1,300 @@
+package frc.logtools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A conjunction of comparisons on log columns, e.g. {@code Turret/State.unwinding == true &&
+ * Fire/State.rpm < 4500}, evaluated with sample-and-hold semantics: each column keeps its last
+ * logged value until the next one.
+ *
+ * <p>Evaluation first intersects the blocks whose min/max could satisfy each comparison, then only
+ * reads the records inside the surviving time ranges. Matches are reported as runs of consecutive
+ * loops, using AdvantageKit's {@code /Timestamp} entry as the loop clock when it is present.
+ */
+public final class Query {
+  /** Comparison operators, two-character ones first so they win when parsing. */
+  enum Op {
+    EQ("=="),
+    NE("!="),
+    LE("<="),
+    GE(">="),
+    LT("<"),
+    GT(">");
+
+    final String m_symbol;
+
+    Op(String symbol) {
+      m_symbol = symbol;
+    }
+
+    boolean test(double value, double operand) {
+      if (Double.isNaN(value)) {
+        return false;
+      }
+      switch (this) {
+        case EQ:
+          return value == operand;
+        case NE:
+          return value != operand;
+        case LE:
+          return value <= operand;
+        case GE:
+          return value >= operand;
+        case LT:
+          return value < operand;
+        default:
+          return value > operand;
+      }
+    }
+
+    /** Returns whether any value in [min, max] could pass. */
+    boolean mayPass(double min, double max, double operand) {
+      if (min > max) {
+        return false; // no values in the block
+      }
+      switch (this) {
+        case EQ:
+          return min <= operand && operand <= max;
+        case NE:
+          return !(min == operand && max == operand);
+        case LE:
+          return min <= operand;
+        case GE:
+          return max >= operand;
+        case LT:
+          return min < operand;
+        default:
+          return max > operand;
+      }
+    }
+  }
+
+  /** One comparison of a column against a constant. */
+  record Predicate(String key, Op op, double operand) {
+    @Override
+    public String toString() {
+      return key + " " + op.m_symbol + " " + operand;
+    }
+  }
+
+  /**
+   * A run of consecutive loops that matched.
+   *
+   * @param start Time of the first matching loop in microseconds.
+   * @param end Time the match stopped holding (or of the last loop in the log) in microseconds.
+   * @param loops Number of loops in the run.
+   */
+  public record Match(long start, long end, int loops) {
+    public double durationSeconds() {
+      return (end - start) / 1e6;
+    }
+  }
+
+  private final List<Predicate> m_predicates;
+
+  private Query(List<Predicate> predicates) {
+    m_predicates = predicates;
+  }
+
+  /**
+   * Parses a query of {@code &&}-joined comparisons. Operands are numbers, {@code true} or {@code
+   * false}.
+   *
+   * @throws IllegalArgumentException If the query is malformed.
+   */
+  public static Query parse(String text) {
+    List<Predicate> predicates = new ArrayList<>();
+    for (String term : text.split("&&")) {
+      term = term.trim();
+      Predicate predicate = null;
+      for (Op op : Op.values()) {
+        int at = term.indexOf(op.m_symbol);
+        if (at > 0) {
+          String key = term.substring(0, at).trim();
+          String operand = term.substring(at + op.m_symbol.length()).trim();
+          predicate = new Predicate(key, op, parseOperand(operand, term));
+          break;
+        }
+      }
+      if (predicate == null) {
+        throw new IllegalArgumentException("Expected <key> <op> <value> but got: " + term);
+      }
+      predicates.add(predicate);
+    }
+    return new Query(predicates);
+  }
+
+  private static double parseOperand(String operand, String term) {
+    switch (operand.toLowerCase(Locale.ROOT)) {
+      case "true":
+        return 1.0;
+      case "false":
+        return 0.0;
+      default:
+        try {
+          return Double.parseDouble(operand);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Bad value in: " + term);
+        }
+    }
+  }
+
+  /**
+   * Runs the query against one log.
+   *
+   * @param file The mapped log.
+   * @param index Its index.
+   * @return The matching runs, in time order.
+   * @throws IllegalArgumentException If a key isn't in the log.
+   */
+  public List<Match> run(LogFile file, LogIndex index) {
+    LogIndex.Column[] columns = new LogIndex.Column[m_predicates.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = index.findColumn(m_predicates.get(i).key());
+      if (columns[i] == null) {
+        throw new IllegalArgumentException(
+            "No numeric key " + m_predicates.get(i).key() + " in " + file.getPath());
+      }
+    }
+
+    // Time ranges every comparison could hold over, from the block min/max alone
+    List<long[]> candidates = null;
+    for (int i = 0; i < columns.length; i++) {
+      List<long[]> ranges = candidateRanges(columns[i], m_predicates.get(i));
+      candidates = candidates == null ? ranges : intersect(candidates, ranges);
+    }
+
+    Set<LogIndex.Entry> entries = new LinkedHashSet<>();
+    LogIndex.Entry clock = index.getEntry(LogIndex.CLOCK_ENTRY);
+    if (clock != null) {
+      entries.add(clock);
+    }
+    for (LogIndex.Column column : columns) {
+      entries.add(column.getEntry());
+    }
+
+    List<Match> matches = new ArrayList<>();
+    for (long[] range : candidates) {
+      scan(file, range[0], range[1], entries.toArray(new LogIndex.Entry[0]), columns, matches);
+    }
+    return matches;
+  }
+
+  /** Returns the time ranges over which a column's blocks could satisfy a comparison. */
+  private static List<long[]> candidateRanges(LogIndex.Column column, Predicate predicate) {
+    LogIndex.Entry entry = column.getEntry();
+    List<long[]> ranges = new ArrayList<>();
+    int blocks = entry.getBlockCount();
+    for (int block = 0; block < blocks; block++) {
+      if (!predicate.op().mayPass(
+          column.getBlockMin(block), column.getBlockMax(block), predicate.operand())) {
+        continue;
+      }
+      // A block's values hold until the next block's first record
+      long start = entry.getBlockStart(block);
+      long end = block + 1 < blocks ? entry.getBlockStart(block + 1) : Long.MAX_VALUE;
+      long[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+      if (last != null && last[1] >= start) {
+        last[1] = Math.max(last[1], end);
+      } else {
+        ranges.add(new long[] {start, end});
+      }
+    }
+    return ranges;
+  }
+
+  private static List<long[]> intersect(List<long[]> a, List<long[]> b) {
+    List<long[]> result = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+    while (i < a.size() && j < b.size()) {
+      long start = Math.max(a.get(i)[0], b.get(j)[0]);
+      long end = Math.min(a.get(i)[1], b.get(j)[1]);
+      if (start < end) {
+        result.add(new long[] {start, end});
+      }
+      if (a.get(i)[1] < b.get(j)[1]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return result;
+  }
+
+  /** Merges the records of the involved entries over [start, end) and collects matching runs. */
+  private void scan(
+      LogFile file,
+      long start,
+      long end,
+      LogIndex.Entry[] entries,
+      LogIndex.Column[] columns,
+      List<Match> matches) {
+    // Start each entry at the value it holds at the range start
+    int[] next = new int[entries.length];
+    for (int e = 0; e < entries.length; e++) {
+      next[e] = Math.max(entries[e].floorRecord(file, start), 0);
+    }
+    double[] values = new double[columns.length];
+    Arrays.fill(values, Double.NaN);
+
+    long runStart = -1;
+    long lastLoop = -1;
+    int runLoops = 0;
+    while (true) {
+      long time = Long.MAX_VALUE;
+      for (int e = 0; e < entries.length; e++) {
+        if (next[e] < entries[e].getRecordCount()) {
+          time = Math.min(time, file.getTimestamp(entries[e].getRecordOffset(next[e])));
+        }
+      }
+      if (time >= end) {
+        break;
+      }
+
+      for (int e = 0; e < entries.length; e++) {
+        while (next[e] < entries[e].getRecordCount()
+            && file.getTimestamp(entries[e].getRecordOffset(next[e])) == time) {
+          for (int c = 0; c < columns.length; c++) {
+            if (columns[c].getEntry() == entries[e]) {
+              values[c] = columns[c].read(file, next[e]);
+            }
+          }
+          next[e]++;
+        }
+      }
+      if (time < start) {
+        continue;
+      }
+
+      boolean pass = true;
+      for (int c = 0; c < columns.length && pass; c++) {
+        pass = m_predicates.get(c).op().test(values[c], m_predicates.get(c).operand());
+      }
+      if (pass) {
+        if (runStart < 0) {
+          runStart = time;
+          runLoops = 0;
+        }
+        runLoops++;
+      } else if (runStart >= 0) {
+        matches.add(new Match(runStart, time, runLoops));
+        runStart = -1;
+      }
+      lastLoop = time;
+    }
+    if (runStart >= 0) {
+      matches.add(new Match(runStart, end == Long.MAX_VALUE ? lastLoop : end, runLoops));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.join(" && ", m_predicates.stream().map(Predicate::toString).toList());
+  }
+}
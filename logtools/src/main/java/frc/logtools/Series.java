@@ -0,0 +1,73 @@
+package frc.logtools;
+
+/**
+ * Every logged value of one column, read into memory for analyses that need random access by time.
+ * Values are sample-and-hold, like {@link Query}: a value holds until the next one is logged.
+ */
+public final class Series {
+  private final long[] m_times;
+  private final double[] m_values;
+
+  private Series(long[] times, double[] values) {
+    m_times = times;
+    m_values = values;
+  }
+
+  /**
+   * Reads a column.
+   *
+   * @param file The mapped log.
+   * @param index Its index.
+   * @param key Full or trailing key, as for {@link LogIndex#findColumn}.
+   * @return The series, or null if the key isn't in the log.
+   */
+  public static Series read(LogFile file, LogIndex index, String key) {
+    LogIndex.Column column = index.findColumn(key);
+    if (column == null) {
+      return null;
+    }
+    LogIndex.Entry entry = column.getEntry();
+    long[] times = new long[entry.getRecordCount()];
+    double[] values = new double[times.length];
+    for (int i = 0; i < times.length; i++) {
+      times[i] = file.getTimestamp(entry.getRecordOffset(i));
+      values[i] = column.read(file, i);
+    }
+    return new Series(times, values);
+  }
+
+  public int size() {
+    return m_times.length;
+  }
+
+  /** Returns the time of a sample in microseconds. */
+  public long getTime(int sample) {
+    return m_times[sample];
+  }
+
+  public double getValue(int sample) {
+    return m_values[sample];
+  }
+
+  /** Returns the last value logged at or before a time, or NaN if there is none. */
+  public double valueAt(long time) {
+    int low = 0;
+    int high = m_times.length - 1;
+    int found = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (m_times[mid] <= time) {
+        found = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return found < 0 ? Double.NaN : m_values[found];
+  }
+
+  /** Returns the last value in the log, or NaN if the series is empty. */
+  public double last() {
+    return m_values.length == 0 ? Double.NaN : m_values[m_values.length - 1];
+  }
+}
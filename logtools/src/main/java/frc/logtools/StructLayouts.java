@@ -0,0 +1,108 @@
+package frc.logtools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flattens WPILib struct schemas into the byte offsets of their numeric members, so struct fields
+ * can be indexed and queried like scalar entries (e.g. {@code Turret/State.unwinding} or {@code
+ * RobotPose.translation.x}).
+ */
+final class StructLayouts {
+  /** A numeric member of a struct, at a byte offset from the start of the struct. */
+  record Field(String path, FieldType type, int offset) {}
+
+  /** Total size and numeric members of a struct. */
+  record Layout(int size, List<Field> fields) {}
+
+  private final Map<String, String> m_schemas = new HashMap<>();
+  private final Map<String, Layout> m_layouts = new HashMap<>();
+
+  /**
+   * Registers a schema as logged under {@code /.schema/struct:Name}.
+   *
+   * @param typeName Struct type name without the {@code struct:} prefix.
+   * @param schema Schema text, e.g. {@code double x;double y}.
+   */
+  void addSchema(String typeName, String schema) {
+    m_schemas.put(typeName, schema);
+  }
+
+  /**
+   * Returns the layout of a struct type, or null if it (or a nested struct) has no schema yet or
+   * uses bit-fields, which aren't supported.
+   */
+  Layout get(String typeName) {
+    Layout layout = m_layouts.get(typeName);
+    if (layout != null) {
+      return layout;
+    }
+    String schema = m_schemas.get(typeName);
+    if (schema == null) {
+      return null;
+    }
+
+    List<Field> fields = new ArrayList<>();
+    int offset = 0;
+    for (String declaration : schema.split(";")) {
+      declaration = declaration.trim();
+      if (declaration.isEmpty()) {
+        continue;
+      }
+      if (declaration.startsWith("enum")) {
+        // Enums are stored as their integer type
+        declaration = declaration.substring(declaration.indexOf('}') + 1).trim();
+      }
+      if (declaration.contains(":")) {
+        return null;
+      }
+      String[] parts = declaration.split("\\s+");
+      if (parts.length != 2) {
+        return null;
+      }
+      String type = parts[0];
+      String name = parts[1];
+      int count = 1;
+      boolean array = name.contains("[");
+      if (array) {
+        count = Integer.parseInt(name.substring(name.indexOf('[') + 1, name.indexOf(']')));
+        name = name.substring(0, name.indexOf('['));
+      }
+
+      FieldType primitive = FieldType.ofSchemaType(type);
+      Layout nested = null;
+      int size;
+      if (primitive != null) {
+        size = primitive.getSize();
+      } else if (type.equals("char")) {
+        size = 1;
+      } else {
+        nested = get(type);
+        if (nested == null) {
+          return null;
+        }
+        size = nested.size();
+      }
+
+      for (int i = 0; i < count; i++) {
+        String path = array ? name + "[" + i + "]" : name;
+        int memberOffset = offset + i * size;
+        if (primitive != null) {
+          fields.add(new Field(path, primitive, memberOffset));
+        } else if (nested != null) {
+          for (Field field : nested.fields()) {
+            fields.add(
+                new Field(path + "." + field.path(), field.type(), memberOffset + field.offset()));
+          }
+        }
+      }
+      offset += count * size;
+    }
+
+    layout = new Layout(offset, List.copyOf(fields));
+    m_layouts.put(typeName, layout);
+    return layout;
+  }
+}
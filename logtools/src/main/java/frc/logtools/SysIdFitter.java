@@ -0,0 +1,171 @@
+package frc.logtools;
+
+import java.util.Locale;
+
+/**
+ * Fits the feedforward V = kS * sign(v) + kV * v + kA * a to SysId test data by ordinary least
+ * squares, in whatever units the mechanism logged.
+ *
+ * <p>The subsystems record {@code SysId/<mechanism>/Voltage} and {@code .../Velocity} every loop
+ * while a routine runs. Acceleration is the central difference of the velocity, so each sample
+ * needs a neighbour on both sides within {@link #MAX_GAP_MICROS}; the gaps between tests split
+ * them apart. Samples near standstill are dropped, since sign(v) is meaningless there and a
+ * mechanism held by static friction (or a soft limit) says nothing about kV. Logs are folded into
+ * the normal equations as they are added, so any number of them can be fitted together.
+ */
+public final class SysIdFitter {
+  // Samples further apart than this belong to separate tests
+  static final long MAX_GAP_MICROS = 50_000;
+  // Samples slower than this fraction of the fastest one in the log are dropped
+  static final double MIN_VELOCITY_FRACTION = 0.02;
+  private static final int MIN_SAMPLES = 10;
+
+  /**
+   * Fitted gains.
+   *
+   * @param kS Volts to overcome static friction.
+   * @param kV Volts per unit of velocity.
+   * @param kA Volts per unit of acceleration.
+   * @param rSquared Fraction of the voltage variance the model explains.
+   * @param samples Samples the fit used.
+   */
+  public record Fit(double kS, double kV, double kA, double rSquared, int samples) {
+    /** Returns the gains as the deploy file the robot loads at boot. */
+    public String toJson() {
+      return String.format(
+          Locale.ROOT,
+          "{%n  \"kS\": %.6g,%n  \"kV\": %.6g,%n  \"kA\": %.6g,%n"
+              + "  \"rSquared\": %.4f,%n  \"samples\": %d%n}%n",
+          kS,
+          kV,
+          kA,
+          rSquared,
+          samples);
+    }
+  }
+
+  // Normal equations X'X b = X'y, with rows [sign(v), v, a] and y the voltage
+  private final double[][] m_xtx = new double[3][3];
+  private final double[] m_xty = new double[3];
+  private double m_yy;
+  private double m_ySum;
+  private int m_count;
+
+  /**
+   * Adds the test samples from one log.
+   *
+   * @param voltage Applied voltage.
+   * @param velocity Mechanism velocity, logged in the same loops as the voltage.
+   * @return The number of samples used.
+   */
+  public int add(Series voltage, Series velocity) {
+    double fastest = 0.0;
+    for (int i = 0; i < velocity.size(); i++) {
+      fastest = Math.max(fastest, Math.abs(velocity.getValue(i)));
+    }
+    double minVelocity = fastest * MIN_VELOCITY_FRACTION;
+
+    int used = 0;
+    for (int i = 1; i < velocity.size() - 1; i++) {
+      long before = velocity.getTime(i - 1);
+      long time = velocity.getTime(i);
+      long after = velocity.getTime(i + 1);
+      if (time - before > MAX_GAP_MICROS || after - time > MAX_GAP_MICROS) {
+        continue;
+      }
+      double v = velocity.getValue(i);
+      double a = (velocity.getValue(i + 1) - velocity.getValue(i - 1)) / ((after - before) / 1e6);
+      double volts = voltage.valueAt(time);
+      if (Math.abs(v) < minVelocity || Double.isNaN(volts) || Double.isNaN(a)) {
+        continue;
+      }
+      double[] x = {Math.signum(v), v, a};
+      for (int r = 0; r < 3; r++) {
+        for (int c = 0; c < 3; c++) {
+          m_xtx[r][c] += x[r] * x[c];
+        }
+        m_xty[r] += x[r] * volts;
+      }
+      m_yy += volts * volts;
+      m_ySum += volts;
+      m_count++;
+      used++;
+    }
+    return used;
+  }
+
+  /**
+   * Solves for the gains over every sample added so far.
+   *
+   * @throws IllegalStateException If there are too few samples, or they don't vary enough to
+   *     separate the gains, such as only quasistatic tests with no dynamic ones.
+   */
+  public Fit fit() {
+    if (m_count < MIN_SAMPLES) {
+      throw new IllegalStateException("Only " + m_count + " usable samples");
+    }
+    double[] gains = solve(m_xtx, m_xty);
+    if (gains == null) {
+      throw new IllegalStateException("Samples don't separate kS, kV and kA; run every test");
+    }
+
+    // Residual sum of squares from the normal equations, without revisiting the samples
+    double fitted = 0.0;
+    double explained = 0.0;
+    for (int r = 0; r < 3; r++) {
+      fitted += gains[r] * m_xty[r];
+      for (int c = 0; c < 3; c++) {
+        explained += gains[r] * m_xtx[r][c] * gains[c];
+      }
+    }
+    double residual = Math.max(m_yy - 2.0 * fitted + explained, 0.0);
+    double total = m_yy - m_ySum * m_ySum / m_count;
+    double rSquared = total > 0.0 ? 1.0 - residual / total : 0.0;
+    return new Fit(gains[0], gains[1], gains[2], rSquared, m_count);
+  }
+
+  /** Solves a 3x3 system by Gaussian elimination with partial pivoting, or null if singular. */
+  private static double[] solve(double[][] matrix, double[] vector) {
+    int n = vector.length;
+    double[][] a = new double[n][];
+    double[] b = vector.clone();
+    double scale = 0.0;
+    for (int r = 0; r < n; r++) {
+      a[r] = matrix[r].clone();
+      scale = Math.max(scale, Math.abs(a[r][r]));
+    }
+    for (int col = 0; col < n; col++) {
+      int pivot = col;
+      for (int r = col + 1; r < n; r++) {
+        if (Math.abs(a[r][col]) > Math.abs(a[pivot][col])) {
+          pivot = r;
+        }
+      }
+      if (Math.abs(a[pivot][col]) <= scale * 1e-12) {
+        return null;
+      }
+      double[] row = a[col];
+      a[col] = a[pivot];
+      a[pivot] = row;
+      double value = b[col];
+      b[col] = b[pivot];
+      b[pivot] = value;
+      for (int r = col + 1; r < n; r++) {
+        double factor = a[r][col] / a[col][col];
+        for (int c = col; c < n; c++) {
+          a[r][c] -= factor * a[col][c];
+        }
+        b[r] -= factor * b[col];
+      }
+    }
+    double[] x = new double[n];
+    for (int r = n - 1; r >= 0; r--) {
+      double sum = b[r];
+      for (int c = r + 1; c < n; c++) {
+        sum -= a[r][c] * x[c];
+      }
+      x[r] = sum / a[r][r];
+    }
+    return x;
+  }
+}
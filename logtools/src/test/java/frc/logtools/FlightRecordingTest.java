@@ -0,0 +1,60 @@
+package frc.logtools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.FlightRecorder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+public class FlightRecordingTest {
+
+  /** A recorder with a 3 frame odometry track that has wrapped and a loop track that hasn't. */
+  private static byte[] writeDump() throws IOException {
+    FlightRecorder recorder = new FlightRecorder(Path.of("flight"), 2.0, 30.0);
+    FlightRecorder.Track odometry =
+        recorder.addTrack("Odometry", 3, "Left Position", "Right Position");
+    FlightRecorder.Track loop = recorder.addTrack("Loop", 10, "Battery Voltage");
+    for (int i = 0; i < 5; i++) {
+      odometry.record(new double[] {i * 0.005, i * 0.1, i * -0.1}, 0);
+    }
+    loop.set(0, 6.25);
+    loop.commit(0.02);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    recorder.write(out, "brownout", 12.5);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testReadsWhatTheRobotWrites() throws IOException {
+    FlightRecording recording = FlightRecording.read(new ByteArrayInputStream(writeDump()));
+    assertEquals("brownout", recording.getReason());
+    assertEquals(12.5, recording.getTriggerTimestamp(), 0.0);
+    assertEquals(2, recording.getTracks().size());
+    assertNull(recording.getTrack("Drive"));
+
+    FlightRecording.Track odometry = recording.getTrack("Odometry");
+    assertEquals(3, odometry.size(), "Only the newest frames survive the ring");
+    assertEquals("Right Position", odometry.getChannels().get(1));
+    assertEquals(0.010, odometry.getTimestamp(0), 1e-12, "Timestamps keep double precision");
+    assertEquals(0.4, odometry.getValue(2, 0), 1e-6);
+    assertEquals(-0.4, odometry.getValue(2, 1), 1e-6);
+
+    String csv = recording.getTrack("Loop").toCsv();
+    assertTrue(csv.startsWith("Timestamp,Battery Voltage\n"), csv);
+    assertTrue(csv.contains("0.020000,6.25\n"), csv);
+  }
+
+  @Test
+  public void testRejectsOtherFiles() {
+    byte[] wpilog = "WPILOG\u0000\u0001 not a dump".getBytes(StandardCharsets.US_ASCII);
+    assertThrows(IOException.class, () -> FlightRecording.read(new ByteArrayInputStream(wpilog)));
+  }
+}
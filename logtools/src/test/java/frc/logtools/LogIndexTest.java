@@ -0,0 +1,79 @@
+package frc.logtools;
+
+import static frc.logtools.LogWriter.buffer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogIndexTest {
+
+  private static final long LOOP_MICROS = 20000;
+
+  /**
+   * 1000 loops where the turret unwinds in loops 300-399 and the flywheel is slow in loops
+   * 350-449. The unwinding flag is only logged when it changes, like AdvantageKit does.
+   */
+  private static Path writeMatch(Path directory) throws IOException {
+    LogWriter log = new LogWriter();
+    log.start(1, LogIndex.CLOCK_ENTRY, "int64");
+    log.start(2, "/RealOutputs/Turret Is Unwinding", "boolean");
+    log.schema(3, "FlywheelState", "double output;double rpm");
+    log.start(4, "/RealOutputs/Fire/State", "struct:FlywheelState");
+    for (int loop = 0; loop < 1000; loop++) {
+      long t = loop * LOOP_MICROS;
+      log.record(1, t, buffer(8).putLong(t).array());
+      if (loop == 0 || loop == 300 || loop == 400) {
+        log.record(2, t, new byte[] {(byte) (loop == 300 ? 1 : 0)});
+      }
+      double rpm = loop >= 350 && loop < 450 ? 4000.0 : 5000.0;
+      log.record(4, t, buffer(16).putDouble(0.8).putDouble(rpm).array());
+    }
+    return log.write(directory.resolve("match.wpilog"));
+  }
+
+  @Test
+  public void testStructFieldsAreColumns(@TempDir Path directory) throws IOException {
+    Path path = writeMatch(directory);
+    try (LogFile file = new LogFile(path)) {
+      LogIndex index = LogIndex.open(file);
+      LogIndex.Column rpm = index.findColumn("Fire/State.rpm");
+      assertNotNull(rpm, "Struct members are found by their trailing key");
+      assertEquals(1000, rpm.getEntry().getRecordCount());
+      assertEquals(4000.0, rpm.read(file, 400), 1e-9);
+    }
+  }
+
+  @Test
+  public void testQueryFindsOverlap(@TempDir Path directory) throws IOException {
+    Path path = writeMatch(directory);
+    Query query = Query.parse("Turret Is Unwinding == true && Fire/State.rpm < 4500");
+    try (LogFile file = new LogFile(path)) {
+      List<Query.Match> matches = query.run(file, LogIndex.open(file));
+      assertEquals(1, matches.size(), "Only one stretch has both conditions");
+      assertEquals(350 * LOOP_MICROS, matches.get(0).start());
+      assertEquals(400 * LOOP_MICROS, matches.get(0).end());
+      assertEquals(50, matches.get(0).loops(), "Held value counts every loop, not just changes");
+    }
+  }
+
+  @Test
+  public void testSavedIndexIsReused(@TempDir Path directory) throws IOException {
+    Path path = writeMatch(directory);
+    Query query = Query.parse("Fire/State.rpm <= 4000");
+    List<Query.Match> first;
+    try (LogFile file = new LogFile(path)) {
+      first = query.run(file, LogIndex.open(file));
+    }
+    assertTrue(Files.exists(LogIndex.indexPath(path)), "Index is saved next to the log");
+    try (LogFile file = new LogFile(path)) {
+      assertEquals(first, query.run(file, LogIndex.open(file)), "Loaded index answers the same");
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package frc.logtools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Minimal WPILOG writer for tests: fixed-width record headers, little-endian payloads. */
+final class LogWriter {
+  private final ByteArrayOutputStream m_out = new ByteArrayOutputStream();
+
+  LogWriter() {
+    m_out.writeBytes("WPILOG".getBytes(StandardCharsets.US_ASCII));
+    m_out.writeBytes(new byte[] {0x00, 0x01, 0, 0, 0, 0});
+  }
+
+  void start(int id, String name, String type) {
+    ByteBuffer payload = buffer(1 + 4 + 12 + name.length() + type.length());
+    payload.put((byte) 0).putInt(id);
+    putString(payload, name);
+    putString(payload, type);
+    putString(payload, "");
+    record(0, 0, payload.array());
+  }
+
+  void record(int id, long timestamp, byte[] payload) {
+    ByteBuffer header = buffer(1 + 4 + 4 + 8);
+    header.put((byte) 0x7f).putInt(id).putInt(payload.length).putLong(timestamp);
+    m_out.writeBytes(header.array());
+    m_out.writeBytes(payload);
+  }
+
+  /** Starts a struct schema entry and records its definition. */
+  void schema(int id, String typeName, String definition) {
+    start(id, "/.schema/struct:" + typeName, "structschema");
+    record(id, 0, definition.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  Path write(Path path) throws IOException {
+    Files.write(path, m_out.toByteArray());
+    return path;
+  }
+
+  static ByteBuffer buffer(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static void putString(ByteBuffer buffer, String value) {
+    buffer.putInt(value.length()).put(value.getBytes(StandardCharsets.US_ASCII));
+  }
+}
@@ -0,0 +1,212 @@
+package frc.logtools;
+
+import static frc.logtools.LogWriter.buffer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.aim.ConstantVelocityLeadSolver;
+import frc.robot.utils.aim.LeadSolver;
+import frc.robot.utils.aim.MovingShotLeadSolver;
+import frc.robot.utils.aim.RobotMotion;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MatchReportTest {
+
+  private static final long LOOP_MICROS = 20000;
+  private static final double SPEED = 2.0;
+  private static final double TARGET_X = 16.0;
+  private static final double TARGET_Y = 4.0;
+  private static final double TARGET_Z = 2.0;
+  private static final double TURRET_HEIGHT = 0.5;
+  private static final double TURN_RATE = 1.0;
+  private static final double DELTA = 1e-6;
+
+  /**
+   * 500 loops driving along +X at a steady speed with the turret on the constant-velocity lead.
+   * Shots are fired in loops 100, 110 and 120, then again in loop 400. The flywheel spins up twice
+   * and one loop overruns. A path is followed 0.1 m ahead of the robot for the first 200 loops.
+   */
+  private static Path writeMatch(Path directory) throws IOException {
+    LeadSolver solver = new ConstantVelocityLeadSolver();
+    LogWriter log = new LogWriter();
+    log.start(1, LogIndex.CLOCK_ENTRY, "int64");
+    String drive = "double poseX;double poseY;double headingRadians;double vxMetersPerSecond";
+    log.schema(2, "DriveState", drive);
+    log.schema(3, "TurretState", "double angleRadians");
+    log.schema(4, "FlywheelState", "int32 shotCount;double timeToSpeed");
+    log.schema(5, "Translation3d", "double x;double y;double z");
+    log.schema(6, "Quaternion", "double w;double x;double y;double z");
+    log.schema(7, "Rotation3d", "Quaternion q");
+    log.schema(8, "Pose3d", "Translation3d translation;Rotation3d rotation");
+    log.schema(9, "Translation2d", "double x;double y");
+    log.schema(10, "Rotation2d", "double value");
+    log.schema(11, "Pose2d", "Translation2d translation;Rotation2d rotation");
+    log.start(12, "/RealOutputs/Drive/State", "struct:DriveState");
+    log.start(13, "/RealOutputs/Turret/State", "struct:TurretState");
+    log.start(14, "/RealOutputs/Fire/State", "struct:FlywheelState");
+    log.start(15, "/RealOutputs/Aim/Target", "struct:Pose3d");
+    log.start(16, "/RealOutputs/Aim/Turret Height", "double");
+    log.start(17, "/RealOutputs/PathPlanner/TargetPose", "struct:Pose2d");
+
+    ByteBuffer target = buffer(56).putDouble(TARGET_X).putDouble(TARGET_Y).putDouble(TARGET_Z);
+    log.record(15, 0, target.putDouble(1.0).putDouble(0.0).putDouble(0.0).putDouble(0.0).array());
+    log.record(16, 0, buffer(8).putDouble(TURRET_HEIGHT).array());
+    int shots = 0;
+    for (int loop = 0; loop < 500; loop++) {
+      long t = loop * LOOP_MICROS + (loop >= 250 ? LOOP_MICROS / 2 : 0);
+      double x = 4.0 + SPEED * loop * LOOP_MICROS / 1e6;
+      double y = 1.0;
+      log.record(1, t, buffer(8).putLong(t).array());
+      ByteBuffer state = buffer(32).putDouble(x).putDouble(y);
+      log.record(12, t, state.putDouble(0.0).putDouble(SPEED).array());
+      RobotMotion robot = new RobotMotion(x, y, 0.0, SPEED, 0.0, 0.0, 0.0, 0.0);
+      double yaw = solver.solve(robot, TARGET_X, TARGET_Y, TARGET_Z - TURRET_HEIGHT).yawRadians();
+      log.record(13, t, buffer(8).putDouble(yaw).array());
+      if (loop == 100 || loop == 110 || loop == 120 || loop == 400) {
+        shots++;
+      }
+      double timeToSpeed = loop < 50 ? 0.0 : loop < 300 ? 1.2 : 0.8;
+      log.record(14, t, buffer(12).putInt(shots).putDouble(timeToSpeed).array());
+      if (loop < 200) {
+        log.record(17, t, buffer(24).putDouble(x + 0.1).putDouble(y).putDouble(0.0).array());
+      }
+    }
+    return log.write(directory.resolve("match.wpilog"));
+  }
+
+  /**
+   * 300 loops driving a 2 m circle counterclockwise at 1 rad/s, with the launcher geometry logged
+   * and the turret on the moving-shot lead. Shots are fired every 50 loops from loop 50.
+   */
+  private static Path writeTurningMatch(Path directory) throws IOException {
+    LeadSolver solver = new MovingShotLeadSolver();
+    double radius = SPEED / TURN_RATE;
+    LogWriter log = new LogWriter();
+    log.start(1, LogIndex.CLOCK_ENTRY, "int64");
+    String drive =
+        "double poseX;double poseY;double headingRadians;double vxMetersPerSecond;"
+            + "double omegaRadiansPerSecond";
+    log.schema(2, "DriveState", drive);
+    log.schema(3, "TurretState", "double angleRadians");
+    log.schema(4, "FlywheelState", "int32 shotCount;double timeToSpeed");
+    log.schema(5, "Translation3d", "double x;double y;double z");
+    log.schema(6, "Quaternion", "double w;double x;double y;double z");
+    log.schema(7, "Rotation3d", "Quaternion q");
+    log.schema(8, "Pose3d", "Translation3d translation;Rotation3d rotation");
+    log.start(12, "/RealOutputs/Drive/State", "struct:DriveState");
+    log.start(13, "/RealOutputs/Turret/State", "struct:TurretState");
+    log.start(14, "/RealOutputs/Fire/State", "struct:FlywheelState");
+    log.start(15, "/RealOutputs/Aim/Target", "struct:Pose3d");
+    log.start(16, "/RealOutputs/Aim/Turret Height", "double");
+    log.start(17, "/RealOutputs/Aim/Turret Offset X", "double");
+    log.start(18, "/RealOutputs/Aim/Turret Offset Y", "double");
+    log.start(19, "/RealOutputs/Aim/Release Latency", "double");
+
+    ByteBuffer target = buffer(56).putDouble(TARGET_X).putDouble(TARGET_Y).putDouble(TARGET_Z);
+    log.record(15, 0, target.putDouble(1.0).putDouble(0.0).putDouble(0.0).putDouble(0.0).array());
+    log.record(16, 0, buffer(8).putDouble(TURRET_HEIGHT).array());
+    log.record(17, 0, buffer(8).putDouble(MovingShotLeadSolver.TURRET_OFFSET_X).array());
+    log.record(18, 0, buffer(8).putDouble(MovingShotLeadSolver.TURRET_OFFSET_Y).array());
+    log.record(19, 0, buffer(8).putDouble(MovingShotLeadSolver.RELEASE_LATENCY_SECONDS).array());
+    int shots = 0;
+    for (int loop = 0; loop < 300; loop++) {
+      long t = loop * LOOP_MICROS;
+      double angle = TURN_RATE * t / 1e6;
+      double x = 6.0 + radius * Math.sin(angle);
+      double y = 4.0 - radius * Math.cos(angle);
+      log.record(1, t, buffer(8).putLong(t).array());
+      ByteBuffer state = buffer(40).putDouble(x).putDouble(y).putDouble(angle);
+      log.record(12, t, state.putDouble(SPEED).putDouble(TURN_RATE).array());
+      // The turret holds the field yaw solved one release latency ago
+      double solved = angle - TURN_RATE * MovingShotLeadSolver.RELEASE_LATENCY_SECONDS;
+      RobotMotion robot =
+          RobotMotion.ofDifferential(
+              6.0 + radius * Math.sin(solved),
+              4.0 - radius * Math.cos(solved),
+              solved,
+              SPEED,
+              0.0,
+              TURN_RATE);
+      double yaw = solver.solve(robot, TARGET_X, TARGET_Y, TARGET_Z - TURRET_HEIGHT).yawRadians();
+      log.record(13, t, buffer(8).putDouble(yaw - angle).array());
+      if (loop > 0 && loop % 50 == 0) {
+        shots++;
+      }
+      log.record(14, t, buffer(12).putInt(shots).putDouble(0.0).array());
+    }
+    return log.write(directory.resolve("turning.wpilog"));
+  }
+
+  private static MatchReport.AimScore score(List<MatchReport.AimScore> aim, String name) {
+    return aim.stream().filter(score -> score.name().equals(name)).findFirst().orElseThrow();
+  }
+
+  private static MatchReport analyze(Path path) throws IOException {
+    try (LogFile file = new LogFile(path)) {
+      return MatchReport.analyze(file, LogIndex.open(file), LogTools.LEAD_CANDIDATES);
+    }
+  }
+
+  @Test
+  public void testMechanismsAndLoopTimes(@TempDir Path directory) throws IOException {
+    MatchReport report = analyze(writeMatch(directory));
+    assertEquals(4, report.getShots());
+    assertEquals(2, report.getCycles(), "Shots 5 s apart are separate cycles");
+    assertEquals(2, report.getSpinUps());
+    assertEquals(2.0, report.getSpinUpSeconds(), DELTA);
+    assertEquals(-1, report.getJams(), "Intake state wasn't logged");
+    assertEquals(499, report.getLoopTimes().count());
+    assertEquals(20.0, report.getLoopTimes().p50(), DELTA);
+    assertEquals(1, report.getOverruns(), "Only the stretched loop overran");
+
+    MatchReport.Distribution tracking = report.getTrackingError();
+    assertNotNull(tracking);
+    assertEquals(200, tracking.count());
+    assertEquals(0.1, tracking.max(), DELTA);
+  }
+
+  @Test
+  public void testCandidatesAreScoredAgainstFiredShots(@TempDir Path directory)
+      throws IOException {
+    List<MatchReport.AimScore> aim = analyze(writeMatch(directory)).getAim();
+    assertEquals(1 + LogTools.LEAD_CANDIDATES.size(), aim.size(), "Fired aim plus each candidate");
+    MatchReport.AimScore fired = aim.get(0);
+    MatchReport.AimScore constantVelocity = aim.get(1);
+    MatchReport.AimScore noLead = score(aim, "no-lead");
+    assertEquals("constant-velocity", constantVelocity.name());
+    assertEquals(4, constantVelocity.shots());
+    assertEquals(0.0, constantVelocity.meanYawErrorDegrees(), DELTA, "Matches the fired turret");
+    assertEquals(0.0, constantVelocity.meanMissMeters(), 1e-3, "Lead is exact at steady speed");
+    assertEquals(fired.meanMissMeters(), constantVelocity.meanMissMeters(), 1e-3);
+    assertTrue(noLead.meanMissMeters() > 0.2, "Ignoring the robot's motion misses while driving");
+  }
+
+  @Test
+  public void testMovingShotLeadsWhileTurning(@TempDir Path directory) throws IOException {
+    List<MatchReport.AimScore> aim = analyze(writeTurningMatch(directory)).getAim();
+    MatchReport.AimScore fired = aim.get(0);
+    MatchReport.AimScore movingShot = score(aim, "moving-shot");
+    MatchReport.AimScore constantVelocity = score(aim, "constant-velocity");
+    assertEquals(5, movingShot.shots());
+    assertEquals(0, movingShot.infeasible());
+    assertTrue(movingShot.meanMissMeters() < 0.03, "Turning and the turret offset are led");
+    assertEquals(fired.meanMissMeters(), movingShot.meanMissMeters(), 1e-3);
+    assertTrue(
+        constantVelocity.meanMissMeters() > 3 * movingShot.meanMissMeters(),
+        "Assuming a straight line from the robot center misses while turning");
+  }
+
+  @Test
+  public void testMissDistance() {
+    assertEquals(0.0, MatchReport.missDistance(5.0, 0.0, 0.0, 10.0, 0.0, 0.0), DELTA);
+    assertEquals(1.0, MatchReport.missDistance(5.0, 1.0, 0.0, 10.0, 0.0, 0.0), DELTA);
+    assertEquals(
+        5.0, MatchReport.missDistance(5.0, 0.0, Math.PI, 10.0, 0.0, 0.0), DELTA, "Fired away");
+  }
+}
@@ -0,0 +1,94 @@
+package frc.logtools;
+
+import static frc.logtools.LogWriter.buffer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SysIdFitterTest {
+
+  private static final long LOOP_MICROS = 20000;
+  private static final double KS = 0.15;
+  private static final double KV = 0.5;
+  private static final double KA = 0.05;
+
+  /** Logs of the same four tests SysIdRoutine runs, on a mechanism with known gains. */
+  private static final class TestLog {
+    private final LogWriter m_log = new LogWriter();
+    private long m_time = LOOP_MICROS;
+    private double m_velocity;
+
+    TestLog() {
+      m_log.start(1, "/RealOutputs/SysId/Turret/Voltage", "double");
+      m_log.start(2, "/RealOutputs/SysId/Turret/Velocity", "double");
+    }
+
+    /** Runs one test for a number of loops, then rests for a second as the operator would. */
+    void run(double rampVoltsPerSecond, double stepVolts, int loops) {
+      for (int loop = 0; loop < loops; loop++) {
+        double volts = stepVolts + rampVoltsPerSecond * loop * LOOP_MICROS / 1e6;
+        m_log.record(1, m_time, buffer(8).putDouble(volts).array());
+        m_log.record(2, m_time, buffer(8).putDouble(m_velocity).array());
+        // Integrate the model finely between loops
+        for (int step = 0; step < 100; step++) {
+          if (m_velocity == 0.0 && Math.abs(volts) <= KS) {
+            continue; // Held by static friction
+          }
+          double direction = m_velocity == 0.0 ? Math.signum(volts) : Math.signum(m_velocity);
+          double next =
+              m_velocity + (volts - direction * KS - KV * m_velocity) / KA * (LOOP_MICROS / 1e8);
+          // Friction stops the mechanism rather than reversing it
+          m_velocity = Math.signum(next) == -direction ? 0.0 : next;
+        }
+        m_time += LOOP_MICROS;
+      }
+      m_velocity = 0.0;
+      m_time += 1_000_000;
+    }
+
+    Path write(Path path) throws IOException {
+      return m_log.write(path);
+    }
+  }
+
+  private static SysIdFitter.Fit fit(Path log) throws IOException {
+    try (LogFile file = new LogFile(log)) {
+      LogIndex index = LogIndex.open(file);
+      SysIdFitter fitter = new SysIdFitter();
+      fitter.add(
+          Series.read(file, index, "SysId/Turret/Voltage"),
+          Series.read(file, index, "SysId/Turret/Velocity"));
+      return fitter.fit();
+    }
+  }
+
+  @Test
+  public void testRecoversGains(@TempDir Path directory) throws IOException {
+    TestLog log = new TestLog();
+    log.run(0.5, 0.0, 150); // Quasistatic forward
+    log.run(-0.5, 0.0, 150); // Quasistatic reverse
+    log.run(0.0, 2.0, 100); // Dynamic forward
+    log.run(0.0, -2.0, 100); // Dynamic reverse
+    SysIdFitter.Fit fit = fit(log.write(directory.resolve("sysid.wpilog")));
+
+    assertEquals(KS, fit.kS(), 0.01);
+    assertEquals(KV, fit.kV(), 0.01);
+    assertEquals(KA, fit.kA(), 0.005);
+    assertTrue(fit.rSquared() > 0.99, "The model is exact apart from differentiation error");
+    String json = fit.toJson();
+    assertTrue(json.contains("\"kS\": 0.15") && json.contains("\"kV\": 0.49"), json);
+  }
+
+  @Test
+  public void testRejectsTooFewSamples(@TempDir Path directory) throws IOException {
+    TestLog log = new TestLog();
+    log.run(0.0, 2.0, 5);
+    Path path = log.write(directory.resolve("short.wpilog"));
+    assertThrows(IllegalStateException.class, () -> fit(path));
+  }
+}
@@ -3,7 +3,11 @@ package frc.robot;
 import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.path.PathConstraints;
 import com.revrobotics.spark.ClosedLoopSlot;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.util.Units;
 
 /**
@@ -70,6 +74,47 @@ public final class DriveConstants {
     }
   }
 
+  // High-rate odometry sampling
+  public static final double kOdometryFrequencyHz = 200.0;
+  // Enough room for several missed main loops before samples are dropped
+  public static final int kOdometryBufferSize = 64;
+  // Encoder status frame period to match the odometry rate
+  public static final int kOdometryStatusFramePeriodMs = (int) (1000.0 / kOdometryFrequencyHz);
+  // Time constant smoothing the acceleration differentiated from the wheel speeds
+  public static final double kAccelerationFilterSeconds = 0.1;
+
+  // Slip detection, from front/back encoder pairs and wheel vs gyro yaw rate
+  public static final double kSlipSpeedTolerance = 0.15; // m/s between wheels on a side
+  public static final double kSlipSpeedToleranceRatio = 0.1; // plus this fraction of wheel speed
+  // The wheels scrub in turns, so they imply more yaw than the gyro sees. Placeholder until
+  // characterized: spin in place and divide the wheel distance difference by the gyro angle
+  public static final double kSlipTrackwidthMeters = kTrackwidthMeters * 1.15;
+  public static final double kSlipYawRateTolerance = 0.5; // rad/s between wheels and gyro
+  public static final double kSlipYawRateToleranceRatio = 0.25; // plus this fraction of yaw rate
+  public static final double kSlipHoldSeconds = 0.25;
+  // Traction control while slipping: commands are cut back to what holds the measured wheel
+  // speed plus a margin, then can rise by at most a step of tank drive output per loop, or of
+  // velocity setpoint per second
+  public static final double kTractionOutputMargin = 0.1;
+  public static final double kTractionSpeedMargin = 0.3; // m/s
+  public static final double kTractionMaxOutputStep = 0.02;
+  public static final double kTractionMaxAcceleration = 2.0; // m/s^2
+  // Vision std devs (x m, y m, heading rad), the pose estimator default, and while slipping when
+  // the wheel distances can't be trusted. Heading comes from the gyro, which doesn't slip.
+  public static final Matrix<N3, N1> kVisionStdDevs = VecBuilder.fill(0.1, 0.1, 0.1);
+  public static final Matrix<N3, N1> kSlipVisionStdDevs = VecBuilder.fill(0.02, 0.02, 0.1);
+
+  // Closed-loop velocity teleop: sticks map to wheel speeds through the velocity PID slot and
+  // feedforward instead of duty cycle, so top speed and response don't fade with the battery
+  public static final boolean kClosedLoopTeleop = true;
+  // Voltage the setpoints are planned within, leaving headroom for sag and the PID (V)
+  public static final double kTeleopVoltage = 10.0;
+  // Acceleration the wheels can put down before slipping (m/s^2)
+  public static final double kTeleopMaxAcceleration = 8.0;
+  // Precision mode fraction of top speed and acceleration
+  public static final double kPrecisionSpeedScale = 0.3;
+  public static final double kPrecisionAccelerationScale = 0.5;
+
   // Motor Controller PID Slots
   public static final ClosedLoopSlot kDrivetrainVelocityPIDSlot = ClosedLoopSlot.kSlot0;
   public static final ClosedLoopSlot kDrivetrainPositionPIDSlot = ClosedLoopSlot.kSlot1;
@@ -4,10 +4,14 @@
 
 package frc.robot;
 
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.Threads;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.robot.constants.Constants;
+import frc.robot.constants.Constants.LoopConstants;
+import frc.robot.constants.Constants.ThreadConstants;
+import frc.robot.utils.LoopJitterMonitor;
 import org.littletonrobotics.junction.LogFileUtil;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
@@ -27,6 +31,9 @@ public class Robot extends LoggedRobot {
 
   private RobotContainer m_robotContainer;
 
+  private final LoopJitterMonitor m_loopJitter =
+      new LoopJitterMonitor(LoopConstants.PERIOD, ThreadConstants.JITTER_WINDOW_LOOPS);
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
@@ -38,6 +45,7 @@ public class Robot extends LoggedRobot {
     Logger.recordMetadata("GitSHA", BuildConstants.GIT_SHA);
     Logger.recordMetadata("GitDate", BuildConstants.GIT_DATE);
     Logger.recordMetadata("GitBranch", BuildConstants.GIT_BRANCH);
+    Logger.recordMetadata("TelemetryProfile", Constants.TELEMETRY_PROFILE.name());
     switch (BuildConstants.DIRTY) {
       case 0:
         Logger.recordMetadata("GitDirty", "All changes committed");
@@ -55,7 +63,10 @@ public class Robot extends LoggedRobot {
       case REAL:
         // Running on a real robot, log to a USB stick ("/U/logs")
         Logger.addDataReceiver(new WPILOGWriter());
-        Logger.addDataReceiver(new NT4Publisher());
+        // Mirroring the whole log over the radio is too much for a congested field network
+        if (Constants.TELEMETRY_PROFILE.mirrorsLogToNetworkTables()) {
+          Logger.addDataReceiver(new NT4Publisher());
+        }
         break;
 
       case SIM:
@@ -92,8 +103,14 @@ public class Robot extends LoggedRobot {
    */
   @Override
   public void robotPeriodic() {
-    // Switch thread to high priority to improve loop timing
-    Threads.setCurrentThreadPriority(true, 99);
+    updateLoopTiming();
+
+    // Without its own core the loop is only raised while it runs, so it doesn't starve the rest
+    boolean pinned = m_robotContainer.isMainLoopPinned();
+    if (!pinned) {
+      // Switch thread to high priority to improve loop timing
+      Threads.setCurrentThreadPriority(true, 99);
+    }
 
     // Runs the Scheduler. This is responsible for polling buttons, adding
     // newly-scheduled commands, running already-scheduled commands, removing
@@ -104,13 +121,31 @@ public class Robot extends LoggedRobot {
 
     // This is a custom periodic function that runs for inter subsystem state updating
     m_robotContainer.periodic();
+    m_robotContainer.recordFlight(m_loopJitter.getLastPeriod());
+
+    if (!pinned) {
+      // Return to normal thread priority
+      Threads.setCurrentThreadPriority(false, 10);
+    }
+
+    // Dashboard work goes last and only gets the time left. Replay runs untimed, so there it
+    // always gets the full budget
+    double now = RobotController.getFPGATime() / 1e6;
+    m_robotContainer.runDeferredWork(
+        Logger.hasReplaySource() ? now : Math.min(now, Logger.getTimestamp() / 1e6));
+  }
 
-    // Return to normal thread priority
-    Threads.setCurrentThreadPriority(false, 10);
-    if (m_robotContainer.enableAutoProfiling) {
-      System.out.println("WARNING, AUTO PROFILE IS ENABLED!");
+  /** Publishes how regularly the loop is starting, which is meaningless when replaying. */
+  private void updateLoopTiming() {
+    if (Logger.hasReplaySource()) {
+      return;
     }
-    frc.robot.constants.SpeedConstants.syncNetworkTables();
+    m_loopJitter.update(Logger.getTimestamp() / 1e6);
+    RobotTelemetry.recordOutput("Loop/Period (ms)", m_loopJitter.getLastPeriod() * 1000.0);
+    RobotTelemetry.recordOutput("Loop/Jitter (ms)", m_loopJitter.getLastJitter() * 1000.0);
+    RobotTelemetry.recordOutput("Loop/Peak Jitter (ms)", m_loopJitter.getPeakJitter() * 1000.0);
+    RobotTelemetry.recordOutput("Loop/RMS Jitter (ms)", m_loopJitter.getRmsJitter() * 1000.0);
+    RobotTelemetry.recordOutput("Loop/Overruns", m_loopJitter.getOverruns());
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -123,6 +158,7 @@ public class Robot extends LoggedRobot {
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
   @Override
   public void autonomousInit() {
+    m_robotContainer.resetMatchStats();
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
     // schedule the autonomous command (example)
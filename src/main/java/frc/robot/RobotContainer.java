@@ -3,13 +3,20 @@ package frc.robot;
 import com.pathplanner.lib.auto.NamedCommands;
 import com.pathplanner.lib.commands.PathPlannerAuto;
 import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.button.CommandJoystick;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
+import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
 import frc.robot.commands.AimCommand;
 import frc.robot.commands.AutoAimCommand;
 import frc.robot.commands.DefaultDrive;
@@ -18,12 +25,34 @@ import frc.robot.commands.IntakeSliderCommand;
 import frc.robot.commands.SetTurretPositionCommand;
 import frc.robot.commands.UnjamIntakeCommand;
 import frc.robot.constants.Constants;
+import frc.robot.constants.Constants.FieldConstants;
+import frc.robot.constants.Constants.HealthConstants;
+import frc.robot.constants.Constants.InventoryConstants;
+import frc.robot.constants.Constants.LoopConstants;
+import frc.robot.constants.Constants.NavConstants;
+import frc.robot.constants.Constants.RecorderConstants;
+import frc.robot.constants.Constants.ThreadConstants;
+import frc.robot.constants.SpeedConstants;
 import frc.robot.subsystems.CameraSubsystem;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.FireControlLoop;
 import frc.robot.subsystems.FireControlSubsystem;
+import frc.robot.subsystems.HealthMonitor;
 import frc.robot.subsystems.IntakeSubsystem;
 import frc.robot.subsystems.LoaderSubsystem;
+import frc.robot.subsystems.PowerManager;
 import frc.robot.subsystems.TurretSubsystem;
+import frc.robot.utils.FlightRecorder;
+import frc.robot.utils.GamePieceInventory;
+import frc.robot.utils.LoopBudget;
+import frc.robot.utils.MultiRateScheduler;
+import frc.robot.utils.ShotPredictor;
+import frc.robot.utils.aim.MovingShotLeadSolver;
+import frc.robot.utils.nav.GridPathfinder;
+import frc.robot.utils.nav.NavGrid;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import org.littletonrobotics.junction.networktables.LoggedDashboardChooser;
 
 /**
@@ -38,15 +67,68 @@ public class RobotContainer {
   private final CommandJoystick m_flightstick =
       new CommandJoystick(Constants.FLIGHTSTICK_USB_INDEX);
 
+  // Dashboard and other deferrable work, run in whatever time the control loop leaves
+  private final LoopBudget m_loopBudget =
+      new LoopBudget(
+          () -> RobotController.getFPGATime() / 1e6,
+          LoopConstants.PERIOD,
+          LoopConstants.RESERVE,
+          LoopConstants.MAX_POSTPONED_LOOPS);
+  // Work that only needs a few Hz, spread across loops so it never piles up on one
+  private final MultiRateScheduler m_scheduler =
+      new MultiRateScheduler(() -> RobotController.getFPGATime() / 1e6, LoopConstants.PERIOD);
+  // Keeps the main loop on its own core, away from NetworkTables, logging and the notifiers
+  private final ThreadingModel m_threadingModel =
+      new ThreadingModel(
+          ThreadConstants.MAIN_CORE,
+          ThreadConstants.WORKER_CORE,
+          ThreadConstants.MAIN_PRIORITY,
+          ThreadConstants.WORKER_RESCAN_RATE);
+  private boolean m_mainLoopPinned = false;
+
   // Initialize subsystems
-  private final DriveSubsystem m_driveSubsystem = new DriveSubsystem();
-  private final CameraSubsystem m_cameraSubsystem = new CameraSubsystem(m_driveSubsystem);
+  private final DriveSubsystem m_driveSubsystem = new DriveSubsystem(m_loopBudget, m_scheduler);
+  private final CameraSubsystem m_cameraSubsystem =
+      new CameraSubsystem(m_driveSubsystem, m_loopBudget, m_scheduler);
 
   private final TurretSubsystem m_turretSubsystem = new TurretSubsystem();
   private final FireControlSubsystem m_fireSubsystem = new FireControlSubsystem();
   private final IntakeSubsystem m_intakeSubsystem = new IntakeSubsystem();
   private final LoaderSubsystem m_loaderSubsystem = new LoaderSubsystem();
 
+  // High-rate turret tracking and shot release, decoupled from the scheduler loop
+  private final FireControlLoop m_fireControlLoop =
+      new FireControlLoop(
+          m_turretSubsystem, m_fireSubsystem, m_loaderSubsystem, m_intakeSubsystem);
+
+  // Reallocates motor current limits by priority as the battery sags
+  private final PowerManager m_powerManager =
+      new PowerManager(
+          m_driveSubsystem,
+          m_fireSubsystem,
+          m_turretSubsystem,
+          m_intakeSubsystem,
+          m_loaderSubsystem,
+          m_fireControlLoop);
+
+  // Polls device faults and frame freshness off the main thread
+  private final HealthMonitor m_healthMonitor = new HealthMonitor();
+
+  // Last few seconds of inputs, dumped to a file around brownouts, overruns and faults. Null when
+  // replaying or disabled in RecorderConstants
+  private FlightRecorder m_flightRecorder;
+  private FlightRecorder.Track m_loopTrack;
+  private boolean m_wasUnwinding = false;
+  private int m_lastFaultEvents = 0;
+
+  // Predicts the shooting zone from the drive state so the flywheel is spun up before the trigger
+  private final ShotPredictor m_shotPredictor =
+      new ShotPredictor(FieldConstants.TARGET_POSE, FieldConstants.TURRET_HEIGHT);
+
+  // Counts game pieces on board from motor current signatures (there are no beam breaks)
+  private final GamePieceInventory m_inventory =
+      new GamePieceInventory(InventoryConstants.CAPACITY);
+
   // Initialize Commands
   private final DefaultDrive m_defaultDrive =
       new DefaultDrive(
@@ -56,6 +138,9 @@ public class RobotContainer {
           () -> m_controller1.getHID().getLeftBumper());
   private final AimCommand m_aimCommand = new AimCommand(m_driveSubsystem, m_cameraSubsystem);
 
+  // Teleop paths, planned around field obstacles when the button is pressed
+  private Command m_driveToScoring;
+
   // Init For Autonomous
   private LoggedDashboardChooser<String> autoDashboardChooser =
       new LoggedDashboardChooser<String>("AutoMode");
@@ -70,6 +155,42 @@ public class RobotContainer {
    * controller commands are properly initialized before the robot starts operating.
    */
   public RobotContainer() {
+    m_fireControlLoop.start();
+    // Record the aim geometry once so shots can be re-solved offline from the log
+    RobotTelemetry.recordOutput("Aim/Target", FieldConstants.TARGET_POSE);
+    RobotTelemetry.recordOutput("Aim/Turret Height", FieldConstants.TURRET_HEIGHT);
+    RobotTelemetry.recordOutput("Aim/Turret Offset X", MovingShotLeadSolver.TURRET_OFFSET_X);
+    RobotTelemetry.recordOutput("Aim/Turret Offset Y", MovingShotLeadSolver.TURRET_OFFSET_Y);
+    RobotTelemetry.recordOutput(
+        "Aim/Release Latency", MovingShotLeadSolver.RELEASE_LATENCY_SECONDS);
+    // Dashboard only, so none of it holds up the control outputs in a slow loop
+    m_loopBudget.register("Prespin", LoopBudget.Priority.NORMAL, m_shotPredictor::updateTelemetry);
+    m_loopBudget.register(
+        "FireControlLoop", LoopBudget.Priority.NORMAL, m_fireControlLoop::updateTelemetry);
+    m_loopBudget.register(
+        "SpeedConstants", LoopBudget.Priority.NORMAL, SpeedConstants::syncNetworkTables);
+    m_scheduler.schedule("Status", LoopConstants.STATUS_RATE, 1.0, this::updateStatus);
+
+    m_driveSubsystem.registerHealth(m_healthMonitor);
+    m_turretSubsystem.registerHealth(m_healthMonitor);
+    m_fireSubsystem.registerHealth(m_healthMonitor);
+    m_intakeSubsystem.registerHealth(m_healthMonitor);
+    m_loaderSubsystem.registerHealth(m_healthMonitor);
+    m_cameraSubsystem.registerHealth(m_healthMonitor);
+    m_healthMonitor.start();
+    m_scheduler.schedule("Health", HealthConstants.PUBLISH_RATE, 2.0, m_healthMonitor::publish);
+
+    // Before the main loop is raised, so the dump thread starts at normal priority
+    if (RecorderConstants.ENABLED && Constants.CURRENT_MODE != Constants.Mode.REPLAY) {
+      configureFlightRecorder();
+    }
+
+    // Constructed on the main thread, after logging and NetworkTables have started their threads
+    if (ThreadConstants.PIN_MAIN_LOOP && RobotBase.isReal() && ThreadingModel.isSupported()) {
+      m_threadingModel.configureMainThread();
+      m_mainLoopPinned = !m_threadingModel.hasFailed();
+    }
+    RobotTelemetry.recordOutput("Threads/Main Loop Pinned", m_mainLoopPinned);
 
     // Initialize the autonomous command
     initializeAutonomous();
@@ -79,6 +200,8 @@ public class RobotContainer {
     if (enableAutoProfiling) {
       // bindDriveSysIDCommands();
       bindDriveSysIDCommands();
+      bindTurretSysIDCommands();
+      bindFlywheelSysIDCommands();
       // bindElevatorSysIDCommands();
     } else {
       bindCommands();
@@ -91,6 +214,11 @@ public class RobotContainer {
         .rightBumper()
         .onTrue(new InstantCommand(() -> m_driveSubsystem.SwitchBrakemode()));
 
+    // Drive to the scoring spot while held
+    if (m_driveToScoring != null) {
+      m_controller1.y().whileTrue(m_driveToScoring);
+    }
+
     // Intake
     m_controller1
         .a()
@@ -110,6 +238,12 @@ public class RobotContainer {
                 () -> m_fireSubsystem.stop(),
                 m_fireSubsystem));
 
+    // Flywheel Pre-spin (predicted shot RPM when the shooting zone is ahead, idle otherwise)
+    m_fireSubsystem.setDefaultCommand(
+        new RunCommand(
+            () -> m_fireSubsystem.setShooterRPM(m_shotPredictor.getPrespinRPM()),
+            m_fireSubsystem));
+
     // Default Drive
     m_driveSubsystem.setDefaultCommand(m_defaultDrive);
     // Joystick Bindings
@@ -126,21 +260,25 @@ public class RobotContainer {
             () -> m_loaderSubsystem.setLoaderSpeed(m_flightstick.getY()), m_loaderSubsystem));
 
     // Fire Control Command (Bind to Trigger / Button 1 of flight stick)
-    // Run at full speed (1.0) while trigger is held, rather than mapped to Y axis.
+    // Fire at the predicted shot RPM (the one we pre-spun to) while trigger is held, rather than
+    // mapped to Y axis.
     m_flightstick
         .button(Constants.JOYSTICK_DEFAULT_BUTTON)
         .and(() -> !m_turretSubsystem.isUnwinding())
         .whileTrue(
-            new FireCommand(
+            FireCommand.atRPM(
                 m_fireSubsystem,
                 m_loaderSubsystem,
-                () -> 1.0,
+                m_fireControlLoop,
+                m_shotPredictor::getShotRPM,
                 m_flightstick.button(Constants.JOYSTICK_DEFAULT_BUTTON)));
 
     // Auto Aim Command (Bind to Button 2 of flight stick to toggle)
     m_flightstick
         .button(2)
-        .toggleOnTrue(new AutoAimCommand(m_turretSubsystem, m_cameraSubsystem, m_driveSubsystem));
+        .toggleOnTrue(
+            new AutoAimCommand(
+                m_turretSubsystem, m_cameraSubsystem, m_driveSubsystem, m_fireControlLoop));
 
     // Turret Preset Orientations (Buttons 6 - 11)
     // Values are placeholders for raw motor rotations until gear ratio is determined.
@@ -173,6 +311,9 @@ public class RobotContainer {
     NamedCommands.registerCommand(
         "BrakeCommand", new InstantCommand(() -> m_driveSubsystem.SetBrakemode()));
     NamedCommands.registerCommand("AimCommand", m_aimCommand);
+    // Lets an auto leave the shooting spot as soon as everything has been fired
+    NamedCommands.registerCommand(
+        "WaitUntilEmpty", Commands.waitUntil(() -> m_inventory.isEmpty()));
   }
 
   private void bindDriveSysIDCommands() {
@@ -183,12 +324,33 @@ public class RobotContainer {
     m_controller1.leftTrigger().whileTrue(new InstantCommand(() -> DataLogManager.stop()));
   }
 
-  private void configureTeleopPaths() {
-    // TODO: Write new paths
-    // EX
-    // PathPlannerPath ampPath = PathPlannerPath.fromPathFile("TeleopAmpPath");
+  private void bindTurretSysIDCommands() {
+    m_controller1.povUp().whileTrue(m_turretSubsystem.sysIdQuasistatic(Direction.kForward));
+    m_controller1.povDown().whileTrue(m_turretSubsystem.sysIdQuasistatic(Direction.kReverse));
+    m_controller1.povRight().whileTrue(m_turretSubsystem.sysIdDynamic(Direction.kForward));
+    m_controller1.povLeft().whileTrue(m_turretSubsystem.sysIdDynamic(Direction.kReverse));
+  }
 
-    // m_driveToAmp = AutoBuilder.pathfindThenFollowPath(ampPath, constraints);
+  private void bindFlywheelSysIDCommands() {
+    // Forward only, a flywheel spun backwards throws game pieces back into the loader
+    m_controller1.rightBumper().whileTrue(m_fireSubsystem.sysIdQuasistatic(Direction.kForward));
+    m_controller1.rightTrigger().whileTrue(m_fireSubsystem.sysIdDynamic(Direction.kForward));
+  }
+
+  private void configureTeleopPaths() {
+    NavGrid grid;
+    try {
+      grid =
+          NavGrid.load(
+              new File(Filesystem.getDeployDirectory(), NavConstants.NAVGRID_FILE),
+              new File(Filesystem.getDeployDirectory(), NavConstants.SETTINGS_FILE));
+    } catch (IOException e) {
+      DriverStation.reportError("Teleop paths disabled: " + e.getMessage(), false);
+      return;
+    }
+    GridPathfinder pathfinder =
+        new GridPathfinder(grid, NavConstants.CACHE_REGION_METERS, NavConstants.CACHE_SIZE);
+    m_driveToScoring = m_driveSubsystem.pathfindTo(pathfinder, NavConstants.SCORING_POSITION);
   }
 
   public double getControllerRightY() {
@@ -228,7 +390,140 @@ public class RobotContainer {
     return new PathPlannerAuto(autoName);
   }
 
+  /** Called at the start of autonomous so per-match statistics only cover that match. */
+  public void resetMatchStats() {
+    m_intakeSubsystem.resetJamStats();
+    m_inventory.reset(InventoryConstants.PRELOAD_COUNT);
+  }
+
   public void periodic() {
     // This method will be called once per scheduler run (Only for inter subsystem state updating)
+    m_shotPredictor.update(
+        m_driveSubsystem.getPose(),
+        m_driveSubsystem.getForwardSpeed(),
+        m_driveSubsystem.getYawRate(),
+        RobotController.getBatteryVoltage());
+
+    m_inventory.update(
+        Timer.getFPGATimestamp(),
+        m_intakeSubsystem.getAppliedOutput(),
+        m_intakeSubsystem.getCurrent(),
+        m_loaderSubsystem.getAppliedOutput(),
+        m_loaderSubsystem.getCurrent(),
+        m_fireSubsystem.getShotCount(),
+        m_fireControlLoop.getStatus().emptyPulseCount);
+    m_fireControlLoop.setPiecesAvailable(!m_inventory.isEmpty());
+    RobotTelemetry.putNumber("Inventory/Count", m_inventory.getCount());
+    RobotTelemetry.putNumber("Inventory/Confidence", m_inventory.getConfidence());
+    RobotTelemetry.putBoolean("Inventory/Empty", m_inventory.isEmpty());
+
+    m_scheduler.run();
+  }
+
+  private void configureFlightRecorder() {
+    m_flightRecorder =
+        new FlightRecorder(
+            Path.of(
+                RobotBase.isReal()
+                    ? RecorderConstants.ROBOT_DIRECTORY
+                    : RecorderConstants.SIM_DIRECTORY),
+            RecorderConstants.POST_TRIGGER_SECONDS,
+            RecorderConstants.COOLDOWN_SECONDS);
+    m_driveSubsystem.registerFlightRecorder(m_flightRecorder);
+    m_loopTrack =
+        m_flightRecorder.addTrack(
+            "Loop",
+            (int) (RecorderConstants.HISTORY_SECONDS / LoopConstants.PERIOD),
+            "Loop Period",
+            "Battery Voltage",
+            "Flywheel Current",
+            "Turret Current",
+            "Intake Current",
+            "Loader Current",
+            "Turret Angle",
+            "Turret Goal",
+            "Flywheel RPM",
+            "Firing",
+            "Unwinding");
+  }
+
+  /**
+   * Records this loop's inputs to the flight recorder and dumps it if a trigger fires. Call every
+   * loop after {@link #periodic()}.
+   *
+   * @param loopPeriodSeconds Time since the previous loop started.
+   */
+  public void recordFlight(double loopPeriodSeconds) {
+    if (m_flightRecorder == null) {
+      return;
+    }
+    double now = Timer.getFPGATimestamp();
+    FireControlLoop.Status status = m_fireControlLoop.getStatus();
+    boolean unwinding = m_turretSubsystem.isUnwinding();
+    m_loopTrack.set(0, loopPeriodSeconds);
+    m_loopTrack.set(1, RobotController.getBatteryVoltage());
+    m_loopTrack.set(2, m_fireSubsystem.getCurrent());
+    m_loopTrack.set(3, m_turretSubsystem.getCurrent());
+    m_loopTrack.set(4, m_intakeSubsystem.getCurrent());
+    m_loopTrack.set(5, m_loaderSubsystem.getCurrent());
+    m_loopTrack.set(6, status.turretAngleRadians);
+    m_loopTrack.set(7, status.turretGoalRadians);
+    m_loopTrack.set(8, status.flywheelRPM);
+    m_loopTrack.set(9, status.firing ? 1.0 : 0.0);
+    m_loopTrack.set(10, unwinding ? 1.0 : 0.0);
+    m_loopTrack.commit(now);
+
+    int faultEvents = m_healthMonitor.getFaultEvents();
+    if (RecorderConstants.TRIGGER_ON_BROWNOUT && RobotController.isBrownedOut()) {
+      m_flightRecorder.trigger("brownout", now);
+    } else if (RecorderConstants.TRIGGER_ON_OVERRUN
+        && loopPeriodSeconds > RecorderConstants.OVERRUN_SECONDS) {
+      m_flightRecorder.trigger("overrun", now);
+    } else if (RecorderConstants.TRIGGER_ON_UNWIND && unwinding && !m_wasUnwinding) {
+      m_flightRecorder.trigger("unwind", now);
+    } else if (RecorderConstants.TRIGGER_ON_FAULT && faultEvents > m_lastFaultEvents) {
+      m_flightRecorder.trigger("fault", now);
+    }
+    m_wasUnwinding = unwinding;
+    m_lastFaultEvents = faultEvents;
+  }
+
+  /** Slow status telemetry: how long each scheduled task takes, and mode warnings. */
+  private void updateStatus() {
+    for (MultiRateScheduler.Task task : m_scheduler.getTasks()) {
+      String prefix = "Scheduler/" + task.getName();
+      RobotTelemetry.recordOutput(prefix + "/Average (ms)", task.getAverageSeconds() * 1000.0);
+      RobotTelemetry.recordOutput(prefix + "/Max (ms)", task.getMaxSeconds() * 1000.0);
+      RobotTelemetry.recordOutput(prefix + "/Per Loop (ms)", task.getSecondsPerLoop() * 1000.0);
+    }
+    if (m_flightRecorder != null) {
+      RobotTelemetry.recordOutput("Recorder/Triggers", m_flightRecorder.getTriggerCount());
+      RobotTelemetry.recordOutput("Recorder/Dumps", m_flightRecorder.getDumpCount());
+      RobotTelemetry.recordOutput("Recorder/Last Error", m_flightRecorder.getLastError());
+    }
+    if (enableAutoProfiling) {
+      System.out.println("WARNING, AUTO PROFILE IS ENABLED!");
+    }
+  }
+
+  /** Returns whether the main loop has its own core and a fixed real-time priority. */
+  public boolean isMainLoopPinned() {
+    return m_mainLoopPinned && !m_threadingModel.hasFailed();
+  }
+
+  /**
+   * Runs the deferrable work that fits in the rest of the loop. Called last, after everything that
+   * drives an output.
+   *
+   * @param loopStartSeconds When this loop started, on the FPGA clock.
+   */
+  public void runDeferredWork(double loopStartSeconds) {
+    m_loopBudget.run(loopStartSeconds);
+    RobotTelemetry.recordOutput("LoopBudget/Postponed", m_loopBudget.getPostponed());
+    RobotTelemetry.recordOutput("LoopBudget/Dropped", m_loopBudget.getDropped());
+    RobotTelemetry.recordOutput("LoopBudget/Total Postponed", m_loopBudget.getTotalPostponed());
+    RobotTelemetry.recordOutput("LoopBudget/Total Dropped", m_loopBudget.getTotalDropped());
+    RobotTelemetry.recordOutput(
+        "LoopBudget/Remaining (ms)", m_loopBudget.getRemainingSeconds() * 1000.0);
   }
 }
@@ -3,18 +3,79 @@ package frc.robot;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StructPublisher;
 import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.struct.Struct;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.constants.Constants;
+import frc.robot.telemetry.TelemetryProfile;
+import frc.robot.telemetry.TelemetryRoute;
+import java.util.HashMap;
+import java.util.Map;
 import org.littletonrobotics.junction.Logger;
 
 /**
  * Unified telemetry routing class. Replaces direct calls to SmartDashboard and Logger throughout
  * subsystems.
+ *
+ * <p>Each key is routed by {@link Constants#TELEMETRY_PROFILE}: it may go to NetworkTables, the
+ * log, or both, and NetworkTables may only get every Nth update. Routes are resolved once per key
+ * and cached.
  */
 public class RobotTelemetry {
+  /** Route and decimation counter for one key. */
+  private static final class KeyState {
+    final TelemetryRoute route;
+    int updates = 0;
+
+    KeyState(TelemetryRoute route) {
+      this.route = route;
+    }
+  }
+
+  private static final TelemetryProfile profile = Constants.TELEMETRY_PROFILE;
+  private static final Map<String, KeyState> keyStates = new HashMap<>();
+  private static final NetworkTable smartDashboardTable =
+      NetworkTableInstance.getDefault().getTable("SmartDashboard");
+  private static final Map<String, StructPublisher<?>> structPublishers = new HashMap<>();
+
+  private static KeyState keyState(String key) {
+    KeyState state = keyStates.get(key);
+    if (state == null) {
+      state = new KeyState(profile.route(key));
+      keyStates.put(key, state);
+    }
+    return state;
+  }
+
+  /** Counts an update to the key and returns whether this one goes out over NetworkTables. */
+  private static boolean publishesNow(KeyState state) {
+    if (!state.route.networkTables()) {
+      return false;
+    }
+    return state.updates++ % state.route.decimation() == 0;
+  }
+
+  public static TelemetryProfile getProfile() {
+    return profile;
+  }
+
+  /**
+   * Returns whether an update to a key that is pushed through its own {@link Sendable} (e.g. a
+   * Field2d) should be sent this loop. Counts as an update for decimation.
+   *
+   * @param key SmartDashboard key the sendable was registered under.
+   */
+  public static boolean isDue(String key) {
+    return publishesNow(keyState(key));
+  }
 
   public static void putData(String key, Sendable data) {
-    SmartDashboard.putData(key, data);
+    if (keyState(key).route.networkTables()) {
+      SmartDashboard.putData(key, data);
+    }
   }
 
   public static void putData(Sendable data) {
@@ -22,18 +83,57 @@ public class RobotTelemetry {
   }
 
   public static void putNumber(String key, double value) {
-    SmartDashboard.putNumber(key, value);
-    Logger.recordOutput(key, value);
+    KeyState state = keyState(key);
+    if (publishesNow(state)) {
+      SmartDashboard.putNumber(key, value);
+    }
+    if (state.route.log()) {
+      Logger.recordOutput(key, value);
+    }
   }
 
   public static void putBoolean(String key, boolean value) {
-    SmartDashboard.putBoolean(key, value);
-    Logger.recordOutput(key, value);
+    KeyState state = keyState(key);
+    if (publishesNow(state)) {
+      SmartDashboard.putBoolean(key, value);
+    }
+    if (state.route.log()) {
+      Logger.recordOutput(key, value);
+    }
   }
 
   public static void putString(String key, String value) {
-    SmartDashboard.putString(key, value);
-    Logger.recordOutput(key, value);
+    KeyState state = keyState(key);
+    if (publishesNow(state)) {
+      SmartDashboard.putString(key, value);
+    }
+    if (state.route.log()) {
+      Logger.recordOutput(key, value);
+    }
+  }
+
+  /**
+   * Publishes a whole subsystem snapshot as one struct topic, so consumers get every value from the
+   * same loop in a single NT message.
+   *
+   * @param key SmartDashboard key, e.g. "Drive/State".
+   * @param struct The struct serializer for the record type.
+   * @param value The snapshot to publish.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> void putStruct(String key, Struct<T> struct, T value) {
+    KeyState state = keyState(key);
+    if (publishesNow(state)) {
+      StructPublisher<T> publisher = (StructPublisher<T>) structPublishers.get(key);
+      if (publisher == null) {
+        publisher = smartDashboardTable.getStructTopic(key, struct).publish();
+        structPublishers.put(key, publisher);
+      }
+      publisher.set(value);
+    }
+    if (state.route.log()) {
+      Logger.recordOutput(key, struct, value);
+    }
   }
 
   public static void recordOutput(String key, double value) {
@@ -48,6 +148,11 @@ public class RobotTelemetry {
     putString(key, value);
   }
 
+  /** Logs a single pose without the array the varargs overload allocates on every call. */
+  public static void recordOutput(String key, Pose2d pose) {
+    Logger.recordOutput(key, pose);
+  }
+
   public static void recordOutput(String key, Pose2d... pose) {
     Logger.recordOutput(key, pose);
   }
@@ -0,0 +1,160 @@
+package frc.robot;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Threads;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Splits the roboRIO's two cores between the main loop and everything else. The main thread is
+ * pinned to one core at a fixed real-time priority, set once instead of raised and dropped every
+ * loop, and every other thread in the process (NetworkTables, the log writer, notifiers for
+ * odometry and fire control, vision) is pinned to the other core so none of it can preempt the
+ * loop.
+ *
+ * <p>Java has no thread affinity API, so threads are found by their Linux thread ID under {@code
+ * /proc} and pinned with {@code taskset}. That means starting a process and waiting for it, so all
+ * of it runs on a {@link Notifier} of its own, created at normal priority before the main loop is
+ * raised, and the main loop never waits on it. The notifier rescans for new threads at a low rate
+ * and only spawns {@code taskset} for threads it hasn't seen yet.
+ *
+ * <p>Threads started by the main loop after it is raised inherit its real-time priority as well as
+ * its core, so new threads at exactly the main loop's priority are also dropped back to normal
+ * scheduling with {@code chrt}.
+ */
+public class ThreadingModel {
+  private static final Path TASKS = Path.of("/proc/self/task");
+  private static final Path CURRENT_THREAD = Path.of("/proc/thread-self");
+  // Linux scheduling policies, from the thread's stat line
+  private static final int SCHED_FIFO = 1;
+  private static final int SCHED_RR = 2;
+
+  private final int m_mainCore;
+  private final int m_workerCore;
+  private final int m_mainPriority;
+  private final double m_rescanPeriod;
+  private final Notifier m_notifier;
+
+  // Pinning thread only, apart from the main thread ID which is set before it starts
+  private final Set<String> m_pinned = new HashSet<>();
+  private volatile String m_mainThreadId;
+  private boolean m_rescanning = false;
+  private volatile boolean m_failed = false;
+
+  /**
+   * Creates a new ThreadingModel. Construct it before the main loop is raised, so its own thread
+   * starts at normal priority.
+   *
+   * @param mainCore Core for the main loop.
+   * @param workerCore Core for every other thread.
+   * @param mainPriority Real-time priority of the main loop, 1 to 99.
+   * @param rescanRate How often to look for new threads, in Hz.
+   */
+  public ThreadingModel(int mainCore, int workerCore, int mainPriority, double rescanRate) {
+    if (mainCore == workerCore) {
+      throw new IllegalArgumentException("The main loop needs a core to itself");
+    }
+    m_mainCore = mainCore;
+    m_workerCore = workerCore;
+    m_mainPriority = mainPriority;
+    m_rescanPeriod = 1.0 / rescanRate;
+    m_notifier = new Notifier(this::pinThreads);
+    m_notifier.setName("ThreadPinning");
+  }
+
+  /**
+   * Raises the calling thread as the main loop, then starts pinning it and moving every other
+   * thread off its core in the background.
+   */
+  public void configureMainThread() {
+    if (!Threads.setCurrentThreadPriority(true, m_mainPriority)) {
+      DriverStation.reportWarning("Couldn't make the main loop real-time", false);
+    }
+    try {
+      m_mainThreadId = CURRENT_THREAD.toRealPath().getFileName().toString();
+    } catch (IOException e) {
+      DriverStation.reportWarning("Couldn't find the main thread ID: " + e.getMessage(), false);
+      m_failed = true;
+      return;
+    }
+    m_notifier.startSingle(0.0);
+  }
+
+  /** Returns whether pinning has failed and been given up on. */
+  public boolean hasFailed() {
+    return m_failed;
+  }
+
+  private void pinThreads() {
+    if (!m_rescanning) {
+      // Pin the main loop first, then keep looking for new threads
+      m_rescanning = true;
+      m_pinned.add(m_mainThreadId);
+      if (run("taskset", "-p", "-c", Integer.toString(m_mainCore), m_mainThreadId) != 0) {
+        DriverStation.reportWarning("Couldn't pin the main loop to core " + m_mainCore, false);
+      }
+      m_notifier.startPeriodic(m_rescanPeriod);
+    }
+    String[] threadIds = TASKS.toFile().list();
+    if (m_failed || threadIds == null) {
+      return;
+    }
+    // Forget threads that have exited so a reused ID gets pinned again
+    m_pinned.retainAll(Set.of(threadIds));
+    m_pinned.add(m_mainThreadId);
+    for (String threadId : threadIds) {
+      if (m_pinned.add(threadId)) {
+        // A thread can exit before it's pinned, which doesn't matter
+        if (isInheritedRealTime(threadId)) {
+          run("chrt", "-o", "-p", "0", threadId);
+        }
+        run("taskset", "-p", "-c", Integer.toString(m_workerCore), threadId);
+      }
+    }
+  }
+
+  /** Returns whether a thread runs real-time at the main loop's priority, i.e. inherited it. */
+  private boolean isInheritedRealTime(String threadId) {
+    try {
+      String stat = Files.readString(TASKS.resolve(threadId).resolve("stat"));
+      // Fields after the parenthesized name start at field 3; rt_priority is 40, policy is 41
+      String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+      int priority = Integer.parseInt(fields[37]);
+      int policy = Integer.parseInt(fields[38].trim());
+      return (policy == SCHED_FIFO || policy == SCHED_RR) && priority == m_mainPriority;
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  /** Runs a command and returns its exit status, or -1 if it couldn't be run. */
+  private int run(String... command) {
+    if (m_failed) {
+      return -1;
+    }
+    try {
+      return new ProcessBuilder(command)
+          .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+          .redirectError(ProcessBuilder.Redirect.DISCARD)
+          .start()
+          .waitFor();
+    } catch (IOException e) {
+      // Missing a tool on this system, so nothing else will pin either
+      DriverStation.reportWarning("Thread pinning unavailable: " + e.getMessage(), false);
+      m_failed = true;
+      return -1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return -1;
+    }
+  }
+
+  /** Returns whether this system exposes threads the way pinning needs. */
+  public static boolean isSupported() {
+    return Files.isDirectory(TASKS) && Files.exists(CURRENT_THREAD);
+  }
+}
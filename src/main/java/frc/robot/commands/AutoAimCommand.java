@@ -1,14 +1,13 @@
 package frc.robot.commands;
 
-import edu.wpi.first.math.controller.ProfiledPIDController;
-import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Pose3d;
-import edu.wpi.first.math.geometry.Rotation3d;
-import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.RobotTelemetry;
+import frc.robot.constants.Constants.FieldConstants;
 import frc.robot.subsystems.CameraSubsystem;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.FireControlLoop;
 import frc.robot.subsystems.TurretSubsystem;
 import frc.robot.utils.AutoAimCalculations;
 
@@ -16,27 +15,21 @@ public class AutoAimCommand extends Command {
   private final TurretSubsystem m_turret;
   private final CameraSubsystem m_camera;
   private final DriveSubsystem m_drive;
-
-  // Profiled PID for incredibly smooth tracking
-  private final ProfiledPIDController m_yawController =
-      new ProfiledPIDController(
-          4.5, 0.0, 0.1, new TrapezoidProfile.Constraints(6.0, 8.0)); // Rad/s and Rad/s/s
-
-  // Feedforward for smooth following
-  private final SimpleMotorFeedforward m_feedforward = new SimpleMotorFeedforward(0.1, 0.5);
-
-  // Hardcoded target pose (From CameraSubsystem.java where TargetModel is defined)
-  private final Pose3d m_targetPose = new Pose3d(16, 4, 2, new Rotation3d(0, 0, Math.PI));
-  private final double m_turretHeight = 0.5; // Roughly match Rust Sim
-
-  public AutoAimCommand(TurretSubsystem turret, CameraSubsystem camera, DriveSubsystem drive) {
+  private final FireControlLoop m_fireControlLoop;
+
+  /**
+   * Creates a new AutoAimCommand. The lead solution is computed here every scheduler loop, while
+   * the turret control law itself runs in the high-rate {@link FireControlLoop}.
+   */
+  public AutoAimCommand(
+      TurretSubsystem turret,
+      CameraSubsystem camera,
+      DriveSubsystem drive,
+      FireControlLoop fireControlLoop) {
     m_turret = turret;
     m_camera = camera;
     m_drive = drive;
-
-    // Turret wraps around so we make it continuous between -Pi and Pi
-    m_yawController.enableContinuousInput(-Math.PI, Math.PI);
-    m_yawController.setTolerance(Math.toRadians(1.0));
+    m_fireControlLoop = fireControlLoop;
 
     // Use addRequirements() here to declare subsystem dependencies.
     addRequirements(turret);
@@ -46,7 +39,6 @@ public class AutoAimCommand extends Command {
   @Override
   public void initialize() {
     System.out.println("AutoAimCommand Scheduled - Handing over to AutoAim");
-    m_yawController.reset(m_turret.getTurretAngleRadians());
   }
 
   // Called every time the scheduler runs while the command is scheduled.
@@ -54,23 +46,27 @@ public class AutoAimCommand extends Command {
   public void execute() {
     // 1) Get current state from odometry
     Pose2d robotPose = m_drive.getPose();
+    double yawRate = m_drive.getYawRate();
 
     // 2) Get optimal lead (yaw + RPM) from Rust algorithm port
     AutoAimCalculations.AimResult result =
         AutoAimCalculations.calculateLead(
-            m_drive.getSpeeds(), robotPose, m_targetPose, m_turretHeight);
-
-    // 3) Calculate tracking using profiled PID and feedforward
-    double currentAngle = m_turret.getTurretAngleRadians();
-
-    // Field-relative desired yaw to robot-relative: subtract the robot's heading
-    double robotRelativeDesiredYaw = result.desiredYaw - robotPose.getRotation().getRadians();
-
-    double pidOut = m_yawController.calculate(currentAngle, robotRelativeDesiredYaw);
-    double ffOut = m_feedforward.calculate(m_yawController.getSetpoint().velocity);
-
-    // 4) Apply voltage
-    m_turret.setTurretVoltage(pidOut + ffOut);
+            m_drive.getForwardSpeed(),
+            yawRate,
+            m_drive.getAcceleration(),
+            robotPose,
+            FieldConstants.TARGET_POSE,
+            FieldConstants.TURRET_HEIGHT);
+    RobotTelemetry.putBoolean("Aim/Feasible", result.feasible);
+
+    // 3) Hand the field-relative goal to the fire-control loop, which extrapolates the heading
+    // between our updates and runs the profiled PID + feedforward at its own rate
+    m_fireControlLoop.setAimGoal(
+        result.desiredYaw,
+        robotPose.getRotation().getRadians(),
+        yawRate,
+        Timer.getFPGATimestamp(),
+        result.feasible);
   }
 
   // Returns true when the command should end.
@@ -82,6 +78,7 @@ public class AutoAimCommand extends Command {
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
+    m_fireControlLoop.clearAimGoal();
     m_turret.stop();
     System.out.println("AutoAimCommand Ended - Returning to Manual Control");
   }
@@ -2,19 +2,34 @@
 
 package frc.robot.commands;
 
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.DriveConstants;
 import frc.robot.constants.Constants;
+import frc.robot.constants.SpeedConstants;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.utils.DriveVelocityLimiter;
 import frc.robot.utils.HelperFunctions;
 import java.util.function.DoubleSupplier;
 
-/** The default drive command that uses the drive subsystem. */
+/**
+ * The default drive command that uses the drive subsystem.
+ *
+ * <p>With {@link DriveConstants#kClosedLoopTeleop} the sticks set wheel velocities instead of duty
+ * cycle, through the same speed curve. Top speed is what {@link DriveConstants#kTeleopVoltage} can
+ * hold, and each side's setpoint is stepped by a {@link DriveVelocityLimiter}, so the robot feels
+ * the same on a fresh battery and a tired one.
+ */
 public class DefaultDrive extends Command {
   private final DriveSubsystem m_driveSubsystem;
   private final DoubleSupplier m_left_y; // this gives us the left y axis for current controller
   private final DoubleSupplier m_right_y; // this gives us the right y axis for current controller
   private final java.util.function.BooleanSupplier m_precision_mode; // Precision Mode Toggle
 
+  // Closed-loop mode setpoints
+  private final DriveVelocityLimiter m_leftLimiter = newLimiter();
+  private final DriveVelocityLimiter m_rightLimiter = newLimiter();
+
   /**
    * Creates a new DefaultDrive command.
    *
@@ -37,15 +52,32 @@ public class DefaultDrive extends Command {
     addRequirements(d_subsystem);
   }
 
+  private static DriveVelocityLimiter newLimiter() {
+    return new DriveVelocityLimiter(
+        DriveConstants.ksDriveVolts,
+        DriveConstants.kvDriveVoltSecondsPerMeter,
+        DriveConstants.kaDriveVoltSecondsSquaredPerMeter,
+        DriveConstants.kTeleopVoltage,
+        TimedRobot.kDefaultPeriod);
+  }
+
   // Called when the command is initially scheduled.
   @Override
-  public void initialize() {}
+  public void initialize() {
+    // Pick up from however fast the robot is already moving
+    m_leftLimiter.reset(m_driveSubsystem.getState().getLeftVelocity());
+    m_rightLimiter.reset(m_driveSubsystem.getState().getRightVelocity());
+  }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
     // we include a limit on the drivers speed for safety.
     m_driveSubsystem.setReducedSpeed(false);
+    if (DriveConstants.kClosedLoopTeleop) {
+      driveClosedLoop();
+      return;
+    }
     if (!HelperFunctions.inDeadzone(m_left_y.getAsDouble(), Constants.CONTROLLER_DEAD_ZONE)
         || !HelperFunctions.inDeadzone(m_right_y.getAsDouble(), Constants.CONTROLLER_DEAD_ZONE)) {
 
@@ -60,6 +92,49 @@ public class DefaultDrive extends Command {
     }
   }
 
+  /** Maps the sticks to wheel velocities and steps each side toward them. */
+  private void driveClosedLoop() {
+    boolean precision = m_precision_mode.getAsBoolean();
+    double speedScale =
+        Constants.MAX_SPEED * (precision ? DriveConstants.kPrecisionSpeedScale : 1.0);
+    double maxAcceleration =
+        DriveConstants.kTeleopMaxAcceleration
+            * (precision ? DriveConstants.kPrecisionAccelerationScale : 1.0);
+
+    double leftTarget =
+        toSpeedFraction(
+                m_left_y.getAsDouble(),
+                speedScale,
+                SpeedConstants.FRONT_LEFT_MAX_SPEED,
+                SpeedConstants.FRONT_LEFT_SENSITIVITY)
+            * m_leftLimiter.getMaxSpeed();
+    double rightTarget =
+        toSpeedFraction(
+                m_right_y.getAsDouble(),
+                speedScale,
+                SpeedConstants.FRONT_RIGHT_MAX_SPEED,
+                SpeedConstants.FRONT_RIGHT_SENSITIVITY)
+            * m_rightLimiter.getMaxSpeed();
+    m_driveSubsystem.setWheelVelocities(
+        m_leftLimiter.calculate(leftTarget, maxAcceleration),
+        m_rightLimiter.calculate(rightTarget, maxAcceleration),
+        m_leftLimiter.getAcceleration(),
+        m_rightLimiter.getAcceleration());
+  }
+
+  /**
+   * Shapes a stick input the way the open-loop path does: scaled, through the dashboard speed
+   * curve, then squared as {@code DifferentialDrive} squares its inputs. 0 inside the deadzone.
+   */
+  private static double toSpeedFraction(
+      double stick, double scale, double maxSpeed, double sensitivity) {
+    if (HelperFunctions.inDeadzone(stick, Constants.CONTROLLER_DEAD_ZONE)) {
+      return 0.0;
+    }
+    double curved = SpeedConstants.adjustSpeed(stick * scale, maxSpeed, sensitivity);
+    return Math.copySign(curved * curved, curved);
+  }
+
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
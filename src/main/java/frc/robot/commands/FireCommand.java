@@ -2,6 +2,8 @@ package frc.robot.commands;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.constants.Constants.FlywheelConstants;
+import frc.robot.subsystems.FireControlLoop;
 import frc.robot.subsystems.FireControlSubsystem;
 import frc.robot.subsystems.LoaderSubsystem;
 import java.util.function.BooleanSupplier;
@@ -10,52 +12,84 @@ import java.util.function.DoubleSupplier;
 public class FireCommand extends Command {
   private final FireControlSubsystem m_fireSubsystem;
   private final LoaderSubsystem m_loaderSubsystem;
-  private final DoubleSupplier m_speedSupplier;
+  private final FireControlLoop m_fireControlLoop;
+  private final DoubleSupplier m_targetRPMSupplier;
   private final BooleanSupplier m_triggerHeldSupplier;
 
-  private final double MAX_RPM = 5000.0; // Assume max RPM is roughly 5000 for a NEO
-
   /**
    * Creates a new FireCommand that spins up the flywheels based on trigger depth, and only feeds
-   * via the Loader when the flywheel is at the target RPM.
+   * via the Loader when the flywheel is at the target RPM. The feed gate itself runs in the
+   * high-rate {@link FireControlLoop} so shots are released as soon as the flywheel is ready.
    */
   public FireCommand(
       FireControlSubsystem fireSubsystem,
       LoaderSubsystem loaderSubsystem,
+      FireControlLoop fireControlLoop,
       DoubleSupplier speedSupplier,
       BooleanSupplier triggerHeldSupplier) {
+    this(
+        fireSubsystem,
+        loaderSubsystem,
+        fireControlLoop,
+        triggerHeldSupplier,
+        () -> axisToRPM(speedSupplier.getAsDouble()));
+  }
+
+  private FireCommand(
+      FireControlSubsystem fireSubsystem,
+      LoaderSubsystem loaderSubsystem,
+      FireControlLoop fireControlLoop,
+      BooleanSupplier triggerHeldSupplier,
+      DoubleSupplier targetRPMSupplier) {
     m_fireSubsystem = fireSubsystem;
     m_loaderSubsystem = loaderSubsystem;
-    m_speedSupplier = speedSupplier;
+    m_fireControlLoop = fireControlLoop;
+    m_targetRPMSupplier = targetRPMSupplier;
     m_triggerHeldSupplier = triggerHeldSupplier;
 
     // Use addRequirements() here to declare subsystem dependencies.
     addRequirements(fireSubsystem, loaderSubsystem);
   }
 
+  /**
+   * Creates a FireCommand that fires at a computed RPM, such as the shot predictor's, so the
+   * flywheel stays at the speed it was pre-spun to.
+   *
+   * @param targetRPMSupplier Flywheel target in RPM, used as is.
+   */
+  public static FireCommand atRPM(
+      FireControlSubsystem fireSubsystem,
+      LoaderSubsystem loaderSubsystem,
+      FireControlLoop fireControlLoop,
+      DoubleSupplier targetRPMSupplier,
+      BooleanSupplier triggerHeldSupplier) {
+    return new FireCommand(
+        fireSubsystem, loaderSubsystem, fireControlLoop, triggerHeldSupplier, targetRPMSupplier);
+  }
+
+  private static double axisToRPM(double axis) {
+    // Math.abs to ensure positive velocity based on Y-axis
+    double rawSpeed = Math.abs(axis);
+    // Apply a deadband to ignore slightly noisy inputs, then clamp between 0 and 1
+    double speed = MathUtil.clamp(MathUtil.applyDeadband(rawSpeed, 0.1), 0.0, 1.0);
+    return speed * FlywheelConstants.MAX_RPM;
+  }
+
   // Called when the command is initially scheduled.
   @Override
   public void initialize() {
-    // Initialization handled by execute on a per-tick basis
+    // The loader's default command may have left it running; the feed pipeline takes over now
+    m_loaderSubsystem.stop();
   }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    // Math.abs to ensure positive velocity based on Y-axis
-    double rawSpeed = Math.abs(m_speedSupplier.getAsDouble());
-    // Apply a deadband to ignore slightly noisy inputs, then clamp between 0 and 1
-    double speed = MathUtil.clamp(MathUtil.applyDeadband(rawSpeed, 0.1), 0.0, 1.0);
-
-    double targetRPM = speed * MAX_RPM;
+    double targetRPM = m_targetRPMSupplier.getAsDouble();
     m_fireSubsystem.setShooterRPM(targetRPM);
 
-    // Only feed if target RPM is > 0 and the flywheels have reached the target
-    if (targetRPM > 100 && m_fireSubsystem.isAtRPM(targetRPM, 50.0)) {
-      m_loaderSubsystem.setLoaderSpeed(1.0); // Full speed feed
-    } else {
-      m_loaderSubsystem.stop();
-    }
+    // The loop only feeds once the flywheels have reached the target
+    m_fireControlLoop.setFireRequest(targetRPM, false);
   }
 
   // Returns true when the command should end.
@@ -68,7 +102,8 @@ public class FireCommand extends Command {
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
-    // Stop all motors when the command finishes
+    // Stop all motors when the command finishes; the pre-spin default command takes over next loop
+    m_fireControlLoop.clearFireRequest();
     m_fireSubsystem.stop();
     m_loaderSubsystem.stop();
   }
@@ -5,14 +5,15 @@ import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.subsystems.IntakeSubsystem;
 
 /**
- * Overrides the Intake slider to rapidly run the intake backwards for 2 seconds to unjam a
- * note/ball.
+ * Overrides the Intake slider to rapidly run the intake backwards to unjam a note/ball. Stops as
+ * soon as the roller is spinning freely in reverse, or after 2 seconds at most.
  */
 public class UnjamIntakeCommand extends Command {
   private final IntakeSubsystem m_intakeSubsystem;
   private final Timer m_timer;
   private static final double UNJAM_SPEED = -1.0; // Reverse full speed
-  private static final double UNJAM_DURATION = 2.0; // 2 seconds
+  private static final double UNJAM_DURATION = 2.0; // 2 seconds at most
+  private static final double MIN_UNJAM_DURATION = 0.2; // Let the piece actually back out
 
   /**
    * Creates a new UnjamIntakeCommand.
@@ -44,7 +45,8 @@ public class UnjamIntakeCommand extends Command {
 
   @Override
   public boolean isFinished() {
-    // Command finishes automatically when 2 seconds have elapsed
-    return m_timer.hasElapsed(UNJAM_DURATION);
+    // Command finishes once the roller turns freely again, or when 2 seconds have elapsed
+    return (m_timer.hasElapsed(MIN_UNJAM_DURATION) && m_intakeSubsystem.isSpinningFreely())
+        || m_timer.hasElapsed(UNJAM_DURATION);
   }
 }
@@ -4,7 +4,11 @@
 
 package frc.robot.constants;
 
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.telemetry.TelemetryProfile;
 
 /**
  * The Constants class provides a convenient place for teams to hold robot-wide numerical or boolean
@@ -52,6 +56,9 @@ public final class Constants {
     REPLAY
   }
 
+  // Telemetry profile, switch to COMPETITION before events to keep the radio link clear
+  public static final TelemetryProfile TELEMETRY_PROFILE = TelemetryProfile.PRACTICE;
+
   // Max speeds
   public static final double MAX_SPEED = 0.75;
 
@@ -67,4 +74,312 @@ public final class Constants {
 
   // Turret Subsystem
   public static final double TURRET_GEAR_RATIO = 10.0;
+
+  public static final class TelemetryConstants {
+    /// Key routing, matched by prefix
+    // Shown to the drivers during a match, so they stay on NetworkTables in every profile
+    public static final String[] DRIVER_KEY_PREFIXES = {
+      "Field", "Vision/State", "Inventory/", "FireControlLoop/On Target", "Prespin/In Range",
+      "Power/Limiting", "Intake/State"
+    };
+    // High-rate diagnostics that don't need every loop outside of debugging
+    public static final String[] DIAGNOSTIC_KEY_PREFIXES = {
+      "Power/", "Odometry/", "FireControlLoop/", "Prespin/", "Drive/State", "Turret/State",
+      "Fire/State"
+    };
+    // Only read live by the simulator tools, never worth logging and never sent in competition
+    public static final String[] NETWORK_TABLES_ONLY_PREFIXES = {"Sim_"};
+
+    /// NetworkTables decimation, in loops per update
+    public static final int COMPETITION_DECIMATION = 5;
+    public static final int DIAGNOSTIC_DECIMATION = 5;
+  }
+
+  public static final class LoopConstants {
+    /// Deferrable work budget (Seconds)
+    // Main loop period
+    public static final double PERIOD = 0.02;
+    // Kept free at the end of the loop for the logger and NetworkTables flush
+    public static final double RESERVE = 0.004;
+    // Loops in a row a normal priority task can be pushed back before it runs regardless
+    public static final int MAX_POSTPONED_LOOPS = 5;
+
+    /// Slow periodic tasks (Hz)
+    // Camera connection polling, each check is a NetworkTables lookup per camera
+    public static final double CAMERA_CONNECTION_RATE = 2.0;
+    // Gyro calibration check, only matters until the first zero after boot
+    public static final double GYRO_CALIBRATION_RATE = 5.0;
+    // Task run time and string status telemetry
+    public static final double STATUS_RATE = 1.0;
+  }
+
+  public static final class HealthConstants {
+    /// CAN device health monitor
+    // Background poll of fault words and bus counters (Hz)
+    public static final double POLL_RATE = 4.0;
+    // Main loop publishing of the latest poll (Hz)
+    public static final double PUBLISH_RATE = 2.0;
+    // No new frame data for this long means the device's values are stale (Seconds)
+    public static final double STALE_SECONDS = 1.0;
+    // Fraction of the bus in use before warning
+    public static final double BUS_UTILIZATION_WARNING = 0.9;
+  }
+
+  public static final class ThreadConstants {
+    /// Core and priority layout, only applied on the robot
+    // Keep the main loop on its own core at a fixed real-time priority. When off, or if pinning
+    // isn't available, the loop is raised to real-time for each loop and dropped back afterwards
+    public static final boolean PIN_MAIN_LOOP = true;
+    public static final int MAIN_CORE = 1;
+    // NetworkTables, logging, notifiers and every other thread
+    public static final int WORKER_CORE = 0;
+    // Below the kernel's interrupt threads (50), so CAN and the network still get serviced
+    public static final int MAIN_PRIORITY = 45;
+    // How often to look for new threads to move off the main core (Hz)
+    public static final double WORKER_RESCAN_RATE = 0.2;
+
+    /// Loop timing telemetry
+    public static final int JITTER_WINDOW_LOOPS = 50;
+  }
+
+  public static final class RecorderConstants {
+    /// In-memory flight recorder, dumped around faults (not used in replay)
+    public static final boolean ENABLED = true;
+    // Seconds of history kept, and kept recording after a trigger before dumping
+    public static final double HISTORY_SECONDS = 10.0;
+    public static final double POST_TRIGGER_SECONDS = 2.0;
+    // At most one dump this often (Seconds)
+    public static final double COOLDOWN_SECONDS = 30.0;
+    // Next to the AdvantageKit logs on the USB stick, or under the working directory in sim
+    public static final String ROBOT_DIRECTORY = "/U/flight";
+    public static final String SIM_DIRECTORY = "flight";
+
+    /// Triggers
+    public static final boolean TRIGGER_ON_BROWNOUT = true;
+    public static final boolean TRIGGER_ON_OVERRUN = true;
+    // A loop period this long counts as an overrun (Seconds)
+    public static final double OVERRUN_SECONDS = 0.1;
+    public static final boolean TRIGGER_ON_UNWIND = true;
+    // A device going unhealthy in the health monitor, or the CAN bus going bus-off
+    public static final boolean TRIGGER_ON_FAULT = true;
+  }
+
+  public static final class FieldConstants {
+    // Target flat against the far wall center, facing the blue driver stations
+    public static final Pose3d TARGET_POSE = new Pose3d(16, 4, 2, new Rotation3d(0, 0, Math.PI));
+    public static final double TURRET_HEIGHT = 0.5; // Meters, roughly match Rust Sim
+  }
+
+  public static final class NavConstants {
+    // PathPlanner files in the deploy directory
+    public static final String NAVGRID_FILE = "pathplanner/navgrid.json";
+    public static final String SETTINGS_FILE = "pathplanner/settings.json";
+    // Plans between the same two regions reuse the same corners
+    public static final double CACHE_REGION_METERS = 1.0;
+    public static final int CACHE_SIZE = 64;
+    // Closer than this to the goal there is nothing to plan
+    public static final double GOAL_TOLERANCE_METERS = 0.1;
+    // Shooting spot teleop can drive to, inside the shooting zone and clear of the hub
+    public static final Translation2d SCORING_POSITION = new Translation2d(13.5, 2.0);
+  }
+
+  public static final class IntakeConstants {
+    /// Jam detection
+    public static final double JAM_CURRENT_FILTER_TIME_CONSTANT = 0.04; // Seconds
+    // A slowed roller with the filtered current above this, or rising faster than the slope, is
+    // jammed (Amps and Amps/s)
+    public static final double JAM_CURRENT = 25.0;
+    public static final double JAM_CURRENT_SLOPE = 250.0;
+    // Measured over expected velocity below which the roller is considered slowed
+    public static final double JAM_VELOCITY_RATIO = 0.3;
+    // Below this applied output the velocity ratio is meaningless
+    public static final double JAM_MIN_OUTPUT = 0.1;
+    // Ignore the inrush while the roller spins up from standstill
+    public static final double JAM_STARTUP_GRACE_SECONDS = 0.2;
+    public static final double JAM_DEBOUNCE_SECONDS = 0.06;
+
+    /// Jam clearing
+    public static final double JAM_REVERSE_OUTPUT = -0.5;
+    // Reverse velocity ratio at which the jam is considered cleared
+    public static final double JAM_RECOVERED_VELOCITY_RATIO = 0.5;
+    public static final double JAM_MIN_PULSE_SECONDS = 0.1;
+    public static final double JAM_INITIAL_PULSE_SECONDS = 0.25;
+    // Repeated jams double the pulse up to this, until one is this far apart from the last
+    public static final double JAM_MAX_PULSE_SECONDS = 1.0;
+    public static final double JAM_PULSE_RESET_SECONDS = 2.0;
+  }
+
+  public static final class InventoryConstants {
+    /// Game piece inventory estimate (placeholder values until measured on the robot)
+    public static final int CAPACITY = 30;
+    public static final int PRELOAD_COUNT = 8;
+    // Below this applied output a roller's current says nothing about game pieces
+    public static final double MIN_OUTPUT = 0.1;
+    // A piece passing through loads the roller this far above its free-running current (Amps)
+    public static final double PIECE_CURRENT_RISE = 6.0;
+    public static final double MIN_PIECE_SECONDS = 0.04;
+    public static final double MAX_PIECE_SECONDS = 0.5;
+    public static final double BASELINE_TIME_CONSTANT = 0.5;
+
+    /// Confidence
+    // Multiplied in for every piece counted from a current bump alone
+    public static final double INFERRED_EVENT_CONFIDENCE = 0.95;
+    // Multiplied in when the count turns out to have been wrong
+    public static final double MISSED_EVENT_CONFIDENCE = 0.5;
+    // Multiplied in when the intake is reversed with pieces on board
+    public static final double REVERSE_CONFIDENCE = 0.5;
+    // Needed before feed cycles are skipped or autos move on
+    public static final double EMPTY_CONFIDENCE = 0.8;
+  }
+
+  public static final class PowerConstants {
+    /// Battery model
+    // roboRIO 2 brownout threshold, and the voltage the current budget keeps the battery above
+    public static final double BROWNOUT_VOLTAGE = 6.75;
+    public static final double MIN_BUDGET_VOLTAGE = 7.5;
+    public static final double MODEL_TIME_CONSTANT = 2.0; // Seconds of history in the fit
+    public static final double DEFAULT_RESISTANCE = 0.02; // Ohms, battery plus wiring
+    public static final double MIN_RESISTANCE = 0.01;
+    public static final double MAX_RESISTANCE = 0.06;
+    // Standard deviation of battery current (Amps) needed before the resistance is fit
+    public static final double MIN_CURRENT_SPREAD = 10.0;
+
+    /// Smart current limits per motor (Amps)
+    public static final int DRIVE_MIN_CURRENT = 30;
+    public static final int DRIVE_MAX_CURRENT = 80; // SparkMax default
+    public static final int FLYWHEEL_MIN_CURRENT = 20;
+    public static final int FLYWHEEL_MAX_CURRENT = 40;
+    public static final int TURRET_MIN_CURRENT = 15;
+    public static final int TURRET_MAX_CURRENT = 40;
+    public static final int INTAKE_MIN_CURRENT = 10;
+    public static final int INTAKE_MAX_CURRENT = 40;
+    public static final int LOADER_MIN_CURRENT = 10;
+    public static final int LOADER_MAX_CURRENT = 30;
+    // Only reconfigure a mechanism when its limit moves at least this much, to limit CAN traffic
+    public static final int LIMIT_HYSTERESIS = 5;
+
+    /// Inrush staggering
+    // Below this a mechanism is considered stopped
+    public static final double IDLE_CURRENT = 2.0;
+    // While a mechanism is starting, stopped lower priority mechanisms are capped for this long
+    public static final double INRUSH_WINDOW_SECONDS = 0.15;
+    public static final int INRUSH_CURRENT_CAP = 20;
+
+    // Warn the drivers once the battery dips below this under load
+    public static final double SAG_ALERT_VOLTAGE = 8.0;
+
+    /// Motor thermal model (NEO), used to derate limits before the motors overheat
+    // Steady-state rise per amp squared (degrees C / A^2), winding resistance times thermal
+    // resistance to ambient
+    public static final double NEO_THERMAL_GAIN = 0.06;
+    public static final double NEO_THERMAL_TIME_CONSTANT = 250.0; // Seconds
+    public static final double AMBIENT_TEMPERATURE = 25.0; // Degrees C
+    // Kept clear of where the motors start losing torque and the controllers shut down
+    public static final double MOTOR_TEMPERATURE_LIMIT = 90.0; // Degrees C
+    // Limits keep each motor under the temperature limit for this far ahead (Seconds)
+    public static final double THERMAL_HORIZON_SECONDS = 20.0;
+    // Rate the estimate follows the (lagging) controller temperature reading (1/s)
+    public static final double THERMAL_MEASUREMENT_GAIN = 0.05;
+    // Derating never takes a motor below this, so the robot can still move (Amps)
+    public static final int THERMAL_MIN_CURRENT = 10;
+    // Warn the drivers when a motor is this close to the temperature limit (Seconds)
+    public static final double THERMAL_ALERT_SECONDS = 30.0;
+  }
+
+  public static final class FireControlConstants {
+    /// High-rate fire-control loop (turret tracking + shot release gate)
+    // Rate of the Notifier driving the loop, clamped to the supported 200-250 Hz window
+    public static final double LOOP_FREQUENCY_HZ = 250.0;
+    public static final double MIN_LOOP_FREQUENCY_HZ = 200.0;
+    public static final double MAX_LOOP_FREQUENCY_HZ = 250.0;
+    // SparkMax status frame period for the signals the loop reads, so it never sees stale data
+    public static final int STATUS_FRAME_PERIOD_MS = 4;
+
+    /// Turret control law (Rad/s and Rad/s/s)
+    public static final double TURRET_kP = 4.5;
+    public static final double TURRET_kI = 0.0;
+    public static final double TURRET_kD = 0.1;
+    public static final double TURRET_MAX_VELOCITY = 6.0;
+    public static final double TURRET_MAX_ACCELERATION = 8.0;
+    // Feedforward defaults, replaced at boot by the gains identified with SysId in the deploy file
+    public static final double TURRET_kS = 0.1;
+    public static final double TURRET_kV = 0.5;
+    public static final double TURRET_kA = 0.0;
+    public static final String TURRET_GAINS_FILE = "sysid/turret.json";
+    public static final double TURRET_TOLERANCE_RADIANS = Math.toRadians(1.0);
+
+    /// Cable wrap
+    // Firmware soft limits either side of center, where the cable wrap runs out
+    public static final double TURRET_WRAP_LIMIT_RADIANS = Math.toRadians(360.0);
+    // Tracking goals stay this far inside the soft limits so the loop never drives into them
+    public static final double TURRET_WRAP_MARGIN_RADIANS = Math.toRadians(15.0);
+    // How far ahead the robot's rotation is predicted when choosing which way round to track
+    public static final double TURRET_WRAP_HORIZON_SECONDS = 1.0;
+    // Cost of the predicted goal being off center, relative to travel
+    public static final double TURRET_WRAP_CENTER_WEIGHT = 0.25;
+
+    /// Turret SysId
+    public static final double TURRET_SYSID_RAMP_VOLTS_PER_SECOND = 0.5;
+    public static final double TURRET_SYSID_STEP_VOLTS = 2.0;
+    public static final double TURRET_SYSID_TIMEOUT_SECONDS = 3.0;
+    // A 2 V step covers about 12 rad in 3 s at the default gains, far past the soft limits, so each
+    // test also ends this far inside them. Start the tests from the opposite side for more data.
+    public static final double TURRET_SYSID_STOP_MARGIN_RADIANS = Math.toRadians(45.0);
+
+    /// Shot release gate
+    public static final double MIN_FIRE_RPM = 100.0;
+    public static final double RPM_TOLERANCE = 50.0;
+    // How far off target the turret may be while still releasing a shot when aiming is required
+    public static final double AIM_RELEASE_TOLERANCE_RADIANS = Math.toRadians(2.0);
+    public static final double FEED_SPEED = 1.0; // Full speed feed
+
+    /// Feed pipeline
+    // A pulse that produces no shot within this time means the loader is empty or stuck
+    public static final double FEED_PULSE_TIMEOUT = 0.5;
+    // How far below the target the flywheel may still be when a pulse is started ahead of recovery
+    public static final double EARLY_RELEASE_RPM_TOLERANCE = 250.0;
+    // While the inventory says we're empty, only probe with a pulse this often
+    public static final double EMPTY_PROBE_INTERVAL = 1.0;
+  }
+
+  public static final class FlywheelConstants {
+    /// Flywheel model (volts per RPM), defaults until identified with SysId
+    public static final double kS = 0.12;
+    public static final double kV = 12.0 / 5676.0; // NEO free speed, 1:1
+    public static final double kA = 0.0004;
+    // Identified gains in the deploy directory replace the defaults at boot
+    public static final String GAINS_FILE = "sysid/flywheel.json";
+    // Velocity feedback on top of the model (duty cycle per RPM of error)
+    public static final double kP = 0.0002;
+
+    /// Shot detection and recovery
+    // A drop this far below the setpoint while at speed, or below the best speed reached while
+    // recovering, means a game piece went through
+    public static final double SHOT_DETECT_RPM_DROP = 150.0;
+    // Extra voltage is applied to close the error within this time, using the kA model
+    public static final double RECOVERY_TIME_CONSTANT = 0.05;
+    public static final double MAX_BOOST_VOLTS = 4.0;
+    // Give up boosting if the flywheel still hasn't recovered (e.g. jammed)
+    public static final double MAX_BOOST_SECONDS = 0.5;
+    public static final double NOMINAL_VOLTAGE = 12.0;
+    // Only resend the setpoint when the feedforward moves at least this much, to limit CAN traffic
+    public static final double FEEDFORWARD_RESEND_VOLTS = 0.05;
+    // Assume max RPM is roughly 5000 for a NEO
+    public static final double MAX_RPM = 5000.0;
+
+    /// Pre-spin
+    // How far ahead the drive state is extrapolated when looking for the shooting zone
+    public static final double PRESPIN_HORIZON_SECONDS = 1.5;
+    public static final double PRESPIN_STEP_SECONDS = 0.05;
+    // Shooting zone, as distance from the target in meters
+    public static final double SHOOTING_ZONE_MIN_DISTANCE = 1.5;
+    public static final double SHOOTING_ZONE_MAX_DISTANCE = 6.0;
+    // Held outside the shooting zone so spin-up starts from speed rather than standstill
+    public static final double IDLE_RPM = 1500.0;
+    // Predicted RPM is rounded to this step so small pose changes don't restart the spin-up
+    public static final double PRESPIN_RPM_STEP = 100.0;
+    // Pre-spin is dropped below the guard voltage and only resumes above the release voltage
+    public static final double PRESPIN_BATTERY_GUARD_VOLTS = 10.5;
+    public static final double PRESPIN_BATTERY_RELEASE_VOLTS = 11.0;
+  }
 }
@@ -8,11 +8,15 @@ import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.apriltag.AprilTagFields;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Robot;
 import frc.robot.RobotTelemetry;
 import frc.robot.constants.CameraConstants;
+import frc.robot.constants.Constants.FieldConstants;
+import frc.robot.constants.Constants.LoopConstants;
+import frc.robot.telemetry.VisionState;
+import frc.robot.utils.LoopBudget;
+import frc.robot.utils.MultiRateScheduler;
 import java.util.Optional;
 import org.photonvision.EstimatedRobotPose;
 import org.photonvision.PhotonCamera;
@@ -33,6 +37,14 @@ public class CameraSubsystem extends SubsystemBase {
   private final PhotonCamera targetingCamera1;
 
   public Optional<PhotonPipelineResult> targetingCamera1Result;
+  private volatile double m_lastResultTimestamp = 0.0;
+  // Polled at CAMERA_CONNECTION_RATE, and read by the health monitor thread
+  private volatile boolean m_poseCamera1Connected = false;
+  private volatile boolean m_poseCamera2Connected = false;
+  private volatile boolean m_targetingCamera1Connected = false;
+  // Latest pipeline result from each pose camera, for the health monitor
+  private volatile double m_poseCamera1FrameTimestamp = Double.NaN;
+  private volatile double m_poseCamera2FrameTimestamp = Double.NaN;
 
   private final PhotonPoseEstimator poseCamera1PoseEstimator;
   private final PhotonPoseEstimator poseCamera2PoseEstimator;
@@ -49,7 +61,7 @@ public class CameraSubsystem extends SubsystemBase {
   // The pose of where the target is on the field.
   // Its rotation determines where "forward" or the target x-axis points.
   // Let's say this target is flat against the far wall center, facing the blue driver stations.
-  private final Pose3d targetPose = new Pose3d(16, 4, 2, new Rotation3d(0, 0, Math.PI));
+  private final Pose3d targetPose = FieldConstants.TARGET_POSE;
   // The given target model at the given pose
   private final VisionTargetSim visionTarget = new VisionTargetSim(targetPose, targetModel);
   // setup cameras
@@ -63,7 +75,8 @@ public class CameraSubsystem extends SubsystemBase {
   private static final boolean cameraPoseEnabled = false;
 
   /** Creates a new CameraSubsystem. */
-  public CameraSubsystem(DriveSubsystem d_subsystem) {
+  public CameraSubsystem(
+      DriveSubsystem d_subsystem, LoopBudget loopBudget, MultiRateScheduler scheduler) {
     m_driveSubsystem = d_subsystem;
     aprilTagFieldLayout = AprilTagFieldLayout.loadField(AprilTagFields.kDefaultField);
 
@@ -80,6 +93,11 @@ public class CameraSubsystem extends SubsystemBase {
     if (Robot.isSimulation()) {
       simulationInit();
     }
+    // Checking each camera's connection goes through NetworkTables, so only poll it a few times a
+    // second, and the dashboard update can wait a loop
+    scheduler.schedule(
+        "Camera Connection", LoopConstants.CAMERA_CONNECTION_RATE, 3.0, this::checkConnections);
+    loopBudget.register("Vision/State", LoopBudget.Priority.NORMAL, this::updateDashboard);
   }
 
   private void simulationInit() {
@@ -130,7 +148,7 @@ public class CameraSubsystem extends SubsystemBase {
       // Camera processed a new frame since last
       // Get the last one in the list.
       var result = results.get(results.size() - 1);
-      RobotTelemetry.putNumber("Front Camera Latency", result.getTimestampSeconds());
+      m_lastResultTimestamp = result.getTimestampSeconds();
       if (result.hasTargets()) {
         // select last result with targets
         return Optional.of(result);
@@ -145,9 +163,11 @@ public class CameraSubsystem extends SubsystemBase {
    * @param camera Pose Camera
    * @param poseEstimator Pose estimator
    */
-  private void updateGlobalPose(
+  private double updateGlobalPose(
       PhotonCamera camera, PhotonPoseEstimator poseEstimator, String cameraName) {
+    double latestTimestamp = Double.NaN;
     for (PhotonPipelineResult result : camera.getAllUnreadResults()) {
+      latestTimestamp = result.getTimestampSeconds();
       if (result.hasTargets() && result.getBestTarget().getPoseAmbiguity() < 0.025) {
         Optional<EstimatedRobotPose> curPose = poseEstimator.estimateCoprocMultiTagPose(result);
         if (curPose.isEmpty())
@@ -179,6 +199,17 @@ public class CameraSubsystem extends SubsystemBase {
         }
       }
     }
+    return latestTimestamp;
+  }
+
+  /** Adds the cameras to the CAN health monitor, which checks they're connected and streaming. */
+  public void registerHealth(HealthMonitor monitor) {
+    monitor.addCamera(
+        "Camera/Pose 1", () -> m_poseCamera1Connected, () -> m_poseCamera1FrameTimestamp);
+    monitor.addCamera(
+        "Camera/Pose 2", () -> m_poseCamera2Connected, () -> m_poseCamera2FrameTimestamp);
+    monitor.addCamera(
+        "Camera/Targeting", () -> m_targetingCamera1Connected, () -> m_lastResultTimestamp);
   }
 
   @Override
@@ -189,12 +220,34 @@ public class CameraSubsystem extends SubsystemBase {
     // update robot state
     updateState();
     // update the pose estimators
-    updateGlobalPose(poseCamera1, poseCamera1PoseEstimator, poseCamera1.getName());
-    updateGlobalPose(poseCamera2, poseCamera2PoseEstimator, poseCamera2.getName());
-    // Update dashboard
-    RobotTelemetry.putBoolean("poseCamera1Connected", poseCamera1.isConnected());
-    RobotTelemetry.putBoolean("poseCamera2Connected", poseCamera2.isConnected());
-    RobotTelemetry.putBoolean("TargetingCamera1Connnected", targetingCamera1.isConnected());
+    double poseCamera1Frame =
+        updateGlobalPose(poseCamera1, poseCamera1PoseEstimator, poseCamera1.getName());
+    if (!Double.isNaN(poseCamera1Frame)) {
+      m_poseCamera1FrameTimestamp = poseCamera1Frame;
+    }
+    double poseCamera2Frame =
+        updateGlobalPose(poseCamera2, poseCamera2PoseEstimator, poseCamera2.getName());
+    if (!Double.isNaN(poseCamera2Frame)) {
+      m_poseCamera2FrameTimestamp = poseCamera2Frame;
+    }
+  }
+
+  private void checkConnections() {
+    m_poseCamera1Connected = poseCamera1.isConnected();
+    m_poseCamera2Connected = poseCamera2.isConnected();
+    m_targetingCamera1Connected = targetingCamera1.isConnected();
+  }
+
+  private void updateDashboard() {
+    RobotTelemetry.putStruct(
+        "Vision/State",
+        VisionState.struct,
+        new VisionState(
+            m_poseCamera1Connected,
+            m_poseCamera2Connected,
+            m_targetingCamera1Connected,
+            targetingCamera1Result.isPresent(),
+            m_lastResultTimestamp));
   }
 
   private void updateState() {}
@@ -11,6 +11,7 @@ import com.pathplanner.lib.path.GoalEndState;
 import com.pathplanner.lib.path.IdealStartingState;
 import com.pathplanner.lib.path.PathPlannerPath;
 import com.pathplanner.lib.path.Waypoint;
+import com.pathplanner.lib.util.PathPlannerLogging;
 import com.revrobotics.PersistMode;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.ResetMode;
@@ -21,26 +22,45 @@ import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
 import com.revrobotics.spark.config.SparkMaxConfig;
 import com.studica.frc.AHRS;
 import com.studica.frc.AHRS.NavXComType;
+import com.studica.frc.AHRS.NavXUpdateRate;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.estimator.DifferentialDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.DifferentialDriveWheelSpeeds;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.drive.DifferentialDrive;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import frc.robot.DriveConstants;
 import frc.robot.RobotTelemetry;
 import frc.robot.constants.Constants.CANConstants;
+import frc.robot.constants.Constants.LoopConstants;
+import frc.robot.constants.Constants.NavConstants;
+import frc.robot.constants.Constants.RecorderConstants;
 import frc.robot.constants.SpeedConstants;
+import frc.robot.telemetry.DriveState;
+import frc.robot.utils.DriveStateCache;
+import frc.robot.utils.FlightRecorder;
+import frc.robot.utils.LoopBudget;
+import frc.robot.utils.MultiRateScheduler;
+import frc.robot.utils.SlipDetector;
+import frc.robot.utils.nav.GridPathfinder;
+import frc.robot.utils.nav.PathPoint;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 /** This Subsystem is what allows the code to interact with the drivetrain of the robot. */
 public class DriveSubsystem extends SubsystemBase {
@@ -100,11 +120,53 @@ public class DriveSubsystem extends SubsystemBase {
   private final SysIdRoutine m_sysIdRoutine;
 
   private boolean gyroZeroPending = true;
+  // Polled at GYRO_CALIBRATION_RATE, assumed calibrating until the first check
+  private boolean m_gyroCalibrating = true;
+
+  // High-rate odometry samples, replayed into the pose estimator every loop
+  private final OdometryThread m_odometryThread;
+  private final double[] m_odometrySamples;
+
+  // Pose, wheel state and speeds sampled once per loop, read without allocating
+  private final DriveStateCache m_state =
+      new DriveStateCache(
+          DriveConstants.kTrackwidthMeters,
+          DriveConstants.kAccelerationFilterSeconds,
+          TimedRobot.kDefaultPeriod);
+  private double m_current = 0.0;
+  // Refilled and published every loop
+  private final DriveState m_telemetry = new DriveState();
+
+  // Wheel slip from all four encoders and the gyro, limits acceleration and shifts pose trust
+  private final SlipDetector m_slipDetector =
+      new SlipDetector(
+          DriveConstants.kSlipTrackwidthMeters,
+          DriveConstants.kSlipSpeedTolerance,
+          DriveConstants.kSlipSpeedToleranceRatio,
+          DriveConstants.kSlipYawRateTolerance,
+          DriveConstants.kSlipYawRateToleranceRatio,
+          DriveConstants.kSlipHoldSeconds);
+  private boolean m_slipping = false;
+  // Last commands sent, for traction control
+  private double m_lastLeftOutput = 0.0;
+  private double m_lastRightOutput = 0.0;
+  private double m_lastLeftSetpoint = 0.0;
+  private double m_lastRightSetpoint = 0.0;
+  private double m_gyroYawRate = 0.0;
+
+  // Flight recorder tracks, null when it isn't running
+  private FlightRecorder.Track m_odometryTrack;
+  private FlightRecorder.Track m_driveTrack;
 
-  /** Creates a new DriveSubsystem. */
-  public DriveSubsystem() {
-    // Init gyro
-    m_Gyro = new AHRS(NavXComType.kMXP_SPI);
+  /**
+   * Creates a new DriveSubsystem.
+   *
+   * @param loopBudget Runs the dashboard field update when the loop has time for it.
+   * @param scheduler Runs the gyro calibration check.
+   */
+  public DriveSubsystem(LoopBudget loopBudget, MultiRateScheduler scheduler) {
+    // Init gyro, updating at the odometry sample rate (kOdometryFrequencyHz)
+    m_Gyro = new AHRS(NavXComType.kMXP_SPI, NavXUpdateRate.k200Hz);
     // init motors
     // rio means built into the roboRIO
     m_backLeft = new SparkMax(CANConstants.MOTOR_BACK_LEFT_ID, SparkMax.MotorType.kBrushless);
@@ -152,6 +214,15 @@ public class DriveSubsystem extends SubsystemBase {
     m_backRightConfig.encoder.positionConversionFactor(DriveConstants.POSITION_CONVERSION_RATIO);
     m_frontLeftConfig.encoder.positionConversionFactor(DriveConstants.POSITION_CONVERSION_RATIO);
     m_frontRightConfig.encoder.positionConversionFactor(DriveConstants.POSITION_CONVERSION_RATIO);
+    // send encoder positions as fast as the odometry thread samples them
+    m_backLeftConfig.signals.primaryEncoderPositionPeriodMs(
+        DriveConstants.kOdometryStatusFramePeriodMs);
+    m_backRightConfig.signals.primaryEncoderPositionPeriodMs(
+        DriveConstants.kOdometryStatusFramePeriodMs);
+    m_frontLeftConfig.signals.primaryEncoderPositionPeriodMs(
+        DriveConstants.kOdometryStatusFramePeriodMs);
+    m_frontRightConfig.signals.primaryEncoderPositionPeriodMs(
+        DriveConstants.kOdometryStatusFramePeriodMs);
     resetEncoders();
 
     // setup PID controllers
@@ -166,6 +237,12 @@ public class DriveSubsystem extends SubsystemBase {
             getPositionRight(),
             new Pose2d());
 
+    // Sample encoders and gyro in the background with FPGA timestamps
+    m_odometryThread =
+        new OdometryThread(
+            this::getPositionLeft, this::getPositionRight, () -> getRotation2d().getRadians());
+    m_odometrySamples = new double[m_odometryThread.getMaxSamples() * OdometryThread.SAMPLE_WIDTH];
+
     final PPLTVController m_driveController = new PPLTVController(0.02);
     // Setup Base AutoBuilder (Autonomous)
     if (DriveConstants.autoConfig != null) {
@@ -194,8 +271,14 @@ public class DriveSubsystem extends SubsystemBase {
       System.err.println(
           "WARNING: PathPlanner autoConfig is null! AutoBuilder was NOT configured.");
     }
+    // Log where the path follower wants the robot, so tracking error can be measured offline
+    PathPlannerLogging.setLogTargetPoseCallback(
+        (pose) -> RobotTelemetry.recordOutput("PathPlanner/TargetPose", pose));
 
     RobotTelemetry.putData("Field", field); // add field to dashboard
+    loopBudget.register("Field", LoopBudget.Priority.LOW, this::updateField);
+    scheduler.schedule(
+        "Gyro Calibration", LoopConstants.GYRO_CALIBRATION_RATE, 1.0, this::checkGyroCalibration);
 
     // setup SysID for auto profiling
     m_sysIdRoutine =
@@ -222,6 +305,8 @@ public class DriveSubsystem extends SubsystemBase {
 
     // Set on the fly pathing constraints
     reduceOnTheFlySpeed = false;
+
+    m_odometryThread.start();
   }
 
   public Command sysIdQuasistatic(SysIdRoutine.Direction direction) {
@@ -307,9 +392,34 @@ public class DriveSubsystem extends SubsystemBase {
             rightSpeed,
             SpeedConstants.FRONT_RIGHT_MAX_SPEED,
             SpeedConstants.FRONT_RIGHT_SENSITIVITY);
+    if (m_slipping) {
+      adjLeft =
+          SlipDetector.limitTraction(
+              adjLeft,
+              m_lastLeftOutput,
+              gripInput(m_slipDetector.getLeftSpeed()),
+              DriveConstants.kTractionMaxOutputStep);
+      adjRight =
+          SlipDetector.limitTraction(
+              adjRight,
+              m_lastRightOutput,
+              gripInput(m_slipDetector.getRightSpeed()),
+              DriveConstants.kTractionMaxOutputStep);
+    }
+    m_lastLeftOutput = adjLeft;
+    m_lastRightOutput = adjRight;
     m_ddrive.tankDrive(adjLeft, adjRight);
   }
 
+  /** Returns the tank drive input that holds a measured wheel speed, plus the traction margin. */
+  private double gripInput(double speed) {
+    double output =
+        m_driveFeedForward.calculate(Math.abs(speed)) / RobotController.getBatteryVoltage()
+            + DriveConstants.kTractionOutputMargin;
+    // Tank drive squares its inputs
+    return Math.sqrt(Math.min(output, 1.0));
+  }
+
   /**
    * When this function is activated, the robot is in "drive straight" mode. Whatever direction the
    * robot was heading when "drive straight" mode was entered will be maintained. We use the current
@@ -323,7 +433,7 @@ public class DriveSubsystem extends SubsystemBase {
     // get current angle
     double currentAngle = currentPose.getRotation().getDegrees();
     // get current direction (velocity)
-    double currentDirection = getSpeeds().vxMetersPerSecond;
+    double currentDirection = getForwardSpeed();
     if (currentDirection < 0) {
       currentDirection = -1;
     } else {
@@ -359,6 +469,42 @@ public class DriveSubsystem extends SubsystemBase {
     return AutoBuilder.followPath(path);
   }
 
+  /**
+   * Builds a command that plans a path around the field obstacles when it is scheduled, from
+   * wherever the robot is then, and follows it.
+   *
+   * @param pathfinder Planner over the field grid.
+   * @param goal Field position to drive to.
+   * @return The command. It ends straight away if the robot is already there or can't get there.
+   */
+  public Command pathfindTo(GridPathfinder pathfinder, Translation2d goal) {
+    return Commands.defer(
+        () -> {
+          Pose2d pose = getPose();
+          if (pose.getTranslation().getDistance(goal) < NavConstants.GOAL_TOLERANCE_METERS) {
+            return Commands.none();
+          }
+          List<PathPoint> plan =
+              pathfinder.plan(
+                  pose.getX(),
+                  pose.getY(),
+                  pose.getRotation().getRadians(),
+                  goal.getX(),
+                  goal.getY());
+          RobotTelemetry.putNumber("Nav/Plan Time (ms)", pathfinder.getLastPlanSeconds() * 1e3);
+          RobotTelemetry.putBoolean("Nav/Plan Cached", pathfinder.wasLastPlanCached());
+          if (plan.isEmpty()) {
+            return Commands.none();
+          }
+          List<Pose2d> poses = new ArrayList<>(plan.size());
+          for (PathPoint point : plan) {
+            poses.add(new Pose2d(point.x(), point.y(), new Rotation2d(point.headingRadians())));
+          }
+          return GenerateOnTheFlyCommand(poses);
+        },
+        Set.of(this));
+  }
+
   /**
    * Creates a path based on a given list of desired poses
    *
@@ -396,10 +542,31 @@ public class DriveSubsystem extends SubsystemBase {
 
   /**
    * This function can return our robots ChassisSpeeds, which is vx (m/s), vy (m/s), and omega
-   * (rad/s).
+   * (rad/s). Allocates, so it is only for PathPlanner; code that runs every loop uses {@link
+   * #getForwardSpeed()} and {@link #getYawRate()}.
    */
   public ChassisSpeeds getSpeeds() {
-    return DriveConstants.kDriveKinematics.toChassisSpeeds(getWheelSpeeds());
+    return new ChassisSpeeds(m_state.getForwardSpeed(), 0.0, m_state.getYawRate());
+  }
+
+  /** Returns this loop's forward speed in meters per second. */
+  public double getForwardSpeed() {
+    return m_state.getForwardSpeed();
+  }
+
+  /** Returns this loop's yaw rate in radians per second, counterclockwise positive. */
+  public double getYawRate() {
+    return m_state.getYawRate();
+  }
+
+  /** Returns the rate of change of the forward speed in meters per second squared, smoothed. */
+  public double getAcceleration() {
+    return m_state.getAcceleration();
+  }
+
+  /** Returns the drive state sampled at the start of this loop. */
+  public DriveStateCache getState() {
+    return m_state;
   }
 
   /**
@@ -415,21 +582,44 @@ public class DriveSubsystem extends SubsystemBase {
    * of the robot.
    */
   public void setWheelVelocities(DifferentialDriveWheelSpeeds speeds) {
-    // get left and right speeds in m/s, and run through feedforward to get feedforward voltage
-    // offset
-    double leftSpeed = speeds.leftMetersPerSecond;
-    double rightSpeed = speeds.rightMetersPerSecond;
+    setWheelVelocities(speeds.leftMetersPerSecond, speeds.rightMetersPerSecond, 0.0, 0.0);
+  }
+
+  /**
+   * Drives each side at a velocity through the velocity PID slot, with the characterized
+   * feedforward.
+   *
+   * @param leftSpeed Left side speed in m/s.
+   * @param rightSpeed Right side speed in m/s.
+   * @param leftAcceleration Left side acceleration in m/s^2 for the kA term, 0 if unknown.
+   * @param rightAcceleration Right side acceleration in m/s^2 for the kA term, 0 if unknown.
+   */
+  public void setWheelVelocities(
+      double leftSpeed, double rightSpeed, double leftAcceleration, double rightAcceleration) {
+    if (m_slipping) {
+      double maxStep = DriveConstants.kTractionMaxAcceleration * TimedRobot.kDefaultPeriod;
+      double leftGrip =
+          Math.abs(m_slipDetector.getLeftSpeed()) + DriveConstants.kTractionSpeedMargin;
+      double rightGrip =
+          Math.abs(m_slipDetector.getRightSpeed()) + DriveConstants.kTractionSpeedMargin;
+      leftSpeed = SlipDetector.limitTraction(leftSpeed, m_lastLeftSetpoint, leftGrip, maxStep);
+      rightSpeed = SlipDetector.limitTraction(rightSpeed, m_lastRightSetpoint, rightGrip, maxStep);
+    }
+    m_lastLeftSetpoint = leftSpeed;
+    m_lastRightSetpoint = rightSpeed;
     // set to position of motors
     m_backLeftPIDController.setSetpoint(
         leftSpeed,
         SparkBase.ControlType.kVelocity,
         DriveConstants.kDrivetrainVelocityPIDSlot,
-        m_driveFeedForward.calculate(leftSpeed));
+        m_driveFeedForward.calculate(leftSpeed) + m_driveFeedForward.getKa() * leftAcceleration);
     m_backRightPIDController.setSetpoint(
         rightSpeed,
         SparkBase.ControlType.kVelocity,
         DriveConstants.kDrivetrainVelocityPIDSlot,
-        m_driveFeedForward.calculate(rightSpeed));
+        m_driveFeedForward.calculate(rightSpeed) + m_driveFeedForward.getKa() * rightAcceleration);
+    // Keep motor safety from stopping the motors between closed-loop setpoints
+    m_ddrive.feed();
   }
 
   // in meters, use averageDistance() to get average distance traveled, as an offset to set this
@@ -461,7 +651,7 @@ public class DriveSubsystem extends SubsystemBase {
   }
 
   public double currentDistance() {
-    return getPose().getTranslation().getX();
+    return m_state.getX();
   }
 
   public void SetBrakemode() {
@@ -506,6 +696,30 @@ public class DriveSubsystem extends SubsystemBase {
     }
   }
 
+  /** Returns the total current of all four drive motors, sampled at the start of this loop. */
+  public double getCurrent() {
+    return m_current;
+  }
+
+  /**
+   * Changes the smart current limit without touching the rest of the configuration. Called by the
+   * {@link PowerManager} when it reallocates current, so the change is sent without blocking.
+   *
+   * @param amps Current limit per motor.
+   */
+  public void setCurrentLimit(int amps) {
+    SparkMaxConfig config = new SparkMaxConfig();
+    config.smartCurrentLimit(amps);
+    m_backLeft.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+    m_frontLeft.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+    m_backRight.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+    m_frontRight.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+
   /**
    * Resets the odometry to the specified pose.
    *
@@ -513,6 +727,8 @@ public class DriveSubsystem extends SubsystemBase {
    */
   public void resetPose(Pose2d pose) {
     resetEncoders();
+    // queued samples were taken against the old encoder zero
+    m_odometryThread.clear();
     m_driveOdometry.resetPosition(getRotation2d(), getPositionLeft(), getPositionRight(), pose);
   }
 
@@ -558,25 +774,176 @@ public class DriveSubsystem extends SubsystemBase {
     return m_encoderBackRight.getPosition();
   }
 
+  /** Passes each motor to the action with its name, for per-motor models. */
+  public void forEachMotor(BiConsumer<String, SparkBase> action) {
+    action.accept("Drive/Back Left", m_backLeft);
+    action.accept("Drive/Front Left", m_frontLeft);
+    action.accept("Drive/Back Right", m_backRight);
+    action.accept("Drive/Front Right", m_frontRight);
+  }
+
+  /** Adds this subsystem's devices to the CAN health monitor. */
+  public void registerHealth(HealthMonitor monitor) {
+    monitor.addSpark("Drive/Back Left", m_backLeft);
+    monitor.addSpark("Drive/Front Left", m_frontLeft);
+    monitor.addSpark("Drive/Back Right", m_backRight);
+    monitor.addSpark("Drive/Front Right", m_frontRight);
+    monitor.addNavX("Drive/Gyro", m_Gyro);
+  }
+
   @Override
   public void periodic() {
-    if (gyroZeroPending && !m_Gyro.isCalibrating()) {
+    // This method will be called once per scheduler run
+    // Replay every sample taken since the last loop into the odometry
+    updateOdometry();
+    // Sample everything once, so nothing else this loop goes back to the hardware for it
+    Pose2d pose = getPose();
+    m_state.update(
+        Timer.getFPGATimestamp(),
+        pose.getX(),
+        pose.getY(),
+        pose.getRotation().getRadians(),
+        m_encoderBackLeft.getPosition(),
+        m_encoderBackRight.getPosition(),
+        m_encoderBackLeft.getVelocity(),
+        m_encoderBackRight.getVelocity());
+    m_current =
+        m_backLeft.getOutputCurrent()
+            + m_frontLeft.getOutputCurrent()
+            + m_backRight.getOutputCurrent()
+            + m_frontRight.getOutputCurrent();
+    updateSlip();
+    recordFlight();
+
+    RobotTelemetry.recordOutput("RobotPose", pose);
+    RobotTelemetry.putStruct(
+        "Drive/State",
+        DriveState.struct,
+        m_telemetry.set(
+            m_state.getX(),
+            m_state.getY(),
+            m_state.getHeading(),
+            m_state.getX(),
+            getYaw(),
+            m_gyroCalibrating,
+            m_state.getLeftPosition(),
+            m_state.getRightPosition(),
+            m_state.getLeftVelocity(),
+            m_state.getRightVelocity(),
+            m_current,
+            m_state.getForwardSpeed(),
+            m_state.getYawRate()));
+  }
+
+  /**
+   * Checks for wheel slip. While slipping, drive commands are cut back to what the wheels can hold
+   * and acceleration limited, and vision is trusted more than the wheel distances in the pose
+   * estimate.
+   */
+  private void updateSlip() {
+    m_gyroYawRate = -Math.toRadians(m_Gyro.getRate()); // navX rate is clockwise positive
+    m_slipDetector.update(
+        m_state.getTimestamp(),
+        m_state.getLeftVelocity(),
+        m_encoderFrontLeft.getVelocity(),
+        m_state.getRightVelocity(),
+        m_encoderFrontRight.getVelocity(),
+        m_gyroYawRate);
+    boolean slipping = m_slipDetector.isSlipping();
+    if (slipping != m_slipping) {
+      m_driveOdometry.setVisionMeasurementStdDevs(
+          slipping ? DriveConstants.kSlipVisionStdDevs : DriveConstants.kVisionStdDevs);
+      m_slipping = slipping;
+    }
+    RobotTelemetry.recordOutput("Drive/Slip/Slipping", slipping);
+    RobotTelemetry.recordOutput("Drive/Slip/Events", m_slipDetector.getSlipEvents());
+    RobotTelemetry.recordOutput("Drive/Slip/Left Mismatch", m_slipDetector.getLeftMismatch());
+    RobotTelemetry.recordOutput("Drive/Slip/Right Mismatch", m_slipDetector.getRightMismatch());
+    RobotTelemetry.recordOutput("Drive/Slip/Yaw Rate Error", m_slipDetector.getYawRateError());
+  }
+
+  /** Adds odometry samples and per-loop drive inputs and commands to the flight recorder. */
+  public void registerFlightRecorder(FlightRecorder recorder) {
+    // Same layout as the odometry thread's samples, so they're recorded as they're replayed
+    m_odometryTrack =
+        recorder.addTrack(
+            "Odometry",
+            (int) (DriveConstants.kOdometryFrequencyHz * RecorderConstants.HISTORY_SECONDS),
+            "Left Position",
+            "Right Position",
+            "Yaw");
+    m_driveTrack =
+        recorder.addTrack(
+            "Drive",
+            (int) (RecorderConstants.HISTORY_SECONDS / TimedRobot.kDefaultPeriod),
+            "Left Velocity",
+            "Right Velocity",
+            "Left Output",
+            "Right Output",
+            "Left Setpoint",
+            "Right Setpoint",
+            "Gyro Yaw Rate",
+            "Current",
+            "Slipping");
+  }
+
+  private void recordFlight() {
+    if (m_driveTrack == null) {
+      return;
+    }
+    m_driveTrack.set(0, m_state.getLeftVelocity());
+    m_driveTrack.set(1, m_state.getRightVelocity());
+    m_driveTrack.set(2, m_lastLeftOutput);
+    m_driveTrack.set(3, m_lastRightOutput);
+    m_driveTrack.set(4, m_lastLeftSetpoint);
+    m_driveTrack.set(5, m_lastRightSetpoint);
+    m_driveTrack.set(6, m_gyroYawRate);
+    m_driveTrack.set(7, m_current);
+    m_driveTrack.set(8, m_slipping ? 1.0 : 0.0);
+    m_driveTrack.commit(m_state.getTimestamp());
+  }
+
+  /** Returns whether the wheels are slipping. */
+  public boolean isSlipping() {
+    return m_slipping;
+  }
+
+  /** Zeroes the gyro once it has finished calibrating after boot. */
+  private void checkGyroCalibration() {
+    m_gyroCalibrating = m_Gyro.isCalibrating();
+    if (gyroZeroPending && !m_gyroCalibrating) {
       resetGyro();
+      m_odometryThread.clear();
       gyroZeroPending = false;
     }
-    // This method will be called once per scheduler run
-    RobotTelemetry.putNumber("Average Distance Traveled", currentDistance());
-    RobotTelemetry.putNumber("Current Gyro Yaw", getYaw());
-    RobotTelemetry.putBoolean("Gyro Calibrating", m_Gyro.isCalibrating());
-    // Update the odometry in the periodic block
-    m_driveOdometry.update(getRotation2d(), getPositionLeft(), getPositionRight());
-    field.setRobotPose(getPose());
-    RobotTelemetry.recordOutput("RobotPose", getPose());
-    RobotTelemetry.recordOutput("DriveLeftMotorPositionRotations", m_encoderBackLeft.getPosition());
-    RobotTelemetry.recordOutput(
-        "DriveRightMotorPositionRotations", m_encoderBackRight.getPosition());
-    RobotTelemetry.recordOutput("DriveLeftMotorVelocityRPM", m_encoderBackLeft.getVelocity());
-    RobotTelemetry.recordOutput("DriveRightMotorVelocityRPM", m_encoderBackRight.getVelocity());
+  }
+
+  /** Moves the robot on the dashboard field, which is slow enough to be worth skipping. */
+  private void updateField() {
+    if (RobotTelemetry.isDue("Field")) {
+      field.setRobotPose(getPose());
+    }
+  }
+
+  private void updateOdometry() {
+    int count = m_odometryThread.drainTo(m_odometrySamples);
+    if (count == 0) {
+      // No samples yet (thread not started or starved), fall back to the cached values
+      m_driveOdometry.update(getRotation2d(), getPositionLeft(), getPositionRight());
+    }
+    for (int i = 0; i < count; i++) {
+      int offset = i * OdometryThread.SAMPLE_WIDTH;
+      m_driveOdometry.updateWithTime(
+          m_odometrySamples[offset + OdometryThread.TIMESTAMP],
+          new Rotation2d(m_odometrySamples[offset + OdometryThread.YAW]),
+          m_odometrySamples[offset + OdometryThread.LEFT_POSITION],
+          m_odometrySamples[offset + OdometryThread.RIGHT_POSITION]);
+      if (m_odometryTrack != null) {
+        m_odometryTrack.record(m_odometrySamples, offset);
+      }
+    }
+    RobotTelemetry.recordOutput("Odometry/Samples Per Loop", count);
+    RobotTelemetry.recordOutput("Odometry/Dropped Samples", m_odometryThread.getDroppedCount());
   }
 
   @Override
@@ -0,0 +1,351 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.RobotTelemetry;
+import frc.robot.constants.Constants.FireControlConstants;
+import frc.robot.constants.TweakConstants;
+import frc.robot.utils.FeedPipeline;
+import frc.robot.utils.MotorGains;
+import frc.robot.utils.TurretGoalSelector;
+
+/**
+ * High-rate fire-control loop. Runs the turret tracking control law and the shot release gate on
+ * its own {@link Notifier} thread, so feed decisions are not quantized to the 20 ms scheduler
+ * loop. Shots are released through a {@link FeedPipeline}, which pulses the loader one game piece
+ * at a time and only holds the intake off while a pulse is running.
+ *
+ * <p>Commands never touch the turret or loader outputs while the loop owns them. Instead they
+ * publish goals with {@link #setAimGoal} / {@link #setFireRequest} and read back an immutable
+ * {@link Status} snapshot. Requests and ticks are serialized on this object's monitor, so once a
+ * clear method returns the loop will not drive that mechanism again.
+ */
+public class FireControlLoop {
+  /** Immutable snapshot of the loop state, published once per tick. */
+  public static final class Status {
+    public final double timestampSeconds;
+    public final double periodSeconds; // measured time since the previous tick
+    public final double turretAngleRadians; // robot-relative
+    public final double turretGoalRadians; // robot-relative
+    public final double aimErrorRadians;
+    public final boolean aiming;
+    public final boolean onTarget;
+    public final double flywheelRPM;
+    public final boolean atSpeed;
+    public final boolean firing; // a fire request is active
+    public final boolean feeding;
+    public final double piecesPerSecond;
+    public final int emptyPulseCount;
+
+    public Status(
+        double timestampSeconds,
+        double periodSeconds,
+        double turretAngleRadians,
+        double turretGoalRadians,
+        double aimErrorRadians,
+        boolean aiming,
+        boolean onTarget,
+        double flywheelRPM,
+        boolean atSpeed,
+        boolean firing,
+        boolean feeding,
+        double piecesPerSecond,
+        int emptyPulseCount) {
+      this.timestampSeconds = timestampSeconds;
+      this.periodSeconds = periodSeconds;
+      this.turretAngleRadians = turretAngleRadians;
+      this.turretGoalRadians = turretGoalRadians;
+      this.aimErrorRadians = aimErrorRadians;
+      this.aiming = aiming;
+      this.onTarget = onTarget;
+      this.flywheelRPM = flywheelRPM;
+      this.atSpeed = atSpeed;
+      this.firing = firing;
+      this.feeding = feeding;
+      this.piecesPerSecond = piecesPerSecond;
+      this.emptyPulseCount = emptyPulseCount;
+    }
+  }
+
+  private final TurretSubsystem m_turret;
+  private final FireControlSubsystem m_fire;
+  private final LoaderSubsystem m_loader;
+  private final IntakeSubsystem m_intake;
+  private final Notifier m_notifier;
+  private final double m_periodSeconds;
+
+  private final ProfiledPIDController m_yawController;
+  private final TurretGoalSelector m_goalSelector =
+      new TurretGoalSelector(
+          FireControlConstants.TURRET_WRAP_LIMIT_RADIANS
+              - FireControlConstants.TURRET_WRAP_MARGIN_RADIANS,
+          FireControlConstants.TURRET_WRAP_CENTER_WEIGHT);
+  private boolean m_unwinding = false;
+  private final SimpleMotorFeedforward m_feedforward;
+
+  // Aim goal (guarded by this)
+  private boolean m_hasAimGoal = false;
+  private boolean m_aimActive = false;
+  private double m_goalFieldYaw;
+  private double m_goalHeading;
+  private double m_goalOmega;
+  private double m_goalTimestamp;
+  private boolean m_goalFeasible;
+
+  // Fire request (guarded by this)
+  private boolean m_hasFireRequest = false;
+  private double m_targetRPM;
+  private boolean m_requireAim;
+  private final FeedPipeline m_feedPipeline =
+      new FeedPipeline(
+          FireControlConstants.FEED_SPEED,
+          FireControlConstants.FEED_PULSE_TIMEOUT,
+          FireControlConstants.EARLY_RELEASE_RPM_TOLERANCE,
+          TweakConstants.DISABLE_INTAKE_DURING_FIRE,
+          FireControlConstants.EMPTY_PROBE_INTERVAL);
+  private double m_loaderOutput = 0.0;
+  private boolean m_intakeSuspended = false;
+
+  private double m_lastTickTimestamp = 0.0;
+  private double m_maxPeriodSeconds = 0.0;
+  private volatile Status m_status =
+      new Status(0.0, 0.0, 0.0, 0.0, 0.0, false, false, 0.0, false, false, false, 0.0, 0);
+
+  /**
+   * Creates the fire-control loop. Call {@link #start()} to begin running it.
+   *
+   * @param turret The turret to track with.
+   * @param fire The flywheel whose speed gates each shot.
+   * @param loader The loader that releases shots into the flywheel.
+   * @param intake The intake that stages the next game piece.
+   */
+  public FireControlLoop(
+      TurretSubsystem turret,
+      FireControlSubsystem fire,
+      LoaderSubsystem loader,
+      IntakeSubsystem intake) {
+    m_turret = turret;
+    m_fire = fire;
+    m_loader = loader;
+    m_intake = intake;
+    m_periodSeconds =
+        1.0
+            / MathUtil.clamp(
+                FireControlConstants.LOOP_FREQUENCY_HZ,
+                FireControlConstants.MIN_LOOP_FREQUENCY_HZ,
+                FireControlConstants.MAX_LOOP_FREQUENCY_HZ);
+
+    m_yawController =
+        new ProfiledPIDController(
+            FireControlConstants.TURRET_kP,
+            FireControlConstants.TURRET_kI,
+            FireControlConstants.TURRET_kD,
+            new TrapezoidProfile.Constraints(
+                FireControlConstants.TURRET_MAX_VELOCITY,
+                FireControlConstants.TURRET_MAX_ACCELERATION),
+            m_periodSeconds);
+    // No continuous input: the goal selector picks which way round to go within the cable wrap
+    m_yawController.setTolerance(FireControlConstants.TURRET_TOLERANCE_RADIANS);
+    // Identified gains, with kA acting on the change in profile velocity over each tick
+    MotorGains gains = turret.getGains();
+    m_feedforward = new SimpleMotorFeedforward(gains.kS(), gains.kV(), gains.kA(), m_periodSeconds);
+
+    m_notifier = new Notifier(this::run);
+    m_notifier.setName("FireControlLoop");
+  }
+
+  /** Starts running the loop at the configured rate. */
+  public void start() {
+    m_notifier.startPeriodic(m_periodSeconds);
+  }
+
+  /**
+   * Sets the field-relative yaw the turret should track. The robot heading is extrapolated with
+   * the given yaw rate between updates so tracking stays smooth while the robot turns.
+   *
+   * @param fieldYawRadians Desired field-relative turret yaw.
+   * @param robotHeadingRadians Robot heading when the goal was computed.
+   * @param robotOmegaRadiansPerSecond Robot yaw rate when the goal was computed.
+   * @param timestampSeconds FPGA timestamp the goal was computed at.
+   * @param feasible Whether the lead solution reaches the target. The turret still tracks an
+   *     infeasible goal, but shots that require aim are held.
+   */
+  public synchronized void setAimGoal(
+      double fieldYawRadians,
+      double robotHeadingRadians,
+      double robotOmegaRadiansPerSecond,
+      double timestampSeconds,
+      boolean feasible) {
+    m_goalFieldYaw = fieldYawRadians;
+    m_goalHeading = robotHeadingRadians;
+    m_goalOmega = robotOmegaRadiansPerSecond;
+    m_goalTimestamp = timestampSeconds;
+    m_goalFeasible = feasible;
+    m_hasAimGoal = true;
+  }
+
+  /** Stops tracking. The loop will not drive the turret again after this returns. */
+  public synchronized void clearAimGoal() {
+    m_hasAimGoal = false;
+    m_aimActive = false;
+    setUnwinding(false);
+  }
+
+  /**
+   * Requests the loop to release shots whenever the flywheel is at the target RPM.
+   *
+   * @param targetRPM The flywheel RPM shots are released at.
+   * @param requireAim Only release while the turret is tracking and on target.
+   */
+  public synchronized void setFireRequest(double targetRPM, boolean requireAim) {
+    m_targetRPM = targetRPM;
+    m_requireAim = requireAim;
+    m_hasFireRequest = true;
+  }
+
+  /** Stops releasing shots. The loop will not drive the loader again after this returns. */
+  public synchronized void clearFireRequest() {
+    m_hasFireRequest = false;
+    m_feedPipeline.reset();
+    m_loaderOutput = 0.0;
+    if (m_intakeSuspended) {
+      m_intake.setSuspended(false);
+      m_intakeSuspended = false;
+    }
+  }
+
+  /**
+   * Reports whether the game piece inventory believes there is anything to feed. While it doesn't,
+   * the loop only probes with an occasional pulse instead of cycling the loader.
+   *
+   * @param piecesAvailable False only when the robot is believed to be empty.
+   */
+  public synchronized void setPiecesAvailable(boolean piecesAvailable) {
+    m_feedPipeline.setPiecesAvailable(piecesAvailable);
+  }
+
+  /** Returns the most recent loop state. Safe to call from any thread. */
+  public Status getStatus() {
+    return m_status;
+  }
+
+  private synchronized void run() {
+    double now = Timer.getFPGATimestamp();
+    double period = m_lastTickTimestamp > 0.0 ? now - m_lastTickTimestamp : m_periodSeconds;
+    m_lastTickTimestamp = now;
+    m_maxPeriodSeconds = Math.max(m_maxPeriodSeconds, period);
+
+    // Turret control law
+    double turretAngle = m_turret.getTurretAngleRadians();
+    double turretGoal = turretAngle;
+    double aimError = 0.0;
+    boolean onTarget = false;
+    if (m_hasAimGoal) {
+      if (!m_aimActive) {
+        m_yawController.reset(turretAngle);
+        m_aimActive = true;
+      }
+      // Field-relative desired yaw to robot-relative: subtract the (extrapolated) robot heading
+      double heading = m_goalHeading + m_goalOmega * (now - m_goalTimestamp);
+      // Then pick which way round to reach it, leaning away from the limit the robot is turning
+      // the goal towards
+      turretGoal =
+          m_goalSelector.select(
+              turretAngle,
+              m_goalFieldYaw - heading,
+              m_goalOmega * FireControlConstants.TURRET_WRAP_HORIZON_SECONDS);
+      setUnwinding(m_goalSelector.isLongWay());
+
+      double setpointVelocity = m_yawController.getSetpoint().velocity;
+      double pidOut = m_yawController.calculate(turretAngle, turretGoal);
+      double ffOut =
+          m_feedforward.calculateWithVelocities(
+              setpointVelocity, m_yawController.getSetpoint().velocity);
+      m_turret.setTurretVoltage(pidOut + ffOut);
+
+      aimError = turretGoal - turretAngle;
+      onTarget =
+          m_goalFeasible
+              && Math.abs(aimError) <= FireControlConstants.AIM_RELEASE_TOLERANCE_RADIANS;
+    }
+
+    // Flywheel shot detection and recovery boost
+    m_fire.updateController(now);
+
+    // Shot release gate
+    double flywheelRPM = m_fire.getRPM();
+    double rpmError = m_targetRPM - flywheelRPM;
+    boolean atSpeed = Math.abs(rpmError) <= FireControlConstants.RPM_TOLERANCE;
+    if (m_hasFireRequest) {
+      m_feedPipeline.update(
+          now,
+          m_targetRPM > FireControlConstants.MIN_FIRE_RPM,
+          !m_requireAim || onTarget,
+          atSpeed,
+          rpmError,
+          m_fire.getShotCount(),
+          m_fire.getLastRecoveryTime());
+
+      // Only command the mechanisms on transitions to keep CAN traffic down
+      double loaderOutput = m_feedPipeline.getLoaderOutput();
+      if (loaderOutput != m_loaderOutput) {
+        if (loaderOutput == 0.0) {
+          m_loader.stop();
+        } else {
+          m_loader.setFeedSpeed(loaderOutput);
+        }
+        m_loaderOutput = loaderOutput;
+      }
+      boolean intakeSuspended = m_feedPipeline.isIntakeSuspended();
+      if (intakeSuspended != m_intakeSuspended) {
+        m_intake.setSuspended(intakeSuspended);
+        m_intakeSuspended = intakeSuspended;
+      }
+    }
+
+    m_status =
+        new Status(
+            now,
+            period,
+            turretAngle,
+            turretGoal,
+            aimError,
+            m_aimActive,
+            onTarget,
+            flywheelRPM,
+            atSpeed,
+            m_hasFireRequest,
+            m_feedPipeline.getState() == FeedPipeline.State.FEEDING,
+            m_feedPipeline.getPiecesPerSecond(),
+            m_feedPipeline.getEmptyPulseCount());
+  }
+
+  /** Only tells the turret on changes, since the flag is read from the main thread. */
+  private void setUnwinding(boolean unwinding) {
+    if (unwinding != m_unwinding) {
+      m_turret.setUnwinding(unwinding);
+      m_unwinding = unwinding;
+    }
+  }
+
+  /** Publishes loop state. Must be called from the main robot thread. */
+  public void updateTelemetry() {
+    Status status = m_status;
+    double maxPeriod;
+    synchronized (this) {
+      maxPeriod = m_maxPeriodSeconds;
+      m_maxPeriodSeconds = 0.0;
+    }
+    RobotTelemetry.putNumber("FireControlLoop/Period (ms)", status.periodSeconds * 1000.0);
+    RobotTelemetry.putNumber("FireControlLoop/Max Period (ms)", maxPeriod * 1000.0);
+    RobotTelemetry.putNumber(
+        "FireControlLoop/Aim Error (deg)", Math.toDegrees(status.aimErrorRadians));
+    RobotTelemetry.putBoolean("FireControlLoop/On Target", status.onTarget);
+    RobotTelemetry.putBoolean("FireControlLoop/Feeding", status.feeding);
+    RobotTelemetry.putNumber("FireControlLoop/Pieces Per Second", status.piecesPerSecond);
+  }
+}
@@ -1,6 +1,9 @@
 package frc.robot.subsystems;
 
+import static edu.wpi.first.units.Units.Volts;
+
 import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.SparkBase.ControlType;
 import com.revrobotics.spark.SparkBase.PersistMode;
 import com.revrobotics.spark.SparkBase.ResetMode;
@@ -8,32 +11,130 @@ import com.revrobotics.spark.SparkClosedLoopController;
 import com.revrobotics.spark.SparkLowLevel.MotorType;
 import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.config.SparkMaxConfig;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import frc.robot.RobotTelemetry;
 import frc.robot.constants.Constants.CANConstants;
+import frc.robot.constants.Constants.FireControlConstants;
+import frc.robot.constants.Constants.FlywheelConstants;
+import frc.robot.constants.Constants.PowerConstants;
+import frc.robot.telemetry.FlywheelState;
+import frc.robot.utils.MotorGains;
+import java.io.File;
+import java.io.IOException;
 
+/**
+ * Flywheel subsystem. Runs SparkMax velocity control with a kS/kV/kA feedforward passed as an
+ * arbitrary feedforward voltage. Shots are detected as a sudden RPM drop while at speed, after
+ * which a transient boost (sized with the kA model) is added until the flywheel has recovered.
+ * While recovering, a drop below the best speed reached since the last shot is also a shot, so
+ * pieces released early by the feed pipeline are still counted.
+ *
+ * <p>{@link #updateController(double)} is called by the high-rate {@link FireControlLoop}, so
+ * the control state is guarded by this object's monitor.
+ */
 public class FireControlSubsystem extends SubsystemBase {
+  private enum ControllerState {
+    IDLE,
+    SPINNING_UP,
+    READY,
+    RECOVERING
+  }
+
   private final SparkMax m_fireMotor;
   private final SparkMaxConfig m_config;
   private final SparkClosedLoopController m_pidController;
   private final RelativeEncoder m_encoder;
 
+  // Identified with SysId when a gains file has been deployed
+  private final SimpleMotorFeedforward m_feedforward;
+  private final SysIdRoutine m_sysIdRoutine;
+
+  // Controller state (guarded by this)
+  private ControllerState m_state = ControllerState.IDLE;
+  private double m_targetRPM = 0.0;
+  private double m_sentTargetRPM = 0.0;
+  private double m_sentFeedforward = 0.0;
+  private double m_phaseStartTime = 0.0;
+  private double m_recoveryMinError = 0.0;
+
+  // Metrics, written by the controller and read by telemetry
+  private volatile double m_lastTimeToSpeed = 0.0;
+  private volatile double m_lastRecoveryTime = 0.0;
+  private volatile int m_shotCount = 0;
+  private volatile double m_boostVolts = 0.0;
+
   @SuppressWarnings("removal")
   public FireControlSubsystem() {
     m_fireMotor = new SparkMax(CANConstants.MOTOR_FIRE_ID, MotorType.kBrushless);
     m_config = new SparkMaxConfig();
 
-    // Safety Limits
-    m_config.smartCurrentLimit(40);
+    // Safety Limits (lowered at runtime by the PowerManager as the battery sags)
+    m_config.smartCurrentLimit(PowerConstants.FLYWHEEL_MAX_CURRENT);
 
-    // Initial PID configs (to be tuned later)
-    m_config.closedLoop.pid(0.0001, 0, 0);
+    // Velocity feedback only trims the model-based feedforward
+    m_config.closedLoop.pid(FlywheelConstants.kP, 0, 0);
     m_config.closedLoop.outputRange(0, 1.0); // positive RPM only
 
+    // The fire-control loop gates shots on velocity faster than the default status frame rate
+    m_config.signals.primaryEncoderVelocityPeriodMs(FireControlConstants.STATUS_FRAME_PERIOD_MS);
+
     m_fireMotor.configure(m_config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
 
     m_pidController = m_fireMotor.getClosedLoopController();
     m_encoder = m_fireMotor.getEncoder();
+
+    MotorGains gains =
+        loadGains(new MotorGains(FlywheelConstants.kS, FlywheelConstants.kV, FlywheelConstants.kA));
+    m_feedforward = new SimpleMotorFeedforward(gains.kS(), gains.kV(), gains.kA());
+
+    // setup SysID, logging volts against RPM to match the model above
+    m_sysIdRoutine =
+        new SysIdRoutine(
+            new SysIdRoutine.Config(
+                null,
+                null,
+                null,
+                (state) -> RobotTelemetry.recordOutput("SysIdTestState", state.toString())),
+            new SysIdRoutine.Mechanism(
+                (voltage) -> setSysIdVoltage(voltage.in(Volts)), (log) -> logSysId(), this));
+  }
+
+  private static MotorGains loadGains(MotorGains defaults) {
+    File file = new File(Filesystem.getDeployDirectory(), FlywheelConstants.GAINS_FILE);
+    try {
+      return MotorGains.load(file, defaults);
+    } catch (IOException e) {
+      DriverStation.reportError("Using default flywheel gains: " + e.getMessage(), false);
+      return defaults;
+    }
+  }
+
+  private synchronized void setSysIdVoltage(double volts) {
+    // Open loop, with the controller left idle so it doesn't send a setpoint over the top
+    m_state = ControllerState.IDLE;
+    m_fireMotor.setVoltage(volts);
+  }
+
+  private void logSysId() {
+    RobotTelemetry.recordOutput(
+        "SysId/Flywheel/Voltage", m_fireMotor.getAppliedOutput() * m_fireMotor.getBusVoltage());
+    RobotTelemetry.recordOutput("SysId/Flywheel/Position", m_encoder.getPosition());
+    RobotTelemetry.recordOutput("SysId/Flywheel/Velocity", m_encoder.getVelocity());
+  }
+
+  public Command sysIdQuasistatic(SysIdRoutine.Direction direction) {
+    return m_sysIdRoutine.quasistatic(direction);
+  }
+
+  public Command sysIdDynamic(SysIdRoutine.Direction direction) {
+    return m_sysIdRoutine.dynamic(direction);
   }
 
   /**
@@ -41,13 +142,90 @@ public class FireControlSubsystem extends SubsystemBase {
    *
    * @param targetRPM The target RPM for the flywheel.
    */
-  public void setShooterRPM(double targetRPM) {
+  public synchronized void setShooterRPM(double targetRPM) {
     if (targetRPM <= 0) {
       stop();
       return;
     }
-    m_pidController.setReference(
-        targetRPM, ControlType.kVelocity, com.revrobotics.spark.ClosedLoopSlot.kSlot0);
+    if (m_state == ControllerState.IDLE
+        || Math.abs(targetRPM - m_targetRPM) > FireControlConstants.RPM_TOLERANCE) {
+      // A new speed to reach, start timing the spin-up
+      m_state = ControllerState.SPINNING_UP;
+      m_phaseStartTime = Timer.getFPGATimestamp();
+    }
+    m_targetRPM = targetRPM;
+    updateController(Timer.getFPGATimestamp());
+  }
+
+  /**
+   * Runs the shot detector and recovery boost, and sends the setpoint if it changed. Called every
+   * tick of the fire-control loop.
+   *
+   * @param timestampSeconds FPGA time of this update.
+   */
+  public synchronized void updateController(double timestampSeconds) {
+    if (m_state == ControllerState.IDLE) {
+      return;
+    }
+    double rpm = m_encoder.getVelocity();
+    double error = m_targetRPM - rpm;
+    boolean atSpeed = Math.abs(error) <= FireControlConstants.RPM_TOLERANCE;
+
+    switch (m_state) {
+      case SPINNING_UP:
+        if (atSpeed) {
+          m_lastTimeToSpeed = timestampSeconds - m_phaseStartTime;
+          m_state = ControllerState.READY;
+        }
+        break;
+      case READY:
+        if (error > FlywheelConstants.SHOT_DETECT_RPM_DROP) {
+          m_shotCount++;
+          m_phaseStartTime = timestampSeconds;
+          m_recoveryMinError = error;
+          m_state = ControllerState.RECOVERING;
+        }
+        break;
+      case RECOVERING:
+        // The error only shrinks while recovering, unless another piece goes through
+        m_recoveryMinError = Math.min(m_recoveryMinError, error);
+        if (error - m_recoveryMinError > FlywheelConstants.SHOT_DETECT_RPM_DROP) {
+          m_shotCount++;
+          m_phaseStartTime = timestampSeconds;
+          m_recoveryMinError = error;
+        } else if (atSpeed) {
+          m_lastRecoveryTime = timestampSeconds - m_phaseStartTime;
+          m_state = ControllerState.READY;
+        }
+        break;
+      default:
+        break;
+    }
+
+    // Transient boost: the voltage the kA model says closes the error within the time constant
+    double boost = 0.0;
+    boolean boosting =
+        (m_state == ControllerState.SPINNING_UP || m_state == ControllerState.RECOVERING)
+            && timestampSeconds - m_phaseStartTime < FlywheelConstants.MAX_BOOST_SECONDS;
+    if (boosting && error > 0) {
+      boost =
+          MathUtil.clamp(
+              m_feedforward.getKa() * error / FlywheelConstants.RECOVERY_TIME_CONSTANT,
+              0.0,
+              FlywheelConstants.MAX_BOOST_VOLTS);
+    }
+    m_boostVolts = boost;
+
+    double feedforward =
+        Math.min(m_feedforward.calculate(m_targetRPM) + boost, FlywheelConstants.NOMINAL_VOLTAGE);
+    boolean feedforwardChanged =
+        Math.abs(feedforward - m_sentFeedforward) >= FlywheelConstants.FEEDFORWARD_RESEND_VOLTS;
+    if (m_targetRPM != m_sentTargetRPM || feedforwardChanged) {
+      m_pidController.setSetpoint(
+          m_targetRPM, ControlType.kVelocity, ClosedLoopSlot.kSlot0, feedforward);
+      m_sentTargetRPM = m_targetRPM;
+      m_sentFeedforward = feedforward;
+    }
   }
 
   /**
@@ -62,16 +240,74 @@ public class FireControlSubsystem extends SubsystemBase {
     return Math.abs(currentRPM - targetRPM) <= tolerance;
   }
 
+  /** Gets the measured flywheel speed in RPM. */
+  public double getRPM() {
+    return m_encoder.getVelocity();
+  }
+
+  /** Returns the number of shots detected since boot. */
+  public int getShotCount() {
+    return m_shotCount;
+  }
+
+  /** Returns how long the last spin-up to a new target took, in seconds. */
+  public double getLastTimeToSpeed() {
+    return m_lastTimeToSpeed;
+  }
+
+  /** Returns how long the flywheel took to recover from the last shot, in seconds. */
+  public double getLastRecoveryTime() {
+    return m_lastRecoveryTime;
+  }
+
+  /** Returns the flywheel motor current in amps. */
+  public double getCurrent() {
+    return m_fireMotor.getOutputCurrent();
+  }
+
+  /**
+   * Changes the smart current limit without touching the rest of the configuration. Called by the
+   * {@link PowerManager} when it reallocates current, so the change is sent without blocking.
+   *
+   * @param amps Current limit per motor.
+   */
+  @SuppressWarnings("removal")
+  public void setCurrentLimit(int amps) {
+    SparkMaxConfig config = new SparkMaxConfig();
+    config.smartCurrentLimit(amps);
+    m_fireMotor.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+
   /** Stops the fire motor. */
-  public void stop() {
+  public synchronized void stop() {
+    m_state = ControllerState.IDLE;
+    m_targetRPM = 0.0;
+    m_sentTargetRPM = 0.0;
+    m_sentFeedforward = 0.0;
+    m_boostVolts = 0.0;
     m_fireMotor.set(0);
   }
 
+  /** Adds this subsystem's devices to the CAN health monitor. */
+  public void registerHealth(HealthMonitor monitor) {
+    monitor.addSpark("Flywheel", m_fireMotor);
+  }
+
   @Override
   public void periodic() {
     // Debugging current fire motor speed and RPM
-    RobotTelemetry.putNumber("Fire Motor Speed Output", m_fireMotor.get());
-    RobotTelemetry.putNumber("Fire Motor RPM", m_encoder.getVelocity());
+    RobotTelemetry.putStruct(
+        "Fire/State",
+        FlywheelState.struct,
+        new FlywheelState(
+            m_fireMotor.get(),
+            m_encoder.getVelocity(),
+            m_boostVolts,
+            m_shotCount,
+            m_lastTimeToSpeed,
+            m_lastRecoveryTime,
+            getCurrent()));
   }
 
   @Override
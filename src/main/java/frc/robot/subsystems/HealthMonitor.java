@@ -0,0 +1,251 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.spark.SparkBase;
+import com.studica.frc.AHRS;
+import edu.wpi.first.hal.can.CANStatus;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.RobotTelemetry;
+import frc.robot.constants.Constants.HealthConstants;
+import frc.robot.telemetry.DeviceHealth;
+import frc.robot.utils.DeviceHealthTracker;
+import frc.robot.utils.DeviceHealthTracker.Status;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Polls the fault words and frame freshness of every CAN device, plus the bus error counters, on a
+ * background {@link Notifier} at {@link HealthConstants#POLL_RATE}. The main loop only publishes
+ * the latest results, through {@link #publish()}, as a {@link DeviceHealth} struct per device under
+ * {@code Health/} and as dashboard alerts.
+ *
+ * <p>Register every device before calling {@link #start()}.
+ */
+public class HealthMonitor {
+  /** Reads one device's health inputs. Runs on the monitor thread. */
+  @FunctionalInterface
+  public interface Probe {
+    void read(Sample sample);
+  }
+
+  /** One poll of a device, reset to healthy with no frame stamp before each read. */
+  public static final class Sample {
+    public boolean connected;
+    public int faults;
+    public int stickyFaults;
+    public int warnings;
+    public double frameStamp;
+
+    private void reset() {
+      connected = true;
+      faults = 0;
+      stickyFaults = 0;
+      warnings = 0;
+      frameStamp = Double.NaN;
+    }
+  }
+
+  private static final class Device {
+    private final String m_name;
+    private final String m_key;
+    private final Probe m_probe;
+    private final DeviceHealthTracker m_tracker =
+        new DeviceHealthTracker(HealthConstants.STALE_SECONDS);
+    private final Alert m_warningAlert;
+    private final Alert m_errorAlert;
+    // Main thread only
+    private Status m_publishedStatus = Status.OK;
+
+    private Device(String name, Probe probe) {
+      m_name = name;
+      m_key = "Health/" + name;
+      m_probe = probe;
+      m_warningAlert = new Alert(name + " has sticky faults or warnings", AlertType.kWarning);
+      m_errorAlert = new Alert(name + " is unhealthy", AlertType.kError);
+    }
+  }
+
+  private final List<Device> m_devices = new ArrayList<>();
+  private final Sample m_sample = new Sample(); // only touched by the notifier
+  private final Notifier m_notifier;
+
+  // Bus counters, written by the notifier under the lock
+  private double m_busUtilization = 0.0;
+  private int m_busOffCount = 0;
+  private int m_txFullCount = 0;
+  private int m_receiveErrorCount = 0;
+  private int m_transmitErrorCount = 0;
+  private int m_publishedBusOffCount = 0;
+  // Main thread only
+  private int m_faultEvents = 0;
+
+  private final Alert m_busOffAlert =
+      new Alert("CAN bus went bus-off, check wiring and termination", AlertType.kError);
+  private final Alert m_busLoadAlert = new Alert("CAN bus utilization high", AlertType.kWarning);
+
+  /** Creates a new HealthMonitor. */
+  public HealthMonitor() {
+    m_notifier = new Notifier(this::poll);
+    m_notifier.setName("HealthMonitor");
+  }
+
+  /**
+   * Adds a device with its own probe.
+   *
+   * @param name Name for telemetry and alerts, e.g. "Drive/Back Left".
+   * @param probe Fills in the device's fault words and frame stamp.
+   */
+  public void addDevice(String name, Probe probe) {
+    m_devices.add(new Device(name, probe));
+  }
+
+  /**
+   * Adds a SPARK motor controller. REVLib doesn't expose status frame timestamps, so the bus
+   * voltage and output current stand in: they're noisy enough to change with every status frame
+   * while the motor is driven, and both freeze when frames stop arriving. An idle motor draws no
+   * current and the bus voltage can hold one value for seconds, so staleness is only judged while
+   * the applied output is non-zero, and never in simulation where both are constant.
+   */
+  public void addSpark(String name, SparkBase spark) {
+    boolean judgeStaleness = RobotBase.isReal();
+    addDevice(
+        name,
+        sample -> {
+          sample.faults = spark.getFaults().rawBits;
+          sample.stickyFaults = spark.getStickyFaults().rawBits;
+          sample.warnings = spark.getWarnings().rawBits;
+          // A lost frame also freezes the applied output, so a driven motor stays driven
+          if (judgeStaleness && spark.getAppliedOutput() != 0.0) {
+            sample.frameStamp = spark.getBusVoltage() * 1000.0 + spark.getOutputCurrent();
+          }
+        });
+  }
+
+  /** Adds the navX, whose updates carry the sensor's own timestamp. */
+  public void addNavX(String name, AHRS gyro) {
+    addDevice(
+        name,
+        sample -> {
+          sample.connected = gyro.isConnected();
+          sample.warnings = gyro.isCalibrating() ? 1 : 0;
+          sample.frameStamp = gyro.getLastSensorTimestamp();
+        });
+  }
+
+  /**
+   * Adds a camera.
+   *
+   * @param name Name for telemetry and alerts.
+   * @param connected Whether the coprocessor is publishing the camera.
+   * @param lastFrameTimestamp Timestamp of the latest pipeline result, NaN before the first.
+   */
+  public void addCamera(String name, BooleanSupplier connected, DoubleSupplier lastFrameTimestamp) {
+    addDevice(
+        name,
+        sample -> {
+          sample.connected = connected.getAsBoolean();
+          sample.frameStamp = lastFrameTimestamp.getAsDouble();
+        });
+  }
+
+  /** Starts polling. */
+  public void start() {
+    m_notifier.startPeriodic(1.0 / HealthConstants.POLL_RATE);
+  }
+
+  private void poll() {
+    double now = RobotController.getFPGATime() / 1e6;
+    CANStatus bus = RobotController.getCANStatus();
+    synchronized (this) {
+      m_busUtilization = bus.percentBusUtilization;
+      m_busOffCount = bus.busOffCount;
+      m_txFullCount = bus.txFullCount;
+      m_receiveErrorCount = bus.receiveErrorCount;
+      m_transmitErrorCount = bus.transmitErrorCount;
+      for (Device device : m_devices) {
+        m_sample.reset();
+        device.m_probe.read(m_sample);
+        device.m_tracker.update(
+            now,
+            m_sample.connected,
+            m_sample.faults,
+            m_sample.stickyFaults,
+            m_sample.warnings,
+            m_sample.frameStamp);
+      }
+    }
+  }
+
+  /** Publishes the latest poll results. Call from the main loop, a few times a second is enough. */
+  public void publish() {
+    DeviceHealth[] snapshot = new DeviceHealth[m_devices.size()];
+    Status[] statuses = new Status[snapshot.length];
+    double busUtilization;
+    int busOffCount;
+    int txFullCount;
+    int receiveErrorCount;
+    int transmitErrorCount;
+    synchronized (this) {
+      for (int i = 0; i < snapshot.length; i++) {
+        DeviceHealthTracker tracker = m_devices.get(i).m_tracker;
+        statuses[i] = tracker.getStatus();
+        snapshot[i] =
+            new DeviceHealth(
+                statuses[i].ordinal(),
+                tracker.getFaults(),
+                tracker.getStickyFaults(),
+                tracker.getWarnings(),
+                tracker.getSecondsSinceFrame(),
+                tracker.getStaleEvents());
+      }
+      busUtilization = m_busUtilization;
+      busOffCount = m_busOffCount;
+      txFullCount = m_txFullCount;
+      receiveErrorCount = m_receiveErrorCount;
+      transmitErrorCount = m_transmitErrorCount;
+    }
+
+    int unhealthy = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      Device device = m_devices.get(i);
+      Status status = statuses[i];
+      boolean isUnhealthy = status.compareTo(Status.FAULT) >= 0;
+      RobotTelemetry.putStruct(device.m_key, DeviceHealth.struct, snapshot[i]);
+      if (status != device.m_publishedStatus) {
+        if (isUnhealthy && device.m_publishedStatus.compareTo(Status.FAULT) < 0) {
+          m_faultEvents++;
+        }
+        device.m_errorAlert.setText(device.m_name + " is " + status.name().toLowerCase());
+        device.m_publishedStatus = status;
+      }
+      device.m_warningAlert.set(status == Status.WARNING);
+      device.m_errorAlert.set(isUnhealthy);
+      if (isUnhealthy) {
+        unhealthy++;
+      }
+    }
+    RobotTelemetry.putNumber("Health/Unhealthy Devices", unhealthy);
+    RobotTelemetry.putNumber("Health/CAN/Utilization", busUtilization);
+    RobotTelemetry.putNumber("Health/CAN/Bus Off", busOffCount);
+    RobotTelemetry.putNumber("Health/CAN/TX Full", txFullCount);
+    RobotTelemetry.putNumber("Health/CAN/Receive Errors", receiveErrorCount);
+    RobotTelemetry.putNumber("Health/CAN/Transmit Errors", transmitErrorCount);
+    m_busLoadAlert.set(busUtilization > HealthConstants.BUS_UTILIZATION_WARNING);
+    // Latched, a bus-off is worth knowing about even after the bus recovers
+    if (busOffCount > m_publishedBusOffCount) {
+      m_busOffAlert.set(true);
+      m_faultEvents++;
+    }
+    m_publishedBusOffCount = busOffCount;
+  }
+
+  /** Returns how many times a device has gone unhealthy or the bus has gone bus-off. */
+  public int getFaultEvents() {
+    return m_faultEvents;
+  }
+}
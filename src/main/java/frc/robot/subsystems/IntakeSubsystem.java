@@ -1,5 +1,7 @@
 package frc.robot.subsystems;
 
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.SparkBase;
 import com.revrobotics.spark.SparkBase.PersistMode;
 import com.revrobotics.spark.SparkBase.ResetMode;
 import com.revrobotics.spark.SparkLowLevel.MotorType;
@@ -9,26 +11,37 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.RobotTelemetry;
 import frc.robot.constants.Constants.CANConstants;
+import frc.robot.constants.Constants.IntakeConstants;
+import frc.robot.constants.Constants.PowerConstants;
 import frc.robot.constants.SpeedConstants;
+import frc.robot.constants.TweakConstants;
+import frc.robot.telemetry.IntakeState;
+import frc.robot.utils.JamDetector;
+import java.util.function.BiConsumer;
 
 /** Subsystem handling the intake/loading system. */
 public class IntakeSubsystem extends SubsystemBase {
 
   private final SparkMax m_intakeMotorMain;
   private final SparkMax m_intakeMotorSecondary;
+  private final RelativeEncoder m_encoder;
   private final SparkMaxConfig m_config;
 
+  private double m_current = 0.0;
   private boolean m_isStalled = false;
-  private final Timer m_stallTimer = new Timer();
-  private static final double STALL_CURRENT_THRESHOLD = 30.0; // Amps
-  private static final double STALL_TIME_THRESHOLD = 0.5; // Seconds to consider perfectly stalled
-  private static final double REVERSE_TIME = 1.0; // Seconds to reverse after a stall
+  // Held off by the feed pipeline while a shot is being fed (set from the fire-control thread)
+  private volatile boolean m_isSuspended = false;
+  private static final double NEO_FREE_SPEED_RPM = 5676.0;
+  // Flags jams from current and velocity within ~100 ms and reverses only until the roller frees
+  private final JamDetector m_jamDetector =
+      new JamDetector(NEO_FREE_SPEED_RPM, IntakeConstants.JAM_REVERSE_OUTPUT);
 
   @SuppressWarnings("removal")
   public IntakeSubsystem() {
     m_intakeMotorMain = new SparkMax(CANConstants.MOTOR_INTAKE_MAIN_ID, MotorType.kBrushless);
     m_intakeMotorSecondary =
         new SparkMax(CANConstants.MOTOR_INTAKE_SECONDARY_ID, MotorType.kBrushless);
+    m_encoder = m_intakeMotorMain.getEncoder();
     m_config = new SparkMaxConfig();
 
     // Default to Coast mode or Brake mode depending on team preference.
@@ -37,6 +50,7 @@ public class IntakeSubsystem extends SubsystemBase {
 
     // Hardware smoothing to limit sharp spikes
     m_config.openLoopRampRate(0.25);
+    m_config.smartCurrentLimit(PowerConstants.INTAKE_MAX_CURRENT);
 
     m_intakeMotorMain.configure(
         m_config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
@@ -45,8 +59,6 @@ public class IntakeSubsystem extends SubsystemBase {
     m_config.follow(m_intakeMotorMain);
     m_intakeMotorSecondary.configure(
         m_config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-
-    m_stallTimer.start();
   }
 
   /**
@@ -56,6 +68,10 @@ public class IntakeSubsystem extends SubsystemBase {
    */
   public void setIntakeSpeed(double speed) {
     if (m_isStalled) return; // Prevent normal operation if clearing a jam
+    if (m_isSuspended && speed > 0) {
+      m_intakeMotorMain.stopMotor();
+      return;
+    }
 
     double adjustedSpeed =
         SpeedConstants.adjustSpeed(
@@ -63,36 +79,105 @@ public class IntakeSubsystem extends SubsystemBase {
     m_intakeMotorMain.set(adjustedSpeed);
   }
 
+  /**
+   * Suspends inward intaking, e.g. while the loader is feeding a shot. Reversing is still
+   * allowed so the driver can always clear the intake.
+   *
+   * @param suspended Whether to hold the intake off.
+   */
+  public void setSuspended(boolean suspended) {
+    if (suspended && !m_isSuspended && !m_isStalled && m_intakeMotorMain.get() > 0) {
+      m_intakeMotorMain.stopMotor();
+    }
+    m_isSuspended = suspended;
+  }
+
   /** Stops the intake. */
   public void stop() {
     m_intakeMotorMain.stopMotor();
   }
 
+  /** Returns the intake current measured this loop, in amps. */
+  public double getCurrent() {
+    return m_current;
+  }
+
+  /** Returns the output the intake motor is applying, positive inward. */
+  public double getAppliedOutput() {
+    return m_intakeMotorMain.getAppliedOutput();
+  }
+
+  /**
+   * Changes the smart current limit without touching the rest of the configuration. Called by the
+   * {@link PowerManager} when it reallocates current, so the change is sent without blocking.
+   *
+   * @param amps Current limit per motor.
+   */
+  @SuppressWarnings("removal")
+  public void setCurrentLimit(int amps) {
+    SparkMaxConfig config = new SparkMaxConfig();
+    config.smartCurrentLimit(amps);
+    m_intakeMotorMain.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+    m_intakeMotorSecondary.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+
+  /** Zeroes the jam statistics so they cover a single match. */
+  public void resetJamStats() {
+    m_jamDetector.resetStats();
+  }
+
+  /** Returns whether the intake is driven and turning close to the speed its output should give. */
+  public boolean isSpinningFreely() {
+    return m_jamDetector.isSpinningFreely();
+  }
+
+  /** Passes each motor to the action with its name, for per-motor models. */
+  public void forEachMotor(BiConsumer<String, SparkBase> action) {
+    action.accept("Intake/Main", m_intakeMotorMain);
+    action.accept("Intake/Secondary", m_intakeMotorSecondary);
+  }
+
+  /** Adds this subsystem's devices to the CAN health monitor. */
+  public void registerHealth(HealthMonitor monitor) {
+    monitor.addSpark("Intake/Main", m_intakeMotorMain);
+    monitor.addSpark("Intake/Secondary", m_intakeMotorSecondary);
+  }
+
   @Override
   public void periodic() {
     double current = m_intakeMotorMain.getOutputCurrent();
-    RobotTelemetry.putNumber("Intake Current (A)", current);
-
-    if (m_isStalled) {
-      if (m_stallTimer.hasElapsed(REVERSE_TIME)) {
-        m_isStalled = false;
-        stop();
-      } else {
-        // Reverse motor to clear jam
-        m_intakeMotorMain.set(-0.5);
-      }
+    m_current = current;
+
+    if (TweakConstants.ENABLE_STALL_DETECTION) {
+      m_jamDetector.update(
+          Timer.getFPGATimestamp(),
+          m_intakeMotorMain.getAppliedOutput(),
+          m_encoder.getVelocity(),
+          current);
     } else {
-      if (current > STALL_CURRENT_THRESHOLD && Math.abs(m_intakeMotorMain.get()) > 0.1) {
-        if (m_stallTimer.hasElapsed(STALL_TIME_THRESHOLD)) {
-          // Jam detected!
-          m_isStalled = true;
-          m_stallTimer.restart();
-          RobotTelemetry.putBoolean("Intake Jammed", true);
-        }
-      } else {
-        m_stallTimer.restart();
-        RobotTelemetry.putBoolean("Intake Jammed", false);
-      }
+      m_jamDetector.reset();
     }
+
+    boolean jammed = m_jamDetector.isReversing();
+    if (jammed) {
+      // Reverse motor to clear jam
+      m_intakeMotorMain.set(m_jamDetector.getReverseOutput());
+    } else if (m_isStalled) {
+      // Roller is free again, hand control back to the commands
+      stop();
+    }
+    m_isStalled = jammed;
+
+    RobotTelemetry.putStruct(
+        "Intake/State",
+        IntakeState.struct,
+        new IntakeState(
+            current,
+            m_jamDetector.getFilteredCurrent(),
+            jammed,
+            m_jamDetector.getJamCount(),
+            m_jamDetector.getTimeLost()));
   }
 }
@@ -2,13 +2,16 @@ package frc.robot.subsystems;
 
 import com.revrobotics.PersistMode;
 import com.revrobotics.ResetMode;
+import com.revrobotics.spark.SparkBase;
 import com.revrobotics.spark.SparkLowLevel.MotorType;
 import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.config.SparkMaxConfig;
 import edu.wpi.first.math.filter.SlewRateLimiter;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.constants.Constants.CANConstants;
+import frc.robot.constants.Constants.PowerConstants;
 import frc.robot.constants.SpeedConstants;
+import java.util.function.BiConsumer;
 
 /** Subsystem handling the 3-motor loader. */
 public class LoaderSubsystem extends SubsystemBase {
@@ -29,8 +32,9 @@ public class LoaderSubsystem extends SubsystemBase {
     // Default to Coast mode or Brake mode depending on team preference.
     m_config.idleMode(SparkMaxConfig.IdleMode.kCoast);
 
-    // Hardware-level Torque Smoothing for voltage spikes
-    m_config.openLoopRampRate(0.25);
+    // No hardware ramp: feed pulses must start at once, and manual input is smoothed by the
+    // software limiter below
+    m_config.smartCurrentLimit(PowerConstants.LOADER_MAX_CURRENT);
 
     // Apply configuration to main motor
     m_loaderMotor1.configure(
@@ -62,12 +66,70 @@ public class LoaderSubsystem extends SubsystemBase {
     m_loaderMotor1.set(adjustedSpeed);
   }
 
+  /**
+   * Sets the loader speed immediately, bypassing the slew limiter. Used by the feed pipeline,
+   * whose pulses would otherwise lose half a second to the limiter on every restart.
+   *
+   * @param speed Speed from -1.0 to 1.0. positive spins inward.
+   */
+  public void setFeedSpeed(double speed) {
+    double adjustedSpeed =
+        SpeedConstants.adjustSpeed(
+            speed, SpeedConstants.LOADER_1_MAX_SPEED, SpeedConstants.LOADER_1_SENSITIVITY);
+    // Keep the limiter in step so manual control picks up smoothly afterwards
+    m_speedLimiter.reset(adjustedSpeed);
+    m_loaderMotor1.set(adjustedSpeed);
+  }
+
+  /** Returns the total current of all three loader motors, in amps. */
+  public double getCurrent() {
+    return m_loaderMotor1.getOutputCurrent()
+        + m_loaderMotor2.getOutputCurrent()
+        + m_loaderMotor3.getOutputCurrent();
+  }
+
+  /** Returns the output the loader motors are applying, positive inward. */
+  public double getAppliedOutput() {
+    return m_loaderMotor1.getAppliedOutput();
+  }
+
+  /**
+   * Changes the smart current limit without touching the rest of the configuration. Called by the
+   * {@link PowerManager} when it reallocates current, so the change is sent without blocking.
+   *
+   * @param amps Current limit per motor.
+   */
+  public void setCurrentLimit(int amps) {
+    SparkMaxConfig config = new SparkMaxConfig();
+    config.smartCurrentLimit(amps);
+    m_loaderMotor1.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+    m_loaderMotor2.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+    m_loaderMotor3.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+
   /** Stops the loader. */
   public void stop() {
     m_loaderMotor1.stopMotor();
     m_speedLimiter.reset(0);
   }
 
+  /** Passes each motor to the action with its name, for per-motor models. */
+  public void forEachMotor(BiConsumer<String, SparkBase> action) {
+    action.accept("Loader/1", m_loaderMotor1);
+    action.accept("Loader/2", m_loaderMotor2);
+    action.accept("Loader/3", m_loaderMotor3);
+  }
+
+  /** Adds this subsystem's devices to the CAN health monitor. */
+  public void registerHealth(HealthMonitor monitor) {
+    monitor.addSpark("Loader/1", m_loaderMotor1);
+    monitor.addSpark("Loader/2", m_loaderMotor2);
+    monitor.addSpark("Loader/3", m_loaderMotor3);
+  }
+
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
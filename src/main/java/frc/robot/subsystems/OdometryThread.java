@@ -0,0 +1,83 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.DriveConstants;
+import frc.robot.utils.SampleRingBuffer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Samples the drive encoders and gyro on a background {@link Notifier} at a higher rate than the
+ * main loop. Each sample is stamped with the FPGA time it was taken at and queued, so the pose
+ * estimator can replay every sample in order instead of only seeing the latest cached values.
+ */
+public class OdometryThread {
+  // Sample layout
+  public static final int TIMESTAMP = 0;
+  public static final int LEFT_POSITION = 1;
+  public static final int RIGHT_POSITION = 2;
+  public static final int YAW = 3;
+  public static final int SAMPLE_WIDTH = 4;
+
+  private final DoubleSupplier m_leftPosition;
+  private final DoubleSupplier m_rightPosition;
+  private final DoubleSupplier m_yawRadians;
+
+  private final SampleRingBuffer m_buffer =
+      new SampleRingBuffer(DriveConstants.kOdometryBufferSize, SAMPLE_WIDTH);
+  private final double[] m_sample = new double[SAMPLE_WIDTH]; // only touched by the notifier
+  private final Notifier m_notifier;
+
+  /**
+   * Creates a new OdometryThread. Call {@link #start()} to begin sampling.
+   *
+   * @param leftPosition Left side distance in meters.
+   * @param rightPosition Right side distance in meters.
+   * @param yawRadians Gyro heading in radians, CCW positive.
+   */
+  public OdometryThread(
+      DoubleSupplier leftPosition, DoubleSupplier rightPosition, DoubleSupplier yawRadians) {
+    m_leftPosition = leftPosition;
+    m_rightPosition = rightPosition;
+    m_yawRadians = yawRadians;
+    m_notifier = new Notifier(this::sample);
+    m_notifier.setName("OdometryThread");
+  }
+
+  /** Starts sampling at {@link DriveConstants#kOdometryFrequencyHz}. */
+  public void start() {
+    m_notifier.startPeriodic(1.0 / DriveConstants.kOdometryFrequencyHz);
+  }
+
+  private void sample() {
+    m_sample[TIMESTAMP] = RobotController.getFPGATime() / 1e6;
+    m_sample[LEFT_POSITION] = m_leftPosition.getAsDouble();
+    m_sample[RIGHT_POSITION] = m_rightPosition.getAsDouble();
+    m_sample[YAW] = m_yawRadians.getAsDouble();
+    m_buffer.add(m_sample);
+  }
+
+  /**
+   * Moves every queued sample into {@code out}, oldest first.
+   *
+   * @param out Destination array, at least {@link #getMaxSamples()} * {@link #SAMPLE_WIDTH} long.
+   * @return The number of samples copied.
+   */
+  public int drainTo(double[] out) {
+    return m_buffer.drainTo(out);
+  }
+
+  /** Discards queued samples, e.g. after the encoders or gyro are reset. */
+  public void clear() {
+    m_buffer.clear();
+  }
+
+  /** Returns how many samples were lost because the main loop fell behind. */
+  public long getDroppedCount() {
+    return m_buffer.getDroppedCount();
+  }
+
+  public int getMaxSamples() {
+    return m_buffer.getCapacity();
+  }
+}
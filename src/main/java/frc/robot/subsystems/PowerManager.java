@@ -0,0 +1,289 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.spark.SparkBase;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.RobotTelemetry;
+import frc.robot.constants.Constants.PowerConstants;
+import frc.robot.constants.TweakConstants;
+import frc.robot.utils.BatteryModel;
+import frc.robot.utils.CurrentAllocator;
+import frc.robot.utils.MotorThermalModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Shares the battery between mechanisms so heavy driving, firing and intaking together don't
+ * brown out the robot.
+ *
+ * <p>A {@link BatteryModel} fit online gives the current that can be drawn before the battery
+ * falls to {@link PowerConstants#MIN_BUDGET_VOLTAGE}. Every mechanism is guaranteed its minimum
+ * smart current limit, and the rest of the budget is handed out in priority order: the flywheel
+ * first while firing, otherwise the drivetrain, with the intake and loader last. While the budget
+ * covers every mechanism's maximum, all limits stay at their maximum, so performance is only given
+ * up right at the brownout edge.
+ *
+ * <p>When a mechanism starts from standstill, stopped mechanisms of lower priority are capped for
+ * a short window so their inrush doesn't land on top of it.
+ *
+ * <p>The drivetrain, intake and loader motors run hard all match, so each also has a {@link
+ * MotorThermalModel}. Their mechanism's limit is capped at the current its hottest motor can hold
+ * without reaching {@link PowerConstants#MOTOR_TEMPERATURE_LIMIT}, which backs off gradually
+ * instead of the controllers cutting out late in the match.
+ */
+public class PowerManager extends SubsystemBase {
+  // Mechanisms, in default priority order
+  private static final int DRIVE = 0;
+  private static final int FLYWHEEL = 1;
+  private static final int TURRET = 2;
+  private static final int INTAKE = 3;
+  private static final int LOADER = 4;
+  private static final int MECHANISM_COUNT = 5;
+
+  private static final String[] NAMES = {"Drive", "Flywheel", "Turret", "Intake", "Loader"};
+  private static final int[] DRIVING_PRIORITY = {DRIVE, FLYWHEEL, TURRET, INTAKE, LOADER};
+  private static final int[] FIRING_PRIORITY = {FLYWHEEL, TURRET, DRIVE, LOADER, INTAKE};
+
+  private static final class ThermalMotor {
+    private final int m_mechanism;
+    private final SparkBase m_motor;
+    private final String m_temperatureKey;
+    private final String m_timeToLimitKey;
+    private final MotorThermalModel m_model =
+        new MotorThermalModel(
+            PowerConstants.NEO_THERMAL_GAIN,
+            PowerConstants.NEO_THERMAL_TIME_CONSTANT,
+            PowerConstants.AMBIENT_TEMPERATURE,
+            PowerConstants.MOTOR_TEMPERATURE_LIMIT,
+            PowerConstants.THERMAL_HORIZON_SECONDS,
+            PowerConstants.THERMAL_MEASUREMENT_GAIN);
+
+    private ThermalMotor(int mechanism, String name, SparkBase motor) {
+      m_mechanism = mechanism;
+      m_motor = motor;
+      m_temperatureKey = "Power/Thermal/" + name + " Temperature";
+      m_timeToLimitKey = "Power/Thermal/" + name + " Time To Limit";
+    }
+  }
+
+  private final FireControlLoop m_fireControlLoop;
+  private final PowerDistribution m_powerDistribution = new PowerDistribution();
+  private final BatteryModel m_batteryModel =
+      new BatteryModel(
+          PowerConstants.MODEL_TIME_CONSTANT,
+          PowerConstants.DEFAULT_RESISTANCE,
+          PowerConstants.MIN_RESISTANCE,
+          PowerConstants.MAX_RESISTANCE,
+          PowerConstants.MIN_CURRENT_SPREAD);
+
+  private final DoubleSupplier[] m_currents = new DoubleSupplier[MECHANISM_COUNT];
+  private final IntConsumer[] m_limitSetters = new IntConsumer[MECHANISM_COUNT];
+  private final int[] m_motorCounts = {4, 1, 1, 2, 3};
+  private final int[] m_minLimits = {
+    PowerConstants.DRIVE_MIN_CURRENT,
+    PowerConstants.FLYWHEEL_MIN_CURRENT,
+    PowerConstants.TURRET_MIN_CURRENT,
+    PowerConstants.INTAKE_MIN_CURRENT,
+    PowerConstants.LOADER_MIN_CURRENT
+  };
+  private final int[] m_maxLimits = {
+    PowerConstants.DRIVE_MAX_CURRENT,
+    PowerConstants.FLYWHEEL_MAX_CURRENT,
+    PowerConstants.TURRET_MAX_CURRENT,
+    PowerConstants.INTAKE_MAX_CURRENT,
+    PowerConstants.LOADER_MAX_CURRENT
+  };
+  private final CurrentAllocator m_allocator =
+      new CurrentAllocator(
+          m_motorCounts,
+          m_minLimits,
+          m_maxLimits,
+          PowerConstants.INRUSH_WINDOW_SECONDS,
+          PowerConstants.INRUSH_CURRENT_CAP);
+
+  private final int[] m_appliedLimits = new int[MECHANISM_COUNT];
+  private final int[] m_allocatedLimits = new int[MECHANISM_COUNT];
+  private final double[] m_motorCurrents = new double[MECHANISM_COUNT];
+  private final double[] m_startTimes = new double[MECHANISM_COUNT];
+  private final boolean[] m_running = new boolean[MECHANISM_COUNT];
+
+  // Battery current per amp of motor current, so motor-side limits can be checked against the
+  // battery budget (motor current is larger than battery current below full duty cycle)
+  private double m_batteryCurrentRatio = 1.0;
+  private double m_budget = Double.POSITIVE_INFINITY;
+  private boolean m_limiting = false;
+
+  private final List<ThermalMotor> m_thermalMotors = new ArrayList<>();
+  private final double[] m_thermalLimits = new double[MECHANISM_COUNT];
+  private boolean m_thermalLimiting = false;
+
+  private final Alert m_sagAlert =
+      new Alert("Battery sagging, mechanism current limits reduced", AlertType.kWarning);
+  private final Alert m_thermalAlert =
+      new Alert("Motors overheating, current limits derated", AlertType.kWarning);
+
+  /**
+   * Creates a new PowerManager.
+   *
+   * @param drive The drivetrain.
+   * @param fire The flywheel.
+   * @param turret The turret.
+   * @param intake The intake.
+   * @param loader The loader.
+   * @param fireControlLoop Tells us when the robot is firing.
+   */
+  public PowerManager(
+      DriveSubsystem drive,
+      FireControlSubsystem fire,
+      TurretSubsystem turret,
+      IntakeSubsystem intake,
+      LoaderSubsystem loader,
+      FireControlLoop fireControlLoop) {
+    m_fireControlLoop = fireControlLoop;
+
+    m_currents[DRIVE] = drive::getCurrent;
+    m_currents[FLYWHEEL] = fire::getCurrent;
+    m_currents[TURRET] = turret::getCurrent;
+    // Only the main intake motor is read; the follower carries the same load
+    m_currents[INTAKE] = () -> intake.getCurrent() * 2.0;
+    m_currents[LOADER] = loader::getCurrent;
+    m_limitSetters[DRIVE] = drive::setCurrentLimit;
+    m_limitSetters[FLYWHEEL] = fire::setCurrentLimit;
+    m_limitSetters[TURRET] = turret::setCurrentLimit;
+    m_limitSetters[INTAKE] = intake::setCurrentLimit;
+    m_limitSetters[LOADER] = loader::setCurrentLimit;
+    drive.forEachMotor((name, motor) -> m_thermalMotors.add(new ThermalMotor(DRIVE, name, motor)));
+    intake.forEachMotor(
+        (name, motor) -> m_thermalMotors.add(new ThermalMotor(INTAKE, name, motor)));
+    loader.forEachMotor(
+        (name, motor) -> m_thermalMotors.add(new ThermalMotor(LOADER, name, motor)));
+
+    for (int i = 0; i < MECHANISM_COUNT; i++) {
+      m_appliedLimits[i] = m_maxLimits[i];
+      m_startTimes[i] = Double.NEGATIVE_INFINITY;
+    }
+  }
+
+  @Override
+  public void periodic() {
+    double now = Timer.getFPGATimestamp();
+    double voltage = RobotController.getBatteryVoltage();
+    double batteryCurrent = m_powerDistribution.getTotalCurrent();
+    m_batteryModel.update(now, voltage, batteryCurrent);
+
+    double motorCurrent = 0.0;
+    for (int i = 0; i < MECHANISM_COUNT; i++) {
+      double current = m_currents[i].getAsDouble();
+      motorCurrent += current;
+      m_motorCurrents[i] = current / m_motorCounts[i];
+
+      // Track starts from standstill for inrush staggering
+      boolean running = m_motorCurrents[i] > PowerConstants.IDLE_CURRENT;
+      if (running && !m_running[i]) {
+        m_startTimes[i] = now;
+      }
+      m_running[i] = running;
+    }
+    if (motorCurrent > PowerConstants.IDLE_CURRENT * MECHANISM_COUNT) {
+      double ratio = Math.min(1.0, batteryCurrent / motorCurrent);
+      m_batteryCurrentRatio += 0.1 * (ratio - m_batteryCurrentRatio);
+    }
+
+    m_limiting = false;
+    if (TweakConstants.DISABLE_BROWNOUT_PROTECTION) {
+      m_budget = Double.POSITIVE_INFINITY;
+      System.arraycopy(m_maxLimits, 0, m_allocatedLimits, 0, MECHANISM_COUNT);
+    } else {
+      // Battery budget expressed as motor current
+      m_budget =
+          m_batteryModel.getAvailableCurrent(PowerConstants.MIN_BUDGET_VOLTAGE)
+              / Math.max(m_batteryCurrentRatio, 0.1);
+      int[] priority =
+          m_fireControlLoop.getStatus().firing ? FIRING_PRIORITY : DRIVING_PRIORITY;
+      m_allocator.allocate(m_budget, priority, m_allocatedLimits);
+      for (int i = 0; i < MECHANISM_COUNT; i++) {
+        m_limiting |= m_allocatedLimits[i] < m_maxLimits[i];
+      }
+      m_allocator.staggerInrush(priority, now, m_startTimes, m_running, m_allocatedLimits);
+    }
+    applyThermalLimits(now);
+
+    for (int i = 0; i < MECHANISM_COUNT; i++) {
+      int limit = m_allocatedLimits[i];
+      // Skip small changes, but always restore the full limit
+      boolean changed =
+          Math.abs(limit - m_appliedLimits[i]) >= PowerConstants.LIMIT_HYSTERESIS
+              || (limit == m_maxLimits[i] && m_appliedLimits[i] != limit);
+      if (changed) {
+        m_limitSetters[i].accept(limit);
+        m_appliedLimits[i] = limit;
+      }
+    }
+
+    m_sagAlert.set(
+        TweakConstants.BATTERY_SAGGING_ALERT
+            && (m_limiting || voltage < PowerConstants.SAG_ALERT_VOLTAGE));
+
+    RobotTelemetry.putNumber("Power/Battery Current (A)", batteryCurrent);
+    RobotTelemetry.putNumber("Power/Resistance (mOhm)", m_batteryModel.getResistance() * 1000.0);
+    RobotTelemetry.putNumber("Power/Open Circuit Voltage", m_batteryModel.getOpenCircuitVoltage());
+    RobotTelemetry.putNumber("Power/Budget (A)", m_budget);
+    RobotTelemetry.putNumber("Power/Predicted Min Voltage", getPredictedMinimumVoltage());
+    RobotTelemetry.putBoolean("Power/Limiting", m_limiting);
+    RobotTelemetry.putBoolean("Power/Thermal Limiting", m_thermalLimiting);
+    for (int i = 0; i < MECHANISM_COUNT; i++) {
+      RobotTelemetry.putNumber("Power/" + NAMES[i] + " Limit (A)", m_appliedLimits[i]);
+    }
+  }
+
+  /** Updates the thermal models and caps each mechanism at what its hottest motor can hold. */
+  private void applyThermalLimits(double now) {
+    Arrays.fill(m_thermalLimits, Double.POSITIVE_INFINITY);
+    boolean nearLimit = false;
+    for (ThermalMotor motor : m_thermalMotors) {
+      MotorThermalModel model = motor.m_model;
+      model.update(now, motor.m_motor.getOutputCurrent(), motor.m_motor.getMotorTemperature());
+      m_thermalLimits[motor.m_mechanism] =
+          Math.min(m_thermalLimits[motor.m_mechanism], model.getCurrentLimit());
+      nearLimit |= model.getTimeToLimit() < PowerConstants.THERMAL_ALERT_SECONDS;
+      RobotTelemetry.putNumber(motor.m_temperatureKey, model.getTemperature());
+      RobotTelemetry.putNumber(motor.m_timeToLimitKey, model.getTimeToLimit());
+    }
+
+    m_thermalLimiting = false;
+    for (int i = 0; i < MECHANISM_COUNT; i++) {
+      if (m_thermalLimits[i] < m_allocatedLimits[i]) {
+        m_allocatedLimits[i] =
+            Math.max(PowerConstants.THERMAL_MIN_CURRENT, (int) m_thermalLimits[i]);
+        m_thermalLimiting = true;
+      }
+    }
+    m_thermalAlert.set(m_thermalLimiting || nearLimit);
+  }
+
+  /** Returns the predicted battery voltage if every mechanism drew its current limit. */
+  public double getPredictedMinimumVoltage() {
+    double total = 0.0;
+    for (int i = 0; i < MECHANISM_COUNT; i++) {
+      total += m_appliedLimits[i] * m_motorCounts[i];
+    }
+    return m_batteryModel.predictVoltage(total * m_batteryCurrentRatio);
+  }
+
+  /** Returns whether the battery budget is holding any mechanism below its maximum limit. */
+  public boolean isLimiting() {
+    return m_limiting;
+  }
+
+  /** Returns whether any mechanism is derated to keep its motors under the temperature limit. */
+  public boolean isThermalLimiting() {
+    return m_thermalLimiting;
+  }
+}
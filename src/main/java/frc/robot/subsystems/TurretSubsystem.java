@@ -1,5 +1,9 @@
 package frc.robot.subsystems;
 
+import static edu.wpi.first.units.Units.Second;
+import static edu.wpi.first.units.Units.Seconds;
+import static edu.wpi.first.units.Units.Volts;
+
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.sim.SparkMaxSim;
 import com.revrobotics.sim.SparkRelativeEncoderSim;
@@ -11,13 +15,23 @@ import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.config.SparkMaxConfig;
 import edu.wpi.first.math.filter.SlewRateLimiter;
 import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
+import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import frc.robot.RobotTelemetry;
 import frc.robot.constants.Constants;
 import frc.robot.constants.Constants.CANConstants;
+import frc.robot.constants.Constants.FireControlConstants;
+import frc.robot.constants.Constants.PowerConstants;
 import frc.robot.constants.SpeedConstants;
+import frc.robot.telemetry.TurretState;
+import frc.robot.utils.MotorGains;
+import java.io.File;
+import java.io.IOException;
 
 public class TurretSubsystem extends SubsystemBase {
   private final SparkMax m_turretMotor;
@@ -26,7 +40,12 @@ public class TurretSubsystem extends SubsystemBase {
   private final RelativeEncoder m_encoder;
   private final SlewRateLimiter m_speedLimiter;
 
-  private boolean m_isUnwinding = false;
+  // Set by the fire-control loop while it takes the turret the long way round the cable wrap
+  private volatile boolean m_isUnwinding = false;
+
+  // Feedforward for the fire-control loop, in volts per rad/s, identified with SysId
+  private final MotorGains m_gains;
+  private final SysIdRoutine m_sysIdRoutine;
 
   // PID Constants (Need tuning)
   private final double kP = 0.1;
@@ -44,16 +63,32 @@ public class TurretSubsystem extends SubsystemBase {
     m_config = new SparkMaxConfig();
 
     // Electrical Safety Limit (Prevents the motor from pulling too many amps and burning out)
-    m_config.smartCurrentLimit(40);
+    m_config.smartCurrentLimit(PowerConstants.TURRET_MAX_CURRENT);
 
-    // Hardware-level Torque Smoothing (time in seconds from 0 to full speed)
-    m_config.openLoopRampRate(0.25);
+    // Hardware-level Torque Smoothing (time in seconds from 0 to full speed). Only for the onboard
+    // position loop: open-loop voltage comes from the fire-control profile, which already bounds
+    // acceleration, or from manual input through the software limiter
     m_config.closedLoopRampRate(0.25);
 
     // Setup PID
     m_config.closedLoop.pid(kP, kI, kD);
     m_config.closedLoop.outputRange(-0.25, 0.25); // Limit output speed to prevent overshooting
 
+    // The cable wrap limits are enforced by the controller itself rather than a periodic check
+    double wrapLimitRotations =
+        FireControlConstants.TURRET_WRAP_LIMIT_RADIANS
+            / (2.0 * Math.PI)
+            * Constants.TURRET_GEAR_RATIO;
+    m_config
+        .softLimit
+        .forwardSoftLimit(wrapLimitRotations)
+        .forwardSoftLimitEnabled(true)
+        .reverseSoftLimit(-wrapLimitRotations)
+        .reverseSoftLimitEnabled(true);
+
+    // The fire-control loop tracks on position faster than the default status frame rate
+    m_config.signals.primaryEncoderPositionPeriodMs(FireControlConstants.STATUS_FRAME_PERIOD_MS);
+
     m_turretMotor.configure(
         m_config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
 
@@ -63,6 +98,24 @@ public class TurretSubsystem extends SubsystemBase {
     m_pidController = m_turretMotor.getClosedLoopController();
     m_encoder = m_turretMotor.getEncoder();
 
+    m_gains =
+        loadGains(
+            new MotorGains(
+                FireControlConstants.TURRET_kS,
+                FireControlConstants.TURRET_kV,
+                FireControlConstants.TURRET_kA));
+
+    // setup SysID, logging in turret units so the fitted gains drop straight into the loop
+    m_sysIdRoutine =
+        new SysIdRoutine(
+            new SysIdRoutine.Config(
+                Volts.per(Second).of(FireControlConstants.TURRET_SYSID_RAMP_VOLTS_PER_SECOND),
+                Volts.of(FireControlConstants.TURRET_SYSID_STEP_VOLTS),
+                Seconds.of(FireControlConstants.TURRET_SYSID_TIMEOUT_SECONDS),
+                (state) -> RobotTelemetry.recordOutput("SysIdTestState", state.toString())),
+            new SysIdRoutine.Mechanism(
+                (voltage) -> setTurretVoltage(voltage.in(Volts)), (log) -> logSysId(), this));
+
     // Configure Simulation
     m_turretSim = new SparkMaxSim(m_turretMotor, DCMotor.getNEO(1));
     m_encoderSim = new SparkRelativeEncoderSim(m_turretMotor);
@@ -79,6 +132,45 @@ public class TurretSubsystem extends SubsystemBase {
             0.0);
   }
 
+  private static MotorGains loadGains(MotorGains defaults) {
+    File file = new File(Filesystem.getDeployDirectory(), FireControlConstants.TURRET_GAINS_FILE);
+    try {
+      return MotorGains.load(file, defaults);
+    } catch (IOException e) {
+      DriverStation.reportError("Using default turret gains: " + e.getMessage(), false);
+      return defaults;
+    }
+  }
+
+  private void logSysId() {
+    RobotTelemetry.recordOutput(
+        "SysId/Turret/Voltage", m_turretMotor.getAppliedOutput() * m_turretMotor.getBusVoltage());
+    RobotTelemetry.recordOutput("SysId/Turret/Position", getTurretAngleRadians());
+    RobotTelemetry.recordOutput("SysId/Turret/Velocity", getTurretVelocityRadiansPerSecond());
+  }
+
+  public Command sysIdQuasistatic(SysIdRoutine.Direction direction) {
+    return m_sysIdRoutine.quasistatic(direction).until(() -> isNearSysIdLimit(direction));
+  }
+
+  public Command sysIdDynamic(SysIdRoutine.Direction direction) {
+    return m_sysIdRoutine.dynamic(direction).until(() -> isNearSysIdLimit(direction));
+  }
+
+  /** Ends a test before the soft limit stops the turret partway through and spoils the fit. */
+  private boolean isNearSysIdLimit(SysIdRoutine.Direction direction) {
+    double stop =
+        FireControlConstants.TURRET_WRAP_LIMIT_RADIANS
+            - FireControlConstants.TURRET_SYSID_STOP_MARGIN_RADIANS;
+    double angle = getTurretAngleRadians();
+    return direction == SysIdRoutine.Direction.kForward ? angle >= stop : angle <= -stop;
+  }
+
+  /** Returns the turret feedforward gains, in volts per rad/s and rad/s/s. */
+  public MotorGains getGains() {
+    return m_gains;
+  }
+
   /**
    * Sets the speed of the turret motor.
    *
@@ -102,11 +194,11 @@ public class TurretSubsystem extends SubsystemBase {
 
   /**
    * Directly sets the voltage of the turret motor, useful for ProfiledPID + Feedforward outputs.
+   * Only the fire-control loop drives the turret this way, including while it unwinds.
    *
    * @param volts Output voltage.
    */
   public void setTurretVoltage(double volts) {
-    if (m_isUnwinding) return;
     m_turretMotor.setVoltage(volts);
   }
 
@@ -116,6 +208,11 @@ public class TurretSubsystem extends SubsystemBase {
     return (currentRotations / Constants.TURRET_GEAR_RATIO) * 2.0 * Math.PI;
   }
 
+  /** Gets the current turret speed in radians per second. */
+  public double getTurretVelocityRadiansPerSecond() {
+    return m_encoder.getVelocity() / Constants.TURRET_GEAR_RATIO * 2.0 * Math.PI / 60.0;
+  }
+
   /** Gets the current robot-relative position of the turret in degrees. */
   public double getTurretAngleDegrees() {
     double currentRotations = m_encoder.getPosition();
@@ -154,40 +251,58 @@ public class TurretSubsystem extends SubsystemBase {
     m_speedLimiter.reset(0); // Reset limiter so next move doesn't jump
   }
 
-  /** Returns whether the turret is currently auto-unwinding. */
+  /** Returns the turret motor current in amps. */
+  public double getCurrent() {
+    return m_turretMotor.getOutputCurrent();
+  }
+
+  /**
+   * Changes the smart current limit without touching the rest of the configuration. Called by the
+   * {@link PowerManager} when it reallocates current, so the change is sent without blocking.
+   *
+   * @param amps Current limit per motor.
+   */
+  @SuppressWarnings("removal")
+  public void setCurrentLimit(int amps) {
+    SparkMaxConfig config = new SparkMaxConfig();
+    config.smartCurrentLimit(amps);
+    m_turretMotor.configureAsync(
+        config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+  }
+
+  /** Returns whether the turret is going the long way round to stay inside its cable wrap. */
   public boolean isUnwinding() {
     return m_isUnwinding;
   }
 
-  @Override
-  public void periodic() {
-    double currentAngle = getTurretAngleDegrees();
-
-    // Check if we exceeded bounds and enter unwinding state
-    if (Math.abs(currentAngle) >= 360.0 && !m_isUnwinding) {
-      m_isUnwinding = true;
-    }
+  /**
+   * Marks the turret as unwinding, which locks out manual control and firing until it is cleared.
+   * Called by the {@link FireControlLoop}, which does the unwinding.
+   *
+   * @param unwinding Whether the turret is going the long way round.
+   */
+  public void setUnwinding(boolean unwinding) {
+    m_isUnwinding = unwinding;
+  }
 
-    // Handle unwinding logic
-    if (m_isUnwinding) {
-      // Force PID to target 0 rotations (0 degrees)
-      m_pidController.setReference(
-          0.0, SparkMax.ControlType.kPosition, com.revrobotics.spark.ClosedLoopSlot.kSlot0);
-
-      // Check if we're back near 0 center
-      // Stiction and SparkMax deadband with an undertuned PID (kP=0.1) can cause
-      // the motor to stall ~18 degrees away from 0.0, so we use a wider 25.0 deg tolerance.
-      if (Math.abs(currentAngle) <= 25.0) {
-        m_isUnwinding = false;
-        // Reset our rate limiter so the driver can cleanly regain control
-        m_speedLimiter.reset(0);
-      }
-    }
+  /** Adds this subsystem's devices to the CAN health monitor. */
+  public void registerHealth(HealthMonitor monitor) {
+    monitor.addSpark("Turret", m_turretMotor);
+  }
 
+  @Override
+  public void periodic() {
     // Output current state of turret motor for debugging
-    RobotTelemetry.putNumber("Turret Motor Speed Output", m_turretMotor.get());
-    RobotTelemetry.putNumber("Turret Position", m_encoder.getPosition());
-    RobotTelemetry.putBoolean("Turret Is Unwinding", m_isUnwinding);
+    RobotTelemetry.putStruct(
+        "Turret/State",
+        TurretState.struct,
+        new TurretState(
+            m_turretMotor.get(),
+            m_encoder.getPosition(),
+            m_encoder.getVelocity(),
+            m_isUnwinding,
+            getCurrent(),
+            getTurretAngleRadians()));
   }
 
   @Override
@@ -0,0 +1,71 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.util.struct.StructSerializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Health of one CAN device, published by the health monitor a few times a second.
+ *
+ * @param status Ordinal of {@code DeviceHealthTracker.Status}, 0 is healthy.
+ * @param faults Active fault bits.
+ * @param stickyFaults Sticky fault bits.
+ * @param warnings Warning bits.
+ * @param secondsSinceFrame How long since the device last sent new data.
+ * @param staleEvents How many times the device's data has gone stale.
+ */
+public record DeviceHealth(
+    int status,
+    int faults,
+    int stickyFaults,
+    int warnings,
+    double secondsSinceFrame,
+    int staleEvents)
+    implements StructSerializable {
+  public static final DeviceHealthStruct struct = new DeviceHealthStruct();
+
+  /** Packs {@link DeviceHealth} as a WPILib struct. */
+  public static final class DeviceHealthStruct implements Struct<DeviceHealth> {
+    @Override
+    public Class<DeviceHealth> getTypeClass() {
+      return DeviceHealth.class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return "DeviceHealth";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeInt32 * 5 + kSizeDouble;
+    }
+
+    @Override
+    public String getSchema() {
+      return "int32 status;int32 faults;int32 stickyFaults;int32 warnings;"
+          + "double secondsSinceFrame;int32 staleEvents";
+    }
+
+    @Override
+    public DeviceHealth unpack(ByteBuffer bb) {
+      return new DeviceHealth(
+          bb.getInt(), bb.getInt(), bb.getInt(), bb.getInt(), bb.getDouble(), bb.getInt());
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, DeviceHealth value) {
+      bb.putInt(value.status());
+      bb.putInt(value.faults());
+      bb.putInt(value.stickyFaults());
+      bb.putInt(value.warnings());
+      bb.putDouble(value.secondsSinceFrame());
+      bb.putInt(value.staleEvents());
+    }
+
+    @Override
+    public boolean isImmutable() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.util.struct.StructSerializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Drivetrain state published once per loop. Mutable so the drivetrain can refill one instance
+ * every loop instead of allocating a new one, which is safe because the struct is packed as soon as
+ * it is published.
+ */
+public final class DriveState implements StructSerializable {
+  private double m_poseX;
+  private double m_poseY;
+  private double m_headingRadians;
+  private double m_averageDistance;
+  private double m_gyroYawDegrees;
+  private boolean m_gyroCalibrating;
+  private double m_leftPositionRotations;
+  private double m_rightPositionRotations;
+  private double m_leftVelocityRPM;
+  private double m_rightVelocityRPM;
+  private double m_current;
+  private double m_vxMetersPerSecond;
+  private double m_omegaRadiansPerSecond;
+
+  /** Creates a zeroed DriveState to be filled with {@link #set}. */
+  public DriveState() {}
+
+  /** Creates a filled DriveState, see {@link #set} for the fields. */
+  public DriveState(
+      double poseX,
+      double poseY,
+      double headingRadians,
+      double averageDistance,
+      double gyroYawDegrees,
+      boolean gyroCalibrating,
+      double leftPositionRotations,
+      double rightPositionRotations,
+      double leftVelocityRPM,
+      double rightVelocityRPM,
+      double current,
+      double vxMetersPerSecond,
+      double omegaRadiansPerSecond) {
+    set(
+        poseX,
+        poseY,
+        headingRadians,
+        averageDistance,
+        gyroYawDegrees,
+        gyroCalibrating,
+        leftPositionRotations,
+        rightPositionRotations,
+        leftVelocityRPM,
+        rightVelocityRPM,
+        current,
+        vxMetersPerSecond,
+        omegaRadiansPerSecond);
+  }
+
+  /**
+   * Overwrites every field.
+   *
+   * @param poseX Estimated field X in meters.
+   * @param poseY Estimated field Y in meters.
+   * @param headingRadians Estimated heading.
+   * @param averageDistance Distance travelled along field X in meters.
+   * @param gyroYawDegrees Raw gyro yaw.
+   * @param gyroCalibrating Whether the gyro is still calibrating.
+   * @param leftPositionRotations Left leader encoder position.
+   * @param rightPositionRotations Right leader encoder position.
+   * @param leftVelocityRPM Left leader encoder velocity.
+   * @param rightVelocityRPM Right leader encoder velocity.
+   * @param current Total current of all four drive motors in amps.
+   * @param vxMetersPerSecond Forward speed from the wheel encoders.
+   * @param omegaRadiansPerSecond Yaw rate from the wheel encoders.
+   * @return This instance, for publishing in the same call.
+   */
+  public DriveState set(
+      double poseX,
+      double poseY,
+      double headingRadians,
+      double averageDistance,
+      double gyroYawDegrees,
+      boolean gyroCalibrating,
+      double leftPositionRotations,
+      double rightPositionRotations,
+      double leftVelocityRPM,
+      double rightVelocityRPM,
+      double current,
+      double vxMetersPerSecond,
+      double omegaRadiansPerSecond) {
+    m_poseX = poseX;
+    m_poseY = poseY;
+    m_headingRadians = headingRadians;
+    m_averageDistance = averageDistance;
+    m_gyroYawDegrees = gyroYawDegrees;
+    m_gyroCalibrating = gyroCalibrating;
+    m_leftPositionRotations = leftPositionRotations;
+    m_rightPositionRotations = rightPositionRotations;
+    m_leftVelocityRPM = leftVelocityRPM;
+    m_rightVelocityRPM = rightVelocityRPM;
+    m_current = current;
+    m_vxMetersPerSecond = vxMetersPerSecond;
+    m_omegaRadiansPerSecond = omegaRadiansPerSecond;
+    return this;
+  }
+
+  public double poseX() {
+    return m_poseX;
+  }
+
+  public double poseY() {
+    return m_poseY;
+  }
+
+  public double headingRadians() {
+    return m_headingRadians;
+  }
+
+  public double averageDistance() {
+    return m_averageDistance;
+  }
+
+  public double gyroYawDegrees() {
+    return m_gyroYawDegrees;
+  }
+
+  public boolean gyroCalibrating() {
+    return m_gyroCalibrating;
+  }
+
+  public double leftPositionRotations() {
+    return m_leftPositionRotations;
+  }
+
+  public double rightPositionRotations() {
+    return m_rightPositionRotations;
+  }
+
+  public double leftVelocityRPM() {
+    return m_leftVelocityRPM;
+  }
+
+  public double rightVelocityRPM() {
+    return m_rightVelocityRPM;
+  }
+
+  public double current() {
+    return m_current;
+  }
+
+  public double vxMetersPerSecond() {
+    return m_vxMetersPerSecond;
+  }
+
+  public double omegaRadiansPerSecond() {
+    return m_omegaRadiansPerSecond;
+  }
+
+  public static final DriveStateStruct struct = new DriveStateStruct();
+
+  /** Packs {@link DriveState} as a WPILib struct. */
+  public static final class DriveStateStruct implements Struct<DriveState> {
+    @Override
+    public Class<DriveState> getTypeClass() {
+      return DriveState.class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return "DriveState";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble * 12 + kSizeBool;
+    }
+
+    @Override
+    public String getSchema() {
+      return "double poseX;double poseY;double headingRadians;"
+          + "double averageDistance;double gyroYawDegrees;bool gyroCalibrating;"
+          + "double leftPositionRotations;double rightPositionRotations;"
+          + "double leftVelocityRPM;double rightVelocityRPM;double current;"
+          + "double vxMetersPerSecond;double omegaRadiansPerSecond";
+    }
+
+    @Override
+    public DriveState unpack(ByteBuffer bb) {
+      return new DriveState(
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.get() != 0,
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble());
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, DriveState value) {
+      bb.putDouble(value.poseX());
+      bb.putDouble(value.poseY());
+      bb.putDouble(value.headingRadians());
+      bb.putDouble(value.averageDistance());
+      bb.putDouble(value.gyroYawDegrees());
+      bb.put((byte) (value.gyroCalibrating() ? 1 : 0));
+      bb.putDouble(value.leftPositionRotations());
+      bb.putDouble(value.rightPositionRotations());
+      bb.putDouble(value.leftVelocityRPM());
+      bb.putDouble(value.rightVelocityRPM());
+      bb.putDouble(value.current());
+      bb.putDouble(value.vxMetersPerSecond());
+      bb.putDouble(value.omegaRadiansPerSecond());
+    }
+
+    @Override
+    public boolean isImmutable() {
+      return false;
+    }
+  }
+}
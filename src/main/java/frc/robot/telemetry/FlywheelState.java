@@ -0,0 +1,80 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.util.struct.StructSerializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Flywheel state published once per loop.
+ *
+ * @param output Motor duty cycle.
+ * @param rpm Measured flywheel speed.
+ * @param boostVolts Shot recovery boost currently applied.
+ * @param shotCount Shots detected since boot.
+ * @param timeToSpeed Last measured spin-up time in seconds.
+ * @param recoveryTime Last measured shot recovery time in seconds.
+ * @param current Motor current in amps.
+ */
+public record FlywheelState(
+    double output,
+    double rpm,
+    double boostVolts,
+    int shotCount,
+    double timeToSpeed,
+    double recoveryTime,
+    double current)
+    implements StructSerializable {
+  public static final FlywheelStateStruct struct = new FlywheelStateStruct();
+
+  /** Packs {@link FlywheelState} as a WPILib struct. */
+  public static final class FlywheelStateStruct implements Struct<FlywheelState> {
+    @Override
+    public Class<FlywheelState> getTypeClass() {
+      return FlywheelState.class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return "FlywheelState";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble * 6 + kSizeInt32;
+    }
+
+    @Override
+    public String getSchema() {
+      return "double output;double rpm;double boostVolts;int32 shotCount;"
+          + "double timeToSpeed;double recoveryTime;double current";
+    }
+
+    @Override
+    public FlywheelState unpack(ByteBuffer bb) {
+      return new FlywheelState(
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getInt(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble());
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, FlywheelState value) {
+      bb.putDouble(value.output());
+      bb.putDouble(value.rpm());
+      bb.putDouble(value.boostVolts());
+      bb.putInt(value.shotCount());
+      bb.putDouble(value.timeToSpeed());
+      bb.putDouble(value.recoveryTime());
+      bb.putDouble(value.current());
+    }
+
+    @Override
+    public boolean isImmutable() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.util.struct.StructSerializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Intake state published once per loop.
+ *
+ * @param current Main motor current in amps.
+ * @param filteredCurrent Low-pass filtered current used for jam detection.
+ * @param jammed Whether a jam is being cleared.
+ * @param jamCount Jams detected this match.
+ * @param jamTimeLost Seconds spent confirming and clearing jams this match.
+ */
+public record IntakeState(
+    double current,
+    double filteredCurrent,
+    boolean jammed,
+    int jamCount,
+    double jamTimeLost)
+    implements StructSerializable {
+  public static final IntakeStateStruct struct = new IntakeStateStruct();
+
+  /** Packs {@link IntakeState} as a WPILib struct. */
+  public static final class IntakeStateStruct implements Struct<IntakeState> {
+    @Override
+    public Class<IntakeState> getTypeClass() {
+      return IntakeState.class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return "IntakeState";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble * 3 + kSizeBool + kSizeInt32;
+    }
+
+    @Override
+    public String getSchema() {
+      return "double current;double filteredCurrent;bool jammed;int32 jamCount;"
+          + "double jamTimeLost";
+    }
+
+    @Override
+    public IntakeState unpack(ByteBuffer bb) {
+      return new IntakeState(
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.get() != 0,
+          bb.getInt(),
+          bb.getDouble());
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, IntakeState value) {
+      bb.putDouble(value.current());
+      bb.putDouble(value.filteredCurrent());
+      bb.put((byte) (value.jammed() ? 1 : 0));
+      bb.putInt(value.jamCount());
+      bb.putDouble(value.jamTimeLost());
+    }
+
+    @Override
+    public boolean isImmutable() {
+      return true;
+    }
+  }
+}
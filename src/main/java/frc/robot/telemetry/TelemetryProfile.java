@@ -0,0 +1,58 @@
+package frc.robot.telemetry;
+
+import frc.robot.constants.Constants.TelemetryConstants;
+
+/**
+ * Decides, per key, whether telemetry goes to NetworkTables, the log or both. The log always keeps
+ * everything; the profiles only differ in how much is sent over the radio.
+ */
+public enum TelemetryProfile {
+  /** Only driver-critical keys over NetworkTables, at a reduced rate. */
+  COMPETITION,
+
+  /** Everything over NetworkTables, with high-rate diagnostics decimated. */
+  PRACTICE,
+
+  /** Everything over NetworkTables every loop, plus the full AdvantageKit mirror. */
+  DEBUG;
+
+  /**
+   * Routes a telemetry key under this profile.
+   *
+   * @param key SmartDashboard/log key.
+   * @return Where the key goes and how often.
+   */
+  public TelemetryRoute route(String key) {
+    if (startsWithAny(key, TelemetryConstants.NETWORK_TABLES_ONLY_PREFIXES)) {
+      return this == COMPETITION ? TelemetryRoute.NONE : TelemetryRoute.NETWORK_TABLES_ONLY;
+    }
+    switch (this) {
+      case COMPETITION:
+        if (startsWithAny(key, TelemetryConstants.DRIVER_KEY_PREFIXES)) {
+          return TelemetryRoute.BOTH.decimated(TelemetryConstants.COMPETITION_DECIMATION);
+        }
+        return TelemetryRoute.LOG_ONLY;
+      case PRACTICE:
+        if (startsWithAny(key, TelemetryConstants.DIAGNOSTIC_KEY_PREFIXES)) {
+          return TelemetryRoute.BOTH.decimated(TelemetryConstants.DIAGNOSTIC_DECIMATION);
+        }
+        return TelemetryRoute.BOTH;
+      default:
+        return TelemetryRoute.BOTH;
+    }
+  }
+
+  /** Returns whether the whole AdvantageKit log should also be mirrored to NetworkTables. */
+  public boolean mirrorsLogToNetworkTables() {
+    return this != COMPETITION;
+  }
+
+  private static boolean startsWithAny(String key, String[] prefixes) {
+    for (String prefix : prefixes) {
+      if (key.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
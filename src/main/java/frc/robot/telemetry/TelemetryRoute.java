@@ -0,0 +1,20 @@
+package frc.robot.telemetry;
+
+/**
+ * Where a telemetry key goes and how often.
+ *
+ * @param networkTables Whether the key is published to NetworkTables.
+ * @param log Whether the key is recorded to the on-disk log.
+ * @param decimation NetworkTables gets one of every this many updates; the log gets them all.
+ */
+public record TelemetryRoute(boolean networkTables, boolean log, int decimation) {
+  public static final TelemetryRoute BOTH = new TelemetryRoute(true, true, 1);
+  public static final TelemetryRoute LOG_ONLY = new TelemetryRoute(false, true, 1);
+  public static final TelemetryRoute NETWORK_TABLES_ONLY = new TelemetryRoute(true, false, 1);
+  public static final TelemetryRoute NONE = new TelemetryRoute(false, false, 1);
+
+  /** Returns a copy of this route that publishes to NetworkTables less often. */
+  public TelemetryRoute decimated(int decimation) {
+    return new TelemetryRoute(networkTables, log, decimation);
+  }
+}
@@ -0,0 +1,76 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.util.struct.StructSerializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Turret state published once per loop.
+ *
+ * @param output Motor duty cycle.
+ * @param positionRotations Encoder position.
+ * @param velocityRPM Encoder velocity.
+ * @param unwinding Whether the turret is going the long way round to stay inside its cable wrap.
+ * @param current Motor current in amps.
+ * @param angleRadians Robot-relative turret angle.
+ */
+public record TurretState(
+    double output,
+    double positionRotations,
+    double velocityRPM,
+    boolean unwinding,
+    double current,
+    double angleRadians)
+    implements StructSerializable {
+  public static final TurretStateStruct struct = new TurretStateStruct();
+
+  /** Packs {@link TurretState} as a WPILib struct. */
+  public static final class TurretStateStruct implements Struct<TurretState> {
+    @Override
+    public Class<TurretState> getTypeClass() {
+      return TurretState.class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return "TurretState";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeDouble * 5 + kSizeBool;
+    }
+
+    @Override
+    public String getSchema() {
+      return "double output;double positionRotations;double velocityRPM;bool unwinding;"
+          + "double current;double angleRadians";
+    }
+
+    @Override
+    public TurretState unpack(ByteBuffer bb) {
+      return new TurretState(
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.getDouble(),
+          bb.get() != 0,
+          bb.getDouble(),
+          bb.getDouble());
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, TurretState value) {
+      bb.putDouble(value.output());
+      bb.putDouble(value.positionRotations());
+      bb.putDouble(value.velocityRPM());
+      bb.put((byte) (value.unwinding() ? 1 : 0));
+      bb.putDouble(value.current());
+      bb.putDouble(value.angleRadians());
+    }
+
+    @Override
+    public boolean isImmutable() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.util.struct.StructSerializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Camera state published once per loop.
+ *
+ * @param poseCamera1Connected Whether the first pose camera is connected.
+ * @param poseCamera2Connected Whether the second pose camera is connected.
+ * @param targetingCameraConnected Whether the targeting camera is connected.
+ * @param hasTarget Whether the targeting camera currently sees a target.
+ * @param lastResultTimestamp Timestamp of the latest targeting camera frame in seconds.
+ */
+public record VisionState(
+    boolean poseCamera1Connected,
+    boolean poseCamera2Connected,
+    boolean targetingCameraConnected,
+    boolean hasTarget,
+    double lastResultTimestamp)
+    implements StructSerializable {
+  public static final VisionStateStruct struct = new VisionStateStruct();
+
+  /** Packs {@link VisionState} as a WPILib struct. */
+  public static final class VisionStateStruct implements Struct<VisionState> {
+    @Override
+    public Class<VisionState> getTypeClass() {
+      return VisionState.class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return "VisionState";
+    }
+
+    @Override
+    public int getSize() {
+      return kSizeBool * 4 + kSizeDouble;
+    }
+
+    @Override
+    public String getSchema() {
+      return "bool poseCamera1Connected;bool poseCamera2Connected;"
+          + "bool targetingCameraConnected;bool hasTarget;"
+          + "double lastResultTimestamp";
+    }
+
+    @Override
+    public VisionState unpack(ByteBuffer bb) {
+      return new VisionState(
+          bb.get() != 0,
+          bb.get() != 0,
+          bb.get() != 0,
+          bb.get() != 0,
+          bb.getDouble());
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, VisionState value) {
+      bb.put((byte) (value.poseCamera1Connected() ? 1 : 0));
+      bb.put((byte) (value.poseCamera2Connected() ? 1 : 0));
+      bb.put((byte) (value.targetingCameraConnected() ? 1 : 0));
+      bb.put((byte) (value.hasTarget() ? 1 : 0));
+      bb.putDouble(value.lastResultTimestamp());
+    }
+
+    @Override
+    public boolean isImmutable() {
+      return true;
+    }
+  }
+}
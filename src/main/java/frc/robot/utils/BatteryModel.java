@@ -0,0 +1,110 @@
+package frc.robot.utils;
+
+/**
+ * Online estimate of the battery as an ideal source behind an internal resistance, V = Voc - I*R.
+ * The resistance is fit to recent (current, voltage) samples with an exponentially weighted least
+ * squares, so it follows battery state of charge and temperature over a match. Until there is
+ * enough current variation to fit against, a default resistance is used.
+ */
+public class BatteryModel {
+  private final double m_timeConstant;
+  private final double m_minResistance;
+  private final double m_maxResistance;
+  private final double m_minCurrentSpread;
+
+  // Exponentially weighted moments of current and voltage
+  private double m_meanI = 0.0;
+  private double m_meanV = 0.0;
+  private double m_meanII = 0.0;
+  private double m_meanIV = 0.0;
+  private boolean m_initialized = false;
+  private double m_lastTimestamp = 0.0;
+
+  private double m_resistance;
+  private double m_openCircuitVoltage = 12.0;
+
+  /**
+   * Creates a new BatteryModel.
+   *
+   * @param timeConstant Seconds of history the fit is weighted over.
+   * @param defaultResistance Resistance in ohms used until it can be fit.
+   * @param minResistance Lowest believable fitted resistance in ohms.
+   * @param maxResistance Highest believable fitted resistance in ohms.
+   * @param minCurrentSpread Standard deviation of current in amps needed before fitting.
+   */
+  public BatteryModel(
+      double timeConstant,
+      double defaultResistance,
+      double minResistance,
+      double maxResistance,
+      double minCurrentSpread) {
+    m_timeConstant = timeConstant;
+    m_minResistance = minResistance;
+    m_maxResistance = maxResistance;
+    m_minCurrentSpread = minCurrentSpread;
+    m_resistance = defaultResistance;
+  }
+
+  /**
+   * Adds a sample.
+   *
+   * @param timestampSeconds Current time.
+   * @param voltage Measured battery voltage.
+   * @param current Total current drawn from the battery in amps.
+   */
+  public void update(double timestampSeconds, double voltage, double current) {
+    if (!m_initialized) {
+      m_meanI = current;
+      m_meanV = voltage;
+      m_meanII = current * current;
+      m_meanIV = current * voltage;
+      m_initialized = true;
+    } else {
+      double dt = timestampSeconds - m_lastTimestamp;
+      double alpha = dt / (m_timeConstant + dt);
+      m_meanI += alpha * (current - m_meanI);
+      m_meanV += alpha * (voltage - m_meanV);
+      m_meanII += alpha * (current * current - m_meanII);
+      m_meanIV += alpha * (current * voltage - m_meanIV);
+    }
+    m_lastTimestamp = timestampSeconds;
+
+    double varianceI = m_meanII - m_meanI * m_meanI;
+    if (varianceI >= m_minCurrentSpread * m_minCurrentSpread) {
+      double covarianceIV = m_meanIV - m_meanI * m_meanV;
+      double fitted = -covarianceIV / varianceI;
+      m_resistance = Math.max(m_minResistance, Math.min(fitted, m_maxResistance));
+    }
+    m_openCircuitVoltage = voltage + current * m_resistance;
+  }
+
+  /** Returns the estimated internal plus wiring resistance in ohms. */
+  public double getResistance() {
+    return m_resistance;
+  }
+
+  /** Returns the estimated no-load battery voltage. */
+  public double getOpenCircuitVoltage() {
+    return m_openCircuitVoltage;
+  }
+
+  /**
+   * Predicts the battery voltage under a given load.
+   *
+   * @param current Total battery current in amps.
+   * @return The predicted voltage.
+   */
+  public double predictVoltage(double current) {
+    return m_openCircuitVoltage - current * m_resistance;
+  }
+
+  /**
+   * Returns the most current that can be drawn before the voltage falls to the given level.
+   *
+   * @param minVoltage Voltage to stay above.
+   * @return Battery current in amps, never negative.
+   */
+  public double getAvailableCurrent(double minVoltage) {
+    return Math.max(0.0, (m_openCircuitVoltage - minVoltage) / m_resistance);
+  }
+}
@@ -0,0 +1,86 @@
+package frc.robot.utils;
+
+/**
+ * Splits a battery current budget into per-motor smart current limits for a set of mechanisms.
+ *
+ * <p>Every mechanism is guaranteed its minimum limit, even when the minimums alone exceed the
+ * budget, and the rest is handed out in priority order up to each maximum. Mechanisms are indexed
+ * by their position in the limit arrays; a priority is a permutation of those indices.
+ */
+public class CurrentAllocator {
+  private final int[] m_motorCounts;
+  private final int[] m_minLimits;
+  private final int[] m_maxLimits;
+  private final double m_inrushWindow;
+  private final int m_inrushCap;
+
+  /**
+   * Creates a new CurrentAllocator.
+   *
+   * @param motorCounts Motors sharing each mechanism's limit.
+   * @param minLimits Lowest per-motor limit for each mechanism in amps.
+   * @param maxLimits Highest per-motor limit for each mechanism in amps.
+   * @param inrushWindow Seconds after a start that lower priority mechanisms are held back.
+   * @param inrushCap Per-motor limit in amps for held back mechanisms.
+   */
+  public CurrentAllocator(
+      int[] motorCounts, int[] minLimits, int[] maxLimits, double inrushWindow, int inrushCap) {
+    m_motorCounts = motorCounts.clone();
+    m_minLimits = minLimits.clone();
+    m_maxLimits = maxLimits.clone();
+    m_inrushWindow = inrushWindow;
+    m_inrushCap = inrushCap;
+  }
+
+  /**
+   * Guarantees every minimum, then hands the rest of the budget out in priority order.
+   *
+   * @param budget Motor current available to all mechanisms together, in amps.
+   * @param priority Mechanism indices, highest priority first.
+   * @param limits Filled with the per-motor limit for each mechanism.
+   */
+  public void allocate(double budget, int[] priority, int[] limits) {
+    double remaining = budget;
+    for (int i = 0; i < limits.length; i++) {
+      limits[i] = m_minLimits[i];
+      remaining -= m_minLimits[i] * m_motorCounts[i];
+    }
+    for (int mechanism : priority) {
+      if (remaining <= 0.0) {
+        break;
+      }
+      int extraPerMotor =
+          (int) Math.min(
+              m_maxLimits[mechanism] - m_minLimits[mechanism],
+              remaining / m_motorCounts[mechanism]);
+      limits[mechanism] += extraPerMotor;
+      remaining -= extraPerMotor * m_motorCounts[mechanism];
+    }
+  }
+
+  /**
+   * Caps stopped mechanisms below the highest priority mechanism that has just started.
+   *
+   * @param priority Mechanism indices, highest priority first.
+   * @param now Current time in seconds.
+   * @param startTimes Time each mechanism last started from standstill.
+   * @param running Whether each mechanism is drawing current.
+   * @param limits Per-motor limits to lower in place.
+   */
+  public void staggerInrush(
+      int[] priority, double now, double[] startTimes, boolean[] running, int[] limits) {
+    for (int rank = 0; rank < priority.length; rank++) {
+      int starting = priority[rank];
+      if (now - startTimes[starting] >= m_inrushWindow) {
+        continue;
+      }
+      for (int lower = rank + 1; lower < priority.length; lower++) {
+        int mechanism = priority[lower];
+        if (!running[mechanism]) {
+          limits[mechanism] = Math.min(limits[mechanism], m_inrushCap);
+        }
+      }
+      return;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package frc.robot.utils;
+
+/**
+ * Tracks one CAN device's health from periodic polls of its fault words and a frame stamp.
+ *
+ * <p>The frame stamp is any value that changes whenever a new status frame arrives, such as a
+ * sensor timestamp or a noisy measured signal. When it hasn't changed for longer than the stale
+ * timeout the device is still answering reads from cached, old data, which is how a degraded bus
+ * shows up before it drops a device entirely.
+ *
+ * <p>A NaN frame stamp means there is nothing to compare right now, such as a motor signal while
+ * the motor is idle and the signal legitimately holds still. It also restarts the stale timeout, so
+ * the device gets a full timeout once the stamp is meaningful again.
+ */
+public class DeviceHealthTracker {
+  /** Overall health, in increasing order of severity. */
+  public enum Status {
+    OK,
+    /** Sticky faults or warnings are set, the device is still working. */
+    WARNING,
+    /** An active fault is set. */
+    FAULT,
+    /** No new frames within the stale timeout. */
+    STALE,
+    /** The device reports it is not connected at all. */
+    DISCONNECTED
+  }
+
+  private final double m_staleAfterSeconds;
+
+  private Status m_status = Status.OK;
+  private int m_faults = 0;
+  private int m_stickyFaults = 0;
+  private int m_warnings = 0;
+  private double m_lastStamp = Double.NaN;
+  private double m_lastFrameTime = Double.NaN;
+  private double m_secondsSinceFrame = 0.0;
+  private int m_staleEvents = 0;
+
+  /**
+   * Creates a new DeviceHealthTracker.
+   *
+   * @param staleAfterSeconds How long the frame stamp can stay the same before the data is stale.
+   */
+  public DeviceHealthTracker(double staleAfterSeconds) {
+    m_staleAfterSeconds = staleAfterSeconds;
+  }
+
+  /**
+   * Records a poll of the device.
+   *
+   * @param now Time of the poll in seconds.
+   * @param connected Whether the device reports being connected.
+   * @param faults Active fault bits.
+   * @param stickyFaults Sticky fault bits.
+   * @param warnings Warning bits.
+   * @param frameStamp Changes when a new frame arrives, NaN if the device has nothing to compare
+   *     right now.
+   */
+  public void update(
+      double now,
+      boolean connected,
+      int faults,
+      int stickyFaults,
+      int warnings,
+      double frameStamp) {
+    m_faults = faults;
+    m_stickyFaults = stickyFaults;
+    m_warnings = warnings;
+
+    boolean stale = false;
+    if (!Double.isNaN(frameStamp)) {
+      if (Double.isNaN(m_lastFrameTime) || frameStamp != m_lastStamp) {
+        m_lastStamp = frameStamp;
+        m_lastFrameTime = now;
+      }
+      m_secondsSinceFrame = now - m_lastFrameTime;
+      stale = m_secondsSinceFrame > m_staleAfterSeconds;
+    } else {
+      m_lastFrameTime = Double.NaN;
+      m_secondsSinceFrame = 0.0;
+    }
+
+    Status status;
+    if (!connected) {
+      status = Status.DISCONNECTED;
+    } else if (stale) {
+      status = Status.STALE;
+    } else if (faults != 0) {
+      status = Status.FAULT;
+    } else if (stickyFaults != 0 || warnings != 0) {
+      status = Status.WARNING;
+    } else {
+      status = Status.OK;
+    }
+    if (status == Status.STALE && m_status != Status.STALE) {
+      m_staleEvents++;
+    }
+    m_status = status;
+  }
+
+  public Status getStatus() {
+    return m_status;
+  }
+
+  public int getFaults() {
+    return m_faults;
+  }
+
+  public int getStickyFaults() {
+    return m_stickyFaults;
+  }
+
+  public int getWarnings() {
+    return m_warnings;
+  }
+
+  /** Returns how long since the frame stamp last changed, 0 if the device has no stamp. */
+  public double getSecondsSinceFrame() {
+    return m_secondsSinceFrame;
+  }
+
+  /** Returns how many times the device has gone stale. */
+  public int getStaleEvents() {
+    return m_staleEvents;
+  }
+}
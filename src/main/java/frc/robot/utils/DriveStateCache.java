@@ -0,0 +1,130 @@
+package frc.robot.utils;
+
+/**
+ * The drivetrain's state for the current loop, sampled once per loop into primitive fields so the
+ * commands and controllers that read it every loop never allocate or go back to the hardware.
+ *
+ * <p>Speeds come from the wheel velocities through differential drive kinematics, and the forward
+ * acceleration is differentiated from the speed and smoothed with a single-pole IIR filter, the
+ * same response as WPILib's {@code LinearFilter.singlePoleIIR}.
+ */
+public class DriveStateCache {
+  private final double m_trackWidth;
+  private final double m_filterGain;
+
+  private double m_timestamp = Double.NaN;
+  private double m_x = 0.0;
+  private double m_y = 0.0;
+  private double m_heading = 0.0;
+  private double m_leftPosition = 0.0;
+  private double m_rightPosition = 0.0;
+  private double m_leftVelocity = 0.0;
+  private double m_rightVelocity = 0.0;
+  private double m_vx = 0.0;
+  private double m_omega = 0.0;
+  private double m_acceleration = 0.0;
+
+  /**
+   * Creates a new DriveStateCache.
+   *
+   * @param trackWidth Distance between the left and right wheels in meters.
+   * @param accelerationTimeConstant Time constant of the acceleration filter in seconds.
+   * @param periodSeconds Nominal time between updates.
+   */
+  public DriveStateCache(double trackWidth, double accelerationTimeConstant, double periodSeconds) {
+    if (trackWidth <= 0.0) {
+      throw new IllegalArgumentException("The track width must be positive");
+    }
+    m_trackWidth = trackWidth;
+    m_filterGain = Math.exp(-periodSeconds / accelerationTimeConstant);
+  }
+
+  /**
+   * Samples the drivetrain. Call once per loop, after odometry has been updated.
+   *
+   * @param timestamp When the sample was taken, in seconds.
+   * @param x Estimated field X in meters.
+   * @param y Estimated field Y in meters.
+   * @param heading Estimated heading in radians.
+   * @param leftPosition Left wheel distance in meters.
+   * @param rightPosition Right wheel distance in meters.
+   * @param leftVelocity Left wheel speed in meters per second.
+   * @param rightVelocity Right wheel speed in meters per second.
+   */
+  public void update(
+      double timestamp,
+      double x,
+      double y,
+      double heading,
+      double leftPosition,
+      double rightPosition,
+      double leftVelocity,
+      double rightVelocity) {
+    double vx = (leftVelocity + rightVelocity) / 2.0;
+    double dt = timestamp - m_timestamp;
+    // Skips the first sample and repeated timestamps
+    if (dt > 0.0) {
+      double rawAcceleration = (vx - m_vx) / dt;
+      m_acceleration = m_filterGain * m_acceleration + (1.0 - m_filterGain) * rawAcceleration;
+    }
+    m_timestamp = timestamp;
+    m_x = x;
+    m_y = y;
+    m_heading = heading;
+    m_leftPosition = leftPosition;
+    m_rightPosition = rightPosition;
+    m_leftVelocity = leftVelocity;
+    m_rightVelocity = rightVelocity;
+    m_vx = vx;
+    m_omega = (rightVelocity - leftVelocity) / m_trackWidth;
+  }
+
+  /** Returns when the state was sampled, in seconds, or NaN before the first update. */
+  public double getTimestamp() {
+    return m_timestamp;
+  }
+
+  public double getX() {
+    return m_x;
+  }
+
+  public double getY() {
+    return m_y;
+  }
+
+  /** Returns the estimated heading in radians. */
+  public double getHeading() {
+    return m_heading;
+  }
+
+  public double getLeftPosition() {
+    return m_leftPosition;
+  }
+
+  public double getRightPosition() {
+    return m_rightPosition;
+  }
+
+  public double getLeftVelocity() {
+    return m_leftVelocity;
+  }
+
+  public double getRightVelocity() {
+    return m_rightVelocity;
+  }
+
+  /** Returns the forward speed in meters per second. */
+  public double getForwardSpeed() {
+    return m_vx;
+  }
+
+  /** Returns the yaw rate in radians per second, counterclockwise positive. */
+  public double getYawRate() {
+    return m_omega;
+  }
+
+  /** Returns the smoothed forward acceleration in meters per second squared. */
+  public double getAcceleration() {
+    return m_acceleration;
+  }
+}
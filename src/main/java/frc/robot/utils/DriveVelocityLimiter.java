@@ -0,0 +1,105 @@
+package frc.robot.utils;
+
+/**
+ * Steps one side of the drivetrain's velocity setpoint toward a target no faster than the motors
+ * can follow.
+ *
+ * <p>From the characterized feedforward V = kS + kV * v + kA * a, the acceleration available at a
+ * speed v with a voltage budget Vmax is (Vmax - kS - kV * |v|) / kA when speeding up, and (Vmax +
+ * kS + kV * |v|) / kA when slowing down, since back-EMF helps braking. Both are capped at a
+ * traction limit. With a voltage budget the battery can still supply late in the match, the
+ * setpoint always moves at the physical maximum and the velocity loop can always keep up with it.
+ */
+public class DriveVelocityLimiter {
+  private final double m_ks;
+  private final double m_kv;
+  private final double m_ka;
+  private final double m_maxVoltage;
+  private final double m_period;
+
+  private double m_setpoint = 0.0;
+  private double m_acceleration = 0.0;
+
+  /**
+   * Creates a new DriveVelocityLimiter.
+   *
+   * @param ks Static feedforward in volts.
+   * @param kv Velocity feedforward in volts per m/s.
+   * @param ka Acceleration feedforward in volts per m/s^2.
+   * @param maxVoltage Voltage budget for the setpoint, below the battery's loaded voltage.
+   * @param period Seconds between calls to {@link #calculate}.
+   */
+  public DriveVelocityLimiter(double ks, double kv, double ka, double maxVoltage, double period) {
+    m_ks = ks;
+    m_kv = kv;
+    m_ka = ka;
+    m_maxVoltage = maxVoltage;
+    m_period = period;
+  }
+
+  /** Returns the highest speed in m/s the voltage budget can hold. */
+  public double getMaxSpeed() {
+    return (m_maxVoltage - m_ks) / m_kv;
+  }
+
+  /**
+   * Moves the setpoint one step toward the target.
+   *
+   * @param target Requested speed in m/s.
+   * @param maxAcceleration Traction limit in m/s^2.
+   * @return The new setpoint in m/s.
+   */
+  public double calculate(double target, double maxAcceleration) {
+    target = Math.max(-getMaxSpeed(), Math.min(target, getMaxSpeed()));
+    double previous = m_setpoint;
+    if (target * m_setpoint < 0.0) {
+      // Reversing: still braking until the setpoint crosses zero
+      double speed = Math.abs(m_setpoint);
+      double brakeStep = getMaxAcceleration(false, speed, maxAcceleration) * m_period;
+      if (brakeStep < speed) {
+        m_setpoint -= Math.copySign(brakeStep, m_setpoint);
+      } else {
+        // Speed up from zero for the rest of the step
+        double remaining = m_period * (1.0 - speed / brakeStep);
+        m_setpoint = 0.0;
+        m_setpoint = step(target, maxAcceleration, remaining);
+      }
+    } else {
+      m_setpoint = step(target, maxAcceleration, m_period);
+    }
+    m_acceleration = (m_setpoint - previous) / m_period;
+    return m_setpoint;
+  }
+
+  /** Steps toward a target on the same side of zero as the setpoint. */
+  private double step(double target, double maxAcceleration, double period) {
+    double speed = Math.abs(m_setpoint);
+    boolean speedingUp = Math.abs(target) > speed;
+    double maxStep = getMaxAcceleration(speedingUp, speed, maxAcceleration) * period;
+    return m_setpoint + Math.max(-maxStep, Math.min(target - m_setpoint, maxStep));
+  }
+
+  private double getMaxAcceleration(boolean speedingUp, double speed, double maxAcceleration) {
+    double available =
+        speedingUp
+            ? (m_maxVoltage - m_ks - m_kv * speed) / m_ka
+            : (m_maxVoltage + m_ks + m_kv * speed) / m_ka;
+    return Math.max(0.0, Math.min(available, maxAcceleration));
+  }
+
+  /** Returns the setpoint from the last step in m/s. */
+  public double getSetpoint() {
+    return m_setpoint;
+  }
+
+  /** Returns the acceleration of the last step in m/s^2, for the kA feedforward term. */
+  public double getAcceleration() {
+    return m_acceleration;
+  }
+
+  /** Restarts from the given speed, such as the measured wheel speed. */
+  public void reset(double setpoint) {
+    m_setpoint = setpoint;
+    m_acceleration = 0.0;
+  }
+}
@@ -0,0 +1,195 @@
+package frc.robot.utils;
+
+/**
+ * Coordinates intake, loader and flywheel for continuous fire. Instead of running the loader
+ * whenever the flywheel happens to be at speed, the loader is run in pulses: each pulse pushes
+ * one game piece into the flywheel and stops as soon as the shot is detected, so the next piece
+ * stays staged while the flywheel recovers.
+ *
+ * <p>Once a pulse-to-shot travel time and a flywheel recovery time have been measured, the next
+ * pulse is started early so the piece arrives just as the flywheel gets back to speed. The intake
+ * is only suspended while a pulse is actually moving pieces, rather than for the whole time the
+ * trigger is held.
+ *
+ * <p>While the caller reports that no game pieces are available, pulses are only started every
+ * probe interval, so an empty robot doesn't keep cycling the loader but a wrong estimate still
+ * can't lock out firing.
+ *
+ * <p>This class only holds the state machine; the caller applies {@link #getLoaderOutput()} and
+ * {@link #isIntakeSuspended()} to the hardware.
+ */
+public class FeedPipeline {
+  /** Pipeline state. */
+  public enum State {
+    /** Not firing. */
+    IDLE,
+    /** Firing, waiting for the flywheel (and aim) before releasing the next piece. */
+    WAITING,
+    /** Loader pulse in progress, waiting for the shot. */
+    FEEDING
+  }
+
+  private final double m_feedSpeed;
+  private final double m_pulseTimeout;
+  private final double m_earlyReleaseRPMTolerance;
+  private final boolean m_suspendIntakeWhileFeeding;
+  private final double m_emptyProbeInterval;
+
+  private State m_state = State.IDLE;
+  private double m_pulseStartTime = Double.NEGATIVE_INFINITY;
+  private int m_lastShotCount = 0;
+  private double m_lastShotTime = Double.NaN;
+  private double m_travelTime = Double.NaN; // pulse start to shot detected
+  private boolean m_piecesAvailable = true;
+  private int m_emptyPulseCount = 0;
+
+  // Sustained fire rate over the current burst
+  private int m_burstShots = 0;
+  private double m_burstStartTime = 0.0;
+  private double m_piecesPerSecond = 0.0;
+
+  /**
+   * Creates a new FeedPipeline.
+   *
+   * @param feedSpeed Loader output while a pulse is running.
+   * @param pulseTimeout Seconds a pulse may run without a shot before it is abandoned (empty).
+   * @param earlyReleaseRPMTolerance Max RPM error allowed when releasing ahead of full recovery.
+   * @param suspendIntakeWhileFeeding Suspend the intake while a pulse is running.
+   * @param emptyProbeInterval Seconds between pulses while no pieces are reported available.
+   */
+  public FeedPipeline(
+      double feedSpeed,
+      double pulseTimeout,
+      double earlyReleaseRPMTolerance,
+      boolean suspendIntakeWhileFeeding,
+      double emptyProbeInterval) {
+    m_feedSpeed = feedSpeed;
+    m_pulseTimeout = pulseTimeout;
+    m_earlyReleaseRPMTolerance = earlyReleaseRPMTolerance;
+    m_suspendIntakeWhileFeeding = suspendIntakeWhileFeeding;
+    m_emptyProbeInterval = emptyProbeInterval;
+  }
+
+  /**
+   * Reports whether there are game pieces to feed, from the inventory estimate.
+   *
+   * @param piecesAvailable False only when the robot is believed to be empty.
+   */
+  public void setPiecesAvailable(boolean piecesAvailable) {
+    m_piecesAvailable = piecesAvailable;
+  }
+
+  /**
+   * Advances the state machine.
+   *
+   * @param timestampSeconds Current time.
+   * @param fireRequested Whether the operator is asking to fire.
+   * @param aimReady Whether aiming allows a shot right now.
+   * @param atSpeed Whether the flywheel is within tolerance of its target.
+   * @param rpmError Flywheel target minus measured RPM.
+   * @param shotCount Running count of shots detected by the flywheel.
+   * @param recoveryTime Last measured flywheel recovery time in seconds, or 0 if unknown.
+   */
+  public void update(
+      double timestampSeconds,
+      boolean fireRequested,
+      boolean aimReady,
+      boolean atSpeed,
+      double rpmError,
+      int shotCount,
+      double recoveryTime) {
+    boolean shot = shotCount != m_lastShotCount;
+    m_lastShotCount = shotCount;
+
+    if (!fireRequested) {
+      m_state = State.IDLE;
+      m_burstShots = 0;
+      return;
+    }
+    if (m_state == State.IDLE) {
+      m_state = State.WAITING;
+    }
+
+    if (shot) {
+      if (m_state == State.FEEDING) {
+        m_travelTime = timestampSeconds - m_pulseStartTime;
+      }
+      m_lastShotTime = timestampSeconds;
+      if (m_burstShots == 0) {
+        m_burstStartTime = timestampSeconds;
+      } else {
+        m_piecesPerSecond = m_burstShots / (timestampSeconds - m_burstStartTime);
+      }
+      m_burstShots++;
+    }
+
+    switch (m_state) {
+      case FEEDING:
+        // Stop as soon as the piece is gone so the next one stays staged, or give up if nothing
+        // came out (loader empty or jammed)
+        if (shot) {
+          m_state = State.WAITING;
+        } else if (timestampSeconds - m_pulseStartTime > m_pulseTimeout) {
+          m_state = State.WAITING;
+          m_emptyPulseCount++;
+        }
+        break;
+      case WAITING:
+        boolean worthFeeding =
+            m_piecesAvailable || timestampSeconds - m_pulseStartTime >= m_emptyProbeInterval;
+        if (aimReady
+            && worthFeeding
+            && (atSpeed || canReleaseEarly(timestampSeconds, rpmError, recoveryTime))) {
+          m_state = State.FEEDING;
+          m_pulseStartTime = timestampSeconds;
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private boolean canReleaseEarly(double timestampSeconds, double rpmError, double recoveryTime) {
+    if (Double.isNaN(m_travelTime) || Double.isNaN(m_lastShotTime) || recoveryTime <= 0.0) {
+      return false;
+    }
+    // Start the pulse so the piece reaches the flywheel right as it finishes recovering
+    double releaseTime = m_lastShotTime + recoveryTime - m_travelTime;
+    return timestampSeconds >= releaseTime && Math.abs(rpmError) <= m_earlyReleaseRPMTolerance;
+  }
+
+  /** Forces the pipeline back to idle, e.g. when the fire request is cleared. */
+  public void reset() {
+    m_state = State.IDLE;
+    m_burstShots = 0;
+  }
+
+  public State getState() {
+    return m_state;
+  }
+
+  /** Returns the loader output the pipeline wants right now. */
+  public double getLoaderOutput() {
+    return m_state == State.FEEDING ? m_feedSpeed : 0.0;
+  }
+
+  /** Returns whether the intake should be held off right now. */
+  public boolean isIntakeSuspended() {
+    return m_suspendIntakeWhileFeeding && m_state == State.FEEDING;
+  }
+
+  /** Returns the sustained fire rate of the current (or last) burst. */
+  public double getPiecesPerSecond() {
+    return m_piecesPerSecond;
+  }
+
+  /** Returns how many pulses have timed out without a shot, i.e. found the loader empty. */
+  public int getEmptyPulseCount() {
+    return m_emptyPulseCount;
+  }
+
+  /** Returns the measured time from pulse start to shot, or NaN before the first shot. */
+  public double getTravelTime() {
+    return m_travelTime;
+  }
+}
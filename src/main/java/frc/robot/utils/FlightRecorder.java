@@ -0,0 +1,259 @@
+package frc.robot.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last few seconds of high-rate inputs in memory and dumps them to a file when something
+ * goes wrong, so the moments around a brownout or fault can be looked at in full resolution.
+ *
+ * <p>Each {@link Track} is a preallocated ring of fixed-width frames, a timestamp followed by its
+ * channels. Recording is a few array writes and a counter update, with no locks and no allocation.
+ * Every track has a single writer. {@link #trigger} schedules a dump a little later, so the file
+ * covers both sides of the event, and the dump copies the rings on a background thread while the
+ * writers carry on; frames overwritten during the copy are left out rather than written torn.
+ *
+ * <p>The file format, all big-endian: the magic {@code FLIGHTR1}, the trigger reason as modified
+ * UTF-8, the trigger timestamp as a double and the track count as an int. Then for each track its
+ * name, channel count, channel names, frame count, and the frames oldest first, each a double
+ * timestamp followed by a float per channel. {@code logtools flight} decodes it to CSV.
+ */
+public class FlightRecorder {
+  /** File magic, also the format version. */
+  public static final String MAGIC = "FLIGHTR1";
+
+  /** One stream of frames from a single writer thread. */
+  public static final class Track {
+    private final String m_name;
+    private final String[] m_channels;
+    private final int m_capacity;
+    private final int m_slots;
+    private final int m_width;
+    private final double[] m_data;
+
+    // Frames committed. Only the writer changes it, the dump reads it around its copy
+    private volatile long m_written = 0;
+    private int m_row = 0;
+
+    private Track(String name, int capacity, String[] channels) {
+      m_name = name;
+      m_channels = channels.clone();
+      m_capacity = capacity;
+      // A spare slot for the frame being built, so a full ring still holds capacity frames
+      m_slots = capacity + 1;
+      m_width = channels.length + 1;
+      m_data = new double[m_slots * m_width];
+    }
+
+    /** Sets a channel of the frame being built. */
+    public void set(int channel, double value) {
+      m_data[m_row + 1 + channel] = value;
+    }
+
+    /** Timestamps the frame being built and commits it. */
+    public void commit(double timestampSeconds) {
+      m_data[m_row] = timestampSeconds;
+      long written = m_written + 1;
+      m_written = written;
+      // Keep the next frame's writes from becoming visible before the count
+      VarHandle.storeStoreFence();
+      m_row = (int) (written % m_slots) * m_width;
+    }
+
+    /**
+     * Commits a whole frame laid out as the timestamp followed by every channel, such as an
+     * odometry sample.
+     *
+     * @param frame Array holding the frame.
+     * @param offset Index of the frame's timestamp.
+     */
+    public void record(double[] frame, int offset) {
+      System.arraycopy(frame, offset + 1, m_data, m_row + 1, m_width - 1);
+      commit(frame[offset]);
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    /** Returns the number of frames committed since startup. */
+    public long getWritten() {
+      return m_written;
+    }
+
+    /**
+     * Copies the frames held, oldest first, without stopping the writer. Allocates, so only call
+     * it off the main loop.
+     *
+     * @param out Destination, at least capacity * (channels + 1) long.
+     * @return The number of frames copied.
+     */
+    public int snapshot(double[] out) {
+      double[] ring = new double[m_data.length];
+      long before = m_written;
+      System.arraycopy(m_data, 0, ring, 0, m_data.length);
+      VarHandle.loadLoadFence();
+      long after = m_written;
+
+      // The frame being written at the end of the copy overwrote the oldest slot, and so did any
+      // committed during it
+      long first = Math.max(0, Math.max(before - m_capacity, after - m_slots + 1));
+      int count = (int) Math.max(0, before - first);
+      for (int i = 0; i < count; i++) {
+        int slot = (int) ((first + i) % m_slots);
+        System.arraycopy(ring, slot * m_width, out, i * m_width, m_width);
+      }
+      return count;
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      out.writeUTF(m_name);
+      out.writeInt(m_channels.length);
+      for (String channel : m_channels) {
+        out.writeUTF(channel);
+      }
+      double[] frames = new double[m_data.length];
+      int count = snapshot(frames);
+      out.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        int offset = i * m_width;
+        out.writeDouble(frames[offset]);
+        for (int c = 1; c < m_width; c++) {
+          out.writeFloat((float) frames[offset + c]);
+        }
+      }
+    }
+  }
+
+  private final Path m_directory;
+  private final double m_postTriggerSeconds;
+  private final double m_cooldownSeconds;
+  private final List<Track> m_tracks = new ArrayList<>();
+  private final ScheduledThreadPoolExecutor m_dumper =
+      new ScheduledThreadPoolExecutor(
+          1,
+          runnable -> {
+            Thread thread = new Thread(runnable, "FlightRecorder");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+          });
+
+  // Main thread only
+  private double m_lastTriggerTime = Double.NEGATIVE_INFINITY;
+  private int m_triggerCount = 0;
+  private volatile int m_dumpCount = 0;
+  private volatile String m_lastError = "";
+
+  /**
+   * Creates a new FlightRecorder. Construct it before the main loop is raised to real-time: on
+   * Linux a new thread inherits its creator's real-time priority and core, and Java priorities
+   * can't lower it, so the dump thread is started here rather than on the first trigger.
+   *
+   * @param directory Where dumps are written, created on the first dump.
+   * @param postTriggerSeconds How long after a trigger to keep recording before dumping.
+   * @param cooldownSeconds Minimum time between dumps, so one event doesn't write a dozen files.
+   */
+  public FlightRecorder(Path directory, double postTriggerSeconds, double cooldownSeconds) {
+    m_directory = directory;
+    m_postTriggerSeconds = postTriggerSeconds;
+    m_cooldownSeconds = cooldownSeconds;
+    m_dumper.prestartCoreThread();
+  }
+
+  /**
+   * Adds a track. Add every track at startup, before anything records.
+   *
+   * @param name Name in the dump.
+   * @param capacity Frames held, rate times the seconds to keep.
+   * @param channels Channel names, in the order they're set.
+   * @return The track to record into.
+   */
+  public Track addTrack(String name, int capacity, String... channels) {
+    if (capacity <= 0 || channels.length == 0) {
+      throw new IllegalArgumentException("Tracks need a positive capacity and a channel");
+    }
+    Track track = new Track(name, capacity, channels);
+    m_tracks.add(track);
+    return track;
+  }
+
+  /**
+   * Requests a dump covering the recorded time before now and the post-trigger time after it.
+   * Ignored while an earlier trigger is cooling down.
+   *
+   * @param reason Why, used in the file name, e.g. "brownout".
+   * @param timestampSeconds Current time.
+   * @return Whether a dump was scheduled.
+   */
+  public boolean trigger(String reason, double timestampSeconds) {
+    if (timestampSeconds - m_lastTriggerTime < m_cooldownSeconds) {
+      return false;
+    }
+    m_lastTriggerTime = timestampSeconds;
+    m_triggerCount++;
+    long delayMillis = (long) (m_postTriggerSeconds * 1000.0);
+    m_dumper.schedule(() -> dump(reason, timestampSeconds), delayMillis, TimeUnit.MILLISECONDS);
+    return true;
+  }
+
+  private void dump(String reason, double triggerTimestamp) {
+    String name =
+        String.format(
+            "flight-%d-%s.bin",
+            System.currentTimeMillis(), reason.replaceAll("[^A-Za-z0-9]+", "-").toLowerCase());
+    try {
+      Files.createDirectories(m_directory);
+      try (OutputStream file = Files.newOutputStream(m_directory.resolve(name))) {
+        write(file, reason, triggerTimestamp);
+      }
+      m_dumpCount++;
+    } catch (IOException e) {
+      m_lastError = name + ": " + e.getMessage();
+    }
+  }
+
+  /**
+   * Writes every track in the dump format.
+   *
+   * @param output Destination, left open.
+   * @param reason Trigger reason.
+   * @param triggerTimestamp Trigger time.
+   */
+  public void write(OutputStream output, String reason, double triggerTimestamp)
+      throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+    out.writeBytes(MAGIC);
+    out.writeUTF(reason);
+    out.writeDouble(triggerTimestamp);
+    out.writeInt(m_tracks.size());
+    for (Track track : m_tracks) {
+      track.write(out);
+    }
+    out.flush();
+  }
+
+  /** Returns how many triggers have scheduled a dump. */
+  public int getTriggerCount() {
+    return m_triggerCount;
+  }
+
+  /** Returns how many dumps have been written. */
+  public int getDumpCount() {
+    return m_dumpCount;
+  }
+
+  /** Returns the last dump failure, empty if none. */
+  public String getLastError() {
+    return m_lastError;
+  }
+}
@@ -0,0 +1,182 @@
+package frc.robot.utils;
+
+import frc.robot.constants.Constants.InventoryConstants;
+
+/**
+ * Estimates how many game pieces are in the intake and loader without any beam breaks, from the
+ * current signatures of the motors that move them.
+ *
+ * <p>A piece passing through a roller loads it for a short time, which shows up as a current bump
+ * above the free-running baseline. Bumps on the intake count pieces entering, bumps on the loader
+ * confirm a piece is staged, and the flywheel's shot detection counts pieces leaving. A feed pulse
+ * that runs out without a shot proves the robot is empty.
+ *
+ * <p>Inferred events lower the confidence of the count, while an empty feed pulse restores it. Use
+ * {@link #isEmpty()} rather than {@code getCount() == 0} to act on the estimate.
+ */
+public class GamePieceInventory {
+  /** Counts current bumps above a slowly tracked baseline. */
+  private static final class TransientDetector {
+    private double m_baseline = Double.NaN;
+    private double m_bumpStartTime = Double.NaN;
+    private double m_lastTimestamp = Double.NaN;
+
+    /** Returns true once per bump, when it ends, if it lasted long enough to be a game piece. */
+    boolean update(double timestampSeconds, boolean driven, double current) {
+      double dt = Double.isNaN(m_lastTimestamp) ? 0.0 : timestampSeconds - m_lastTimestamp;
+      m_lastTimestamp = timestampSeconds;
+      if (!driven) {
+        m_baseline = Double.NaN;
+        m_bumpStartTime = Double.NaN;
+        return false;
+      }
+      if (Double.isNaN(m_baseline)) {
+        m_baseline = current;
+        return false;
+      }
+
+      double rise = current - m_baseline;
+      if (Double.isNaN(m_bumpStartTime)) {
+        if (rise > InventoryConstants.PIECE_CURRENT_RISE) {
+          m_bumpStartTime = timestampSeconds;
+        } else {
+          // Only track the baseline between bumps so a piece doesn't drag it up
+          double alpha = dt / (InventoryConstants.BASELINE_TIME_CONSTANT + dt);
+          m_baseline += alpha * (current - m_baseline);
+        }
+        return false;
+      }
+
+      double duration = timestampSeconds - m_bumpStartTime;
+      if (duration > InventoryConstants.MAX_PIECE_SECONDS) {
+        // Too long to be a piece passing through (stalled or a new load), rebase on it
+        m_baseline = current;
+        m_bumpStartTime = Double.NaN;
+        return false;
+      }
+      if (rise < InventoryConstants.PIECE_CURRENT_RISE * 0.5) {
+        m_bumpStartTime = Double.NaN;
+        return duration >= InventoryConstants.MIN_PIECE_SECONDS;
+      }
+      return false;
+    }
+  }
+
+  private final int m_capacity;
+  private final TransientDetector m_intakeTransient = new TransientDetector();
+  private final TransientDetector m_loaderTransient = new TransientDetector();
+
+  private int m_count = 0;
+  private double m_confidence = 0.0; // nothing known until reset or an empty pulse
+  private int m_lastShotCount = 0;
+  private int m_lastEmptyPulseCount = 0;
+  private boolean m_intakeReversing = false;
+
+  private int m_piecesIn = 0;
+  private int m_piecesOut = 0;
+
+  /**
+   * Creates a new GamePieceInventory.
+   *
+   * @param capacity Most pieces the intake and loader can hold together.
+   */
+  public GamePieceInventory(int capacity) {
+    m_capacity = capacity;
+  }
+
+  /**
+   * Sets a known count, e.g. the preload at the start of autonomous.
+   *
+   * @param count Number of pieces on board.
+   */
+  public void reset(int count) {
+    m_count = Math.max(0, Math.min(count, m_capacity));
+    m_confidence = 1.0;
+  }
+
+  /**
+   * Advances the estimate. Call once per loop.
+   *
+   * @param timestampSeconds Current time.
+   * @param intakeOutput Applied intake output, positive inward.
+   * @param intakeCurrent Intake motor current in amps.
+   * @param loaderOutput Applied loader output, positive inward.
+   * @param loaderCurrent Total loader motor current in amps.
+   * @param shotCount Running count of shots detected by the flywheel.
+   * @param emptyPulseCount Running count of feed pulses that timed out without a shot.
+   */
+  public void update(
+      double timestampSeconds,
+      double intakeOutput,
+      double intakeCurrent,
+      double loaderOutput,
+      double loaderCurrent,
+      int shotCount,
+      int emptyPulseCount) {
+    // Entering
+    boolean intakeInward = intakeOutput >= InventoryConstants.MIN_OUTPUT;
+    if (m_intakeTransient.update(timestampSeconds, intakeInward, intakeCurrent)) {
+      if (m_count < m_capacity) {
+        m_count++;
+        m_piecesIn++;
+      }
+      m_confidence *= InventoryConstants.INFERRED_EVENT_CONFIDENCE;
+    }
+
+    // Reversing the intake may spit out any number of pieces
+    boolean intakeReversing = intakeOutput <= -InventoryConstants.MIN_OUTPUT;
+    if (intakeReversing && !m_intakeReversing && m_count > 0) {
+      m_confidence *= InventoryConstants.REVERSE_CONFIDENCE;
+    }
+    m_intakeReversing = intakeReversing;
+
+    // Staging: a piece in the loader when we thought we were empty means an entry was missed
+    boolean loaderInward = loaderOutput >= InventoryConstants.MIN_OUTPUT;
+    if (m_loaderTransient.update(timestampSeconds, loaderInward, loaderCurrent) && m_count == 0) {
+      m_count = 1;
+      m_piecesIn++;
+      m_confidence *= InventoryConstants.MISSED_EVENT_CONFIDENCE;
+    }
+
+    // Leaving
+    int shots = shotCount - m_lastShotCount;
+    m_lastShotCount = shotCount;
+    if (shots > 0) {
+      m_piecesOut += shots;
+      m_count -= shots;
+      if (m_count < 0) {
+        m_count = 0;
+        m_confidence *= InventoryConstants.MISSED_EVENT_CONFIDENCE;
+      }
+    }
+
+    // A pulse that fed nothing is the one direct observation we have
+    if (emptyPulseCount != m_lastEmptyPulseCount) {
+      m_lastEmptyPulseCount = emptyPulseCount;
+      m_count = 0;
+      m_confidence = 1.0;
+    }
+  }
+
+  public int getCount() {
+    return m_count;
+  }
+
+  /** Returns how much the count can be trusted, from 0 to 1. */
+  public double getConfidence() {
+    return m_confidence;
+  }
+
+  /** Returns whether the robot is empty with enough confidence to act on it. */
+  public boolean isEmpty() {
+    return m_count == 0 && m_confidence >= InventoryConstants.EMPTY_CONFIDENCE;
+  }
+
+  public int getPiecesIn() {
+    return m_piecesIn;
+  }
+
+  public int getPiecesOut() {
+    return m_piecesOut;
+  }
+}
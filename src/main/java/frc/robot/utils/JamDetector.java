@@ -0,0 +1,174 @@
+package frc.robot.utils;
+
+import frc.robot.constants.Constants.IntakeConstants;
+
+/**
+ * Detects roller jams from motor signals and runs the reverse pulses that clear them.
+ *
+ * <p>A jam is flagged when the roller is commanded inward but turning well below the speed its
+ * applied output should give, while the (low-pass filtered) current is either high or climbing
+ * fast. Requiring the velocity deficit keeps ordinary game piece pickups, which only cause a short
+ * current bump, from tripping the detector, and the slope term catches a jam before the current
+ * has fully risen.
+ *
+ * <p>Once flagged, the roller is reversed until it is spinning freely again rather than for a fixed
+ * time. If another jam follows soon after, the next pulse is allowed to run longer.
+ *
+ * <p>This class only holds the state machine; the caller applies {@link #getReverseOutput()} while
+ * {@link #isReversing()} is true.
+ */
+public class JamDetector {
+  private final double m_freeSpeedRPM;
+  private final double m_reverseOutput;
+
+  private boolean m_reversing = false;
+  private double m_lastTimestamp = Double.NaN;
+  private double m_filteredCurrent = 0.0;
+  private double m_currentSlope = 0.0;
+  private double m_velocityRatio = 0.0;
+  private double m_runStartTime = Double.NaN;
+  private double m_suspectStartTime = Double.NaN;
+  private double m_reverseStartTime = 0.0;
+  private double m_pulseLength;
+  private double m_lastClearTime = Double.NEGATIVE_INFINITY;
+
+  private int m_jamCount = 0;
+  private double m_timeLost = 0.0;
+
+  /**
+   * Creates a new JamDetector. Thresholds come from {@link IntakeConstants}.
+   *
+   * @param freeSpeedRPM Motor free speed at full output, used to predict the roller velocity.
+   * @param reverseOutput Output to apply while reversing out a jam.
+   */
+  public JamDetector(double freeSpeedRPM, double reverseOutput) {
+    m_freeSpeedRPM = freeSpeedRPM;
+    m_reverseOutput = reverseOutput;
+    m_pulseLength = IntakeConstants.JAM_INITIAL_PULSE_SECONDS;
+  }
+
+  /**
+   * Advances the detector. Call once per loop with fresh motor signals.
+   *
+   * @param timestampSeconds Current time.
+   * @param appliedOutput Output the motor controller is actually applying, -1 to 1.
+   * @param velocityRPM Measured motor velocity.
+   * @param current Motor output current in amps.
+   */
+  public void update(
+      double timestampSeconds, double appliedOutput, double velocityRPM, double current) {
+    double dt = Double.isNaN(m_lastTimestamp) ? 0.0 : timestampSeconds - m_lastTimestamp;
+    m_lastTimestamp = timestampSeconds;
+
+    double previousCurrent = m_filteredCurrent;
+    if (dt > 0.0) {
+      double alpha = dt / (IntakeConstants.JAM_CURRENT_FILTER_TIME_CONSTANT + dt);
+      m_filteredCurrent += alpha * (current - m_filteredCurrent);
+      m_currentSlope = (m_filteredCurrent - previousCurrent) / dt;
+    } else {
+      m_filteredCurrent = current;
+      m_currentSlope = 0.0;
+    }
+
+    boolean driven = Math.abs(appliedOutput) >= IntakeConstants.JAM_MIN_OUTPUT;
+    m_velocityRatio = driven ? velocityRPM / (appliedOutput * m_freeSpeedRPM) : 0.0;
+
+    if (m_reversing) {
+      m_timeLost += dt;
+      double elapsed = timestampSeconds - m_reverseStartTime;
+      boolean recovered =
+          elapsed >= IntakeConstants.JAM_MIN_PULSE_SECONDS
+              && appliedOutput < 0.0
+              && m_velocityRatio >= IntakeConstants.JAM_RECOVERED_VELOCITY_RATIO;
+      if (recovered || elapsed >= m_pulseLength) {
+        m_reversing = false;
+        m_lastClearTime = timestampSeconds;
+        m_runStartTime = Double.NaN;
+        m_suspectStartTime = Double.NaN;
+      }
+      return;
+    }
+
+    // Only inward jams are acted on; reversing is always left to whoever commanded it
+    if (appliedOutput < IntakeConstants.JAM_MIN_OUTPUT) {
+      m_runStartTime = Double.NaN;
+      m_suspectStartTime = Double.NaN;
+      return;
+    }
+    if (Double.isNaN(m_runStartTime)) {
+      m_runStartTime = timestampSeconds;
+    }
+    if (timestampSeconds - m_runStartTime < IntakeConstants.JAM_STARTUP_GRACE_SECONDS) {
+      return;
+    }
+
+    boolean suspect =
+        m_velocityRatio < IntakeConstants.JAM_VELOCITY_RATIO
+            && (m_filteredCurrent > IntakeConstants.JAM_CURRENT
+                || m_currentSlope > IntakeConstants.JAM_CURRENT_SLOPE);
+    if (!suspect) {
+      m_suspectStartTime = Double.NaN;
+      return;
+    }
+    if (Double.isNaN(m_suspectStartTime)) {
+      m_suspectStartTime = timestampSeconds;
+    }
+    if (timestampSeconds - m_suspectStartTime >= IntakeConstants.JAM_DEBOUNCE_SECONDS) {
+      // A jam right after the last one means the previous pulse wasn't enough
+      if (timestampSeconds - m_lastClearTime < IntakeConstants.JAM_PULSE_RESET_SECONDS) {
+        m_pulseLength = Math.min(m_pulseLength * 2.0, IntakeConstants.JAM_MAX_PULSE_SECONDS);
+      } else {
+        m_pulseLength = IntakeConstants.JAM_INITIAL_PULSE_SECONDS;
+      }
+      m_reversing = true;
+      m_reverseStartTime = timestampSeconds;
+      m_jamCount++;
+      // Count the time spent confirming the jam as lost too
+      m_timeLost += timestampSeconds - m_suspectStartTime;
+    }
+  }
+
+  /** Cancels any reverse pulse in progress, e.g. when detection is turned off. */
+  public void reset() {
+    m_reversing = false;
+    m_runStartTime = Double.NaN;
+    m_suspectStartTime = Double.NaN;
+  }
+
+  /** Zeroes the jam count and time lost, e.g. at the start of a match. */
+  public void resetStats() {
+    m_jamCount = 0;
+    m_timeLost = 0.0;
+  }
+
+  /** Returns whether a reverse pulse is in progress. */
+  public boolean isReversing() {
+    return m_reversing;
+  }
+
+  public double getReverseOutput() {
+    return m_reverseOutput;
+  }
+
+  /** Returns whether the roller is driven and turning close to the speed its output should give. */
+  public boolean isSpinningFreely() {
+    return m_velocityRatio >= IntakeConstants.JAM_RECOVERED_VELOCITY_RATIO;
+  }
+
+  public double getFilteredCurrent() {
+    return m_filteredCurrent;
+  }
+
+  public double getCurrentSlope() {
+    return m_currentSlope;
+  }
+
+  public int getJamCount() {
+    return m_jamCount;
+  }
+
+  /** Returns the total time spent confirming and clearing jams, in seconds. */
+  public double getTimeLost() {
+    return m_timeLost;
+  }
+}
@@ -0,0 +1,172 @@
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Runs deferrable work (dashboards, connectivity checks, tuning values) in whatever is left of the
+ * loop period once control has run, so a slow loop never delays control outputs for dashboard work.
+ *
+ * <p>Each task's cost is tracked as a slowly decaying peak of its measured run time, and a task
+ * only starts if it is expected to finish before the reserve at the end of the period. A {@link
+ * Priority#NORMAL} task that doesn't fit is postponed and goes first next loop, and once it has
+ * been postponed too many loops in a row it runs anyway so it never starves. A {@link
+ * Priority#LOW} task that doesn't fit is dropped for the loop.
+ */
+public class LoopBudget {
+  /** How a task is treated when it doesn't fit in the loop. */
+  public enum Priority {
+    /** Postponed to the next loop, but never for long. */
+    NORMAL,
+    /** Dropped for the loop, and only run when there's time to spare. */
+    LOW
+  }
+
+  // Per-loop decay of the cost estimate, so one slow run only counts for a second or two
+  private static final double COST_DECAY = 0.98;
+
+  private static final class Task {
+    private final String m_name;
+    private final Priority m_priority;
+    private final Runnable m_action;
+    private double m_costSeconds = 0.0;
+    private int m_postponedLoops = 0;
+    private long m_deferrals = 0;
+
+    private Task(String name, Priority priority, Runnable action) {
+      m_name = name;
+      m_priority = priority;
+      m_action = action;
+    }
+  }
+
+  // Higher priority first, then whichever has waited longest
+  private static final Comparator<Task> ORDER =
+      Comparator.<Task, Priority>comparing(task -> task.m_priority)
+          .thenComparingInt(task -> -task.m_postponedLoops);
+
+  private final DoubleSupplier m_clock;
+  private final double m_periodSeconds;
+  private final double m_reserveSeconds;
+  private final int m_maxPostponedLoops;
+
+  private final List<Task> m_tasks = new ArrayList<>();
+  // Run order, reused every loop
+  private final List<Task> m_order = new ArrayList<>();
+
+  private int m_postponed = 0;
+  private int m_dropped = 0;
+  private long m_totalPostponed = 0;
+  private long m_totalDropped = 0;
+  private double m_remainingSeconds = 0.0;
+
+  /**
+   * Creates a new LoopBudget.
+   *
+   * @param clock Current time in seconds.
+   * @param periodSeconds Loop period.
+   * @param reserveSeconds Time kept free at the end of the period for logging.
+   * @param maxPostponedLoops Loops in a row a normal task can be postponed before it is forced.
+   */
+  public LoopBudget(
+      DoubleSupplier clock, double periodSeconds, double reserveSeconds, int maxPostponedLoops) {
+    if (reserveSeconds < 0.0 || reserveSeconds >= periodSeconds || maxPostponedLoops < 0) {
+      throw new IllegalArgumentException("The reserve must leave part of the period to spend");
+    }
+    m_clock = clock;
+    m_periodSeconds = periodSeconds;
+    m_reserveSeconds = reserveSeconds;
+    m_maxPostponedLoops = maxPostponedLoops;
+  }
+
+  /**
+   * Registers work to run once per loop when there is time for it.
+   *
+   * @param name Name for the deferral counts.
+   * @param priority What happens when it doesn't fit.
+   * @param action The work, which must not touch control outputs.
+   */
+  public void register(String name, Priority priority, Runnable action) {
+    for (Task task : m_tasks) {
+      if (task.m_name.equals(name)) {
+        throw new IllegalArgumentException("A task named " + name + " is already registered");
+      }
+    }
+    m_tasks.add(new Task(name, priority, action));
+  }
+
+  /**
+   * Runs the registered tasks that fit in what is left of the loop.
+   *
+   * @param loopStartSeconds When this loop started, on the same clock.
+   */
+  public void run(double loopStartSeconds) {
+    double deadline = loopStartSeconds + m_periodSeconds - m_reserveSeconds;
+    m_order.clear();
+    m_order.addAll(m_tasks);
+    m_order.sort(ORDER);
+    m_postponed = 0;
+    m_dropped = 0;
+    for (Task task : m_order) {
+      double start = m_clock.getAsDouble();
+      boolean forced =
+          task.m_priority == Priority.NORMAL && task.m_postponedLoops >= m_maxPostponedLoops;
+      if (!forced && start + task.m_costSeconds > deadline) {
+        // Keep decaying while it waits, so one slow run can't lock it out for good
+        task.m_costSeconds *= COST_DECAY;
+        task.m_deferrals++;
+        if (task.m_priority == Priority.NORMAL) {
+          task.m_postponedLoops++;
+          m_postponed++;
+        } else {
+          m_dropped++;
+        }
+        continue;
+      }
+      task.m_action.run();
+      double cost = m_clock.getAsDouble() - start;
+      task.m_costSeconds = Math.max(cost, task.m_costSeconds * COST_DECAY);
+      task.m_postponedLoops = 0;
+    }
+    m_totalPostponed += m_postponed;
+    m_totalDropped += m_dropped;
+    m_remainingSeconds = deadline + m_reserveSeconds - m_clock.getAsDouble();
+  }
+
+  /** Returns how many tasks were postponed in the last loop. */
+  public int getPostponed() {
+    return m_postponed;
+  }
+
+  /** Returns how many tasks were dropped in the last loop. */
+  public int getDropped() {
+    return m_dropped;
+  }
+
+  /** Returns how many times any task has been postponed. */
+  public long getTotalPostponed() {
+    return m_totalPostponed;
+  }
+
+  /** Returns how many times any task has been dropped. */
+  public long getTotalDropped() {
+    return m_totalDropped;
+  }
+
+  /** Returns the time left in the period after the last loop's tasks, negative if it overran. */
+  public double getRemainingSeconds() {
+    return m_remainingSeconds;
+  }
+
+  /** Returns how many times a task has been postponed or dropped, or 0 if it isn't registered. */
+  public long getDeferrals(String name) {
+    for (Task task : m_tasks) {
+      if (task.m_name.equals(name)) {
+        return task.m_deferrals;
+      }
+    }
+    return 0;
+  }
+}
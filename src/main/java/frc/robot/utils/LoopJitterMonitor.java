@@ -0,0 +1,92 @@
+package frc.robot.utils;
+
+/**
+ * Measures how far apart main loops start compared to the nominal period. Jitter is the signed
+ * difference between the measured and nominal period, and the peak and RMS are taken over a
+ * window of loops so one bad loop stays visible for the whole window.
+ */
+public class LoopJitterMonitor {
+  // A loop this many periods late means at least one was skipped entirely
+  private static final double OVERRUN_PERIODS = 1.5;
+
+  private final double m_periodSeconds;
+  private final int m_windowLoops;
+
+  private double m_lastStart = Double.NaN;
+  private double m_lastPeriod = 0.0;
+  private double m_lastJitter = 0.0;
+  private long m_overruns = 0;
+
+  // Current window
+  private int m_windowCount = 0;
+  private double m_windowPeak = 0.0;
+  private double m_windowSumSquares = 0.0;
+
+  // Last complete window
+  private double m_peakJitter = 0.0;
+  private double m_rmsJitter = 0.0;
+
+  /**
+   * Creates a new LoopJitterMonitor.
+   *
+   * @param periodSeconds Nominal loop period.
+   * @param windowLoops Loops per peak and RMS window.
+   */
+  public LoopJitterMonitor(double periodSeconds, int windowLoops) {
+    if (periodSeconds <= 0.0 || windowLoops <= 0) {
+      throw new IllegalArgumentException("The period and window must be positive");
+    }
+    m_periodSeconds = periodSeconds;
+    m_windowLoops = windowLoops;
+  }
+
+  /**
+   * Records the start of a loop.
+   *
+   * @param loopStartSeconds When the loop started.
+   */
+  public void update(double loopStartSeconds) {
+    if (!Double.isNaN(m_lastStart)) {
+      m_lastPeriod = loopStartSeconds - m_lastStart;
+      m_lastJitter = m_lastPeriod - m_periodSeconds;
+      if (m_lastPeriod > OVERRUN_PERIODS * m_periodSeconds) {
+        m_overruns++;
+      }
+      m_windowPeak = Math.max(m_windowPeak, Math.abs(m_lastJitter));
+      m_windowSumSquares += m_lastJitter * m_lastJitter;
+      if (++m_windowCount >= m_windowLoops) {
+        m_peakJitter = m_windowPeak;
+        m_rmsJitter = Math.sqrt(m_windowSumSquares / m_windowCount);
+        m_windowCount = 0;
+        m_windowPeak = 0.0;
+        m_windowSumSquares = 0.0;
+      }
+    }
+    m_lastStart = loopStartSeconds;
+  }
+
+  /** Returns the last measured period, in seconds. */
+  public double getLastPeriod() {
+    return m_lastPeriod;
+  }
+
+  /** Returns how much longer than nominal the last period was, in seconds. */
+  public double getLastJitter() {
+    return m_lastJitter;
+  }
+
+  /** Returns the largest jitter either way in the last complete window, in seconds. */
+  public double getPeakJitter() {
+    return m_peakJitter;
+  }
+
+  /** Returns the RMS jitter over the last complete window, in seconds. */
+  public double getRmsJitter() {
+    return m_rmsJitter;
+  }
+
+  /** Returns how many loops started late enough that a whole loop was missed. */
+  public long getOverruns() {
+    return m_overruns;
+  }
+}
@@ -0,0 +1,42 @@
+package frc.robot.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Identified feedforward of a mechanism, V = kS * sign(v) + kV * v + kA * a, in the mechanism's own
+ * units. Written to the deploy directory by {@code logtools sysid} and loaded at boot.
+ *
+ * @param kS Volts to overcome static friction.
+ * @param kV Volts per unit of velocity.
+ * @param kA Volts per unit of acceleration.
+ */
+public record MotorGains(double kS, double kV, double kA) {
+
+  /**
+   * Loads gains from a file written by the fitter. Any gain missing from the file keeps its
+   * default.
+   *
+   * @param file The gains file, such as {@code sysid/turret.json} in the deploy directory.
+   * @param defaults Gains to use until the mechanism has been identified.
+   * @return The identified gains, or the defaults if the file doesn't exist.
+   * @throws IOException If the file exists but can't be read or parsed.
+   */
+  public static MotorGains load(File file, MotorGains defaults) throws IOException {
+    if (!file.exists()) {
+      return defaults;
+    }
+    JsonNode gains = new ObjectMapper().readTree(file);
+    MotorGains loaded =
+        new MotorGains(
+            gains.path("kS").asDouble(defaults.kS()),
+            gains.path("kV").asDouble(defaults.kV()),
+            gains.path("kA").asDouble(defaults.kA()));
+    if (loaded.kV() <= 0.0 || loaded.kA() < 0.0) {
+      throw new IOException(file + " has non-physical gains " + loaded);
+    }
+    return loaded;
+  }
+}
@@ -0,0 +1,111 @@
+package frc.robot.utils;
+
+/**
+ * First-order thermal model of one motor, dT/dt = (ambient + gain * I^2 - T) / timeConstant,
+ * corrected toward the motor controller's temperature reading.
+ *
+ * <p>The temperature sensor sits on the motor body and lags the windings, so the model carries the
+ * estimate ahead of it while the current is high, and the estimate is never allowed below the
+ * reading. From the estimate the model predicts how long until the temperature limit at a given
+ * current, and the highest current that keeps the motor under the limit over a look-ahead horizon.
+ * That current falls smoothly as the motor heats, so limits can be lowered well before the
+ * controller's own protection cuts output all at once.
+ */
+public class MotorThermalModel {
+  private final double m_gain;
+  private final double m_timeConstant;
+  private final double m_ambient;
+  private final double m_limit;
+  private final double m_horizonDecay;
+  private final double m_measurementGain;
+
+  private double m_temperature = Double.NaN;
+  private double m_lastTimestamp = Double.NaN;
+  private double m_current = 0.0;
+
+  /**
+   * Creates a new MotorThermalModel.
+   *
+   * @param gain Steady-state temperature rise per amp squared, degrees C / A^2.
+   * @param timeConstant Thermal time constant in seconds.
+   * @param ambient Ambient temperature in degrees C.
+   * @param limit Temperature in degrees C the motor should be kept under.
+   * @param horizonSeconds How far ahead the current limit keeps the motor under the limit.
+   * @param measurementGain Rate in 1/s the estimate is pulled toward the sensor reading.
+   */
+  public MotorThermalModel(
+      double gain,
+      double timeConstant,
+      double ambient,
+      double limit,
+      double horizonSeconds,
+      double measurementGain) {
+    m_gain = gain;
+    m_timeConstant = timeConstant;
+    m_ambient = ambient;
+    m_limit = limit;
+    m_horizonDecay = Math.exp(-horizonSeconds / timeConstant);
+    m_measurementGain = measurementGain;
+  }
+
+  /**
+   * Adds a sample.
+   *
+   * @param timestampSeconds Current time.
+   * @param current Motor (stator) current in amps.
+   * @param measuredTemperature Controller's motor temperature reading, NaN if unavailable.
+   */
+  public void update(double timestampSeconds, double current, double measuredTemperature) {
+    m_current = Math.abs(current);
+    boolean measured = Double.isFinite(measuredTemperature);
+    if (Double.isNaN(m_temperature)) {
+      m_temperature = measured ? Math.max(measuredTemperature, m_ambient) : m_ambient;
+      m_lastTimestamp = timestampSeconds;
+      return;
+    }
+
+    double dt = Math.max(0.0, timestampSeconds - m_lastTimestamp);
+    m_lastTimestamp = timestampSeconds;
+    double steadyState = m_ambient + m_gain * m_current * m_current;
+    m_temperature += (steadyState - m_temperature) * (1.0 - Math.exp(-dt / m_timeConstant));
+    if (measured) {
+      m_temperature +=
+          (measuredTemperature - m_temperature) * (1.0 - Math.exp(-dt * m_measurementGain));
+      m_temperature = Math.max(m_temperature, measuredTemperature);
+    }
+  }
+
+  /** Returns the estimated motor temperature in degrees C. */
+  public double getTemperature() {
+    return Double.isNaN(m_temperature) ? m_ambient : m_temperature;
+  }
+
+  /** Returns the seconds until the limit at the last sampled current, infinite if never. */
+  public double getTimeToLimit() {
+    return getTimeToLimit(m_current);
+  }
+
+  /** Returns the seconds until the limit if the motor held the given current, infinite if never. */
+  public double getTimeToLimit(double current) {
+    double temperature = getTemperature();
+    if (temperature >= m_limit) {
+      return 0.0;
+    }
+    double steadyState = m_ambient + m_gain * current * current;
+    if (steadyState <= m_limit) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return -m_timeConstant * Math.log((steadyState - m_limit) / (steadyState - temperature));
+  }
+
+  /**
+   * Returns the highest constant current that keeps the motor under the limit for the whole
+   * horizon. Once over the limit this is below the current that would hold it there, so the motor
+   * cools back down.
+   */
+  public double getCurrentLimit() {
+    double steadyState =
+        (m_limit - getTemperature() * m_horizonDecay) / (1.0 - m_horizonDecay);
+    return Math.sqrt(Math.max(0.0, steadyState - m_ambient) / m_gain);
+  }
+}
@@ -0,0 +1,226 @@
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Runs slow periodic work (connection polling, calibration checks, string telemetry) at its own
+ * rate instead of every loop, with each task on a fixed phase so the heavy ones are spread across
+ * different loops.
+ *
+ * <p>A task at a given rate runs every {@code n} loops, on the loops where {@code tick % n ==
+ * phase}. When no phase is given, the one whose busiest loop carries the least declared weight from
+ * the tasks already scheduled is picked, so tasks land on the quietest loops in registration order.
+ */
+public class MultiRateScheduler {
+  // Keeps the weight table small, 1 minute of loops at 50 Hz
+  private static final int MAX_CYCLE_LOOPS = 3000;
+
+  /** A scheduled task and how long it takes to run. */
+  public static final class Task {
+    private final String m_name;
+    private final int m_periodLoops;
+    private final int m_phase;
+    private final double m_weight;
+    private final Runnable m_action;
+    private double m_lastSeconds = 0.0;
+    private double m_maxSeconds = 0.0;
+    private double m_totalSeconds = 0.0;
+    private long m_runs = 0;
+
+    private Task(String name, int periodLoops, int phase, double weight, Runnable action) {
+      m_name = name;
+      m_periodLoops = periodLoops;
+      m_phase = phase;
+      m_weight = weight;
+      m_action = action;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    /** Returns how many loops apart the task runs. */
+    public int getPeriodLoops() {
+      return m_periodLoops;
+    }
+
+    /** Returns which loop of its period the task runs on. */
+    public int getPhase() {
+      return m_phase;
+    }
+
+    /** Returns how long the last run took, in seconds. */
+    public double getLastSeconds() {
+      return m_lastSeconds;
+    }
+
+    /** Returns the longest run, in seconds. */
+    public double getMaxSeconds() {
+      return m_maxSeconds;
+    }
+
+    /** Returns the mean run time, in seconds. */
+    public double getAverageSeconds() {
+      return m_runs == 0 ? 0.0 : m_totalSeconds / m_runs;
+    }
+
+    /** Returns the mean time the task costs per loop, in seconds. */
+    public double getSecondsPerLoop() {
+      return getAverageSeconds() / m_periodLoops;
+    }
+  }
+
+  private final DoubleSupplier m_clock;
+  private final double m_periodSeconds;
+  private final List<Task> m_tasks = new ArrayList<>();
+  private long m_tick = 0;
+  private double m_lastLoopSeconds = 0.0;
+
+  /**
+   * Creates a new MultiRateScheduler.
+   *
+   * @param clock Current time in seconds, for measuring task run times.
+   * @param periodSeconds How often {@link #run()} is called.
+   */
+  public MultiRateScheduler(DoubleSupplier clock, double periodSeconds) {
+    m_clock = clock;
+    m_periodSeconds = periodSeconds;
+  }
+
+  /**
+   * Schedules a task on the least loaded phase for its rate.
+   *
+   * @param name Name for the run time telemetry.
+   * @param rateHz How often to run. Rounded to a whole number of loops, at most every loop.
+   * @param weight Relative cost of the task, used to keep heavy tasks on different loops.
+   * @param action The work.
+   * @return The phase the task was given.
+   */
+  public int schedule(String name, double rateHz, double weight, Runnable action) {
+    int periodLoops = periodLoops(rateHz);
+    int cycle = cycleLoops(periodLoops);
+    double[] load = load(cycle);
+    int bestPhase = 0;
+    double bestPeak = Double.POSITIVE_INFINITY;
+    double bestTotal = Double.POSITIVE_INFINITY;
+    for (int phase = 0; phase < periodLoops; phase++) {
+      double peak = 0.0;
+      double total = 0.0;
+      for (int loop = phase; loop < cycle; loop += periodLoops) {
+        peak = Math.max(peak, load[loop]);
+        total += load[loop];
+      }
+      if (peak < bestPeak || (peak == bestPeak && total < bestTotal)) {
+        bestPeak = peak;
+        bestTotal = total;
+        bestPhase = phase;
+      }
+    }
+    add(new Task(name, periodLoops, bestPhase, weight, action));
+    return bestPhase;
+  }
+
+  /**
+   * Schedules a task on a given phase.
+   *
+   * @param name Name for the run time telemetry.
+   * @param rateHz How often to run. Rounded to a whole number of loops, at most every loop.
+   * @param phase Which loop of the task's period it runs on, from 0.
+   * @param weight Relative cost of the task, used when placing later tasks.
+   * @param action The work.
+   */
+  public void scheduleAt(String name, double rateHz, int phase, double weight, Runnable action) {
+    int periodLoops = periodLoops(rateHz);
+    if (phase < 0 || phase >= periodLoops) {
+      throw new IllegalArgumentException("The phase must be within the task's period");
+    }
+    cycleLoops(periodLoops);
+    add(new Task(name, periodLoops, phase, weight, action));
+  }
+
+  /** Runs the tasks due this loop. Call once per loop. */
+  public void run() {
+    double loopStart = m_clock.getAsDouble();
+    for (Task task : m_tasks) {
+      if (m_tick % task.m_periodLoops != task.m_phase) {
+        continue;
+      }
+      double start = m_clock.getAsDouble();
+      task.m_action.run();
+      double seconds = m_clock.getAsDouble() - start;
+      task.m_lastSeconds = seconds;
+      task.m_maxSeconds = Math.max(task.m_maxSeconds, seconds);
+      task.m_totalSeconds += seconds;
+      task.m_runs++;
+    }
+    m_lastLoopSeconds = m_clock.getAsDouble() - loopStart;
+    m_tick++;
+  }
+
+  /** Returns how long the tasks took in the last loop, in seconds. */
+  public double getLastLoopSeconds() {
+    return m_lastLoopSeconds;
+  }
+
+  /** Returns the scheduled tasks in registration order. */
+  public List<Task> getTasks() {
+    return Collections.unmodifiableList(m_tasks);
+  }
+
+  /** Returns the declared weight of the tasks that run on each loop of the full cycle. */
+  public double[] getLoad() {
+    return load(cycleLoops(1));
+  }
+
+  private void add(Task task) {
+    for (Task existing : m_tasks) {
+      if (existing.m_name.equals(task.m_name)) {
+        throw new IllegalArgumentException("A task named " + task.m_name + " is already scheduled");
+      }
+    }
+    m_tasks.add(task);
+  }
+
+  private int periodLoops(double rateHz) {
+    if (!(rateHz > 0.0)) {
+      throw new IllegalArgumentException("A task's rate must be positive");
+    }
+    return Math.max(1, (int) Math.round(1.0 / (rateHz * m_periodSeconds)));
+  }
+
+  /** Returns the loops before every task's schedule repeats, including one more period. */
+  private int cycleLoops(int periodLoops) {
+    long cycle = periodLoops;
+    for (Task task : m_tasks) {
+      cycle = lcm(cycle, task.m_periodLoops);
+    }
+    if (cycle > MAX_CYCLE_LOOPS) {
+      throw new IllegalArgumentException("Task rates don't share a short enough common cycle");
+    }
+    return (int) cycle;
+  }
+
+  private double[] load(int cycle) {
+    double[] load = new double[cycle];
+    for (Task task : m_tasks) {
+      for (int loop = task.m_phase; loop < cycle; loop += task.m_periodLoops) {
+        load[loop] += task.m_weight;
+      }
+    }
+    return load;
+  }
+
+  private static long lcm(long a, long b) {
+    long x = a;
+    long y = b;
+    while (y != 0) {
+      long r = x % y;
+      x = y;
+      y = r;
+    }
+    return a / x * b;
+  }
+}
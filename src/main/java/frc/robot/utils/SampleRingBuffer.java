@@ -0,0 +1,84 @@
+package frc.robot.utils;
+
+/**
+ * Fixed-size, thread-safe ring buffer of fixed-width primitive samples. Used to hand high-rate
+ * sensor samples from a background thread to the main loop without allocating.
+ *
+ * <p>When the buffer is full the oldest sample is overwritten and counted as dropped.
+ */
+public class SampleRingBuffer {
+  private final int m_capacity;
+  private final int m_width;
+  private final double[] m_data;
+
+  private int m_head = 0; // index of the oldest sample
+  private int m_size = 0;
+  private long m_droppedCount = 0;
+
+  /**
+   * Creates a new SampleRingBuffer.
+   *
+   * @param capacity Maximum number of samples held.
+   * @param width Number of values in each sample.
+   */
+  public SampleRingBuffer(int capacity, int width) {
+    if (capacity <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Capacity and width must be positive");
+    }
+    m_capacity = capacity;
+    m_width = width;
+    m_data = new double[capacity * width];
+  }
+
+  /**
+   * Appends a sample, overwriting the oldest one if the buffer is full.
+   *
+   * @param sample The sample values. Only the first {@link #getWidth()} values are copied.
+   */
+  public synchronized void add(double[] sample) {
+    int tail = (m_head + m_size) % m_capacity;
+    System.arraycopy(sample, 0, m_data, tail * m_width, m_width);
+    if (m_size == m_capacity) {
+      m_head = (m_head + 1) % m_capacity;
+      m_droppedCount++;
+    } else {
+      m_size++;
+    }
+  }
+
+  /**
+   * Moves every buffered sample into {@code out}, oldest first, and empties the buffer.
+   *
+   * @param out Destination array, at least {@code capacity * width} long.
+   * @return The number of samples copied.
+   */
+  public synchronized int drainTo(double[] out) {
+    int count = m_size;
+    for (int i = 0; i < count; i++) {
+      int index = (m_head + i) % m_capacity;
+      System.arraycopy(m_data, index * m_width, out, i * m_width, m_width);
+    }
+    m_head = 0;
+    m_size = 0;
+    return count;
+  }
+
+  /** Discards every buffered sample. */
+  public synchronized void clear() {
+    m_head = 0;
+    m_size = 0;
+  }
+
+  /** Returns how many samples were overwritten before they were drained. */
+  public synchronized long getDroppedCount() {
+    return m_droppedCount;
+  }
+
+  public int getCapacity() {
+    return m_capacity;
+  }
+
+  public int getWidth() {
+    return m_width;
+  }
+}
@@ -0,0 +1,140 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.RobotTelemetry;
+import frc.robot.constants.Constants.FlywheelConstants;
+
+/**
+ * Predicts whether the robot will be in the shooting zone within the next few seconds, so the
+ * flywheel can be pre-spun to the RPM the shot will need before the trigger is pressed.
+ *
+ * <p>The current drive state is extrapolated along a constant-curvature arc (the only motion a
+ * differential drive can make at constant wheel speeds). If the arc enters the zone within the
+ * horizon, the shot RPM for that point is used; otherwise the flywheel idles. A battery voltage
+ * guard with hysteresis drops the pre-spin entirely when the battery is sagging.
+ */
+public class ShotPredictor {
+  private final Pose3d m_targetPose;
+  private final double m_turretHeight;
+
+  private boolean m_inRange = false;
+  private double m_timeToRange = Double.NaN;
+  private double m_shotRPM = FlywheelConstants.MAX_RPM;
+  private double m_prespinRPM = 0.0;
+  private boolean m_batteryGuardActive = false;
+
+  /**
+   * Creates a new ShotPredictor.
+   *
+   * @param targetPose The field-relative pose of the target.
+   * @param turretHeight The height of the turret off the ground in meters.
+   */
+  public ShotPredictor(Pose3d targetPose, double turretHeight) {
+    m_targetPose = targetPose;
+    m_turretHeight = turretHeight;
+  }
+
+  /**
+   * Updates the prediction. Call once per scheduler loop.
+   *
+   * @param robotPose The current field-relative pose of the robot.
+   * @param forwardSpeed The current forward speed in meters per second.
+   * @param yawRate The current yaw rate in radians per second.
+   * @param batteryVoltage The current battery voltage.
+   */
+  public void update(Pose2d robotPose, double forwardSpeed, double yawRate, double batteryVoltage) {
+    if (m_batteryGuardActive) {
+      m_batteryGuardActive = batteryVoltage < FlywheelConstants.PRESPIN_BATTERY_RELEASE_VOLTS;
+    } else {
+      m_batteryGuardActive = batteryVoltage < FlywheelConstants.PRESPIN_BATTERY_GUARD_VOLTS;
+    }
+
+    double x = robotPose.getX();
+    double y = robotPose.getY();
+    double heading = robotPose.getRotation().getRadians();
+
+    m_inRange = isInZone(x, y);
+    m_timeToRange = m_inRange ? 0.0 : Double.NaN;
+    if (m_inRange) {
+      m_shotRPM = calculateShotRPM(forwardSpeed, yawRate, robotPose);
+    } else {
+      // Walk along the arc until it enters the zone or the horizon runs out
+      double dt = FlywheelConstants.PRESPIN_STEP_SECONDS;
+      for (double t = dt; t <= FlywheelConstants.PRESPIN_HORIZON_SECONDS; t += dt) {
+        x += forwardSpeed * Math.cos(heading) * dt;
+        y += forwardSpeed * Math.sin(heading) * dt;
+        heading += yawRate * dt;
+        if (isInZone(x, y)) {
+          m_timeToRange = t;
+          break;
+        }
+      }
+      if (!Double.isNaN(m_timeToRange)) {
+        m_shotRPM =
+            calculateShotRPM(forwardSpeed, yawRate, new Pose2d(x, y, new Rotation2d(heading)));
+      } else {
+        // Nothing to predict from, so a shot from here uses the full override speed
+        m_shotRPM = FlywheelConstants.MAX_RPM;
+      }
+    }
+    // Round so small pose changes don't keep restarting the spin-up
+    m_shotRPM =
+        Math.round(m_shotRPM / FlywheelConstants.PRESPIN_RPM_STEP)
+            * FlywheelConstants.PRESPIN_RPM_STEP;
+
+    if (m_batteryGuardActive) {
+      m_prespinRPM = 0.0;
+    } else if (!Double.isNaN(m_timeToRange)) {
+      m_prespinRPM = m_shotRPM;
+    } else {
+      m_prespinRPM = FlywheelConstants.IDLE_RPM;
+    }
+  }
+
+  private double calculateShotRPM(double forwardSpeed, double yawRate, Pose2d robotPose) {
+    return AutoAimCalculations.calculateLead(
+            forwardSpeed, yawRate, robotPose, m_targetPose, m_turretHeight)
+        .targetRPM;
+  }
+
+  private boolean isInZone(double x, double y) {
+    double distance = Math.hypot(m_targetPose.getX() - x, m_targetPose.getY() - y);
+    return distance >= FlywheelConstants.SHOOTING_ZONE_MIN_DISTANCE
+        && distance <= FlywheelConstants.SHOOTING_ZONE_MAX_DISTANCE;
+  }
+
+  /** Returns whether the robot is in the shooting zone right now. */
+  public boolean isInRange() {
+    return m_inRange;
+  }
+
+  /** Returns the predicted time until the robot enters the zone, or NaN if not within horizon. */
+  public double getTimeToRange() {
+    return m_timeToRange;
+  }
+
+  /** Returns the RPM a shot should be fired at, from the current or predicted pose. */
+  public double getShotRPM() {
+    return m_shotRPM;
+  }
+
+  /** Returns the RPM the flywheel should be held at while not firing. */
+  public double getPrespinRPM() {
+    return m_prespinRPM;
+  }
+
+  public boolean isBatteryGuardActive() {
+    return m_batteryGuardActive;
+  }
+
+  /** Publishes prediction state. */
+  public void updateTelemetry() {
+    RobotTelemetry.putBoolean("Prespin/In Range", m_inRange);
+    RobotTelemetry.putNumber("Prespin/Time To Range (s)", m_timeToRange);
+    RobotTelemetry.putNumber("Prespin/Shot RPM", m_shotRPM);
+    RobotTelemetry.putNumber("Prespin/Prespin RPM", m_prespinRPM);
+    RobotTelemetry.putBoolean("Prespin/Battery Guard", m_batteryGuardActive);
+  }
+}
@@ -0,0 +1,178 @@
+package frc.robot.utils;
+
+/**
+ * Detects wheel slip on a tank drive with an encoder on every wheel.
+ *
+ * <p>Two checks run every loop. The front and back wheels on each side should turn at the same
+ * speed, so a gap between them means one is spinning or skidding. And the yaw rate the wheels imply
+ * should match the gyro, which doesn't slip, so a gap there catches both wheels on a side slipping
+ * together, as when pushing or being pushed. Slip is held for a short time after the last detection
+ * so the response doesn't chatter.
+ *
+ * <p>Skid-steer wheels scrub sideways in a turn, so the wheels always imply more yaw than the robot
+ * makes. The yaw check uses an effective track width that accounts for the scrub, and its tolerance
+ * grows with the yaw rate so hard turns aren't taken for slip.
+ */
+public class SlipDetector {
+  private final double m_trackWidth;
+  private final double m_speedTolerance;
+  private final double m_speedToleranceRatio;
+  private final double m_yawRateTolerance;
+  private final double m_yawRateToleranceRatio;
+  private final double m_holdSeconds;
+
+  private double m_leftMismatch = 0.0;
+  private double m_rightMismatch = 0.0;
+  private double m_yawRateError = 0.0;
+  private double m_leftSpeed = 0.0;
+  private double m_rightSpeed = 0.0;
+  private double m_lastSlipTime = Double.NEGATIVE_INFINITY;
+  private boolean m_slipping = false;
+  private int m_slipEvents = 0;
+
+  /**
+   * Creates a new SlipDetector.
+   *
+   * @param trackWidth Effective track width in meters, the one that makes the wheel yaw rate match
+   *     the gyro in an ordinary turn.
+   * @param speedTolerance Front to back speed difference in m/s always allowed on a side.
+   * @param speedToleranceRatio Additional difference allowed per m/s of wheel speed.
+   * @param yawRateTolerance Wheel to gyro yaw rate difference in rad/s always allowed.
+   * @param yawRateToleranceRatio Additional difference allowed per rad/s of gyro yaw rate.
+   * @param holdSeconds How long slip is still reported after it was last detected.
+   */
+  public SlipDetector(
+      double trackWidth,
+      double speedTolerance,
+      double speedToleranceRatio,
+      double yawRateTolerance,
+      double yawRateToleranceRatio,
+      double holdSeconds) {
+    m_trackWidth = trackWidth;
+    m_speedTolerance = speedTolerance;
+    m_speedToleranceRatio = speedToleranceRatio;
+    m_yawRateTolerance = yawRateTolerance;
+    m_yawRateToleranceRatio = yawRateToleranceRatio;
+    m_holdSeconds = holdSeconds;
+  }
+
+  /**
+   * Checks one loop's wheel speeds, all in m/s forward positive.
+   *
+   * @param timestampSeconds Current time.
+   * @param backLeft Back left wheel speed.
+   * @param frontLeft Front left wheel speed.
+   * @param backRight Back right wheel speed.
+   * @param frontRight Front right wheel speed.
+   * @param gyroYawRate Gyro yaw rate in rad/s, counterclockwise positive.
+   */
+  public void update(
+      double timestampSeconds,
+      double backLeft,
+      double frontLeft,
+      double backRight,
+      double frontRight,
+      double gyroYawRate) {
+    m_leftMismatch = Math.abs(backLeft - frontLeft);
+    m_rightMismatch = Math.abs(backRight - frontRight);
+    double wheelYawRate =
+        ((backRight + frontRight) - (backLeft + frontLeft)) / (2.0 * m_trackWidth);
+    m_yawRateError = Math.abs(wheelYawRate - gyroYawRate);
+    m_leftSpeed = slower(backLeft, frontLeft);
+    m_rightSpeed = slower(backRight, frontRight);
+
+    // Scaled by the gyro, which a pinned robot keeps near zero however fast its wheels turn
+    double yawRateTolerance = m_yawRateTolerance + m_yawRateToleranceRatio * Math.abs(gyroYawRate);
+    boolean detected =
+        m_leftMismatch > tolerance(backLeft, frontLeft)
+            || m_rightMismatch > tolerance(backRight, frontRight)
+            || m_yawRateError > yawRateTolerance;
+    if (detected) {
+      if (!m_slipping) {
+        m_slipEvents++;
+      }
+      m_lastSlipTime = timestampSeconds;
+    }
+    m_slipping = timestampSeconds - m_lastSlipTime <= m_holdSeconds;
+  }
+
+  private double tolerance(double back, double front) {
+    return m_speedTolerance + m_speedToleranceRatio * Math.max(Math.abs(back), Math.abs(front));
+  }
+
+  private static double slower(double back, double front) {
+    return Math.abs(back) < Math.abs(front) ? back : front;
+  }
+
+  /** Returns whether any wheel slipped within the hold time. */
+  public boolean isSlipping() {
+    return m_slipping;
+  }
+
+  /** Returns the left front to back speed difference in m/s. */
+  public double getLeftMismatch() {
+    return m_leftMismatch;
+  }
+
+  /** Returns the right front to back speed difference in m/s. */
+  public double getRightMismatch() {
+    return m_rightMismatch;
+  }
+
+  /** Returns the slower left wheel's speed in m/s, the closer of the two to the ground speed. */
+  public double getLeftSpeed() {
+    return m_leftSpeed;
+  }
+
+  /** Returns the slower right wheel's speed in m/s, the closer of the two to the ground speed. */
+  public double getRightSpeed() {
+    return m_rightSpeed;
+  }
+
+  /** Returns the difference between the wheel and gyro yaw rates in rad/s. */
+  public double getYawRateError() {
+    return m_yawRateError;
+  }
+
+  /** Returns how many separate slip events have been detected. */
+  public int getSlipEvents() {
+    return m_slipEvents;
+  }
+
+  /**
+   * Limits how far a command can move away from zero in one step, for traction control. Slowing
+   * down toward zero is never limited, so the robot can always stop, and a reversal starts from
+   * zero.
+   *
+   * @param command Requested output or speed.
+   * @param previous Output or speed sent last loop.
+   * @param maxStep Largest change allowed this loop.
+   * @return The limited command.
+   */
+  public static double limitStep(double command, double previous, double maxStep) {
+    if (command * previous < 0.0) {
+      previous = 0.0;
+    }
+    if (Math.abs(command) <= Math.abs(previous)) {
+      return command;
+    }
+    return previous + Math.max(-maxStep, Math.min(command - previous, maxStep));
+  }
+
+  /**
+   * Traction control for a slipping side. Slip is only detected after the command has already
+   * jumped, and when pushing the stick is already at full, so limiting increases alone rarely acts.
+   * Instead the command is first cut back to what the wheels can actually hold, the command for
+   * their measured speed plus a margin, and then ramped from there with {@link #limitStep}.
+   *
+   * @param command Requested output or speed.
+   * @param previous Output or speed sent last loop.
+   * @param grip Magnitude of the command that holds the measured wheel speed, plus a margin.
+   * @param maxStep Largest increase allowed this loop.
+   * @return The limited command.
+   */
+  public static double limitTraction(double command, double previous, double grip, double maxStep) {
+    double start = Math.copySign(Math.min(Math.abs(previous), Math.abs(grip)), previous);
+    return limitStep(command, start, maxStep);
+  }
+}
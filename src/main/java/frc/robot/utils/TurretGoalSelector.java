@@ -0,0 +1,74 @@
+package frc.robot.utils;
+
+/**
+ * Picks which of the equivalent turret angles (the goal plus any multiple of a full turn) to track,
+ * so the turret stays inside its cable wrap and rarely has to go the long way round.
+ *
+ * <p>Each equivalent angle inside the usable range is scored by how far the turret has to travel
+ * to reach it, plus a smaller cost for how far from center it is predicted to be once the robot has
+ * finished its current rotation. The travel term keeps the turret on the branch it is already
+ * tracking, while the center term breaks near-ties toward the branch the robot's rotation is
+ * carrying back to center instead of into the limit.
+ *
+ * <p>Angles are robot-relative and unwrapped, in radians, with 0 at the cable wrap center.
+ */
+public class TurretGoalSelector {
+  private static final double FULL_TURN = 2.0 * Math.PI;
+
+  private final double m_limit;
+  private final double m_centerWeight;
+
+  private boolean m_longWay = false;
+
+  /**
+   * Creates a new TurretGoalSelector.
+   *
+   * @param limitRadians Goals are kept within this far either side of center.
+   * @param centerWeight Cost of each radian the predicted goal is off center, relative to a radian
+   *     of travel. Below 1 so the turret never travels just to be nearer center.
+   */
+  public TurretGoalSelector(double limitRadians, double centerWeight) {
+    if (limitRadians < Math.PI) {
+      throw new IllegalArgumentException("The wrap range must cover a full turn");
+    }
+    m_limit = limitRadians;
+    m_centerWeight = centerWeight;
+  }
+
+  /**
+   * Selects the angle to track.
+   *
+   * @param angle Current turret angle.
+   * @param goal Desired turret angle, wrapped or not.
+   * @param predictedRotation How far the robot is expected to turn (counterclockwise positive)
+   *     while tracking, which moves a robot-relative goal the other way.
+   * @return The equivalent goal inside the usable range.
+   */
+  public double select(double angle, double goal, double predictedRotation) {
+    double base = Math.IEEEremainder(goal, FULL_TURN);
+    int turns = (int) Math.ceil(m_limit / FULL_TURN);
+    double best = Double.NaN;
+    double bestCost = Double.POSITIVE_INFINITY;
+    for (int k = -turns; k <= turns; k++) {
+      double candidate = base + k * FULL_TURN;
+      if (Math.abs(candidate) > m_limit) {
+        continue;
+      }
+      double cost =
+          Math.abs(candidate - angle) + m_centerWeight * Math.abs(candidate - predictedRotation);
+      if (cost < bestCost) {
+        bestCost = cost;
+        best = candidate;
+      }
+    }
+    // The shortest equivalent is never more than half a turn away, so anything further is the
+    // turret unwinding back inside the range
+    m_longWay = Math.abs(best - angle) > Math.PI;
+    return best;
+  }
+
+  /** Returns whether the last selected goal is more than half a turn from the turret. */
+  public boolean isLongWay() {
+    return m_longWay;
+  }
+}
@@ -0,0 +1,84 @@
+package frc.robot.utils.aim;
+
+/**
+ * Leads the target assuming the robot keeps its current velocity while the game piece is in the
+ * air and the piece always leaves at a fixed horizontal speed relative to the robot.
+ *
+ * <p>The time of flight is the earliest positive root of |d - v*t| = s*t, where d is the offset to
+ * the target, v the robot velocity and s the launch speed. If there is no root the turret points
+ * straight at the target. The vertical launch speed then has to cover the height difference against
+ * gravity in that time.
+ */
+public class ConstantVelocityLeadSolver implements LeadSolver {
+  public static final double GRAVITY = 9.81;
+  public static final double PROJECTILE_SPEED = 20.0; // Fixed horizontal launch speed
+  // Roughly maps launch speed to a 5000 RPM 1:1 NEO mechanism (scaling from the Rust sim)
+  public static final double RPM_PER_METER_PER_SECOND = 215.0;
+  public static final double MAX_RPM = 5500.0;
+
+  @Override
+  public LeadSolution solve(
+      RobotMotion robot, double targetX, double targetY, double heightAboveLauncher) {
+    double robotX = robot.x();
+    double robotY = robot.y();
+    double robotVx = robot.vx();
+    double robotVy = robot.vy();
+
+    // Distance from robot to target
+    double dx = targetX - robotX;
+    double dy = targetY - robotY;
+
+    // Quadratic lead solver for time of flight (t)
+    double v_muzzle = PROJECTILE_SPEED;
+    double a = v_muzzle * v_muzzle - (robotVx * robotVx) - (robotVy * robotVy);
+    double b = 2.0 * (dx * robotVx + dy * robotVy);
+    double c = -(dx * dx + dy * dy);
+
+    double best_t = 0.1;
+    double discriminant = b * b - 4.0 * a * c;
+
+    double desired_yaw = 0.0;
+    boolean feasible = false;
+
+    if (discriminant >= 0.0 && a != 0.0) {
+      double t1 = (-b + Math.sqrt(discriminant)) / (2.0 * a);
+      double t2 = (-b - Math.sqrt(discriminant)) / (2.0 * a);
+
+      // Earliest positive hit
+      if (t1 > 0.0 && t2 > 0.0) {
+        best_t = Math.min(t1, t2);
+      } else if (t1 > 0.0) {
+        best_t = t1;
+      } else if (t2 > 0.0) {
+        best_t = t2;
+      }
+
+      if (best_t > 0.0) {
+        // Compute target-relative exit velocity direction
+        double req_vx_rel = (dx / best_t) - robotVx;
+        double req_vy_rel = (dy / best_t) - robotVy;
+        desired_yaw = Math.atan2(req_vy_rel, req_vx_rel);
+        feasible = true;
+      }
+    } else {
+      // If mathematical lock is impossible, fallback to pointing directly at target
+      desired_yaw = Math.atan2(dy, dx);
+      double dist = Math.hypot(dx, dy);
+      best_t = dist / v_muzzle;
+      if (best_t <= 0) best_t = 0.1;
+    }
+
+    // Vertical component (height/Z in WPILib)
+    double vz_launch = (heightAboveLauncher + 0.5 * GRAVITY * best_t * best_t) / best_t;
+
+    // Calculate RPM
+    double fire_speed_total = Math.sqrt(v_muzzle * v_muzzle + vz_launch * vz_launch);
+    double targetRPM = fire_speed_total * RPM_PER_METER_PER_SECOND;
+
+    // Clamp
+    feasible &= targetRPM <= MAX_RPM;
+    targetRPM = Math.max(0, Math.min(targetRPM, MAX_RPM));
+
+    return new LeadSolution(desired_yaw, best_t, v_muzzle, targetRPM, feasible);
+  }
+}
@@ -0,0 +1,18 @@
+package frc.robot.utils.aim;
+
+/**
+ * A shot computed by a {@link LeadSolver}.
+ *
+ * @param yawRadians Field-relative direction to launch in, relative to the robot.
+ * @param timeOfFlightSeconds Time for the game piece to reach the target.
+ * @param launchSpeed Horizontal launch speed relative to the robot in meters per second.
+ * @param rpm Flywheel speed that gives the launch velocity.
+ * @param feasible Whether the solution actually reaches the target. When false the other fields are
+ *     a best effort, such as pointing straight at the target, and the shot should be held.
+ */
+public record LeadSolution(
+    double yawRadians,
+    double timeOfFlightSeconds,
+    double launchSpeed,
+    double rpm,
+    boolean feasible) {}
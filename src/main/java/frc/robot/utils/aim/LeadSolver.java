@@ -0,0 +1,22 @@
+package frc.robot.utils.aim;
+
+/**
+ * Solves where to point and how fast to spin the flywheel so a shot fired from a moving robot
+ * lands in the target.
+ *
+ * <p>Implementations are plain math on doubles with no WPILib types, so the log tools can re-run
+ * them against recorded matches and compare candidates offline.
+ */
+@FunctionalInterface
+public interface LeadSolver {
+  /**
+   * Solves a shot.
+   *
+   * @param robot Robot state, field-relative.
+   * @param targetX Target field X in meters.
+   * @param targetY Target field Y in meters.
+   * @param heightAboveLauncher Target height above the launcher in meters.
+   * @return The shot to fire.
+   */
+  LeadSolution solve(RobotMotion robot, double targetX, double targetY, double heightAboveLauncher);
+}
@@ -0,0 +1,98 @@
+package frc.robot.utils.aim;
+
+/**
+ * Leads the target from a robot that is accelerating and turning, with the launcher mounted off the
+ * robot center.
+ *
+ * <p>The robot is first carried forward to the moment the game piece actually leaves, using its
+ * acceleration and yaw rate. The launcher then sits at the mount offset rotated by the heading, and
+ * moves with the robot plus the tangential velocity from the rotation, omega x r. After release
+ * the piece no longer cares what the robot does, so the time of flight is the fixed point of t =
+ * |d - u*t| / s, where d is the offset from the launcher to the target, u the launcher velocity
+ * and s the launch speed. The iteration contracts by |u| / s each step, so it only fails when the
+ * launcher is outrunning its own shot.
+ */
+public class MovingShotLeadSolver implements LeadSolver {
+  // Turret axis relative to the robot center, +X forward and +Y left, in meters
+  public static final double TURRET_OFFSET_X = -0.2;
+  public static final double TURRET_OFFSET_Y = 0.0;
+  // Time from solving the shot to the game piece leaving the flywheel
+  public static final double RELEASE_LATENCY_SECONDS = 0.06;
+
+  private static final int MAX_ITERATIONS = 20;
+  private static final double TOLERANCE_SECONDS = 1e-4;
+
+  private final double m_offsetX;
+  private final double m_offsetY;
+  private final double m_latency;
+
+  /** Creates a new MovingShotLeadSolver with the robot's turret mount and release latency. */
+  public MovingShotLeadSolver() {
+    this(TURRET_OFFSET_X, TURRET_OFFSET_Y, RELEASE_LATENCY_SECONDS);
+  }
+
+  /**
+   * Creates a new MovingShotLeadSolver.
+   *
+   * @param offsetX Turret axis ahead of the robot center in meters.
+   * @param offsetY Turret axis left of the robot center in meters.
+   * @param releaseLatencySeconds Time from solving the shot to the game piece leaving.
+   */
+  public MovingShotLeadSolver(double offsetX, double offsetY, double releaseLatencySeconds) {
+    m_offsetX = offsetX;
+    m_offsetY = offsetY;
+    m_latency = releaseLatencySeconds;
+  }
+
+  @Override
+  public LeadSolution solve(
+      RobotMotion robot, double targetX, double targetY, double heightAboveLauncher) {
+    // Robot state when the piece leaves
+    double dt = m_latency;
+    double omega = robot.omegaRadiansPerSecond();
+    double heading = robot.headingRadians() + omega * dt;
+    double x = robot.x() + robot.vx() * dt + 0.5 * robot.ax() * dt * dt;
+    double y = robot.y() + robot.vy() * dt + 0.5 * robot.ay() * dt * dt;
+    double vx = robot.vx() + robot.ax() * dt;
+    double vy = robot.vy() + robot.ay() * dt;
+
+    // Launcher position and velocity, including the tangential velocity from turning
+    double cos = Math.cos(heading);
+    double sin = Math.sin(heading);
+    double rx = m_offsetX * cos - m_offsetY * sin;
+    double ry = m_offsetX * sin + m_offsetY * cos;
+    double ux = vx - omega * ry;
+    double uy = vy + omega * rx;
+
+    double dx = targetX - (x + rx);
+    double dy = targetY - (y + ry);
+    double speed = ConstantVelocityLeadSolver.PROJECTILE_SPEED;
+
+    double t = Math.hypot(dx, dy) / speed;
+    boolean converged = false;
+    for (int i = 0; i < MAX_ITERATIONS && !converged; i++) {
+      double next = Math.hypot(dx - ux * t, dy - uy * t) / speed;
+      converged = Math.abs(next - t) < TOLERANCE_SECONDS;
+      t = next;
+    }
+
+    double yaw;
+    boolean feasible = converged && t > 0.0 && Math.hypot(ux, uy) < speed;
+    if (feasible) {
+      // Launch along whatever the launcher's own motion doesn't already cover
+      yaw = Math.atan2(dy - uy * t, dx - ux * t);
+    } else {
+      // Fall back to pointing straight at the target
+      yaw = Math.atan2(dy, dx);
+      t = Math.max(Math.hypot(dx, dy) / speed, 0.1);
+    }
+
+    // Vertical launch speed to cover the height against gravity in that time
+    double vz = (heightAboveLauncher + 0.5 * ConstantVelocityLeadSolver.GRAVITY * t * t) / t;
+    double rpm = Math.hypot(speed, vz) * ConstantVelocityLeadSolver.RPM_PER_METER_PER_SECOND;
+    feasible &= rpm <= ConstantVelocityLeadSolver.MAX_RPM;
+    rpm = Math.max(0.0, Math.min(rpm, ConstantVelocityLeadSolver.MAX_RPM));
+
+    return new LeadSolution(yaw, t, speed, rpm, feasible);
+  }
+}
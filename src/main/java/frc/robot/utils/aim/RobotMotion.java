@@ -0,0 +1,56 @@
+package frc.robot.utils.aim;
+
+/**
+ * Field-relative state of the robot a shot is solved from.
+ *
+ * @param x Robot center field X in meters.
+ * @param y Robot center field Y in meters.
+ * @param headingRadians Robot heading.
+ * @param vx Field X velocity in meters per second.
+ * @param vy Field Y velocity in meters per second.
+ * @param ax Field X acceleration in meters per second squared.
+ * @param ay Field Y acceleration in meters per second squared.
+ * @param omegaRadiansPerSecond Yaw rate, counterclockwise positive.
+ */
+public record RobotMotion(
+    double x,
+    double y,
+    double headingRadians,
+    double vx,
+    double vy,
+    double ax,
+    double ay,
+    double omegaRadiansPerSecond) {
+
+  /**
+   * Creates the motion of a differential drive, whose velocity is all along its heading. Turning
+   * swings that velocity round, which adds a centripetal acceleration across the heading.
+   *
+   * @param x Robot center field X in meters.
+   * @param y Robot center field Y in meters.
+   * @param headingRadians Robot heading.
+   * @param speed Forward speed in meters per second.
+   * @param acceleration Rate of change of the forward speed in meters per second squared.
+   * @param omegaRadiansPerSecond Yaw rate, counterclockwise positive.
+   */
+  public static RobotMotion ofDifferential(
+      double x,
+      double y,
+      double headingRadians,
+      double speed,
+      double acceleration,
+      double omegaRadiansPerSecond) {
+    double cos = Math.cos(headingRadians);
+    double sin = Math.sin(headingRadians);
+    double centripetal = speed * omegaRadiansPerSecond;
+    return new RobotMotion(
+        x,
+        y,
+        headingRadians,
+        speed * cos,
+        speed * sin,
+        acceleration * cos - centripetal * sin,
+        acceleration * sin + centripetal * cos,
+        omegaRadiansPerSecond);
+  }
+}
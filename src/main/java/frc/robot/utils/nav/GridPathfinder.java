@@ -0,0 +1,374 @@
+package frc.robot.utils.nav;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A* over a {@link NavGrid}, smoothed into a few straight legs a differential drive can follow.
+ *
+ * <p>The search works on primitive arrays sized once for the grid, so a plan allocates little more
+ * than its result. Corners are cached by the coarse regions the start and goal fall in: the next
+ * request between the same two regions reuses them if every leg is still clear, which skips the
+ * search for repeated trips like intake to scoring.
+ *
+ * <p>Not thread-safe. Plan from the main loop only.
+ */
+public class GridPathfinder {
+  private static final double DIAGONAL = Math.sqrt(2.0);
+  private static final int[] NEIGHBOR_COLS = {1, -1, 0, 0, 1, 1, -1, -1};
+  private static final int[] NEIGHBOR_ROWS = {0, 0, 1, -1, 1, -1, 1, -1};
+
+  private final NavGrid m_grid;
+  private final double m_regionSize;
+  private final Map<Long, double[]> m_cache;
+
+  // Search state, reused between plans. A node's entries are only valid when its stamp is current.
+  private final double[] m_cost;
+  private final int[] m_parent;
+  private final int[] m_openStamp;
+  private final int[] m_closedStamp;
+  private int m_stamp = 0;
+  private int[] m_heapNodes;
+  private double[] m_heapKeys;
+  private int m_heapSize;
+
+  private long m_lastPlanNanos = 0;
+  private boolean m_lastPlanCached = false;
+
+  /**
+   * Creates a new GridPathfinder.
+   *
+   * @param grid Occupancy grid, already inflated by the robot footprint.
+   * @param regionSize Side of the square regions plans are cached by, in meters.
+   * @param cacheSize Number of region pairs to remember, least recently used dropped first.
+   */
+  public GridPathfinder(NavGrid grid, double regionSize, int cacheSize) {
+    m_grid = grid;
+    m_regionSize = regionSize;
+    m_cache =
+        new LinkedHashMap<>(cacheSize, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+            return size() > cacheSize;
+          }
+        };
+    int nodes = grid.getCols() * grid.getRows();
+    m_cost = new double[nodes];
+    m_parent = new int[nodes];
+    m_openStamp = new int[nodes];
+    m_closedStamp = new int[nodes];
+    m_heapNodes = new int[nodes];
+    m_heapKeys = new double[nodes];
+  }
+
+  /**
+   * Plans a path.
+   *
+   * @param startX Robot field X in meters.
+   * @param startY Robot field Y in meters.
+   * @param startHeading Robot heading in radians.
+   * @param goalX Goal field X in meters.
+   * @param goalY Goal field Y in meters.
+   * @return The waypoints from the start to the goal, or an empty list if the goal can't be
+   *     reached. A blocked goal is moved to the nearest open node.
+   */
+  public List<PathPoint> plan(
+      double startX, double startY, double startHeading, double goalX, double goalY) {
+    long startNanos = System.nanoTime();
+    int start = nearestOpen(m_grid.nodeAt(startX, startY));
+    int goal = m_grid.nodeAt(goalX, goalY);
+    if (m_grid.isBlocked(goal)) {
+      goal = nearestOpen(goal);
+      if (goal >= 0) {
+        goalX = m_grid.centerX(goal);
+        goalY = m_grid.centerY(goal);
+      }
+    }
+    if (start < 0 || goal < 0) {
+      m_lastPlanNanos = System.nanoTime() - startNanos;
+      return List.of();
+    }
+
+    long key = regionKey(startX, startY, goalX, goalY);
+    double[] corners = m_cache.get(key);
+    m_lastPlanCached = corners != null && isClear(startX, startY, corners, goalX, goalY);
+    if (!m_lastPlanCached) {
+      corners = search(start, goal, startX, startY, goalX, goalY);
+      if (corners == null) {
+        m_lastPlanNanos = System.nanoTime() - startNanos;
+        return List.of();
+      }
+      m_cache.put(key, corners);
+    }
+    List<PathPoint> path = toPath(startX, startY, startHeading, corners, goalX, goalY);
+    m_lastPlanNanos = System.nanoTime() - startNanos;
+    return path;
+  }
+
+  /** Returns how long the last plan took, in seconds. */
+  public double getLastPlanSeconds() {
+    return m_lastPlanNanos / 1e9;
+  }
+
+  /** Returns whether the last plan reused cached corners instead of searching. */
+  public boolean wasLastPlanCached() {
+    return m_lastPlanCached;
+  }
+
+  /**
+   * Runs A* from the start node to the goal node and pulls the node path tight.
+   *
+   * @return Flattened x, y pairs of the corners between the start and goal, or null if the goal
+   *     can't be reached.
+   */
+  private double[] search(
+      int start, int goal, double startX, double startY, double goalX, double goalY) {
+    if (++m_stamp == Integer.MAX_VALUE) {
+      Arrays.fill(m_openStamp, 0);
+      Arrays.fill(m_closedStamp, 0);
+      m_stamp = 1;
+    }
+    int cols = m_grid.getCols();
+    int goalCol = goal % cols;
+    int goalRow = goal / cols;
+    m_heapSize = 0;
+    m_cost[start] = 0.0;
+    m_parent[start] = -1;
+    m_openStamp[start] = m_stamp;
+    push(start, heuristic(start % cols, start / cols, goalCol, goalRow));
+
+    boolean found = false;
+    while (m_heapSize > 0) {
+      int node = pop();
+      if (m_closedStamp[node] == m_stamp) {
+        continue; // Stale entry, already expanded at a lower cost
+      }
+      m_closedStamp[node] = m_stamp;
+      if (node == goal) {
+        found = true;
+        break;
+      }
+      int col = node % cols;
+      int row = node / cols;
+      for (int i = 0; i < NEIGHBOR_COLS.length; i++) {
+        int c = col + NEIGHBOR_COLS[i];
+        int r = row + NEIGHBOR_ROWS[i];
+        if (m_grid.isBlocked(c, r)) {
+          continue;
+        }
+        boolean diagonal = i >= 4;
+        // No squeezing between two blocked nodes that share a corner
+        if (diagonal && (m_grid.isBlocked(c, row) || m_grid.isBlocked(col, r))) {
+          continue;
+        }
+        int next = r * cols + c;
+        if (m_closedStamp[next] == m_stamp) {
+          continue;
+        }
+        double cost = m_cost[node] + (diagonal ? DIAGONAL : 1.0);
+        if (m_openStamp[next] != m_stamp || cost < m_cost[next]) {
+          m_openStamp[next] = m_stamp;
+          m_cost[next] = cost;
+          m_parent[next] = node;
+          push(next, cost + heuristic(c, r, goalCol, goalRow));
+        }
+      }
+    }
+    if (!found) {
+      return null;
+    }
+
+    // Walk back to the start, then keep only the nodes a straight leg can't skip
+    int length = 0;
+    for (int node = goal; node >= 0; node = m_parent[node]) {
+      length++;
+    }
+    double[] xs = new double[length];
+    double[] ys = new double[length];
+    int i = length - 1;
+    for (int node = goal; node >= 0; node = m_parent[node], i--) {
+      xs[i] = m_grid.centerX(node);
+      ys[i] = m_grid.centerY(node);
+    }
+    xs[0] = startX;
+    ys[0] = startY;
+    xs[length - 1] = goalX;
+    ys[length - 1] = goalY;
+
+    double[] corners = new double[2 * length];
+    int count = 0;
+    int anchor = 0;
+    while (anchor < length - 1) {
+      int farthest = anchor + 1;
+      for (int j = length - 1; j > anchor + 1; j--) {
+        if (m_grid.isClear(xs[anchor], ys[anchor], xs[j], ys[j])) {
+          farthest = j;
+          break;
+        }
+      }
+      if (farthest < length - 1) {
+        corners[count++] = xs[farthest];
+        corners[count++] = ys[farthest];
+      }
+      anchor = farthest;
+    }
+    return Arrays.copyOf(corners, count);
+  }
+
+  /** Octile distance, exact on an 8-connected grid with no obstacles. */
+  private static double heuristic(int col, int row, int goalCol, int goalRow) {
+    int dx = Math.abs(goalCol - col);
+    int dy = Math.abs(goalRow - row);
+    return Math.max(dx, dy) + (DIAGONAL - 1.0) * Math.min(dx, dy);
+  }
+
+  /**
+   * Turns corners into waypoints with headings a differential drive can follow: the path leaves
+   * along the robot's heading when the first leg is ahead of it, passes each corner on the
+   * bisector of its two legs, and arrives along the last leg.
+   */
+  private static List<PathPoint> toPath(
+      double startX,
+      double startY,
+      double startHeading,
+      double[] corners,
+      double goalX,
+      double goalY) {
+    int points = corners.length / 2 + 2;
+    double[] xs = new double[points];
+    double[] ys = new double[points];
+    xs[0] = startX;
+    ys[0] = startY;
+    for (int i = 0; i < corners.length / 2; i++) {
+      xs[i + 1] = corners[2 * i];
+      ys[i + 1] = corners[2 * i + 1];
+    }
+    xs[points - 1] = goalX;
+    ys[points - 1] = goalY;
+
+    List<PathPoint> path = new ArrayList<>(points);
+    double firstLeg = Math.atan2(ys[1] - ys[0], xs[1] - xs[0]);
+    // Leaving along the current heading avoids spinning in place before driving off
+    double heading =
+        Math.cos(firstLeg - startHeading) > 0.0 && Math.hypot(xs[1] - xs[0], ys[1] - ys[0]) > 0.0
+            ? startHeading
+            : firstLeg;
+    path.add(new PathPoint(startX, startY, heading));
+    for (int i = 1; i < points - 1; i++) {
+      double in = Math.atan2(ys[i] - ys[i - 1], xs[i] - xs[i - 1]);
+      double out = Math.atan2(ys[i + 1] - ys[i], xs[i + 1] - xs[i]);
+      double bisector = Math.atan2(Math.sin(in) + Math.sin(out), Math.cos(in) + Math.cos(out));
+      path.add(new PathPoint(xs[i], ys[i], bisector));
+    }
+    double lastLeg = Math.atan2(ys[points - 1] - ys[points - 2], xs[points - 1] - xs[points - 2]);
+    path.add(new PathPoint(goalX, goalY, lastLeg));
+    return path;
+  }
+
+  /** Returns whether every leg from the start through the corners to the goal is clear. */
+  private boolean isClear(
+      double startX, double startY, double[] corners, double goalX, double goalY) {
+    double x = startX;
+    double y = startY;
+    for (int i = 0; i < corners.length; i += 2) {
+      if (!m_grid.isClear(x, y, corners[i], corners[i + 1])) {
+        return false;
+      }
+      x = corners[i];
+      y = corners[i + 1];
+    }
+    return m_grid.isClear(x, y, goalX, goalY);
+  }
+
+  private long regionKey(double startX, double startY, double goalX, double goalY) {
+    long startRegion = region(startX) << 16 | region(startY);
+    long goalRegion = region(goalX) << 16 | region(goalY);
+    return startRegion << 32 | goalRegion;
+  }
+
+  private long region(double meters) {
+    return (long) Math.floor(meters / m_regionSize) & 0xffff;
+  }
+
+  /** Returns the nearest open node to a node (itself if open), or -1 if there is none nearby. */
+  private int nearestOpen(int node) {
+    if (node < 0) {
+      return -1;
+    }
+    if (!m_grid.isBlocked(node)) {
+      return node;
+    }
+    int cols = m_grid.getCols();
+    int col = node % cols;
+    int row = node / cols;
+    int maxRing = Math.max(cols, m_grid.getRows());
+    for (int ring = 1; ring < maxRing; ring++) {
+      int best = -1;
+      double bestDistance = Double.POSITIVE_INFINITY;
+      for (int dr = -ring; dr <= ring; dr++) {
+        for (int dc = -ring; dc <= ring; dc++) {
+          if (Math.max(Math.abs(dr), Math.abs(dc)) != ring
+              || m_grid.isBlocked(col + dc, row + dr)) {
+            continue;
+          }
+          double distance = Math.hypot(dr, dc);
+          if (distance < bestDistance) {
+            bestDistance = distance;
+            best = (row + dr) * cols + col + dc;
+          }
+        }
+      }
+      if (best >= 0) {
+        return best;
+      }
+    }
+    return -1;
+  }
+
+  private void push(int node, double key) {
+    if (m_heapSize == m_heapNodes.length) {
+      m_heapNodes = Arrays.copyOf(m_heapNodes, m_heapSize * 2);
+      m_heapKeys = Arrays.copyOf(m_heapKeys, m_heapSize * 2);
+    }
+    int i = m_heapSize++;
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (m_heapKeys[parent] <= key) {
+        break;
+      }
+      m_heapNodes[i] = m_heapNodes[parent];
+      m_heapKeys[i] = m_heapKeys[parent];
+      i = parent;
+    }
+    m_heapNodes[i] = node;
+    m_heapKeys[i] = key;
+  }
+
+  private int pop() {
+    int top = m_heapNodes[0];
+    int lastNode = m_heapNodes[--m_heapSize];
+    double lastKey = m_heapKeys[m_heapSize];
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= m_heapSize) {
+        break;
+      }
+      if (child + 1 < m_heapSize && m_heapKeys[child + 1] < m_heapKeys[child]) {
+        child++;
+      }
+      if (m_heapKeys[child] >= lastKey) {
+        break;
+      }
+      m_heapNodes[i] = m_heapNodes[child];
+      m_heapKeys[i] = m_heapKeys[child];
+      i = child;
+    }
+    m_heapNodes[i] = lastNode;
+    m_heapKeys[i] = lastKey;
+    return top;
+  }
+}
@@ -0,0 +1,217 @@
+package frc.robot.utils.nav;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Occupancy grid of the field, one flag per square node. Node (col, row) covers x in [col * size,
+ * (col + 1) * size) and y in [row * size, (row + 1) * size), and everything outside the grid counts
+ * as blocked.
+ */
+public class NavGrid {
+  private final int m_cols;
+  private final int m_rows;
+  private final double m_nodeSize;
+  private final boolean[] m_blocked;
+
+  /**
+   * Creates a new NavGrid.
+   *
+   * @param cols Nodes along the field X axis.
+   * @param rows Nodes along the field Y axis.
+   * @param nodeSize Side of each node in meters.
+   * @param blocked Row-major flags, {@code blocked[row * cols + col]}. Not copied.
+   */
+  public NavGrid(int cols, int rows, double nodeSize, boolean[] blocked) {
+    if (cols <= 0 || rows <= 0 || nodeSize <= 0.0 || blocked.length != cols * rows) {
+      throw new IllegalArgumentException("Grid dimensions don't match its contents");
+    }
+    m_cols = cols;
+    m_rows = rows;
+    m_nodeSize = nodeSize;
+    m_blocked = blocked;
+  }
+
+  /**
+   * Loads the PathPlanner navigation grid and inflates it by the robot footprint, so the planner
+   * can treat the robot as a point.
+   *
+   * @param navgrid PathPlanner's {@code navgrid.json}.
+   * @param settings PathPlanner's {@code settings.json}, for the robot width and length.
+   * @throws IOException If either file can't be read or parsed.
+   */
+  public static NavGrid load(File navgrid, File settings) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode grid = mapper.readTree(navgrid);
+    double nodeSize = grid.path("nodeSizeMeters").asDouble();
+    JsonNode rows = grid.path("grid");
+    if (nodeSize <= 0.0 || rows.size() == 0) {
+      throw new IOException(navgrid + " has no grid");
+    }
+    int cols = rows.get(0).size();
+    // The last row and column can hang over the field edge
+    double fieldX = grid.path("field_size").path("x").asDouble(cols * nodeSize);
+    double fieldY = grid.path("field_size").path("y").asDouble(rows.size() * nodeSize);
+    boolean[] blocked = new boolean[rows.size() * cols];
+    for (int row = 0; row < rows.size(); row++) {
+      for (int col = 0; col < cols; col++) {
+        blocked[row * cols + col] =
+            rows.get(row).path(col).asBoolean()
+                || (col + 0.5) * nodeSize > fieldX
+                || (row + 0.5) * nodeSize > fieldY;
+      }
+    }
+
+    // A differential drive turns in place, so keep the whole turning circle clear
+    JsonNode robot = mapper.readTree(settings);
+    double radius =
+        Math.hypot(robot.path("robotWidth").asDouble(), robot.path("robotLength").asDouble()) / 2;
+    return new NavGrid(cols, rows.size(), nodeSize, blocked).inflate(radius);
+  }
+
+  /**
+   * Returns a copy with every node whose center is within a radius of a blocked node blocked as
+   * well. The distance is to the blocked node's edge, not its center, so a robot of that radius at
+   * any open node center clears every obstacle, diagonals included.
+   */
+  public NavGrid inflate(double radius) {
+    double limit = radius / m_nodeSize;
+    int reach = (int) Math.ceil(limit + 0.5);
+    boolean[] inflated = m_blocked.clone();
+    for (int row = 0; row < m_rows; row++) {
+      for (int col = 0; col < m_cols; col++) {
+        if (!m_blocked[row * m_cols + col]) {
+          continue;
+        }
+        for (int dr = -reach; dr <= reach; dr++) {
+          for (int dc = -reach; dc <= reach; dc++) {
+            int r = row + dr;
+            int c = col + dc;
+            double gapRows = Math.max(0.0, Math.abs(dr) - 0.5);
+            double gapCols = Math.max(0.0, Math.abs(dc) - 0.5);
+            if (r >= 0
+                && r < m_rows
+                && c >= 0
+                && c < m_cols
+                && Math.hypot(gapRows, gapCols) < limit) {
+              inflated[r * m_cols + c] = true;
+            }
+          }
+        }
+      }
+    }
+    // The field walls are obstacles too
+    for (int row = 0; row < m_rows; row++) {
+      for (int col = 0; col < m_cols; col++) {
+        double x = (col + 0.5) * m_nodeSize;
+        double y = (row + 0.5) * m_nodeSize;
+        if (x < radius
+            || y < radius
+            || x > m_cols * m_nodeSize - radius
+            || y > m_rows * m_nodeSize - radius) {
+          inflated[row * m_cols + col] = true;
+        }
+      }
+    }
+    return new NavGrid(m_cols, m_rows, m_nodeSize, inflated);
+  }
+
+  public int getCols() {
+    return m_cols;
+  }
+
+  public int getRows() {
+    return m_rows;
+  }
+
+  public double getNodeSize() {
+    return m_nodeSize;
+  }
+
+  /** Returns the node index containing a field position, or -1 if it is off the grid. */
+  public int nodeAt(double x, double y) {
+    int col = (int) Math.floor(x / m_nodeSize);
+    int row = (int) Math.floor(y / m_nodeSize);
+    if (col < 0 || col >= m_cols || row < 0 || row >= m_rows) {
+      return -1;
+    }
+    return row * m_cols + col;
+  }
+
+  /** Returns whether a node index is blocked. Indexes off the grid are blocked. */
+  public boolean isBlocked(int node) {
+    return node < 0 || node >= m_blocked.length || m_blocked[node];
+  }
+
+  /** Returns whether the column and row are blocked or off the grid. */
+  public boolean isBlocked(int col, int row) {
+    return col < 0 || col >= m_cols || row < 0 || row >= m_rows || m_blocked[row * m_cols + col];
+  }
+
+  /** Returns the field X of a node's center. */
+  public double centerX(int node) {
+    return (node % m_cols + 0.5) * m_nodeSize;
+  }
+
+  /** Returns the field Y of a node's center. */
+  public double centerY(int node) {
+    return (node / m_cols + 0.5) * m_nodeSize;
+  }
+
+  /**
+   * Returns whether the straight segment between two field positions only crosses open nodes.
+   * Walks every node the segment touches, so it never cuts a blocked corner.
+   */
+  public boolean isClear(double x0, double y0, double x1, double y1) {
+    double gx0 = x0 / m_nodeSize;
+    double gy0 = y0 / m_nodeSize;
+    double gx1 = x1 / m_nodeSize;
+    double gy1 = y1 / m_nodeSize;
+    int col = (int) Math.floor(gx0);
+    int row = (int) Math.floor(gy0);
+    int endCol = (int) Math.floor(gx1);
+    int endRow = (int) Math.floor(gy1);
+    double dx = gx1 - gx0;
+    double dy = gy1 - gy0;
+    int stepCol = dx > 0 ? 1 : -1;
+    int stepRow = dy > 0 ? 1 : -1;
+    // Distance along the segment (as a fraction) to the next column and row boundary
+    double deltaCol = Math.abs(1.0 / dx);
+    double deltaRow = Math.abs(1.0 / dy);
+    double nextCol =
+        dx == 0 ? Double.POSITIVE_INFINITY : (dx > 0 ? col + 1 - gx0 : gx0 - col) * deltaCol;
+    double nextRow =
+        dy == 0 ? Double.POSITIVE_INFINITY : (dy > 0 ? row + 1 - gy0 : gy0 - row) * deltaRow;
+
+    int remaining = Math.abs(endCol - col) + Math.abs(endRow - row);
+    while (true) {
+      if (isBlocked(col, row)) {
+        return false;
+      }
+      if (remaining <= 0) {
+        return true;
+      }
+      if (nextCol < nextRow) {
+        nextCol += deltaCol;
+        col += stepCol;
+        remaining--;
+      } else if (nextRow < nextCol) {
+        nextRow += deltaRow;
+        row += stepRow;
+        remaining--;
+      } else {
+        // Passing exactly through a corner touches both neighbours
+        if (isBlocked(col + stepCol, row) || isBlocked(col, row + stepRow)) {
+          return false;
+        }
+        nextCol += deltaCol;
+        nextRow += deltaRow;
+        col += stepCol;
+        row += stepRow;
+        remaining -= 2;
+      }
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package frc.robot.utils.nav;
+
+/**
+ * A waypoint of a planned path.
+ *
+ * @param x Field X in meters.
+ * @param y Field Y in meters.
+ * @param headingRadians Direction of travel through the point.
+ */
+public record PathPoint(double x, double y, double headingRadians) {}
@@ -0,0 +1,36 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+/** Measures heap allocation on the test thread, for checking that loop code allocates nothing. */
+final class Allocations {
+  /** Runs loops {@code first} to {@code first + count - 1}. */
+  @FunctionalInterface
+  interface Loops {
+    void run(int first, int count);
+  }
+
+  private static final int WARMUP_LOOPS = 20000;
+  private static final int MATCH_LOOPS = 7500; // 2:30 at 50 Hz
+
+  private Allocations() {}
+
+  /**
+   * Runs enough loops for the JIT to compile them, then a match's worth more.
+   *
+   * @return Bytes allocated by the second run.
+   */
+  static long inSteadyState(Loops loops) {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assertTrue(threads.isThreadAllocatedMemoryEnabled(), "The JVM can count allocations");
+    long thread = Thread.currentThread().getId();
+
+    loops.run(0, WARMUP_LOOPS);
+    long before = threads.getThreadAllocatedBytes(thread);
+    loops.run(WARMUP_LOOPS, MATCH_LOOPS);
+    return threads.getThreadAllocatedBytes(thread) - before;
+  }
+}
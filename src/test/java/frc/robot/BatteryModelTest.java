@@ -0,0 +1,64 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import frc.robot.utils.BatteryModel;
+import org.junit.jupiter.api.Test;
+
+public class BatteryModelTest {
+
+  private static final double DELTA = 1e-6;
+  private static final double TIME_CONSTANT = 2.0;
+  private static final double DEFAULT_RESISTANCE = 0.02;
+  private static final double MIN_RESISTANCE = 0.01;
+  private static final double MAX_RESISTANCE = 0.06;
+  private static final double MIN_CURRENT_SPREAD = 10.0;
+  private static final double PERIOD = 0.02;
+
+  private static BatteryModel newModel() {
+    return new BatteryModel(
+        TIME_CONSTANT, DEFAULT_RESISTANCE, MIN_RESISTANCE, MAX_RESISTANCE, MIN_CURRENT_SPREAD);
+  }
+
+  /** Feeds 5 s of a battery with the given resistance under a swinging load. */
+  private static void drawFrom(BatteryModel model, double openCircuitVoltage, double resistance) {
+    for (int i = 0; i <= 250; i++) {
+      double current = 60.0 + 50.0 * Math.sin(i * 0.3);
+      model.update(i * PERIOD, openCircuitVoltage - current * resistance, current);
+    }
+  }
+
+  @Test
+  public void testDefaultResistanceUntilCurrentVaries() {
+    BatteryModel model = newModel();
+    for (int i = 0; i <= 250; i++) {
+      model.update(i * PERIOD, 12.0, 50.0);
+    }
+    assertEquals(DEFAULT_RESISTANCE, model.getResistance(), DELTA, "A steady load can't be fit");
+    assertEquals(13.0, model.getOpenCircuitVoltage(), DELTA);
+  }
+
+  @Test
+  public void testFitsResistance() {
+    BatteryModel model = newModel();
+    drawFrom(model, 12.6, 0.025);
+    assertEquals(0.025, model.getResistance(), DELTA);
+    assertEquals(12.6, model.getOpenCircuitVoltage(), DELTA);
+    assertEquals(10.1, model.predictVoltage(100.0), DELTA);
+
+    // A bad connection looks like a huge resistance, but the fit stays believable
+    BatteryModel loose = newModel();
+    drawFrom(loose, 12.6, 0.2);
+    assertEquals(MAX_RESISTANCE, loose.getResistance(), DELTA);
+  }
+
+  @Test
+  public void testAvailableCurrent() {
+    BatteryModel model = newModel();
+    drawFrom(model, 12.6, 0.025);
+    // (12.6 - 7.5) / 0.025
+    assertEquals(204.0, model.getAvailableCurrent(7.5), DELTA);
+    assertEquals(0.0, model.getAvailableCurrent(12.6), DELTA);
+    assertEquals(0.0, model.getAvailableCurrent(13.0), DELTA, "Never negative");
+  }
+}
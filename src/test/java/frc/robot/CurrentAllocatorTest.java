@@ -0,0 +1,93 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import frc.robot.utils.CurrentAllocator;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public class CurrentAllocatorTest {
+
+  // Drive, flywheel, turret, intake, loader, as on the robot
+  private static final int[] MOTOR_COUNTS = {4, 1, 1, 2, 3};
+  private static final int[] MIN_LIMITS = {30, 20, 15, 10, 10};
+  private static final int[] MAX_LIMITS = {80, 40, 40, 40, 30};
+  private static final int[] DRIVING = {0, 1, 2, 3, 4};
+  private static final int[] FIRING = {1, 2, 0, 4, 3};
+  private static final double INRUSH_WINDOW = 0.15;
+  private static final int INRUSH_CAP = 20;
+
+  // 4 * 30 + 20 + 15 + 2 * 10 + 3 * 10 and 4 * 80 + 40 + 40 + 2 * 40 + 3 * 30
+  private static final double MIN_TOTAL = 205.0;
+  private static final double MAX_TOTAL = 570.0;
+
+  private static CurrentAllocator newAllocator() {
+    return new CurrentAllocator(MOTOR_COUNTS, MIN_LIMITS, MAX_LIMITS, INRUSH_WINDOW, INRUSH_CAP);
+  }
+
+  @Test
+  public void testFullBudgetKeepsMaximums() {
+    int[] limits = new int[5];
+    newAllocator().allocate(MAX_TOTAL, DRIVING, limits);
+    assertArrayEquals(MAX_LIMITS, limits);
+
+    newAllocator().allocate(Double.POSITIVE_INFINITY, FIRING, limits);
+    assertArrayEquals(MAX_LIMITS, limits);
+  }
+
+  @Test
+  public void testMinimumsHoldOverBudget() {
+    int[] limits = new int[5];
+    newAllocator().allocate(MIN_TOTAL - 100.0, DRIVING, limits);
+    assertArrayEquals(MIN_LIMITS, limits, "Minimums are guaranteed even past the budget");
+
+    newAllocator().allocate(0.0, FIRING, limits);
+    assertArrayEquals(MIN_LIMITS, limits);
+  }
+
+  @Test
+  public void testBudgetEdge() {
+    CurrentAllocator allocator = newAllocator();
+    int[] limits = new int[5];
+    // One amp short only costs the lowest priority: 364 A spare, 345 A before the loader
+    allocator.allocate(MAX_TOTAL - 1.0, DRIVING, limits);
+    assertArrayEquals(new int[] {80, 40, 40, 40, 29}, limits);
+  }
+
+  @Test
+  public void testFiringTakesPriorityOverDriving() {
+    CurrentAllocator allocator = newAllocator();
+    int[] limits = new int[5];
+    allocator.allocate(MIN_TOTAL + 40.0, DRIVING, limits);
+    assertArrayEquals(new int[] {40, 20, 15, 10, 10}, limits, "Driving: spare goes to the wheels");
+
+    allocator.allocate(MIN_TOTAL + 40.0, FIRING, limits);
+    assertArrayEquals(new int[] {30, 40, 35, 10, 10}, limits, "Firing: flywheel, then turret");
+  }
+
+  @Test
+  public void testStaggerInrush() {
+    CurrentAllocator allocator = newAllocator();
+    double[] startTimes = new double[5];
+    Arrays.fill(startTimes, Double.NEGATIVE_INFINITY);
+    boolean[] running = {true, false, false, false, true};
+    int[] limits = MAX_LIMITS.clone();
+
+    // The drivetrain just started: stopped mechanisms below it wait, running ones keep their limit
+    startTimes[0] = 10.0;
+    allocator.staggerInrush(DRIVING, 10.05, startTimes, running, limits);
+    assertArrayEquals(new int[] {80, 20, 20, 20, 30}, limits);
+
+    // A start only holds back lower priorities
+    limits = MAX_LIMITS.clone();
+    startTimes[0] = Double.NEGATIVE_INFINITY;
+    startTimes[3] = 10.0;
+    allocator.staggerInrush(DRIVING, 10.05, startTimes, running, limits);
+    assertArrayEquals(MAX_LIMITS, limits);
+
+    // Nothing is held back once the window has passed
+    startTimes[0] = 10.0;
+    allocator.staggerInrush(DRIVING, 10.0 + INRUSH_WINDOW, startTimes, running, limits);
+    assertArrayEquals(MAX_LIMITS, limits);
+  }
+}
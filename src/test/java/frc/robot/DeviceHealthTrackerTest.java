@@ -0,0 +1,74 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import frc.robot.utils.DeviceHealthTracker;
+import frc.robot.utils.DeviceHealthTracker.Status;
+import org.junit.jupiter.api.Test;
+
+public class DeviceHealthTrackerTest {
+
+  private static final double DELTA = 1e-9;
+  private static final double STALE_AFTER = 0.5;
+
+  @Test
+  public void testFaultWordsSetStatus() {
+    DeviceHealthTracker tracker = new DeviceHealthTracker(STALE_AFTER);
+    tracker.update(0.0, true, 0, 0, 0, Double.NaN);
+    assertEquals(Status.OK, tracker.getStatus());
+    tracker.update(0.25, true, 0, 0x4, 0, Double.NaN);
+    assertEquals(Status.WARNING, tracker.getStatus(), "Sticky faults alone are a warning");
+    tracker.update(0.5, true, 0x1, 0x4, 0, Double.NaN);
+    assertEquals(Status.FAULT, tracker.getStatus());
+    assertEquals(0x1, tracker.getFaults());
+    tracker.update(0.75, false, 0x1, 0x4, 0, Double.NaN);
+    assertEquals(Status.DISCONNECTED, tracker.getStatus(), "Disconnected outranks everything");
+  }
+
+  @Test
+  public void testUnchangedFrameStampGoesStale() {
+    DeviceHealthTracker tracker = new DeviceHealthTracker(STALE_AFTER);
+    tracker.update(0.0, true, 0, 0, 0, 1.0);
+    tracker.update(0.25, true, 0, 0, 0, 2.0);
+    assertEquals(Status.OK, tracker.getStatus());
+
+    // Frames stop arriving
+    tracker.update(0.5, true, 0, 0, 0, 2.0);
+    tracker.update(0.75, true, 0, 0, 0, 2.0);
+    assertEquals(Status.OK, tracker.getStatus(), "Not stale until the timeout has passed");
+    tracker.update(1.0, true, 0, 0, 0, 2.0);
+    assertEquals(Status.STALE, tracker.getStatus());
+    assertEquals(0.75, tracker.getSecondsSinceFrame(), DELTA);
+    tracker.update(1.25, true, 0, 0, 0, 2.0);
+    assertEquals(1, tracker.getStaleEvents(), "Counted once per dropout");
+
+    // Frames resume
+    tracker.update(1.5, true, 0, 0, 0, 3.0);
+    assertEquals(Status.OK, tracker.getStatus());
+    assertEquals(0.0, tracker.getSecondsSinceFrame(), DELTA);
+    tracker.update(2.5, true, 0, 0, 0, 3.0);
+    assertEquals(2, tracker.getStaleEvents());
+  }
+
+  @Test
+  public void testNoStampRestartsTimeout() {
+    DeviceHealthTracker tracker = new DeviceHealthTracker(STALE_AFTER);
+    tracker.update(0.0, true, 0, 0, 0, 1.0);
+    tracker.update(0.25, true, 0, 0, 0, 1.0);
+
+    // Motor idle, its signals hold still without the frames having stopped
+    for (double t = 0.5; t < 3.0; t += 0.25) {
+      tracker.update(t, true, 0, 0, 0, Double.NaN);
+    }
+    assertEquals(Status.OK, tracker.getStatus());
+    assertEquals(0.0, tracker.getSecondsSinceFrame(), DELTA);
+
+    // Driven again with the same value as before, it gets a full timeout
+    tracker.update(3.0, true, 0, 0, 0, 1.0);
+    tracker.update(3.25, true, 0, 0, 0, 1.0);
+    assertEquals(Status.OK, tracker.getStatus());
+    tracker.update(3.75, true, 0, 0, 0, 1.0);
+    assertEquals(Status.STALE, tracker.getStatus());
+    assertEquals(1, tracker.getStaleEvents(), "Only the real dropout is counted");
+  }
+}
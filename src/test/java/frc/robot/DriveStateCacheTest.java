@@ -0,0 +1,75 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.DriveStateCache;
+import org.junit.jupiter.api.Test;
+
+public class DriveStateCacheTest {
+
+  private static final double DELTA = 1e-9;
+  private static final double TRACK_WIDTH = 0.5;
+  private static final double TIME_CONSTANT = 0.1;
+  private static final double PERIOD = 0.02;
+
+  @Test
+  public void testKinematics() {
+    DriveStateCache state = new DriveStateCache(TRACK_WIDTH, TIME_CONSTANT, PERIOD);
+    state.update(1.0, 2.0, 3.0, 0.5, 10.0, 11.0, 1.0, 2.0);
+    assertEquals(1.5, state.getForwardSpeed(), DELTA);
+    assertEquals(2.0, state.getYawRate(), DELTA, "Right side faster turns counterclockwise");
+    assertEquals(2.0, state.getX(), DELTA);
+    assertEquals(0.5, state.getHeading(), DELTA);
+    assertEquals(0.0, state.getAcceleration(), DELTA, "No acceleration from the first sample");
+  }
+
+  @Test
+  public void testAccelerationSettles() {
+    DriveStateCache state = new DriveStateCache(TRACK_WIDTH, TIME_CONSTANT, PERIOD);
+    // Constant 2 m/s^2 for 1 s
+    for (int i = 0; i <= 50; i++) {
+      double speed = 2.0 * i * PERIOD;
+      state.update(i * PERIOD, 0.0, 0.0, 0.0, 0.0, 0.0, speed, speed);
+    }
+    assertEquals(2.0, state.getAcceleration(), 1e-3);
+
+    // A repeated timestamp doesn't divide by zero
+    state.update(50 * PERIOD, 0.0, 0.0, 0.0, 0.0, 0.0, 2.0, 2.0);
+    assertTrue(Double.isFinite(state.getAcceleration()));
+  }
+
+  @Test
+  public void testSteadyStateDoesNotAllocate() {
+    DriveStateCache state = new DriveStateCache(TRACK_WIDTH, TIME_CONSTANT, PERIOD);
+    double[] sum = {0.0};
+    long allocated =
+        Allocations.inSteadyState((first, count) -> sum[0] += runLoops(state, first, count));
+
+    assertTrue(Double.isFinite(sum[0]));
+    assertEquals(0, allocated, "Bytes allocated by updating and reading the state");
+  }
+
+  /**
+   * Updates and reads the state the way the drive loop and its consumers do. This only covers the
+   * cache: the sensor reads in DriveSubsystem.periodic and the lead solver behind ShotPredictor and
+   * AutoAimCommand need the robot runtime and are not measured here.
+   */
+  private static double runLoops(DriveStateCache state, int first, int count) {
+    double sum = 0.0;
+    for (int i = first; i < first + count; i++) {
+      double t = i * PERIOD;
+      state.update(t, t, -t, 0.1 * t, t, t, 1.0 + 0.001 * i, 1.2);
+      sum +=
+          state.getX()
+              + state.getY()
+              + state.getHeading()
+              + state.getForwardSpeed()
+              + state.getYawRate()
+              + state.getAcceleration()
+              + state.getLeftPosition()
+              + state.getRightVelocity();
+    }
+    return sum;
+  }
+}
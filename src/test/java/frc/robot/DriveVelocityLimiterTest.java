@@ -0,0 +1,86 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.DriveVelocityLimiter;
+import org.junit.jupiter.api.Test;
+
+public class DriveVelocityLimiterTest {
+
+  private static final double DELTA = 1e-9;
+  private static final double KS = 0.2;
+  private static final double KV = 2.5;
+  private static final double KA = 0.5;
+  private static final double MAX_VOLTAGE = 10.0;
+  private static final double PERIOD = 0.02;
+  private static final double TRACTION = 8.0;
+
+  private static DriveVelocityLimiter newLimiter() {
+    return new DriveVelocityLimiter(KS, KV, KA, MAX_VOLTAGE, PERIOD);
+  }
+
+  @Test
+  public void testLaunchIsTractionLimited() {
+    DriveVelocityLimiter limiter = newLimiter();
+    assertEquals(3.92, limiter.getMaxSpeed(), DELTA);
+
+    // The motors could do (10 - 0.2) / 0.5 = 19.6 m/s^2 from rest
+    assertEquals(TRACTION * PERIOD, limiter.calculate(10.0, TRACTION), DELTA);
+    assertEquals(TRACTION, limiter.getAcceleration(), DELTA);
+  }
+
+  @Test
+  public void testVoltageLimitNearTopSpeed() {
+    DriveVelocityLimiter limiter = newLimiter();
+    limiter.reset(3.5);
+    // Only 10 - 0.2 - 2.5 * 3.5 = 1.05 V left to accelerate with
+    limiter.calculate(10.0, TRACTION);
+    assertEquals(1.05 / KA, limiter.getAcceleration(), 1e-6);
+
+    // Back-EMF helps braking, so slowing down is traction limited again
+    limiter.reset(3.5);
+    limiter.calculate(0.0, TRACTION);
+    assertEquals(-TRACTION, limiter.getAcceleration(), 1e-6);
+
+    // Never asks for more than the voltage can hold
+    for (int i = 0; i < 500; i++) {
+      limiter.calculate(10.0, TRACTION);
+    }
+    assertTrue(limiter.getSetpoint() <= limiter.getMaxSpeed());
+    assertEquals(limiter.getMaxSpeed(), limiter.getSetpoint(), 1e-3);
+  }
+
+  @Test
+  public void testReachesTargetExactly() {
+    DriveVelocityLimiter limiter = newLimiter();
+    for (int i = 0; i < 50; i++) {
+      limiter.calculate(-1.0, TRACTION / 2.0);
+    }
+    assertEquals(-1.0, limiter.getSetpoint(), DELTA);
+    assertEquals(0.0, limiter.getAcceleration(), DELTA, "No acceleration once at the target");
+  }
+
+  @Test
+  public void testReversalBrakesThroughZero() {
+    DriveVelocityLimiter limiter = newLimiter();
+    limiter.reset(limiter.getMaxSpeed());
+    // Back-EMF helps until the setpoint crosses zero, so the reversal starts at traction
+    limiter.calculate(-10.0, TRACTION);
+    assertEquals(-TRACTION, limiter.getAcceleration(), 1e-6);
+
+    // 3.92 m/s at 8 m/s^2 is 24.5 steps of braking
+    for (int i = 1; i < 24; i++) {
+      limiter.calculate(-10.0, TRACTION);
+    }
+    assertTrue(limiter.getSetpoint() > 0.0, "Still braking");
+    limiter.calculate(-10.0, TRACTION);
+    assertTrue(limiter.getSetpoint() < 0.0, "Crossed zero");
+    assertEquals(-TRACTION, limiter.getAcceleration(), 1e-6);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.calculate(-10.0, TRACTION);
+    }
+    assertEquals(-limiter.getMaxSpeed(), limiter.getSetpoint(), 1e-2, "Full speed in reverse");
+  }
+}
@@ -0,0 +1,108 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.FeedPipeline;
+import org.junit.jupiter.api.Test;
+
+public class FeedPipelineTest {
+
+  private static final double DELTA = 1e-6;
+
+  private FeedPipeline newPipeline() {
+    return new FeedPipeline(1.0, 0.5, 250.0, true, 1.0);
+  }
+
+  @Test
+  public void testIdleWithoutFireRequest() {
+    FeedPipeline pipeline = newPipeline();
+    pipeline.update(0.0, false, true, true, 0.0, 0, 0.0);
+    assertEquals(FeedPipeline.State.IDLE, pipeline.getState());
+    assertEquals(0.0, pipeline.getLoaderOutput(), DELTA, "Loader must stay off when not firing");
+    assertFalse(pipeline.isIntakeSuspended(), "Intake must not be held off when not firing");
+  }
+
+  @Test
+  public void testWaitsForFlywheel() {
+    FeedPipeline pipeline = newPipeline();
+    pipeline.update(0.0, true, true, false, 1000.0, 0, 0.0);
+    assertEquals(FeedPipeline.State.WAITING, pipeline.getState());
+    assertEquals(0.0, pipeline.getLoaderOutput(), DELTA, "No feed before the flywheel is ready");
+    assertFalse(pipeline.isIntakeSuspended(), "Intake keeps staging while spinning up");
+  }
+
+  @Test
+  public void testPulseStopsOnShot() {
+    FeedPipeline pipeline = newPipeline();
+    pipeline.update(0.0, true, true, true, 0.0, 0, 0.0);
+    assertEquals(FeedPipeline.State.FEEDING, pipeline.getState());
+    assertEquals(1.0, pipeline.getLoaderOutput(), DELTA, "Pulse runs the loader at feed speed");
+    assertTrue(pipeline.isIntakeSuspended(), "Intake is held off only while a pulse runs");
+
+    // Shot detected, flywheel dips below speed
+    pipeline.update(0.1, true, true, false, 400.0, 1, 0.0);
+    assertEquals(FeedPipeline.State.WAITING, pipeline.getState());
+    assertEquals(0.0, pipeline.getLoaderOutput(), DELTA, "Next piece stays staged during recovery");
+    assertFalse(pipeline.isIntakeSuspended(), "Intake resumes once the pulse is over");
+    assertEquals(0.1, pipeline.getTravelTime(), DELTA, "Travel time is pulse start to shot");
+  }
+
+  @Test
+  public void testPulseTimesOutWhenEmpty() {
+    FeedPipeline pipeline = newPipeline();
+    pipeline.update(0.0, true, true, true, 0.0, 0, 0.0);
+    pipeline.update(0.6, true, true, false, 1000.0, 0, 0.0);
+    assertEquals(FeedPipeline.State.WAITING, pipeline.getState(), "Pulse without a shot ends");
+  }
+
+  @Test
+  public void testOnlyProbesWhenEmpty() {
+    FeedPipeline pipeline = newPipeline();
+    pipeline.setPiecesAvailable(false);
+    pipeline.update(0.0, true, true, true, 0.0, 0, 0.0);
+    assertEquals(FeedPipeline.State.FEEDING, pipeline.getState(), "First probe pulse still runs");
+    pipeline.update(0.6, true, true, true, 0.0, 0, 0.0);
+    assertEquals(1, pipeline.getEmptyPulseCount(), "Timed out pulse is counted as empty");
+
+    pipeline.update(0.8, true, true, true, 0.0, 0, 0.0);
+    assertEquals(FeedPipeline.State.WAITING, pipeline.getState(), "Empty cycles are skipped");
+    pipeline.update(1.0, true, true, true, 0.0, 0, 0.0);
+    assertEquals(FeedPipeline.State.FEEDING, pipeline.getState(), "Probe again after interval");
+  }
+
+  @Test
+  public void testEarlyReleaseUsesMeasuredRecovery() {
+    FeedPipeline pipeline = newPipeline();
+    // First shot: travel time of 0.1 s
+    pipeline.update(0.0, true, true, true, 0.0, 0, 0.0);
+    pipeline.update(0.1, true, true, false, 400.0, 1, 0.0);
+
+    // Recovery measured at 0.3 s, so the next pulse may start at 0.1 + 0.3 - 0.1 = 0.3 s
+    pipeline.update(0.2, true, true, false, 200.0, 1, 0.3);
+    assertEquals(FeedPipeline.State.WAITING, pipeline.getState(), "Too early to release");
+    pipeline.update(0.31, true, true, false, 200.0, 1, 0.3);
+    assertEquals(FeedPipeline.State.FEEDING, pipeline.getState(), "Release ahead of recovery");
+  }
+
+  @Test
+  public void testAimGatesRelease() {
+    FeedPipeline pipeline = newPipeline();
+    pipeline.update(0.0, true, false, true, 0.0, 0, 0.0);
+    assertEquals(FeedPipeline.State.WAITING, pipeline.getState(), "No release while off target");
+  }
+
+  @Test
+  public void testPiecesPerSecond() {
+    FeedPipeline pipeline = newPipeline();
+    pipeline.update(0.0, true, true, true, 0.0, 0, 0.0);
+    pipeline.update(0.1, true, true, false, 400.0, 1, 0.0);
+    pipeline.update(0.3, true, true, true, 0.0, 1, 0.2);
+    pipeline.update(0.35, true, true, false, 400.0, 2, 0.2);
+    pipeline.update(0.5, true, true, true, 0.0, 2, 0.2);
+    pipeline.update(0.6, true, true, false, 400.0, 3, 0.2);
+    // Three shots over 0.5 s is two intervals
+    assertEquals(4.0, pipeline.getPiecesPerSecond(), DELTA);
+  }
+}
@@ -0,0 +1,105 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.FlightRecorder;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FlightRecorderTest {
+
+  private static final double DELTA = 1e-9;
+
+  // Triggers schedule real dumps, so tests write them to a temporary directory
+  private static FlightRecorder newRecorder(Path directory) {
+    return new FlightRecorder(directory, 2.0, 30.0);
+  }
+
+  @Test
+  public void testSnapshotKeepsNewestInOrder(@TempDir Path directory) {
+    FlightRecorder.Track track = newRecorder(directory).addTrack("Loop", 4, "A", "B");
+    for (int i = 0; i < 6; i++) {
+      track.set(0, i * 10.0);
+      track.set(1, i * 100.0);
+      track.commit(i);
+    }
+    // An odometry-style frame, timestamp first
+    track.record(new double[] {-1.0, 6.0, 60.0, 600.0}, 1);
+
+    double[] out = new double[4 * 3];
+    assertEquals(4, track.snapshot(out), "Only the newest frames fit");
+    for (int i = 0; i < 4; i++) {
+      double t = i + 3;
+      assertEquals(t, out[i * 3], DELTA, "Oldest first");
+      assertEquals(t * 10.0, out[i * 3 + 1], DELTA);
+      assertEquals(t * 100.0, out[i * 3 + 2], DELTA);
+    }
+    assertEquals(7, track.getWritten());
+  }
+
+  @Test
+  public void testTriggerCooldown(@TempDir Path directory) {
+    FlightRecorder recorder = newRecorder(directory);
+    assertTrue(recorder.trigger("brownout", 100.0));
+    assertFalse(recorder.trigger("overrun", 110.0), "Still cooling down");
+    assertTrue(recorder.trigger("overrun", 131.0));
+    assertEquals(2, recorder.getTriggerCount());
+  }
+
+  @Test
+  public void testSnapshotWhileRecordingIsNeverTorn(@TempDir Path directory)
+      throws InterruptedException {
+    FlightRecorder.Track track = newRecorder(directory).addTrack("Odometry", 64, "A", "B", "C");
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int i = 1; i <= 2_000_000; i++) {
+                track.set(0, i);
+                track.set(1, i);
+                track.set(2, i);
+                track.commit(i);
+              }
+            });
+    writer.start();
+    double[] out = new double[64 * 4];
+    int snapshots = 0;
+    while (writer.isAlive() || snapshots == 0) {
+      int count = track.snapshot(out);
+      for (int frame = 0; frame < count; frame++) {
+        double t = out[frame * 4];
+        assertEquals(t, out[frame * 4 + 3], "Every channel from the same frame");
+        if (frame > 0) {
+          assertEquals(out[(frame - 1) * 4] + 1.0, t, "Frames consecutive");
+        }
+      }
+      snapshots++;
+    }
+    writer.join();
+    assertTrue(snapshots > 0);
+  }
+
+  @Test
+  public void testRecordingDoesNotAllocate(@TempDir Path directory) {
+    FlightRecorder.Track track = newRecorder(directory).addTrack("Loop", 500, "A", "B", "C", "D");
+    double[] sample = {0.0, 1.0, 2.0, 3.0, 4.0};
+    long allocated =
+        Allocations.inSteadyState((first, count) -> recordLoops(track, sample, first, count));
+    assertEquals(0, allocated, "Bytes allocated by recording");
+  }
+
+  private static void recordLoops(
+      FlightRecorder.Track track, double[] sample, int first, int count) {
+    for (int i = first; i < first + count; i++) {
+      double t = i * 0.02;
+      for (int c = 0; c < 4; c++) {
+        track.set(c, t * c);
+      }
+      track.commit(t);
+      sample[0] = t;
+      track.record(sample, 0);
+    }
+  }
+}
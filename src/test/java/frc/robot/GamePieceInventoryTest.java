@@ -0,0 +1,115 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.constants.Constants.InventoryConstants;
+import frc.robot.utils.GamePieceInventory;
+import org.junit.jupiter.api.Test;
+
+public class GamePieceInventoryTest {
+
+  private static final double DELTA = 1e-9;
+  private static final double LOOP = 0.02;
+  private static final double FREE_CURRENT = 10.0;
+
+  /**
+   * Starts a roller, runs it at its free current, then loads it with a piece for {@code
+   * bumpSeconds}, then lets it run free again.
+   *
+   * @return The time after the last loop.
+   */
+  private static double runRoller(
+      GamePieceInventory inventory, double t, boolean intake, double bumpSeconds) {
+    inventory.update(t, 0.0, 0.0, 0.0, 0.0, 0, 0);
+    t += LOOP;
+    for (double end = t + 0.3 + bumpSeconds + 0.1; t < end; t += LOOP) {
+      boolean loaded = t >= end - 0.1 - bumpSeconds && t < end - 0.1;
+      double current = FREE_CURRENT + (loaded ? 2 * InventoryConstants.PIECE_CURRENT_RISE : 0.0);
+      if (intake) {
+        inventory.update(t, 1.0, current, 0.0, 0.0, 0, 0);
+      } else {
+        inventory.update(t, 0.0, 0.0, 1.0, current, 0, 0);
+      }
+    }
+    return t;
+  }
+
+  @Test
+  public void testIntakeBumpsCountPiecesIn() {
+    GamePieceInventory inventory = new GamePieceInventory(2);
+    inventory.reset(0);
+    double t = runRoller(inventory, 0.0, true, 0.1);
+    assertEquals(1, inventory.getCount());
+    assertEquals(1, inventory.getPiecesIn());
+    assertEquals(InventoryConstants.INFERRED_EVENT_CONFIDENCE, inventory.getConfidence(), DELTA);
+
+    // Too long to be a piece passing through
+    t = runRoller(inventory, t, true, 1.0);
+    assertEquals(1, inventory.getCount(), "A stall is not a piece");
+
+    // Full, so another bump can't add one
+    t = runRoller(inventory, t, true, 0.1);
+    t = runRoller(inventory, t, true, 0.1);
+    assertEquals(2, inventory.getCount(), "Count is clamped to capacity");
+    assertEquals(2, inventory.getPiecesIn());
+    assertEquals(
+        Math.pow(InventoryConstants.INFERRED_EVENT_CONFIDENCE, 3),
+        inventory.getConfidence(),
+        DELTA,
+        "Every bump still costs confidence");
+  }
+
+  @Test
+  public void testShotsCountPiecesOut() {
+    GamePieceInventory inventory = new GamePieceInventory(30);
+    inventory.reset(2);
+    inventory.update(0.0, 0.0, 0.0, 0.0, 0.0, 1, 0);
+    assertEquals(1, inventory.getCount());
+    assertEquals(1.0, inventory.getConfidence(), DELTA, "Shots are observed, not inferred");
+
+    // Two more shots than we thought we had
+    inventory.update(0.02, 0.0, 0.0, 0.0, 0.0, 3, 0);
+    assertEquals(0, inventory.getCount(), "Count never goes negative");
+    assertEquals(3, inventory.getPiecesOut());
+    assertFalse(inventory.isEmpty(), "A count that was wrong isn't trusted");
+
+    // An empty feed pulse proves it
+    inventory.update(0.04, 0.0, 0.0, 0.0, 0.0, 3, 1);
+    assertEquals(1.0, inventory.getConfidence(), DELTA);
+    assertTrue(inventory.isEmpty());
+  }
+
+  @Test
+  public void testLoaderBumpWhileEmptyIsAMissedEntry() {
+    GamePieceInventory inventory = new GamePieceInventory(30);
+    inventory.reset(0);
+    assertTrue(inventory.isEmpty());
+    runRoller(inventory, 0.0, false, 0.1);
+    assertEquals(1, inventory.getCount());
+    assertEquals(InventoryConstants.MISSED_EVENT_CONFIDENCE, inventory.getConfidence(), DELTA);
+    assertFalse(inventory.isEmpty());
+  }
+
+  @Test
+  public void testResetAndReverse() {
+    GamePieceInventory inventory = new GamePieceInventory(30);
+    assertFalse(inventory.isEmpty(), "Nothing is known before a reset");
+    inventory.reset(40);
+    assertEquals(30, inventory.getCount(), "Reset is clamped to capacity");
+    inventory.reset(-1);
+    assertEquals(0, inventory.getCount());
+
+    inventory.reset(5);
+    for (int i = 0; i < 10; i++) {
+      inventory.update(i * LOOP, -1.0, FREE_CURRENT, 0.0, 0.0, 0, 0);
+    }
+    assertEquals(5, inventory.getCount());
+    assertEquals(
+        InventoryConstants.REVERSE_CONFIDENCE,
+        inventory.getConfidence(),
+        DELTA,
+        "Only the start of a reverse costs confidence");
+  }
+}
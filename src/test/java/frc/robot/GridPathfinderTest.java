@@ -0,0 +1,124 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.nav.GridPathfinder;
+import frc.robot.utils.nav.NavGrid;
+import frc.robot.utils.nav.PathPoint;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class GridPathfinderTest {
+
+  private static final double DELTA = 1e-6;
+  private static final double NODE_SIZE = 0.5;
+  private static final int COLS = 20;
+  private static final int ROWS = 10;
+
+  /** A 10 m x 5 m field with a wall at x = 5 m that leaves a gap along the top edge. */
+  private static NavGrid wallGrid(int wallHeight) {
+    boolean[] blocked = new boolean[COLS * ROWS];
+    for (int row = 0; row < wallHeight; row++) {
+      blocked[row * COLS + 10] = true;
+    }
+    return new NavGrid(COLS, ROWS, NODE_SIZE, blocked);
+  }
+
+  private static void assertLegsClear(NavGrid grid, List<PathPoint> path) {
+    for (int i = 1; i < path.size(); i++) {
+      PathPoint from = path.get(i - 1);
+      PathPoint to = path.get(i);
+      assertTrue(grid.isClear(from.x(), from.y(), to.x(), to.y()), "Leg " + i + " is blocked");
+    }
+  }
+
+  @Test
+  public void testPlansAroundWall() {
+    NavGrid grid = wallGrid(8);
+    GridPathfinder pathfinder = new GridPathfinder(grid, 1.0, 8);
+    List<PathPoint> path = pathfinder.plan(1.0, 1.0, 0.0, 9.0, 1.0);
+
+    assertTrue(path.size() >= 3, "Going around the wall needs at least one corner");
+    assertEquals(1.0, path.get(0).x(), DELTA);
+    assertEquals(9.0, path.get(path.size() - 1).x(), DELTA);
+    assertLegsClear(grid, path);
+    assertTrue(
+        path.stream().anyMatch(p -> p.y() >= 4.0), "Path passes through the gap above the wall");
+    assertTrue(path.size() <= 4, "Smoothing leaves only the corners around the wall");
+  }
+
+  @Test
+  public void testLeavesAlongRobotHeading() {
+    GridPathfinder pathfinder = new GridPathfinder(wallGrid(0), 1.0, 8);
+    List<PathPoint> ahead = pathfinder.plan(1.0, 1.0, 0.3, 9.0, 1.0);
+    assertEquals(2, ahead.size(), "Open field is one straight leg");
+    assertEquals(0.3, ahead.get(0).headingRadians(), DELTA, "Goal ahead keeps the robot heading");
+    assertEquals(0.0, ahead.get(1).headingRadians(), DELTA, "Arrives along the leg");
+
+    List<PathPoint> behind = pathfinder.plan(9.0, 1.0, 0.0, 1.0, 1.0);
+    assertEquals(Math.PI, behind.get(0).headingRadians(), DELTA, "Goal behind turns to face it");
+  }
+
+  @Test
+  public void testUnreachableGoalIsEmpty() {
+    GridPathfinder pathfinder = new GridPathfinder(wallGrid(ROWS), 1.0, 8);
+    assertTrue(pathfinder.plan(1.0, 1.0, 0.0, 9.0, 1.0).isEmpty(), "The wall spans the field");
+  }
+
+  @Test
+  public void testRepeatedTripUsesCache() {
+    NavGrid grid = wallGrid(8);
+    GridPathfinder pathfinder = new GridPathfinder(grid, 1.0, 8);
+    pathfinder.plan(1.0, 1.0, 0.0, 9.0, 1.0);
+    assertFalse(pathfinder.wasLastPlanCached());
+
+    // Same regions, slightly different spots
+    List<PathPoint> path = pathfinder.plan(1.2, 1.3, 0.0, 9.1, 1.2);
+    assertTrue(pathfinder.wasLastPlanCached(), "Trip between the same regions reuses corners");
+    assertEquals(1.2, path.get(0).x(), DELTA, "Cached corners still start from the robot");
+    assertEquals(9.1, path.get(path.size() - 1).x(), DELTA);
+    assertLegsClear(grid, path);
+  }
+
+  @Test
+  public void testInflateBlocksFootprint() {
+    NavGrid inflated = wallGrid(8).inflate(0.6);
+    // Within 0.6 m of the wall
+    assertTrue(inflated.isBlocked(inflated.nodeAt(4.6, 1.0)));
+    assertTrue(inflated.isBlocked(inflated.nodeAt(5.9, 1.0)));
+    assertFalse(inflated.isBlocked(inflated.nodeAt(3.6, 1.0)), "Clear beyond the footprint");
+    assertTrue(inflated.isBlocked(inflated.nodeAt(0.2, 2.0)), "Field walls are inflated too");
+  }
+
+  @Test
+  public void testInflateClearsDiagonals() {
+    // One obstacle node at (4, 4) covering 2.0-2.5 m on both axes
+    boolean[] blocked = new boolean[9 * 9];
+    blocked[4 * 9 + 4] = true;
+    double radius = 0.37;
+    NavGrid inflated = new NavGrid(9, 9, NODE_SIZE, blocked).inflate(radius);
+
+    // The diagonal neighbour's center is 0.35 m from the obstacle's corner
+    assertTrue(inflated.isBlocked(5, 5), "Footprint at the diagonal would overlap the corner");
+    assertFalse(inflated.isBlocked(6, 4), "Two nodes away is clear");
+    for (int node = 0; node < 9 * 9; node++) {
+      if (inflated.isBlocked(node)) {
+        continue;
+      }
+      double dx = Math.max(0.0, Math.abs(inflated.centerX(node) - 2.25) - NODE_SIZE / 2);
+      double dy = Math.max(0.0, Math.abs(inflated.centerY(node) - 2.25) - NODE_SIZE / 2);
+      assertTrue(Math.hypot(dx, dy) >= radius, "Node " + node + " overlaps the obstacle");
+    }
+  }
+
+  @Test
+  public void testClearDoesNotCutCorners() {
+    boolean[] blocked = new boolean[4];
+    blocked[1] = true; // (col 1, row 0)
+    NavGrid grid = new NavGrid(2, 2, 1.0, blocked);
+    assertFalse(grid.isClear(0.5, 0.5, 1.5, 1.5), "Diagonal through a blocked corner");
+    assertTrue(grid.isClear(0.5, 0.5, 0.5, 1.5));
+  }
+}
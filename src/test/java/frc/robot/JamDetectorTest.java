@@ -0,0 +1,120 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.JamDetector;
+import org.junit.jupiter.api.Test;
+
+public class JamDetectorTest {
+
+  private static final double DELTA = 1e-6;
+  private static final double FREE_SPEED = 5676.0;
+  private static final double DT = 0.02;
+
+  /** Runs the roller freely at full output from t = 0 until {@code until}, returning the time. */
+  private double runFree(JamDetector detector, double until) {
+    double t = 0.0;
+    for (; t < until; t += DT) {
+      detector.update(t, 1.0, FREE_SPEED * 0.9, 8.0);
+    }
+    return t;
+  }
+
+  @Test
+  public void testFreeRunningIsNotJam() {
+    JamDetector detector = new JamDetector(FREE_SPEED, -0.5);
+    runFree(detector, 2.0);
+    assertFalse(detector.isReversing(), "A free spinning roller is not jammed");
+    assertTrue(detector.isSpinningFreely(), "Roller near free speed spins freely");
+    assertEquals(0, detector.getJamCount());
+  }
+
+  @Test
+  public void testStartupInrushIsIgnored() {
+    JamDetector detector = new JamDetector(FREE_SPEED, -0.5);
+    // Stalled-looking signature for the first 100 ms of spin-up
+    detector.update(0.0, 1.0, 0.0, 60.0);
+    detector.update(0.05, 1.0, 500.0, 60.0);
+    detector.update(0.1, 1.0, 2000.0, 40.0);
+    assertFalse(detector.isReversing(), "Spin-up inrush must not be treated as a jam");
+  }
+
+  @Test
+  public void testJamDetectedQuickly() {
+    JamDetector detector = new JamDetector(FREE_SPEED, -0.5);
+    double t = runFree(detector, 1.0);
+    double jamStart = t;
+    while (!detector.isReversing() && t < jamStart + 1.0) {
+      detector.update(t, 1.0, 100.0, 45.0);
+      t += DT;
+    }
+    assertTrue(detector.isReversing(), "Stalled roller at high current is a jam");
+    assertTrue(t - jamStart <= 0.1 + DELTA, "Jam must be flagged within about 100 ms");
+    assertEquals(1, detector.getJamCount());
+  }
+
+  @Test
+  public void testPickupBumpIsNotJam() {
+    JamDetector detector = new JamDetector(FREE_SPEED, -0.5);
+    double t = runFree(detector, 1.0);
+    // A piece loads the roller briefly but it keeps turning
+    for (int i = 0; i < 5; i++, t += DT) {
+      detector.update(t, 1.0, FREE_SPEED * 0.6, 35.0);
+    }
+    assertFalse(detector.isReversing(), "A roller that keeps turning is not jammed");
+  }
+
+  @Test
+  public void testReverseStopsWhenRecovered() {
+    JamDetector detector = new JamDetector(FREE_SPEED, -0.5);
+    double t = runFree(detector, 1.0);
+    while (!detector.isReversing()) {
+      detector.update(t, 1.0, 0.0, 45.0);
+      t += DT;
+    }
+    double reverseStart = t;
+    // Reversing: roller breaks free and spins backwards after a few cycles
+    detector.update(t, -0.5, 0.0, 30.0);
+    t += DT;
+    while (detector.isReversing() && t < reverseStart + 2.0) {
+      detector.update(t, -0.5, -0.5 * FREE_SPEED * 0.9, 10.0);
+      t += DT;
+    }
+    assertFalse(detector.isReversing(), "Reverse pulse ends once the roller is free");
+    assertTrue(
+        t - reverseStart < 0.25, "Pulse ends as soon as velocity recovers, not at the timeout");
+    assertTrue(detector.getTimeLost() > 0.0, "Time spent clearing the jam is counted");
+  }
+
+  @Test
+  public void testRepeatedJamsLengthenPulse() {
+    JamDetector detector = new JamDetector(FREE_SPEED, -0.5);
+    double t = runFree(detector, 1.0);
+    double firstPulse = 0.0;
+    for (int jam = 0; jam < 2; jam++) {
+      // Roller never frees, so each pulse runs to its limit
+      while (!detector.isReversing()) {
+        detector.update(t, 1.0, 0.0, 45.0);
+        t += DT;
+      }
+      double reverseStart = t;
+      while (detector.isReversing()) {
+        detector.update(t, -0.5, 0.0, 45.0);
+        t += DT;
+      }
+      double pulse = t - reverseStart;
+      if (jam == 0) {
+        firstPulse = pulse;
+      } else {
+        assertTrue(pulse > firstPulse, "A jam right after the last one gets a longer pulse");
+      }
+      // Spin back up before the next jam
+      for (double end = t + 0.3; t < end; t += DT) {
+        detector.update(t, 1.0, FREE_SPEED * 0.9, 8.0);
+      }
+    }
+    assertEquals(2, detector.getJamCount());
+  }
+}
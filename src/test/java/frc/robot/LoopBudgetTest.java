@@ -0,0 +1,135 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.LoopBudget;
+import frc.robot.utils.LoopBudget.Priority;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class LoopBudgetTest {
+
+  private static final double DELTA = 1e-9;
+  private static final double PERIOD = 0.02;
+  private static final double RESERVE = 0.004;
+  private static final int MAX_POSTPONED = 3;
+
+  // Simulated clock, advanced by the tasks as they "run"
+  private double m_now = 0.0;
+
+  private LoopBudget budget() {
+    return new LoopBudget(() -> m_now, PERIOD, RESERVE, MAX_POSTPONED);
+  }
+
+  private Runnable task(List<String> ran, String name, double seconds) {
+    return () -> {
+      ran.add(name);
+      m_now += seconds;
+    };
+  }
+
+  /** Starts a loop at the given time, with control already having taken some of it. */
+  private void runLoop(LoopBudget budget, double start, double controlSeconds) {
+    m_now = start + controlSeconds;
+    budget.run(start);
+  }
+
+  @Test
+  public void testEverythingRunsInQuietLoop() {
+    LoopBudget budget = budget();
+    List<String> ran = new ArrayList<>();
+    budget.register("low", Priority.LOW, task(ran, "low", 0.001));
+    budget.register("normal", Priority.NORMAL, task(ran, "normal", 0.001));
+    runLoop(budget, 0.0, 0.005);
+    assertEquals(List.of("normal", "low"), ran, "Normal priority work goes first");
+    assertEquals(0, budget.getPostponed());
+    assertEquals(0, budget.getDropped());
+    assertEquals(0.013, budget.getRemainingSeconds(), DELTA);
+  }
+
+  @Test
+  public void testSlowLoopDefersWork() {
+    LoopBudget budget = budget();
+    List<String> ran = new ArrayList<>();
+    budget.register("low", Priority.LOW, task(ran, "low", 0.002));
+    budget.register("normal", Priority.NORMAL, task(ran, "normal", 0.002));
+    // Learn what each task costs
+    runLoop(budget, 0.0, 0.005);
+    ran.clear();
+
+    // Control left 3 ms before the reserve, enough for one task but not both
+    runLoop(budget, 1.0, 0.013);
+    assertEquals(List.of("normal"), ran);
+    assertEquals(1, budget.getDropped());
+    assertEquals(1, budget.getDeferrals("low"));
+    ran.clear();
+
+    // Nothing left at all
+    runLoop(budget, 2.0, 0.017);
+    assertTrue(ran.isEmpty(), "Nothing starts inside the reserve");
+    assertEquals(1, budget.getPostponed());
+    assertEquals(1, budget.getDropped());
+    assertEquals(1, budget.getTotalPostponed());
+    assertEquals(2, budget.getTotalDropped());
+  }
+
+  @Test
+  public void testPostponedWorkIsForcedEventually() {
+    LoopBudget budget = budget();
+    List<String> ran = new ArrayList<>();
+    budget.register("normal", Priority.NORMAL, task(ran, "normal", 0.002));
+    runLoop(budget, 0.0, 0.0);
+    ran.clear();
+
+    for (int loop = 1; loop <= MAX_POSTPONED; loop++) {
+      runLoop(budget, loop, 0.019);
+      assertTrue(ran.isEmpty(), "Postponed in overrunning loop " + loop);
+    }
+    runLoop(budget, MAX_POSTPONED + 1, 0.019);
+    assertEquals(List.of("normal"), ran, "Runs regardless once it has waited long enough");
+    assertEquals(MAX_POSTPONED, budget.getDeferrals("normal"));
+  }
+
+  @Test
+  public void testLongestWaitingGoesFirst() {
+    LoopBudget budget = budget();
+    List<String> ran = new ArrayList<>();
+    budget.register("a", Priority.NORMAL, task(ran, "a", 0.002));
+    budget.register("b", Priority.NORMAL, task(ran, "b", 0.002));
+    runLoop(budget, 0.0, 0.0);
+    ran.clear();
+
+    // Room for one: a goes first by registration order and b waits
+    runLoop(budget, 1.0, 0.013);
+    assertEquals(List.of("a"), ran);
+    ran.clear();
+    runLoop(budget, 2.0, 0.013);
+    assertEquals(List.of("b"), ran, "The postponed task jumps the queue");
+  }
+
+  @Test
+  public void testCostEstimateDecays() {
+    LoopBudget budget = budget();
+    List<String> ran = new ArrayList<>();
+    double[] cost = {0.010};
+    budget.register(
+        "spiky",
+        Priority.LOW,
+        () -> {
+          ran.add("spiky");
+          m_now += cost[0];
+        });
+    runLoop(budget, 0.0, 0.0);
+    cost[0] = 0.001;
+
+    // One slow run keeps it out of busy loops for a while, but not forever
+    int loop = 1;
+    ran.clear();
+    while (ran.isEmpty() && loop < 200) {
+      runLoop(budget, loop++, 0.010);
+    }
+    assertTrue(loop > 2 && loop < 200, "Ran again after " + loop + " loops");
+  }
+}
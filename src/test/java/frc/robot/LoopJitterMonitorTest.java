@@ -0,0 +1,51 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import frc.robot.utils.LoopJitterMonitor;
+import org.junit.jupiter.api.Test;
+
+public class LoopJitterMonitorTest {
+
+  private static final double DELTA = 1e-9;
+  private static final double PERIOD = 0.02;
+
+  @Test
+  public void testSteadyLoopHasNoJitter() {
+    LoopJitterMonitor monitor = new LoopJitterMonitor(PERIOD, 10);
+    for (int loop = 0; loop <= 20; loop++) {
+      monitor.update(loop * PERIOD);
+    }
+    assertEquals(PERIOD, monitor.getLastPeriod(), DELTA);
+    assertEquals(0.0, monitor.getPeakJitter(), DELTA);
+    assertEquals(0.0, monitor.getRmsJitter(), DELTA);
+    assertEquals(0, monitor.getOverruns());
+  }
+
+  @Test
+  public void testLateLoopShowsForWholeWindow() {
+    LoopJitterMonitor monitor = new LoopJitterMonitor(PERIOD, 4);
+    double[] starts = {0.0, 0.020, 0.043, 0.060, 0.080};
+    for (double start : starts) {
+      monitor.update(start);
+    }
+    // Window was 20, 23, 17, 20 ms
+    assertEquals(0.003, monitor.getPeakJitter(), DELTA);
+    assertEquals(Math.sqrt(2 * 0.003 * 0.003 / 4), monitor.getRmsJitter(), DELTA);
+
+    monitor.update(0.100);
+    assertEquals(0.0, monitor.getLastJitter(), DELTA);
+    assertEquals(0.003, monitor.getPeakJitter(), DELTA, "Held until the next window completes");
+  }
+
+  @Test
+  public void testCountsMissedLoops() {
+    LoopJitterMonitor monitor = new LoopJitterMonitor(PERIOD, 50);
+    monitor.update(0.0);
+    monitor.update(0.025);
+    assertEquals(0, monitor.getOverruns(), "Late but not a missed loop");
+    monitor.update(0.065);
+    assertEquals(1, monitor.getOverruns());
+    assertEquals(0.020, monitor.getLastJitter(), DELTA);
+  }
+}
@@ -0,0 +1,47 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import frc.robot.utils.MotorGains;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MotorGainsTest {
+
+  private static final MotorGains DEFAULTS = new MotorGains(0.1, 0.5, 0.0);
+
+  @Test
+  public void testMissingFileKeepsDefaults(@TempDir Path directory) throws IOException {
+    File missing = directory.resolve("sysid/turret.json").toFile();
+    assertEquals(DEFAULTS, MotorGains.load(missing, DEFAULTS));
+  }
+
+  @Test
+  public void testLoadsFittedGains(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("turret.json");
+    Files.writeString(
+        file, "{\"kS\": 0.2, \"kV\": 0.45, \"kA\": 0.03, \"rSquared\": 0.998, \"samples\": 812}");
+    assertEquals(new MotorGains(0.2, 0.45, 0.03), MotorGains.load(file.toFile(), DEFAULTS));
+
+    Files.writeString(file, "{\"kS\": 0.2, \"kV\": 0.45}");
+    assertEquals(
+        new MotorGains(0.2, 0.45, 0.0),
+        MotorGains.load(file.toFile(), DEFAULTS),
+        "Gains missing from the file keep their defaults");
+  }
+
+  @Test
+  public void testRejectsBadFiles(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("flywheel.json");
+    Files.writeString(file, "{\"kS\": 0.2, \"kV\": -0.45, \"kA\": 0.03}");
+    assertThrows(IOException.class, () -> MotorGains.load(file.toFile(), DEFAULTS));
+
+    Files.writeString(file, "{\"kS\": ");
+    assertThrows(IOException.class, () -> MotorGains.load(file.toFile(), DEFAULTS));
+  }
+}
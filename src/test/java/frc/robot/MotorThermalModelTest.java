@@ -0,0 +1,80 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.MotorThermalModel;
+import org.junit.jupiter.api.Test;
+
+public class MotorThermalModelTest {
+
+  private static final double DELTA = 1e-6;
+  private static final double GAIN = 0.06;
+  private static final double TIME_CONSTANT = 250.0;
+  private static final double AMBIENT = 25.0;
+  private static final double LIMIT = 90.0;
+  private static final double HORIZON = 20.0;
+  private static final double MEASUREMENT_GAIN = 0.05;
+  private static final double PERIOD = 0.02;
+
+  private static MotorThermalModel newModel() {
+    return new MotorThermalModel(GAIN, TIME_CONSTANT, AMBIENT, LIMIT, HORIZON, MEASUREMENT_GAIN);
+  }
+
+  @Test
+  public void testHeatingFollowsModel() {
+    MotorThermalModel model = newModel();
+    model.update(0.0, 0.0, Double.NaN);
+    assertEquals(AMBIENT, model.getTemperature(), DELTA);
+    assertEquals(Double.POSITIVE_INFINITY, model.getTimeToLimit(30.0), "30 A holds at 79 C");
+
+    // 60 A settles at 241 C, so the limit is reached after -tau * ln(151 / 216)
+    double predicted = model.getTimeToLimit(60.0);
+    assertEquals(-TIME_CONSTANT * Math.log(151.0 / 216.0), predicted, DELTA);
+    double t = 0.0;
+    while (model.getTemperature() < LIMIT) {
+      t += PERIOD;
+      model.update(t, 60.0, Double.NaN);
+    }
+    assertEquals(predicted, t, PERIOD * 2, "Reached the limit when predicted");
+    assertEquals(0.0, model.getTimeToLimit(), DELTA);
+  }
+
+  @Test
+  public void testEstimateNeverBelowSensor() {
+    MotorThermalModel model = newModel();
+    model.update(0.0, 0.0, 40.0);
+    assertEquals(40.0, model.getTemperature(), DELTA, "Starts from the reading");
+
+    // The model leads a sensor that lags behind the windings
+    for (int i = 1; i <= 500; i++) {
+      model.update(i * PERIOD, 80.0, 40.0);
+    }
+    assertTrue(model.getTemperature() > 40.0);
+
+    // And a reading hotter than the model is taken as-is
+    model.update(10.02, 0.0, 70.0);
+    assertTrue(model.getTemperature() >= 70.0);
+  }
+
+  @Test
+  public void testCurrentLimitDeratesSmoothly() {
+    MotorThermalModel model = newModel();
+    model.update(0.0, 0.0, Double.NaN);
+    double previous = model.getCurrentLimit();
+    assertTrue(previous > 80.0, "No derating on a cold motor");
+
+    double t = 0.0;
+    while (model.getTemperature() < LIMIT) {
+      t += PERIOD;
+      model.update(t, 80.0, Double.NaN);
+      double limit = model.getCurrentLimit();
+      assertTrue(limit <= previous, "Falls as the motor heats");
+      assertTrue(previous - limit < 1.0, "Without steps");
+      previous = limit;
+    }
+    // At the limit, only the current that holds it there is left
+    double holding = Math.sqrt((LIMIT - AMBIENT) / GAIN);
+    assertEquals(holding, model.getCurrentLimit(), 0.5);
+  }
+}
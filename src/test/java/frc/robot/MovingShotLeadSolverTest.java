@@ -0,0 +1,97 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.aim.ConstantVelocityLeadSolver;
+import frc.robot.utils.aim.LeadSolution;
+import frc.robot.utils.aim.MovingShotLeadSolver;
+import frc.robot.utils.aim.RobotMotion;
+import org.junit.jupiter.api.Test;
+
+public class MovingShotLeadSolverTest {
+
+  private static final double DELTA = 1e-3;
+  private static final double TARGET_X = 16.0;
+  private static final double TARGET_Y = 4.0;
+  private static final double HEIGHT = 1.5;
+
+  private static RobotMotion still(double x, double y, double heading) {
+    return new RobotMotion(x, y, heading, 0.0, 0.0, 0.0, 0.0, 0.0);
+  }
+
+  @Test
+  public void testStandingStillAimsAtTarget() {
+    LeadSolution solution =
+        new MovingShotLeadSolver(0.0, 0.0, 0.0).solve(still(6.0, 4.0, 1.0), TARGET_X, TARGET_Y, 0);
+    assertTrue(solution.feasible());
+    assertEquals(0.0, solution.yawRadians(), DELTA);
+    double speed = ConstantVelocityLeadSolver.PROJECTILE_SPEED;
+    assertEquals(10.0 / speed, solution.timeOfFlightSeconds(), DELTA);
+  }
+
+  @Test
+  public void testMatchesConstantVelocityWhenDrivingStraight() {
+    RobotMotion robot = RobotMotion.ofDifferential(6.0, 2.0, 0.5, 3.0, 0.0, 0.0);
+    LeadSolution moving = new MovingShotLeadSolver(0.0, 0.0, 0.0).solve(robot, 16, 4, HEIGHT);
+    LeadSolution constant = new ConstantVelocityLeadSolver().solve(robot, 16, 4, HEIGHT);
+    assertEquals(constant.yawRadians(), moving.yawRadians(), DELTA);
+    assertEquals(constant.timeOfFlightSeconds(), moving.timeOfFlightSeconds(), DELTA);
+    assertEquals(constant.rpm(), moving.rpm(), 1.0);
+  }
+
+  @Test
+  public void testLeadsTangentialVelocityOfOffsetTurret() {
+    // Spinning in place with the turret 0.3 m behind center, facing the target
+    double offsetX = -0.3;
+    double omega = 3.0;
+    MovingShotLeadSolver solver = new MovingShotLeadSolver(offsetX, 0.0, 0.0);
+    RobotMotion robot = new RobotMotion(6.0, 4.0, 0.0, 0.0, 0.0, 0.0, 0.0, omega);
+    LeadSolution solution = solver.solve(robot, TARGET_X, TARGET_Y, HEIGHT);
+    assertTrue(solution.feasible());
+
+    // The launcher moves at omega x r = -0.9 m/s in Y, so the piece has to be aimed left
+    double launcherVy = omega * offsetX;
+    double t = solution.timeOfFlightSeconds();
+    double landedX = 6.0 + offsetX + solution.launchSpeed() * Math.cos(solution.yawRadians()) * t;
+    double landedY =
+        4.0 + (launcherVy + solution.launchSpeed() * Math.sin(solution.yawRadians())) * t;
+    assertTrue(solution.yawRadians() > 0.0, "Aims against the turret's swing");
+    assertEquals(TARGET_X, landedX, DELTA);
+    assertEquals(TARGET_Y, landedY, DELTA);
+  }
+
+  @Test
+  public void testCarriesRobotForwardOverReleaseLatency() {
+    // Accelerating from rest, the piece leaves after the robot has already picked up speed
+    double latency = 0.1;
+    RobotMotion robot = RobotMotion.ofDifferential(6.0, 2.0, 0.0, 0.0, 4.0, 0.0);
+    LeadSolution delayed = new MovingShotLeadSolver(0.0, 0.0, latency).solve(robot, 16, 4, HEIGHT);
+    RobotMotion atRelease = RobotMotion.ofDifferential(6.02, 2.0, 0.0, 0.4, 4.0, 0.0);
+    LeadSolution expected = new MovingShotLeadSolver(0.0, 0.0, 0.0).solve(atRelease, 16, 4, HEIGHT);
+    assertEquals(expected.yawRadians(), delayed.yawRadians(), 1e-9);
+    assertEquals(expected.timeOfFlightSeconds(), delayed.timeOfFlightSeconds(), 1e-9);
+  }
+
+  @Test
+  public void testTurningAddsCentripetalAcceleration() {
+    RobotMotion robot = RobotMotion.ofDifferential(0.0, 0.0, 0.0, 2.0, 1.0, 0.5);
+    assertEquals(1.0, robot.ax(), 1e-9);
+    assertEquals(1.0, robot.ay(), 1e-9, "v * omega toward the center of the turn");
+  }
+
+  @Test
+  public void testFlagsUnreachableShots() {
+    MovingShotLeadSolver solver = new MovingShotLeadSolver();
+    double outrun = ConstantVelocityLeadSolver.PROJECTILE_SPEED + 1.0;
+    RobotMotion fast = RobotMotion.ofDifferential(6.0, 4.0, Math.PI / 2, outrun, 0.0, 0.0);
+    LeadSolution chasing = new MovingShotLeadSolver(0.0, 0.0, 0.0).solve(fast, 16, 4, HEIGHT);
+    assertFalse(chasing.feasible(), "The launcher outruns its own shot");
+    assertEquals(0.0, chasing.yawRadians(), DELTA, "Falls back to pointing at the target");
+
+    LeadSolution far = solver.solve(still(0.0, 4.0, 0.0), 80.0, TARGET_Y, HEIGHT);
+    assertFalse(far.feasible(), "Needs more than the flywheel's top speed");
+    assertEquals(ConstantVelocityLeadSolver.MAX_RPM, far.rpm(), DELTA);
+  }
+}
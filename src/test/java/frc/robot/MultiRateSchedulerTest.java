@@ -0,0 +1,85 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import frc.robot.utils.MultiRateScheduler;
+import org.junit.jupiter.api.Test;
+
+public class MultiRateSchedulerTest {
+
+  private static final double DELTA = 1e-9;
+  private static final double PERIOD = 0.02;
+
+  // Simulated clock, advanced by the tasks as they "run"
+  private double m_now = 0.0;
+
+  private MultiRateScheduler scheduler() {
+    return new MultiRateScheduler(() -> m_now, PERIOD);
+  }
+
+  @Test
+  public void testRunsAtRateOnPhase() {
+    MultiRateScheduler scheduler = scheduler();
+    int[] runs = new int[1];
+    scheduler.scheduleAt("task", 5.0, 3, 1.0, () -> runs[0]++);
+    for (int loop = 0; loop < 50; loop++) {
+      scheduler.run();
+      int expected = loop >= 3 ? (loop - 3) / 10 + 1 : 0;
+      assertEquals(expected, runs[0], "Runs on loop 3 of every 10, loop " + loop);
+    }
+  }
+
+  @Test
+  public void testSpreadsHeavyTasks() {
+    MultiRateScheduler scheduler = scheduler();
+    int first = scheduler.schedule("a", 5.0, 3.0, () -> {});
+    int second = scheduler.schedule("b", 5.0, 3.0, () -> {});
+    assertNotEquals(first, second, "Two heavy tasks at the same rate go on different loops");
+
+    // A fast task can't avoid them, but lands where it adds to the fewest of its runs
+    scheduler.schedule("fast", 25.0, 1.0, () -> {});
+    double[] load = scheduler.getLoad();
+    double peak = 0.0;
+    for (double weight : load) {
+      peak = Math.max(peak, weight);
+    }
+    assertEquals(4.0, peak, DELTA, "Never two heavy tasks on one loop");
+  }
+
+  @Test
+  public void testSlowTaskAvoidsFastTask() {
+    MultiRateScheduler scheduler = scheduler();
+    scheduler.scheduleAt("every other", 25.0, 0, 1.0, () -> {});
+    int phase = scheduler.schedule("slow", 1.0, 1.0, () -> {});
+    assertEquals(1, phase % 2, "Lands on a loop the faster task leaves free");
+  }
+
+  @Test
+  public void testMeasuresRunTime() {
+    MultiRateScheduler scheduler = scheduler();
+    double[] cost = {0.001};
+    scheduler.scheduleAt("task", 25.0, 0, 1.0, () -> m_now += cost[0]);
+    scheduler.run();
+    cost[0] = 0.003;
+    scheduler.run(); // Off phase
+    scheduler.run();
+    MultiRateScheduler.Task task = scheduler.getTasks().get(0);
+    assertEquals(0.003, task.getLastSeconds(), DELTA);
+    assertEquals(0.003, task.getMaxSeconds(), DELTA);
+    assertEquals(0.002, task.getAverageSeconds(), DELTA);
+    assertEquals(0.001, task.getSecondsPerLoop(), DELTA, "Averaged over both loops of its period");
+    assertEquals(0.003, scheduler.getLastLoopSeconds(), DELTA);
+  }
+
+  @Test
+  public void testRejectsBadSchedules() {
+    MultiRateScheduler scheduler = scheduler();
+    assertThrows(
+        IllegalArgumentException.class, () -> scheduler.scheduleAt("a", 5.0, 10, 1.0, () -> {}));
+    assertThrows(IllegalArgumentException.class, () -> scheduler.schedule("a", 0.0, 1.0, () -> {}));
+    scheduler.schedule("a", 5.0, 1.0, () -> {});
+    assertThrows(IllegalArgumentException.class, () -> scheduler.schedule("a", 1.0, 1.0, () -> {}));
+  }
+}
@@ -0,0 +1,90 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.SlipDetector;
+import org.junit.jupiter.api.Test;
+
+public class SlipDetectorTest {
+
+  private static final double DELTA = 1e-9;
+  private static final double TRACK_WIDTH = 0.5;
+  private static final double HOLD = 0.25;
+
+  private static SlipDetector newDetector() {
+    return new SlipDetector(TRACK_WIDTH, 0.15, 0.1, 0.5, 0.25, HOLD);
+  }
+
+  @Test
+  public void testPairMismatch() {
+    SlipDetector detector = newDetector();
+    // Driving straight at 3 m/s with a little encoder noise
+    detector.update(0.0, 3.0, 3.1, 3.0, 2.95, 0.0);
+    assertFalse(detector.isSlipping());
+
+    // Back left spins up under hard acceleration
+    detector.update(0.02, 4.0, 3.1, 3.0, 3.0, 0.0);
+    assertTrue(detector.isSlipping());
+    assertEquals(0.9, detector.getLeftMismatch(), DELTA);
+    assertEquals(1, detector.getSlipEvents());
+
+    // Held, then cleared once traction is back
+    detector.update(0.2, 3.1, 3.1, 3.1, 3.1, 0.0);
+    assertTrue(detector.isSlipping(), "Held after the last detection");
+    detector.update(0.3, 3.1, 3.1, 3.1, 3.1, 0.0);
+    assertFalse(detector.isSlipping());
+    assertEquals(1, detector.getSlipEvents());
+  }
+
+  @Test
+  public void testYawRateDisagreement() {
+    SlipDetector detector = newDetector();
+    // Turning in place, wheels and gyro agree on 4 rad/s
+    detector.update(0.0, -1.0, -1.0, 1.0, 1.0, 4.0);
+    assertFalse(detector.isSlipping());
+    assertEquals(0.0, detector.getYawRateError(), DELTA);
+
+    // Pinned while pushing: the wheels turn the same but the robot doesn't
+    detector.update(0.02, -1.0, -1.0, 1.0, 1.0, 0.0);
+    assertTrue(detector.isSlipping(), "Both wheels on a side slipping together");
+    assertEquals(4.0, detector.getYawRateError(), DELTA);
+  }
+
+  @Test
+  public void testHardTurnScrubIsNotSlip() {
+    SlipDetector detector = newDetector();
+    // Wheels imply 8 rad/s, scrub leaves the robot turning at 6.5
+    detector.update(0.0, -2.0, -2.0, 2.0, 2.0, 6.5);
+    assertEquals(1.5, detector.getYawRateError(), DELTA);
+    assertFalse(detector.isSlipping(), "Tolerance grows with the yaw rate");
+  }
+
+  @Test
+  public void testLimitStep() {
+    assertEquals(0.52, SlipDetector.limitStep(1.0, 0.5, 0.02), DELTA, "Speeding up is limited");
+    assertEquals(-0.52, SlipDetector.limitStep(-1.0, -0.5, 0.02), DELTA);
+    assertEquals(0.49, SlipDetector.limitStep(0.49, 0.5, 0.02), DELTA);
+    assertEquals(0.0, SlipDetector.limitStep(0.0, 0.5, 0.02), DELTA, "Stopping is not limited");
+    assertEquals(-0.02, SlipDetector.limitStep(-1.0, 0.0, 0.02), DELTA);
+    assertEquals(-0.02, SlipDetector.limitStep(-1.0, 0.5, 0.02), DELTA, "Reversals start at zero");
+  }
+
+  @Test
+  public void testLimitTractionCutsBackToGrip() {
+    // Pushing at full stick: the wheels only hold 0.4, so the output drops there and ramps
+    assertEquals(0.42, SlipDetector.limitTraction(1.0, 1.0, 0.4, 0.02), DELTA);
+    assertEquals(0.42, SlipDetector.limitTraction(1.0, 0.42, 0.4, 0.02), DELTA, "Held near grip");
+    assertEquals(0.44, SlipDetector.limitTraction(1.0, 0.42, 0.6, 0.02), DELTA, "Follows grip");
+    assertEquals(-0.42, SlipDetector.limitTraction(-1.0, -1.0, 0.4, 0.02), DELTA);
+    assertEquals(0.3, SlipDetector.limitTraction(0.3, 1.0, 0.4, 0.02), DELTA, "Slowing is free");
+    assertEquals(-0.02, SlipDetector.limitTraction(-1.0, 0.42, 0.4, 0.02), DELTA);
+
+    // The ground speed is the slower wheel's
+    SlipDetector detector = newDetector();
+    detector.update(0.0, 4.0, 1.0, -0.5, -2.0, 0.0);
+    assertEquals(1.0, detector.getLeftSpeed(), DELTA);
+    assertEquals(-0.5, detector.getRightSpeed(), DELTA);
+  }
+}
@@ -0,0 +1,39 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.telemetry.TelemetryProfile;
+import frc.robot.telemetry.TelemetryRoute;
+import org.junit.jupiter.api.Test;
+
+public class TelemetryProfileTest {
+
+  @Test
+  public void testLogKeepsEverything() {
+    for (TelemetryProfile profile : TelemetryProfile.values()) {
+      assertTrue(profile.route("Power/Budget (A)").log(), profile + " must log diagnostics");
+      assertTrue(profile.route("Vision/State").log(), profile + " must log driver keys");
+    }
+  }
+
+  @Test
+  public void testCompetitionOnlySendsDriverKeys() {
+    TelemetryProfile profile = TelemetryProfile.COMPETITION;
+    assertTrue(profile.route("Field").networkTables(), "Drivers need the field view");
+    assertTrue(profile.route("Inventory/Count").networkTables(), "Drivers need the piece count");
+    assertFalse(profile.route("Power/Budget (A)").networkTables(), "Diagnostics stay in the log");
+    assertFalse(profile.route("Sim_IsFiring").networkTables(), "Sim keys are never sent");
+    assertFalse(profile.mirrorsLogToNetworkTables(), "Log mirror is off in competition");
+  }
+
+  @Test
+  public void testPracticeDecimatesDiagnostics() {
+    TelemetryRoute diagnostic = TelemetryProfile.PRACTICE.route("Odometry/Dropped Samples");
+    assertTrue(diagnostic.networkTables());
+    assertTrue(diagnostic.decimation() > 1, "High-rate diagnostics are decimated in practice");
+    assertEquals(1, TelemetryProfile.DEBUG.route("Odometry/Dropped Samples").decimation());
+    assertEquals(TelemetryRoute.NETWORK_TABLES_ONLY, TelemetryProfile.DEBUG.route("Sim_IsFiring"));
+  }
+}
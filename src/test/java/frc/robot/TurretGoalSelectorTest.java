@@ -0,0 +1,75 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.robot.utils.TurretGoalSelector;
+import org.junit.jupiter.api.Test;
+
+public class TurretGoalSelectorTest {
+
+  private static final double DELTA = 1e-6;
+  private static final double LIMIT = Math.toRadians(345.0);
+  private static final double CENTER_WEIGHT = 0.25;
+
+  private static double degrees(double degrees) {
+    return Math.toRadians(degrees);
+  }
+
+  @Test
+  public void testStaysOnCurrentBranch() {
+    TurretGoalSelector selector = new TurretGoalSelector(LIMIT, CENTER_WEIGHT);
+    // Wound up to 300 degrees, the goal is given wrapped as -60
+    double goal = selector.select(degrees(300.0), degrees(-60.0), 0.0);
+    assertEquals(degrees(300.0), goal, DELTA, "No need to swing a full turn to the same heading");
+    assertFalse(selector.isLongWay());
+  }
+
+  @Test
+  public void testTakesShortestWay() {
+    TurretGoalSelector selector = new TurretGoalSelector(LIMIT, CENTER_WEIGHT);
+    assertEquals(degrees(190.0), selector.select(degrees(170.0), degrees(-170.0), 0.0), DELTA);
+    assertEquals(degrees(-10.0), selector.select(degrees(20.0), degrees(350.0), 0.0), DELTA);
+  }
+
+  @Test
+  public void testStaysInsideLimit() {
+    TurretGoalSelector selector = new TurretGoalSelector(LIMIT, CENTER_WEIGHT);
+    // The short way from 340 to 10 degrees (370) is past the limit
+    double goal = selector.select(degrees(340.0), degrees(10.0), 0.0);
+    assertEquals(degrees(10.0), goal, DELTA);
+    assertTrue(selector.isLongWay(), "Going back round counts as unwinding");
+  }
+
+  @Test
+  public void testRotationBreaksTies() {
+    TurretGoalSelector selector = new TurretGoalSelector(LIMIT, CENTER_WEIGHT);
+    // Directly behind is equally far either way; turning counterclockwise carries the
+    // robot-relative goal clockwise, so +180 is the side that drifts back toward center
+    assertEquals(degrees(180.0), selector.select(0.0, degrees(180.0), degrees(90.0)), DELTA);
+    assertEquals(degrees(-180.0), selector.select(0.0, degrees(180.0), degrees(-90.0)), DELTA);
+  }
+
+  @Test
+  public void testSpinningRobotOnlyUnwindsAtLimit() {
+    TurretGoalSelector selector = new TurretGoalSelector(LIMIT, CENTER_WEIGHT);
+    // Robot spinning at 1 rad/s while tracking a fixed field heading for 20 s
+    double omega = 1.0;
+    double angle = 0.0;
+    int unwinds = 0;
+    boolean wasLongWay = false;
+    for (double t = 0.0; t < 20.0; t += 0.02) {
+      double goal = selector.select(angle, -omega * t, omega);
+      if (selector.isLongWay() && !wasLongWay) {
+        unwinds++;
+      }
+      wasLongWay = selector.isLongWay();
+      assertTrue(Math.abs(goal) <= LIMIT + DELTA, "Goal stays inside the wrap range");
+      angle = goal; // Perfect tracking
+    }
+    // Only unwinds once the goal would leave the range: after the first 345 degrees, then once
+    // per turn, which is 3 times in 20 rad
+    assertEquals(3, unwinds);
+  }
+}